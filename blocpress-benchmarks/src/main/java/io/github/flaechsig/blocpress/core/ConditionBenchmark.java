@@ -0,0 +1,69 @@
+package io.github.flaechsig.blocpress.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.flaechsig.blocpress.core.odt.JexlConditionEvaluator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluation of a single condition: {@link TemplateElement#matchCondition(JsonNode)} substitutes the data into
+ * the condition and depends on the size of the dataset, {@link JexlConditionEvaluator#evaluate(String)} evaluates
+ * the substituted expression.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConditionBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int fields;
+
+    @Param({"0", "100"})
+    int rows;
+
+    private Path dir;
+    private TemplateElement condition;
+    private JsonNode data;
+
+    @Setup
+    public void setUp() throws IOException {
+        var shape = new SyntheticTemplate.Shape(fields, 1, 1, 0);
+        dir = Files.createTempDirectory("blocpress-bench");
+        condition = TemplateDocument.getInstance(SyntheticTemplate.write(dir, shape))
+                .collectConditionalTemplateElements().getFirst();
+        data = SyntheticTemplate.data(shape, rows);
+    }
+
+    @TearDown
+    public void tearDown() {
+        SyntheticTemplate.delete(dir);
+    }
+
+    @Benchmark
+    public boolean matchCondition() {
+        return condition.matchCondition(data);
+    }
+
+    @Benchmark
+    public boolean evaluate() {
+        return JexlConditionEvaluator.evaluate("\"T0\" == \"T0\"");
+    }
+}
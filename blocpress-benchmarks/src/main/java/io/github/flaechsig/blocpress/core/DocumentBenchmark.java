@@ -0,0 +1,65 @@
+package io.github.flaechsig.blocpress.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading a template ({@link TemplateDocument#getInstance(URL)}) and saving it ({@link TemplateDocument#save}),
+ * the fixed costs of every render.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocumentBenchmark {
+
+    @Param({"10", "1000"})
+    int fields;
+
+    private Path dir;
+    private URL template;
+    private TemplateDocument document;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("blocpress-bench");
+        template = SyntheticTemplate.write(dir, new SyntheticTemplate.Shape(fields, 10, 1, 0));
+        document = TemplateDocument.getInstance(template);
+    }
+
+    @TearDown
+    public void tearDown() {
+        SyntheticTemplate.delete(dir);
+    }
+
+    @Benchmark
+    public TemplateDocument load() {
+        return TemplateDocument.getInstance(template);
+    }
+
+    @Benchmark
+    public byte[] save() {
+        var out = new ByteArrayOutputStream();
+        document.save(out);
+        return out.toByteArray();
+    }
+}
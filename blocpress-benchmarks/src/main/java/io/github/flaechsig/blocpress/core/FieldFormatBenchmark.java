@@ -0,0 +1,69 @@
+package io.github.flaechsig.blocpress.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formatting a field value with the number and date style of the field ({@code UserFieldFormatter}). The formatter
+ * looks the style up in the document, so the cost grows with the number of fields.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FieldFormatBenchmark {
+
+    @Param({"10", "1000"})
+    int fields;
+
+    private Path dir;
+    private TemplateDocument document;
+    private TemplateElement numberField;
+    private TemplateElement dateField;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("blocpress-bench");
+        document = TemplateDocument.getInstance(SyntheticTemplate.write(dir, new SyntheticTemplate.Shape(fields, 0, 0, 0)));
+        for (var field : document.collectUserFields()) {
+            switch (field.getName()) {
+                case "kunde.betrag" -> numberField = field;
+                case "kunde.datum" -> dateField = field;
+                default -> {
+                }
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        SyntheticTemplate.delete(dir);
+    }
+
+    @Benchmark
+    public String formatNumber() {
+        return document.formatFieldValue(numberField, "12345.678");
+    }
+
+    @Benchmark
+    public String formatDate() {
+        return document.formatFieldValue(dateField, "2026-03-31");
+    }
+}
@@ -0,0 +1,69 @@
+package io.github.flaechsig.blocpress.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Duplication of a repeat group (table row) for 10, 1k and 10k array items. Duplicating changes the document,
+ * so every invocation works on a freshly loaded template.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LoopBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    int rows;
+
+    private Path dir;
+    private URL template;
+    private JsonNode data;
+    private TemplateDocument document;
+    private Map.Entry<TemplateElement, String> repeatGroup;
+
+    @Setup(Level.Trial)
+    public void writeTemplate() throws IOException {
+        var shape = new SyntheticTemplate.Shape(1, 0, 1, 0);
+        dir = Files.createTempDirectory("blocpress-bench");
+        template = SyntheticTemplate.write(dir, shape);
+        data = SyntheticTemplate.data(shape, rows);
+    }
+
+    @Setup(Level.Invocation)
+    public void loadTemplate() {
+        document = TemplateDocument.getInstance(template);
+        repeatGroup = document.findRepeatGroups(data).entrySet().iterator().next();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SyntheticTemplate.delete(dir);
+    }
+
+    @Benchmark
+    public int handleGenericLoop() {
+        return RenderEngine.handleGenericLoop(document, repeatGroup.getKey(), repeatGroup.getValue(), data);
+    }
+}
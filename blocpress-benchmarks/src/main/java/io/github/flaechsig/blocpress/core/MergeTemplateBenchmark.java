@@ -0,0 +1,70 @@
+package io.github.flaechsig.blocpress.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end merge of a synthetic template: loading, text blocks, conditions, loops, fields and saving.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MergeTemplateBenchmark {
+
+    @Param({"10", "100"})
+    int fields;
+
+    @Param({"10", "100"})
+    int conditions;
+
+    @Param({"1"})
+    int loops;
+
+    @Param({"10", "1000"})
+    int rows;
+
+    @Param({"0", "10"})
+    int bausteine;
+
+    private Path dir;
+    private URL template;
+    private JsonNode data;
+
+    @Setup
+    public void setUp() throws IOException {
+        var shape = new SyntheticTemplate.Shape(fields, conditions, loops, bausteine);
+        dir = Files.createTempDirectory("blocpress-bench");
+        template = SyntheticTemplate.write(dir, shape);
+        data = SyntheticTemplate.data(shape, rows);
+    }
+
+    @TearDown
+    public void tearDown() {
+        SyntheticTemplate.delete(dir);
+    }
+
+    @Benchmark
+    public byte[] mergeTemplate() {
+        return RenderEngine.mergeTemplate(template, data);
+    }
+}
@@ -0,0 +1,234 @@
+package io.github.flaechsig.blocpress.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.odftoolkit.odfdom.doc.OdfTextDocument;
+import org.odftoolkit.odfdom.pkg.OdfPackage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+
+/**
+ * Erzeugt synthetische ODT-Templates und passende Datensätze für die Benchmarks.
+ *
+ * <p><b>Fachlicher Kontext:</b>
+ * Die Testvorlagen in {@code blocpress-core} sind klein und fachlich motiviert; für Messungen braucht es Templates,
+ * deren Umfang sich gezielt steuern lässt. Ein {@link Shape} legt fest, wie viele Felder, Bedingungen,
+ * Wiederholungsgruppen und Bausteine das Template enthält; die Anzahl der Zeilen je Wiederholungsgruppe bestimmt der
+ * Datensatz ({@link #data(Shape, int)}). Die Bausteine werden als eigene Dateien neben das Template geschrieben und
+ * wie im Dateimodus über {@code xlink:href} relativ zum Template aufgelöst.</p>
+ *
+ * <p>Aufbau des Templates:</p>
+ * <ul>
+ *   <li>Felder {@code kunde.feld0 … kunde.feldN} als Text, dazu {@code kunde.betrag} mit Zahlenformat {@value #NUMBER_STYLE}
+ *       und {@code kunde.datum} mit Datumsformat {@value #DATE_STYLE}</li>
+ *   <li>Bedingte Texte {@code ooow:kunde.typ == "T<i>"}, von denen genau einer zutrifft</li>
+ *   <li>Je Wiederholungsgruppe eine Tabellenzeile über das Array {@code positionen<i>} mit Name, Menge und Preis</li>
+ *   <li>Je Baustein ein Bereich mit Verknüpfung auf {@code baustein<i>.odt}, jeder Baustein mit eigener Absatzvorlage</li>
+ * </ul>
+ *
+ * <p><b>Design-Referenzen:</b></p>
+ * <ul>
+ *   <li>EDC: <a href="docs/Element_Design_Concept.adoc#edc-tf-5">TF-5: Dokument generieren</a></li>
+ * </ul>
+ */
+public final class SyntheticTemplate {
+    static final String TEMPLATE_FILE = "template.odt";
+    static final String NUMBER_STYLE = "N1";
+    static final String DATE_STYLE = "N2";
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private static final String NAMESPACES = """
+            xmlns:office="urn:oasis:names:tc:opendocument:xmlns:office:1.0" \
+            xmlns:style="urn:oasis:names:tc:opendocument:xmlns:style:1.0" \
+            xmlns:text="urn:oasis:names:tc:opendocument:xmlns:text:1.0" \
+            xmlns:table="urn:oasis:names:tc:opendocument:xmlns:table:1.0" \
+            xmlns:fo="urn:oasis:names:tc:opendocument:xmlns:xsl-fo-compatible:1.0" \
+            xmlns:number="urn:oasis:names:tc:opendocument:xmlns:datastyle:1.0" \
+            xmlns:xlink="http://www.w3.org/1999/xlink" \
+            xmlns:ooow="http://openoffice.org/2004/writer" \
+            office:version="1.3\"""";
+
+    private SyntheticTemplate() {
+    }
+
+    /**
+     * Size of a synthetic template.
+     *
+     * @param fields     number of plain text fields, in addition to one number and one date field
+     * @param conditions number of conditional texts
+     * @param loops      number of repeat groups (table rows over an array)
+     * @param bausteine  number of linked text blocks
+     */
+    public record Shape(int fields, int conditions, int loops, int bausteine) {
+    }
+
+    /**
+     * Writes the template and its text blocks into {@code dir}.
+     *
+     * @return the URL of the template
+     */
+    public static URL write(Path dir, Shape shape) {
+        try {
+            Files.createDirectories(dir);
+            Path template = dir.resolve(TEMPLATE_FILE);
+            Files.write(template, odt(templateContent(shape)));
+            for (int i = 0; i < shape.bausteine(); i++) {
+                Files.write(dir.resolve(bausteinFile(i)), odt(bausteinContent(i)));
+            }
+            return template.toUri().toURL();
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Creates a dataset matching the template: values for all fields, the {@code kunde.typ} that selects the first
+     * condition and {@code rows} items per repeat group.
+     */
+    public static JsonNode data(Shape shape, int rows) {
+        ObjectNode data = mapper.createObjectNode();
+        ObjectNode kunde = data.putObject("kunde");
+        for (int i = 0; i < shape.fields(); i++) {
+            kunde.put("feld" + i, "Wert " + i);
+        }
+        kunde.put("betrag", 12345.678);
+        kunde.put("datum", "2026-03-31");
+        kunde.put("typ", "T0");
+        for (int loop = 0; loop < shape.loops(); loop++) {
+            data.set("positionen" + loop, rows(rows));
+        }
+        return data;
+    }
+
+    /**
+     * @return an array of {@code rows} items with name, quantity and price
+     */
+    public static ArrayNode rows(int rows) {
+        ArrayNode items = mapper.createArrayNode();
+        for (int i = 0; i < rows; i++) {
+            items.addObject()
+                    .put("name", "Position " + i)
+                    .put("menge", i % 10 + 1)
+                    .put("preis", 9.99 + i);
+        }
+        return items;
+    }
+
+    /**
+     * Deletes a directory written by {@link #write(Path, Shape)}.
+     */
+    public static void delete(Path dir) {
+        try (var paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String bausteinFile(int index) {
+        return "baustein" + index + ".odt";
+    }
+
+    private static String templateContent(Shape shape) {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < shape.fields(); i++) {
+            body.append("<text:p>Feld ").append(i).append(": ").append(field("kunde.feld" + i, null)).append("</text:p>");
+        }
+        body.append("<text:p>Betrag: ").append(field("kunde.betrag", NUMBER_STYLE)).append("</text:p>");
+        body.append("<text:p>Datum: ").append(field("kunde.datum", DATE_STYLE)).append("</text:p>");
+
+        for (int i = 0; i < shape.conditions(); i++) {
+            body.append("<text:p><text:conditional-text text:condition=\"ooow:kunde.typ == &quot;T").append(i)
+                    .append("&quot;\" text:string-value-if-true=\"Typ ").append(i)
+                    .append("\" text:string-value-if-false=\"\"/></text:p>");
+        }
+
+        for (int loop = 0; loop < shape.loops(); loop++) {
+            String array = "positionen" + loop;
+            body.append("<table:table table:name=\"Positionen").append(loop).append("\">")
+                    .append("<table:table-column table:number-columns-repeated=\"3\"/>")
+                    .append("<table:table-row>")
+                    .append(cell(field(array + ".name", null)))
+                    .append(cell(field(array + ".menge", null)))
+                    .append(cell(field(array + ".preis", NUMBER_STYLE)))
+                    .append("</table:table-row></table:table>");
+        }
+
+        for (int i = 0; i < shape.bausteine(); i++) {
+            body.append("<text:section text:name=\"Baustein").append(i).append("\">")
+                    .append("<text:section-source xlink:href=\"").append(bausteinFile(i))
+                    .append("\" text:filter-name=\"writer8\"/></text:section>");
+        }
+
+        String styles = "<number:number-style style:name=\"" + NUMBER_STYLE + "\" number:language=\"de\" number:country=\"DE\">"
+                + "<number:number number:decimal-places=\"2\" number:min-decimal-places=\"2\" number:min-integer-digits=\"1\" number:grouping=\"true\"/>"
+                + "</number:number-style>"
+                + "<number:date-style style:name=\"" + DATE_STYLE + "\" number:language=\"de\" number:country=\"DE\">"
+                + "<number:day number:style=\"long\"/><number:text>.</number:text>"
+                + "<number:month number:style=\"long\"/><number:text>.</number:text>"
+                + "<number:year number:style=\"long\"/>"
+                + "</number:date-style>";
+        return document(styles, body.toString());
+    }
+
+    private static String bausteinContent(int index) {
+        // eigene Absatzvorlage je Baustein, damit das Zusammenführen der Vorlagen mitgemessen wird
+        String styles = "<style:style style:name=\"P1\" style:family=\"paragraph\">"
+                + "<style:text-properties fo:font-size=\"" + (10 + index % 5) + "pt\"/></style:style>";
+        String body = "<text:p text:style-name=\"P1\">Baustein " + index + ": "
+                + field("kunde.feld0", null) + "</text:p>"
+                + "<text:p>Lorem ipsum dolor sit amet, consectetur adipiscing elit.</text:p>";
+        return document(styles, body);
+    }
+
+    private static String field(String name, String dataStyle) {
+        String style = dataStyle == null ? "" : " style:data-style-name=\"" + dataStyle + "\"";
+        return "<text:user-field-get text:name=\"" + name + "\"" + style + ">" + name + "</text:user-field-get>";
+    }
+
+    private static String cell(String content) {
+        return "<table:table-cell office:value-type=\"string\"><text:p>" + content + "</text:p></table:table-cell>";
+    }
+
+    private static String document(String automaticStyles, String body) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<office:document-content " + NAMESPACES + ">"
+                + "<office:automatic-styles>" + automaticStyles + "</office:automatic-styles>"
+                + "<office:body><office:text>" + body + "</office:text></office:body>"
+                + "</office:document-content>";
+    }
+
+    /**
+     * Wraps the content in an empty ODT package, so styles.xml, meta.xml and the manifest stay valid.
+     */
+    private static byte[] odt(String content) throws IOException {
+        try (var empty = OdfTextDocument.newTextDocument();
+             var bytes = new ByteArrayOutputStream()) {
+            empty.save(bytes);
+            try (var pkg = OdfPackage.loadPackage(new ByteArrayInputStream(bytes.toByteArray()));
+                 var out = new ByteArrayOutputStream()) {
+                pkg.insert(content.getBytes(StandardCharsets.UTF_8), "content.xml", "text/xml");
+                pkg.save(out);
+                return out.toByteArray();
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Cannot create synthetic document", e);
+        }
+    }
+}
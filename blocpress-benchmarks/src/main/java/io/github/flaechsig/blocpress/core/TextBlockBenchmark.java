@@ -0,0 +1,75 @@
+package io.github.flaechsig.blocpress.core;
+
+import io.github.flaechsig.blocpress.core.odt.OdtTemplateSectionElement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merging N text blocks into their sections ({@link TemplateDocument#merge}), without loading them: styles are
+ * merged and renamed, the content is imported. Every invocation works on freshly loaded documents.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TextBlockBenchmark {
+
+    @Param({"1", "10", "50"})
+    int bausteine;
+
+    private Path dir;
+    private URL template;
+    private TemplateDocument document;
+    private List<OdtTemplateSectionElement> sections;
+    private List<TemplateDocument> textBlocks;
+
+    @Setup(Level.Trial)
+    public void writeTemplate() throws IOException {
+        dir = Files.createTempDirectory("blocpress-bench");
+        template = SyntheticTemplate.write(dir, new SyntheticTemplate.Shape(1, 0, 0, bausteine));
+    }
+
+    @Setup(Level.Invocation)
+    public void loadDocuments() {
+        document = TemplateDocument.getInstance(template);
+        sections = document.collectIncludedTextBlocks();
+        textBlocks = new ArrayList<>(sections.size());
+        for (var section : sections) {
+            textBlocks.add(TemplateDocument.load(section.getUrl(template)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SyntheticTemplate.delete(dir);
+    }
+
+    @Benchmark
+    public TemplateDocument merge() {
+        for (int i = 0; i < sections.size(); i++) {
+            document.merge(textBlocks.get(i), sections.get(i));
+        }
+        return document;
+    }
+}
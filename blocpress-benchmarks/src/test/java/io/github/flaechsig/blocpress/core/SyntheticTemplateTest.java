@@ -0,0 +1,48 @@
+package io.github.flaechsig.blocpress.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SyntheticTemplateTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void templateHasTheRequestedShape() {
+        var shape = new SyntheticTemplate.Shape(5, 3, 2, 4);
+        var doc = TemplateDocument.getInstance(SyntheticTemplate.write(dir, shape));
+
+        // 5 Textfelder + Betrag + Datum + je Wiederholungsgruppe 3 Felder
+        assertEquals(5 + 2 + 2 * 3, doc.collectUserFields().size());
+        assertEquals(3, doc.collectConditionalTemplateElements().size());
+        assertEquals(2, doc.findRepeatGroups(SyntheticTemplate.data(shape, 10)).size());
+        assertEquals(4, doc.collectIncludedTextBlocks().size());
+    }
+
+    @Test
+    void templateMergesWithGeneratedData() {
+        var shape = new SyntheticTemplate.Shape(2, 3, 1, 2);
+        var template = SyntheticTemplate.write(dir, shape);
+        var profile = new RenderProfile();
+
+        RenderEngine.mergeTemplate(template, SyntheticTemplate.data(shape, 25), Deadline.none(), MemoryBudget.unlimited(), profile);
+
+        assertEquals(3, profile.conditions().size());
+        assertEquals(25, profile.repeatGroups().get("positionen0").count());
+        assertEquals(2, profile.textBlocks().size());
+    }
+
+    @Test
+    void fieldsAreFormattedWithTheirStyles() {
+        var doc = TemplateDocument.getInstance(SyntheticTemplate.write(dir, new SyntheticTemplate.Shape(0, 0, 0, 0)));
+        var fields = doc.collectUserFields();
+
+        assertEquals("12.345,68", doc.formatFieldValue(fields.get(0), "12345.678"));
+        assertEquals("31.03.2026", doc.formatFieldValue(fields.get(1), "2026-03-31"));
+    }
+}
@@ -0,0 +1,26 @@
+package io.github.flaechsig.blocpress.core;
+
+/**
+ * Ergebnis einer einzelnen Dokument-Konvertierung innerhalb eines Batch-Aufrufs von
+ * {@link LibreOfficeProcessor#transformBatch(java.util.Map, OutputFormat)}.
+ *
+ * <p>Entweder {@code content} (Erfolg) oder {@code error} (Fehler) ist gesetzt. Fehler
+ * einzelner Dokumente beeinflussen die übrigen Dokumente des Batches nicht.</p>
+ *
+ * @param content das konvertierte Dokument, {@code null} bei Fehler
+ * @param error   Fehlerbeschreibung, {@code null} bei Erfolg
+ */
+public record ConversionResult(byte[] content, String error) {
+
+    public static ConversionResult success(byte[] content) {
+        return new ConversionResult(content, null);
+    }
+
+    public static ConversionResult failure(String error) {
+        return new ConversionResult(null, error);
+    }
+
+    public boolean isSuccess() {
+        return content != null;
+    }
+}
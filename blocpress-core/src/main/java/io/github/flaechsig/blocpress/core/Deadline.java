@@ -0,0 +1,137 @@
+package io.github.flaechsig.blocpress.core;
+
+import lombok.NonNull;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Frist und Abbruchsignal eines Render-Auftrags.
+ *
+ * <p><b>Fachlicher Kontext:</b>
+ * Hat der Client die Verbindung getrennt oder ist seine Wartezeit abgelaufen, wird das Ergebnis nicht mehr
+ * abgeholt. Unter Last verbraucht solche verwaiste Arbeit CPU und LibreOffice-Prozesse, die für wartende
+ * Aufträge fehlen. Die Frist wird deshalb zwischen den Phasen des Merges geprüft und an die Konvertierung
+ * weitergereicht, die den {@code soffice}-Prozess bei Ablauf oder Abbruch beendet.</p>
+ *
+ * <p><b>Design-Referenzen:</b></p>
+ * <ul>
+ *   <li>EDC: <a href="docs/Element_Design_Concept.adoc#edc-tf-5">TF-5: Dokument generieren</a></li>
+ *   <li>EDC: <a href="docs/Element_Design_Concept.adoc#edc-ti-3">TI-3: LibreOffice API</a></li>
+ * </ul>
+ */
+public final class Deadline {
+
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final Instant expiresAt;
+    private volatile boolean cancelled;
+
+    private Deadline(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * A deadline that never expires but can still be cancelled.
+     */
+    public static Deadline none() {
+        return new Deadline(null);
+    }
+
+    public static Deadline after(@NonNull Duration timeout) {
+        return new Deadline(Instant.now().plus(timeout));
+    }
+
+    /**
+     * Signals that the result is no longer needed, e.g. because the client disconnected.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isExpired() {
+        return expiresAt != null && !Instant.now().isBefore(expiresAt);
+    }
+
+    /**
+     * @return time left until the deadline, {@link Duration#ZERO} if expired; very long for {@link #none()}
+     */
+    public Duration remaining() {
+        if (expiresAt == null) {
+            return Duration.ofMillis(Long.MAX_VALUE);
+        }
+        Duration remaining = Duration.between(Instant.now(), expiresAt);
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+
+    /**
+     * Aborts the current phase if the render was cancelled or the deadline has passed.
+     *
+     * @param phase name of the phase about to start, used in the error message
+     * @throws RenderCancelledException if the render has to be aborted
+     */
+    public void check(String phase) {
+        if (cancelled) {
+            throw new RenderCancelledException(phase, false);
+        }
+        if (isExpired()) {
+            throw new RenderCancelledException(phase, true);
+        }
+    }
+
+    /**
+     * Waits for a result computed by another thread. The future is cancelled (with interruption) when the
+     * deadline passes or the render is cancelled while waiting.
+     *
+     * @param phase name of the phase the future computes, used in the error message
+     * @throws RenderCancelledException if the render has to be aborted
+     */
+    public <T> T await(@NonNull Future<T> future, String phase) throws InterruptedException, ExecutionException {
+        try {
+            while (true) {
+                check(phase);
+                long wait = Math.min(POLL_INTERVAL_MILLIS, Math.max(1, remaining().toMillis()));
+                try {
+                    return future.get(wait, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    // weiter warten, Frist wird im nächsten Durchlauf geprüft
+                }
+            }
+        } catch (RenderCancelledException | InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for an external process. The process and its child processes are killed when the deadline passes
+     * or the render is cancelled.
+     *
+     * @return the exit code of the process
+     * @throws RenderCancelledException if the render has to be aborted
+     */
+    public int await(@NonNull Process process, String phase) throws InterruptedException {
+        try {
+            while (true) {
+                check(phase);
+                long wait = Math.min(POLL_INTERVAL_MILLIS, Math.max(1, remaining().toMillis()));
+                if (process.waitFor(wait, TimeUnit.MILLISECONDS)) {
+                    return process.exitValue();
+                }
+            }
+        } finally {
+            if (process.isAlive()) {
+                process.descendants().forEach(ProcessHandle::destroyForcibly);
+                process.destroyForcibly();
+            }
+        }
+    }
+}
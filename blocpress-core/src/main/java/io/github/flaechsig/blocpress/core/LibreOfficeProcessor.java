@@ -1,12 +1,15 @@
 package io.github.flaechsig.blocpress.core;
 
+import io.github.flaechsig.blocpress.core.jfr.ConversionEvent;
 import lombok.NonNull;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Konvertiert ODT-Dokumente in andere Formate (PDF, RTF) mittels LibreOffice headless.
@@ -27,56 +30,240 @@ public class LibreOfficeProcessor {
      * Refreshes and transforms document to specified output format
      */
     public static byte[] refreshAndTransform(byte[] input, @NonNull OutputFormat format) throws IOException {
+        return refreshAndTransform(input, format, null);
+    }
+
+    /**
+     * Refreshes and transforms document to specified output format using a dedicated LibreOffice user profile.
+     * soffice processes sharing one profile hand their work over to the first running instance, so conversions
+     * that should really run in parallel need a profile directory each.
+     *
+     * @param userInstallation profile directory, {@code null} for the default profile
+     */
+    public static byte[] refreshAndTransform(byte[] input, @NonNull OutputFormat format, Path userInstallation) throws IOException {
+        return refreshAndTransform(input, format, userInstallation, null);
+    }
+
+    /**
+     * Refreshes and transforms document to specified output format with PDF export options.
+     *
+     * @param userInstallation profile directory, {@code null} for the default profile
+     * @param pdfProfile       PDF export options, {@code null} for the LibreOffice defaults; ignored for other formats
+     */
+    public static byte[] refreshAndTransform(byte[] input, @NonNull OutputFormat format, Path userInstallation,
+                                             PdfExportProfile pdfProfile) throws IOException {
+        return refreshAndTransform(input, format, userInstallation, pdfProfile, Deadline.none());
+    }
+
+    /**
+     * Refreshes and transforms document to specified output format. The {@code soffice} process is killed when the
+     * deadline passes or the render is cancelled.
+     *
+     * @param userInstallation profile directory, {@code null} for the default profile
+     * @param pdfProfile       PDF export options, {@code null} for the LibreOffice defaults; ignored for other formats
+     * @throws RenderCancelledException if the deadline passed or the render was cancelled
+     */
+    public static byte[] refreshAndTransform(byte[] input, @NonNull OutputFormat format, Path userInstallation,
+                                             PdfExportProfile pdfProfile, @NonNull Deadline deadline) throws IOException {
+        deadline.check("conversion");
         Files.createDirectories(WORK_BASE);
         Path in = Files.createTempFile(WORK_BASE, "blocpress_", ".odt");
         Path workDir = Files.createTempDirectory(WORK_BASE, "blocpress_out");
+        ConversionEvent event = conversionEvent(format, pdfProfile, 1, input.length);
         try {
             Files.write(in, input);
-            var convert = switch (format) {
-                case PDF -> "pdf";
-                case RTF -> "rtf";
-                case ODT -> "odt:writer8";
-            };
-
-            List<String> cmd = new ArrayList<>();
-            cmd.add("soffice");
-            cmd.add("--headless");
-            cmd.add("--nologo");
-            cmd.add("--nodefault");
-            cmd.add("--norestore");
-            cmd.add("--nolockcheck");
-            cmd.add("--invisible");
-            cmd.add("--convert-to");
-            cmd.add(convert);
-            cmd.add("--outdir");
-            cmd.add(workDir.toString());
-            cmd.add(in.toString());
 
-            Process p = new ProcessBuilder(cmd)
-                    .redirectErrorStream(true)
-                    .start();
-
-            String processOutput = new String(p.getInputStream().readAllBytes());
-            int exit = p.waitFor();
-            if (exit != 0) {
-                throw new IllegalStateException("LibreOffice conversion failed (exit=" + exit + ")\nOutput: " + processOutput + "\nCommand: " + String.join(" ", cmd));
+            List<String> cmd = buildCommand(format, pdfProfile, workDir, List.of(in), userInstallation);
+            ProcessResult result = execute(cmd, workDir, deadline);
+            event.setResult(result.exit(), 0);
+            if (result.exit() != 0) {
+                throw new IllegalStateException("LibreOffice conversion failed (exit=" + result.exit() + ")\nOutput: " + result.output() + "\nCommand: " + String.join(" ", cmd));
             }
 
             // LibreOffice benennt die Datei nach Input-Basisname um: <name>.<ext>
-            Path out = Path.of(workDir.toString(), in.getFileName().toString().replaceAll(".odt", "." + format.getSuffix()));
+            Path out = outputFile(workDir, in, format);
             if (!Files.exists(out)) {
                 throw new IllegalStateException("LibreOffice did not produce expected file: " + out);
             }
-            return Files.readAllBytes(out);
+            byte[] output = Files.readAllBytes(out);
+            event.setResult(result.exit(), output.length);
+            return output;
+        } finally {
+            event.commit();
+            Files.deleteIfExists(in);
+            deleteDirectory(workDir);
+        }
+    }
+
+    /**
+     * Transforms several documents to the same output format with a single {@code soffice} invocation.
+     * This amortises the process start of LibreOffice, which dominates the conversion time of small documents.
+     *
+     * <p>Results are matched back by the keys of {@code inputs}. A document that LibreOffice fails to convert
+     * yields a {@link ConversionResult#failure(String)} and does not affect the other documents of the batch.</p>
+     *
+     * @param inputs documents to convert, keyed by a caller-defined name
+     * @param format target format for all documents
+     * @return conversion result per input name, in the iteration order of {@code inputs}
+     * @throws IOException if the work directory cannot be prepared or LibreOffice cannot be started
+     */
+    public static Map<String, ConversionResult> transformBatch(@NonNull Map<String, byte[]> inputs, @NonNull OutputFormat format) throws IOException {
+        return transformBatch(inputs, format, null);
+    }
+
+    /**
+     * Transforms several documents to the same output format and PDF export options with a single {@code soffice}
+     * invocation, see {@link #transformBatch(Map, OutputFormat)}.
+     *
+     * @param pdfProfile PDF export options, {@code null} for the LibreOffice defaults; ignored for other formats
+     */
+    public static Map<String, ConversionResult> transformBatch(@NonNull Map<String, byte[]> inputs, @NonNull OutputFormat format,
+                                                               PdfExportProfile pdfProfile) throws IOException {
+        return transformBatch(inputs, format, pdfProfile, Deadline.none());
+    }
+
+    /**
+     * Transforms several documents with a single {@code soffice} invocation, see {@link #transformBatch(Map, OutputFormat)}.
+     * The process is killed when the deadline passes or the batch is cancelled.
+     *
+     * @param pdfProfile PDF export options, {@code null} for the LibreOffice defaults; ignored for other formats
+     * @throws RenderCancelledException if the deadline passed or the batch was cancelled
+     */
+    public static Map<String, ConversionResult> transformBatch(@NonNull Map<String, byte[]> inputs, @NonNull OutputFormat format,
+                                                               PdfExportProfile pdfProfile, @NonNull Deadline deadline) throws IOException {
+        return transformBatch(inputs, format, pdfProfile, null, deadline);
+    }
+
+    /**
+     * Transforms several documents with a single {@code soffice} invocation using a dedicated LibreOffice user
+     * profile, see {@link #transformBatch(Map, OutputFormat)}. Batches that may run at the same time need a profile
+     * directory each, otherwise the second instance hands its documents over to the first one or fails on the
+     * profile lock.
+     *
+     * @param pdfProfile       PDF export options, {@code null} for the LibreOffice defaults; ignored for other formats
+     * @param userInstallation profile directory, {@code null} for the default profile
+     * @throws RenderCancelledException if the deadline passed or the batch was cancelled
+     */
+    public static Map<String, ConversionResult> transformBatch(@NonNull Map<String, byte[]> inputs, @NonNull OutputFormat format,
+                                                               PdfExportProfile pdfProfile, Path userInstallation,
+                                                               @NonNull Deadline deadline) throws IOException {
+        Map<String, ConversionResult> results = new LinkedHashMap<>();
+        if (inputs.isEmpty()) {
+            return results;
+        }
+
+        Files.createDirectories(WORK_BASE);
+        Path inDir = Files.createTempDirectory(WORK_BASE, "blocpress_batch_in");
+        Path workDir = Files.createTempDirectory(WORK_BASE, "blocpress_batch_out");
+        ConversionEvent event = conversionEvent(format, pdfProfile, inputs.size(),
+                inputs.values().stream().mapToLong(input -> input.length).sum());
+        try {
+            // Input-Dateien werden durchnummeriert, da die Namen der Aufrufer keine gültigen Dateinamen sein müssen
+            Map<String, Path> files = new LinkedHashMap<>();
+            int index = 0;
+            for (var entry : inputs.entrySet()) {
+                Path in = inDir.resolve("doc_" + index++ + ".odt");
+                Files.write(in, entry.getValue());
+                files.put(entry.getKey(), in);
+            }
+
+            List<String> cmd = buildCommand(format, pdfProfile, workDir, List.copyOf(files.values()), userInstallation);
+            ProcessResult result = execute(cmd, inDir, deadline);
+
+            long written = 0;
+            for (var entry : files.entrySet()) {
+                Path out = outputFile(workDir, entry.getValue(), format);
+                if (Files.exists(out)) {
+                    byte[] output = Files.readAllBytes(out);
+                    written += output.length;
+                    results.put(entry.getKey(), ConversionResult.success(output));
+                } else {
+                    results.put(entry.getKey(), ConversionResult.failure(
+                            "LibreOffice did not produce expected file " + out.getFileName() + " (exit=" + result.exit() + ")\nOutput: " + result.output()));
+                }
+            }
+            event.setResult(result.exit(), written);
+            return results;
+        } finally {
+            event.commit();
+            deleteDirectory(inDir);
+            deleteDirectory(workDir);
+        }
+    }
+
+    private static ConversionEvent conversionEvent(OutputFormat format, PdfExportProfile pdfProfile, int documents, long bytesRead) {
+        ConversionEvent event = new ConversionEvent();
+        event.begin();
+        event.setFormat(format.name(), format == OutputFormat.PDF && pdfProfile != null ? pdfProfile.filterOptions() : "");
+        event.setDocuments(documents, bytesRead);
+        return event;
+    }
+
+    static List<String> buildCommand(OutputFormat format, PdfExportProfile pdfProfile, Path workDir, List<Path> inputs, Path userInstallation) {
+        var convert = switch (format) {
+            case PDF -> pdfProfile == null ? "pdf" : "pdf:writer_pdf_Export:" + pdfProfile.filterOptions();
+            case RTF -> "rtf";
+            case ODT -> "odt:writer8";
+            case HTML -> "html:XHTML Writer File:UTF8";
+            case TEXT -> "txt:Text (encoded):UTF8";
+        };
+
+        List<String> cmd = new ArrayList<>();
+        cmd.add("soffice");
+        if (userInstallation != null) {
+            cmd.add("-env:UserInstallation=" + userInstallation.toAbsolutePath().toUri());
+        }
+        cmd.add("--headless");
+        cmd.add("--nologo");
+        cmd.add("--nodefault");
+        cmd.add("--norestore");
+        cmd.add("--nolockcheck");
+        cmd.add("--invisible");
+        cmd.add("--convert-to");
+        cmd.add(convert);
+        cmd.add("--outdir");
+        cmd.add(workDir.toString());
+        for (Path in : inputs) {
+            cmd.add(in.toString());
+        }
+        return cmd;
+    }
+
+    /**
+     * Runs soffice with its output redirected to a file in {@code logDir}; reading the pipe would block until the
+     * process exits and could neither be interrupted nor time out.
+     */
+    private static ProcessResult execute(List<String> cmd, Path logDir, Deadline deadline) throws IOException {
+        Path log = logDir.resolve("soffice.log");
+        Process p = new ProcessBuilder(cmd)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            int exit = deadline.await(p, "conversion");
+            return new ProcessResult(exit, new String(Files.readAllBytes(log)));
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new IOException("LibreOffice conversion interrupted", e);
         } finally {
-            Files.deleteIfExists(in);
-            try (var entries = Files.list(workDir)) {
-                entries.forEach(f -> f.toFile().delete());
-            }
-            Files.deleteIfExists(workDir);
+            Files.deleteIfExists(log);
         }
     }
+
+    private static Path outputFile(Path workDir, Path in, OutputFormat format) {
+        return workDir.resolve(in.getFileName().toString().replaceAll("\\.odt$", "." + format.getSuffix()));
+    }
+
+    private static void deleteDirectory(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (var entries = Files.list(dir)) {
+            entries.forEach(f -> f.toFile().delete());
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    private record ProcessResult(int exit, String output) {
+    }
 }
@@ -0,0 +1,147 @@
+package io.github.flaechsig.blocpress.core;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Speicherbudget eines Render-Auftrags.
+ *
+ * <p><b>Fachlicher Kontext:</b>
+ * Wiederholungsgruppen werden für jedes Array-Element im DOM des Dokuments kopiert. Ein Auftrag mit sehr langen
+ * Arrays (z.B. eine Rechnung mit 100.000 Positionen) belegt dadurch Gigabytes an Heap und kann die JVM mitsamt
+ * allen parallel laufenden Aufträgen zum Absturz bringen. Die {@link RenderEngine} schätzt deshalb vor dem Kopieren
+ * aus der Größe der Wiederholungsgruppen und der Länge der Arrays den Speicherbedarf und reserviert ihn im Budget.
+ * Übersteigt die Schätzung das Limit pro Auftrag oder den noch freien Anteil des gemeinsamen {@link Pool}s, wird
+ * der Auftrag abgelehnt, bevor Speicher belegt ist. Zur Kalibrierung der Schätzung misst die Engine zusätzlich die
+ * tatsächlich im Merge allokierten Bytes.</p>
+ *
+ * <p><b>Design-Referenzen:</b></p>
+ * <ul>
+ *   <li>EDC: <a href="docs/Element_Design_Concept.adoc#edc-tf-5">TF-5: Dokument generieren</a> (Wiederholungsgruppen)</li>
+ * </ul>
+ */
+public final class MemoryBudget implements AutoCloseable {
+
+    private final long maxBytes;
+    private final Pool pool;
+    private final AtomicLong reserved = new AtomicLong();
+    private final AtomicLong allocated = new AtomicLong();
+    private volatile boolean allocationMeasured;
+
+    private MemoryBudget(long maxBytes, Pool pool) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Memory budget must be positive: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+        this.pool = pool;
+    }
+
+    public static MemoryBudget unlimited() {
+        return new MemoryBudget(Long.MAX_VALUE, null);
+    }
+
+    /**
+     * @param maxBytes limit of this render
+     * @param pool     shared budget of all renders, {@code null} for none
+     */
+    public static MemoryBudget of(long maxBytes, Pool pool) {
+        return new MemoryBudget(maxBytes, pool);
+    }
+
+    /**
+     * Reserves the estimated size of a merge step. Mail merges reserve once per record.
+     *
+     * @throws MemoryBudgetExceededException if the reservation exceeds the limit of this render or the free
+     *                                       part of the pool; nothing is reserved in that case
+     */
+    public void reserve(long bytes) {
+        long total = reserved.addAndGet(bytes);
+        if (total > maxBytes) {
+            reserved.addAndGet(-bytes);
+            throw new MemoryBudgetExceededException(total, maxBytes, false);
+        }
+        if (pool != null && !pool.take(bytes)) {
+            reserved.addAndGet(-bytes);
+            throw new MemoryBudgetExceededException(bytes, pool.capacity, true);
+        }
+    }
+
+    /**
+     * @return the bytes reserved so far, i.e. the estimated size of the merged document
+     */
+    public long reservedBytes() {
+        return reserved.get();
+    }
+
+    /**
+     * @return the bytes allocated by the merge, {@code -1} if the JVM cannot measure them
+     */
+    public long allocatedBytes() {
+        return allocationMeasured ? allocated.get() : -1;
+    }
+
+    void addAllocated(long bytes) {
+        if (bytes >= 0) {
+            allocated.addAndGet(bytes);
+            allocationMeasured = true;
+        }
+    }
+
+    /**
+     * Returns the reservation to the pool.
+     */
+    @Override
+    public void close() {
+        long bytes = reserved.getAndSet(0);
+        if (pool != null) {
+            pool.give(bytes);
+        }
+    }
+
+    /**
+     * Bytes allocated by the current thread so far, {@code -1} if not supported by the JVM or the thread.
+     */
+    static long currentThreadAllocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    /**
+     * Memory shared by all renders of the process.
+     */
+    public static final class Pool {
+        private final long capacity;
+        private final AtomicLong free;
+
+        public Pool(long capacity) {
+            this.capacity = capacity;
+            this.free = new AtomicLong(capacity);
+        }
+
+        public long capacity() {
+            return capacity;
+        }
+
+        public long available() {
+            return free.get();
+        }
+
+        private boolean take(long bytes) {
+            long current;
+            do {
+                current = free.get();
+                if (current < bytes) {
+                    return false;
+                }
+            } while (!free.compareAndSet(current, current - bytes));
+            return true;
+        }
+
+        private void give(long bytes) {
+            free.addAndGet(bytes);
+        }
+    }
+}
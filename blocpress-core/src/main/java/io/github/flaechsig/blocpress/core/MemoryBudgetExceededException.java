@@ -0,0 +1,35 @@
+package io.github.flaechsig.blocpress.core;
+
+/**
+ * Signals that the estimated size of a merged document does not fit into its {@link MemoryBudget}.
+ */
+public class MemoryBudgetExceededException extends RuntimeException {
+
+    private final long estimatedBytes;
+    private final long limitBytes;
+    private final boolean shared;
+
+    public MemoryBudgetExceededException(long estimatedBytes, long limitBytes, boolean shared) {
+        super("Estimated document size of " + estimatedBytes + " bytes exceeds the "
+                + (shared ? "free memory shared by all renders" : "memory budget of " + limitBytes + " bytes per render"));
+        this.estimatedBytes = estimatedBytes;
+        this.limitBytes = limitBytes;
+        this.shared = shared;
+    }
+
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    public long getLimitBytes() {
+        return limitBytes;
+    }
+
+    /**
+     * @return {@code true} if the shared pool is exhausted (transient), {@code false} if the document is too large
+     * for a single render
+     */
+    public boolean isShared() {
+        return shared;
+    }
+}
@@ -11,7 +11,9 @@ package io.github.flaechsig.blocpress.core;
 public enum OutputFormat {
     ODT("odt"),
     PDF("pdf"),
-    RTF("rtf");
+    RTF("rtf"),
+    HTML("html"),
+    TEXT("txt");
 
     private final String suffix;
 
@@ -0,0 +1,69 @@
+package io.github.flaechsig.blocpress.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Optionen des LibreOffice-PDF-Exports (Filter {@code writer_pdf_Export}).
+ *
+ * <p><b>Fachlicher Kontext:</b>
+ * Ohne Optionen bettet LibreOffice Bilder in Originalauflösung ein; einfache Briefe mit Foto-Logo werden dadurch
+ * mehrere MB groß. Profile legen pro Einsatzzweck fest, wie Bilder komprimiert werden und ob PDF/A oder Tagged PDF
+ * erzeugt wird, z.B. {@code web} (reduzierte JPEG-Bilder), {@code print} (verlustfrei) und {@code archive} (PDF/A-2b).</p>
+ *
+ * <p><b>Design-Referenzen:</b></p>
+ * <ul>
+ *   <li>EDC: <a href="docs/Element_Design_Concept.adoc#edc-c-5">C-5: Export-Formate (ODT, PDF, RTF)</a></li>
+ *   <li>EDC: <a href="docs/Element_Design_Concept.adoc#edc-c-2">C-2: LibreOffice Version</a></li>
+ * </ul>
+ *
+ * @param maxImageResolution images are downsampled to this resolution in DPI, {@code null} keeps the original resolution
+ * @param jpegQuality        JPEG quality of re-compressed images (1-100)
+ * @param losslessImages     compress images losslessly instead of JPEG
+ * @param pdfA               PDF/A part (1, 2 or 3, conformance level b), 0 for plain PDF
+ * @param tagged             create a tagged (accessible) PDF
+ * @param embedStandardFonts embed the 14 PDF standard fonts as well
+ */
+public record PdfExportProfile(Integer maxImageResolution, int jpegQuality, boolean losslessImages, int pdfA,
+                               boolean tagged, boolean embedStandardFonts) {
+
+    public PdfExportProfile {
+        if (jpegQuality < 1 || jpegQuality > 100) {
+            throw new IllegalArgumentException("JPEG quality must be between 1 and 100: " + jpegQuality);
+        }
+        if (pdfA < 0 || pdfA > 3) {
+            throw new IllegalArgumentException("PDF/A part must be 1, 2 or 3 (0 = none): " + pdfA);
+        }
+    }
+
+    /**
+     * Filter options in the JSON syntax of {@code soffice --convert-to "pdf:writer_pdf_Export:{...}"}.
+     */
+    public String filterOptions() {
+        List<String> options = new ArrayList<>();
+        if (maxImageResolution != null) {
+            options.add(option("ReduceImageResolution", "boolean", "true"));
+            options.add(option("MaxImageResolution", "long", maxImageResolution.toString()));
+        }
+        options.add(option("Quality", "long", String.valueOf(jpegQuality)));
+        options.add(option("UseLosslessCompression", "boolean", String.valueOf(losslessImages)));
+        if (pdfA > 0) {
+            options.add(option("SelectPdfVersion", "long", String.valueOf(pdfA)));
+        }
+        options.add(option("UseTaggedPDF", "boolean", String.valueOf(tagged)));
+        options.add(option("EmbedStandardFonts", "boolean", String.valueOf(embedStandardFonts)));
+        return "{" + String.join(",", options) + "}";
+    }
+
+    /**
+     * Tells whether PDFs produced in the JVM (fast path, overlay) satisfy this profile: they embed images
+     * unchanged and are neither PDF/A nor tagged.
+     */
+    public boolean allowsJvmRendering() {
+        return maxImageResolution == null && pdfA == 0 && !tagged && !embedStandardFonts;
+    }
+
+    private static String option(String name, String type, String value) {
+        return "\"" + name + "\":{\"type\":\"" + type + "\",\"value\":\"" + value + "\"}";
+    }
+}
@@ -0,0 +1,21 @@
+package io.github.flaechsig.blocpress.core;
+
+/**
+ * Signals that a render was aborted because its {@link Deadline} passed or it was cancelled.
+ */
+public class RenderCancelledException extends RuntimeException {
+
+    private final boolean timeout;
+
+    public RenderCancelledException(String phase, boolean timeout) {
+        super((timeout ? "Render deadline exceeded" : "Render cancelled") + " in phase " + phase);
+        this.timeout = timeout;
+    }
+
+    /**
+     * @return {@code true} if the deadline passed, {@code false} if the render was cancelled
+     */
+    public boolean isTimeout() {
+        return timeout;
+    }
+}
@@ -1,6 +1,7 @@
 package io.github.flaechsig.blocpress.core;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import io.github.flaechsig.blocpress.core.jfr.MergePhaseEvent;
 import lombok.NonNull;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
@@ -8,7 +9,10 @@ import org.apache.commons.lang3.StringUtils;
 import org.odftoolkit.odfdom.doc.OdfTextDocument;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.net.URL;
+import java.util.List;
+import java.util.Map;
 
 @Slf4j
 public class RenderEngine {
@@ -48,22 +52,202 @@ public class RenderEngine {
      *
      * @see OdfTextDocument für Details zum ODT-Dokumentenmodell.
      */
-    @SneakyThrows
     public static byte[] mergeTemplate(@NonNull URL template, @NonNull JsonNode data) {
-        byte[] output;
-        TemplateDocument doc = TemplateDocument.getInstance(template);
+        return mergeTemplate(template, data, Deadline.none());
+    }
+
+    /**
+     * Renders the template like {@link #mergeTemplate(URL, JsonNode)}, checking the deadline between the
+     * merge phases (text blocks, conditions, loops, fields, save).
+     *
+     * @throws RenderCancelledException if the deadline passed or the render was cancelled
+     */
+    public static byte[] mergeTemplate(@NonNull URL template, @NonNull JsonNode data, @NonNull Deadline deadline) {
+        return mergeTemplate(template, data, deadline, MemoryBudget.unlimited());
+    }
+
+    /**
+     * Renders the template like {@link #mergeTemplate(URL, JsonNode, Deadline)}. Before the repeat groups are
+     * duplicated, the size of the merged document is estimated and reserved in the memory budget. The bytes
+     * actually allocated by the merge are recorded in the budget as well.
+     *
+     * @throws RenderCancelledException      if the deadline passed or the render was cancelled
+     * @throws MemoryBudgetExceededException if the estimated size exceeds the budget
+     */
+    public static byte[] mergeTemplate(@NonNull URL template, @NonNull JsonNode data, @NonNull Deadline deadline,
+                                       @NonNull MemoryBudget budget) {
+        return mergeTemplate(template, data, deadline, budget, StageListener.NONE);
+    }
+
+    /**
+     * Renders the template like {@link #mergeTemplate(URL, JsonNode, Deadline, MemoryBudget)} and reports the
+     * duration of every merge phase to the listener.
+     */
+    @SneakyThrows
+    public static byte[] mergeTemplate(@NonNull URL template, @NonNull JsonNode data, @NonNull Deadline deadline,
+                                       @NonNull MemoryBudget budget, @NonNull StageListener stages) {
+        long allocatedBefore = MemoryBudget.currentThreadAllocatedBytes();
+        Phases phases = new Phases(template, stages);
+        try {
+            deadline.check("load");
+            phases.start("load");
+            TemplateDocument doc = TemplateDocument.getInstance(template);
+            phases.end();
+            mergeDocument(doc, data, deadline, budget, phases);
+            deadline.check("save");
+            var phase = phases.start("save");
+            byte[] result = save(doc);
+            phase.setBytesWritten(result.length);
+            phases.end();
+            return result;
+        } finally {
+            recordAllocation(budget, allocatedBefore);
+        }
+    }
+
+    /**
+     * Serienbrief (mail merge): Rendert das Template für jeden Datensatz und fügt die Ergebnisse
+     * zu einem einzigen ODT-Dokument zusammen.
+     *
+     * <p>Jeder Datensatz beginnt auf einer neuen Seite, die Seitennummerierung startet pro Datensatz
+     * wieder bei 1. Gemeinsame Ressourcen wie Briefkopf-Bilder, Schriften und identische Formatvorlagen
+     * sind nur einmal im Ergebnis enthalten. Das Ergebnis kann mit einer einzigen LibreOffice-Konvertierung
+     * z.B. in ein PDF für die Druckstraße überführt werden.</p>
+     *
+     * @param template Das ODT-Template. Darf nicht {@code null} sein.
+     * @param records  Die Datensätze, je einer pro Brief. Darf nicht leer sein.
+     * @return Byte-Array des zusammengefügten ODT-Dokuments.
+     * @throws IllegalArgumentException wenn {@code records} leer ist.
+     */
+    public static byte[] mailMerge(@NonNull URL template, @NonNull List<JsonNode> records) {
+        return mailMerge(template, records, Deadline.none());
+    }
+
+    /**
+     * Mail merge like {@link #mailMerge(URL, List)}, checking the deadline between the merge phases of every record.
+     *
+     * @throws RenderCancelledException if the deadline passed or the render was cancelled
+     */
+    public static byte[] mailMerge(@NonNull URL template, @NonNull List<JsonNode> records, @NonNull Deadline deadline) {
+        return mailMerge(template, records, deadline, MemoryBudget.unlimited());
+    }
+
+    /**
+     * Mail merge like {@link #mailMerge(URL, List, Deadline)}, reserving the estimated size of every record in the
+     * memory budget before its repeat groups are duplicated.
+     *
+     * @throws RenderCancelledException      if the deadline passed or the render was cancelled
+     * @throws MemoryBudgetExceededException if the estimated size of the records merged so far exceeds the budget
+     */
+    public static byte[] mailMerge(@NonNull URL template, @NonNull List<JsonNode> records, @NonNull Deadline deadline,
+                                   @NonNull MemoryBudget budget) {
+        return mailMerge(template, records, deadline, budget, StageListener.NONE);
+    }
+
+    /**
+     * Mail merge like {@link #mailMerge(URL, List, Deadline, MemoryBudget)}, reporting the duration of the merge
+     * phases of every record to the listener.
+     */
+    @SneakyThrows
+    public static byte[] mailMerge(@NonNull URL template, @NonNull List<JsonNode> records, @NonNull Deadline deadline,
+                                   @NonNull MemoryBudget budget, @NonNull StageListener stages) {
+        if (records.isEmpty()) {
+            throw new IllegalArgumentException("Mail merge requires at least one data record");
+        }
+
+        long allocatedBefore = MemoryBudget.currentThreadAllocatedBytes();
+        Phases phases = new Phases(template, stages);
+        try {
+            TemplateDocument target = null;
+            for (JsonNode data : records) {
+                deadline.check("load");
+                phases.start("load");
+                TemplateDocument doc = TemplateDocument.getInstance(template);
+                phases.end();
+                mergeDocument(doc, data, deadline, budget, phases);
+                if (target == null) {
+                    target = doc;
+                } else {
+                    phases.start("append");
+                    target.appendRecord(doc);
+                    phases.end();
+                }
+            }
+            deadline.check("save");
+            var phase = phases.start("save");
+            byte[] result = save(target);
+            phase.setBytesWritten(result.length);
+            phases.end();
+            return result;
+        } finally {
+            recordAllocation(budget, allocatedBefore);
+        }
+    }
+
+    private static void mergeDocument(TemplateDocument doc, JsonNode data, Deadline deadline, MemoryBudget budget,
+                                      Phases phases) {
+        deadline.check("text blocks");
+        var phase = phases.start("text-blocks");
+        phase.setElements(expandTextBlocks(doc, phases.stages));
+        phases.end();
+        deadline.check("conditions");
+        phase = phases.start("conditions");
+        phase.setElements(processConditions(doc, data, phases.stages));
+        phases.end();
+        deadline.check("loops");
+        phase = phases.start("loops");
+        processLoops(doc, data, budget, phase, phases.stages);
+        phases.end();
+        deadline.check("fields");
+        phase = phases.start("fields");
+        phase.setElements(replaceFieldsWithStaticText(doc, data, phases.stages));
+        phases.end();
+    }
+
+    /**
+     * Times the merge phases of a render: reports them to the stage listener and emits a {@link MergePhaseEvent}
+     * per phase.
+     */
+    private static final class Phases {
+        private final URL template;
+        private final StageListener stages;
+        private MergePhaseEvent event;
+        private long start;
 
-        expandTextBlocks(doc);
-        processConditions(doc, data);
-        processLoops(doc, data);
-        replaceFieldsWithStaticText(doc, data);
+        Phases(URL template, StageListener stages) {
+            this.template = template;
+            this.stages = stages;
+        }
+
+        MergePhaseEvent start(String phase) {
+            event = new MergePhaseEvent(phase);
+            if (event.isEnabled()) {
+                String label = stages.template();
+                event.setTemplate(label != null ? label : template.toString());
+            }
+            event.begin();
+            start = System.nanoTime();
+            return event;
+        }
 
+        void end() {
+            stages.completed(event.getPhase(), System.nanoTime() - start);
+            event.commit();
+        }
+    }
+
+    private static byte[] save(TemplateDocument doc) throws IOException {
         try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
             doc.save(out);
-            output = out.toByteArray();
+            return out.toByteArray();
         }
+    }
 
-        return output;
+    private static void recordAllocation(MemoryBudget budget, long allocatedBefore) {
+        long allocatedAfter = MemoryBudget.currentThreadAllocatedBytes();
+        if (allocatedBefore >= 0 && allocatedAfter >= 0) {
+            budget.addAllocated(allocatedAfter - allocatedBefore);
+        }
     }
 
 
@@ -77,18 +261,25 @@ public class RenderEngine {
      *
      * @param doc The template document to expand. Cannot be null.
      *            The document may include references to external text blocks to be merged.
+     * @return the number of merged text blocks
      */
-    private static void expandTextBlocks(@NonNull TemplateDocument doc) {
+    private static int expandTextBlocks(@NonNull TemplateDocument doc, StageListener stages) {
         var includedTextBlocks = doc.collectIncludedTextBlocks();
 
+        int merged = 0;
         for (var section : includedTextBlocks) {
             var url = section.getUrl(doc.getUrl());
             if (url == null) {
                 continue;
             }
+            long start = System.nanoTime();
             var tbDocument = TemplateDocument.load(url);
+            long loaded = System.nanoTime();
             doc.merge(tbDocument, section);
+            stages.textBlock(url, loaded - start, System.nanoTime() - loaded);
+            merged++;
         }
+        return merged;
     }
 
     /**
@@ -96,11 +287,18 @@ public class RenderEngine {
      * and potential remove the element if condition does not match.
      *
      * @param doc The template document to process
+     * @return the number of conditional elements
      */
-    private static void processConditions(@NonNull TemplateDocument doc, JsonNode data) {
-        for (var conditionalTemplateElement : doc.collectConditionalTemplateElements()) {
+    private static int processConditions(@NonNull TemplateDocument doc, JsonNode data, StageListener stages) {
+        var conditionalTemplateElements = doc.collectConditionalTemplateElements();
+        for (var conditionalTemplateElement : conditionalTemplateElements) {
+                // Bedingung vorher lesen, das Element kann beim Auflösen entfernt werden
+                String condition = conditionalTemplateElement.getCondition();
+                long start = System.nanoTime();
                 conditionalTemplateElement.resolveCondition(data);
+                stages.condition(condition, System.nanoTime() - start);
         }
+        return conditionalTemplateElements.size();
     }
 
     /**
@@ -108,12 +306,18 @@ public class RenderEngine {
      *
      * @param doc The template document to process
      * @param data The JSON data containing field values
+     * @return the number of fields
      */
-    private static void replaceFieldsWithStaticText(@NonNull TemplateDocument doc, JsonNode data) {
-        for (var field : doc.collectUserFields()) {
-            var newValue = getFieldValue(field.getName(), data);
+    private static int replaceFieldsWithStaticText(@NonNull TemplateDocument doc, JsonNode data, StageListener stages) {
+        var fields = doc.collectUserFields();
+        for (var field : fields) {
+            String name = field.getName();
+            long start = System.nanoTime();
+            var newValue = getFieldValue(name, data);
             doc.setFieldValue(field, newValue);
+            stages.field(name, System.nanoTime() - start);
         }
+        return fields.size();
     }
 
     /**
@@ -140,12 +344,35 @@ public class RenderEngine {
      * After duplication, all loop-references inside the clone are indexed:
      * policy_holder.full_name  -> policy_holder.0.full_name (clone #0)
      */
-    private static void processLoops(TemplateDocument doc, JsonNode data)  {
+    private static void processLoops(TemplateDocument doc, JsonNode data, MemoryBudget budget, MergePhaseEvent phase,
+                                     StageListener stages)  {
         var elements = doc.findRepeatGroups(data);
+        budget.reserve(estimateSize(doc, elements, data));
 
+        long items = 0;
         for (var element : elements.entrySet()) {
-            handleGenericLoop(doc, element.getKey(), element.getValue(), data);
+            long start = System.nanoTime();
+            int copies = handleGenericLoop(doc, element.getKey(), element.getValue(), data);
+            stages.repeatGroup(element.getValue(), copies, System.nanoTime() - start);
+            items += copies;
+        }
+        phase.setElements(elements.size());
+        phase.setArrayItems(items);
+    }
+
+    /**
+     * Estimates the heap of the merged document before any repeat group is duplicated: the document content
+     * plus one copy of each repeat group per item of its array.
+     */
+    static long estimateSize(TemplateDocument doc, Map<TemplateElement, String> repeatGroups, JsonNode data) {
+        long bytes = doc.estimatedBytes();
+        for (var group : repeatGroups.entrySet()) {
+            JsonNode arrayNode = data.at("/" + group.getValue().replace(".", "/"));
+            if (arrayNode != null && arrayNode.isArray()) {
+                bytes += group.getKey().estimatedBytes() * arrayNode.size();
+            }
         }
+        return bytes;
     }
 
     /**
@@ -153,11 +380,13 @@ public class RenderEngine {
      * After duplication, all loop-references inside the clone are indexed:
      * customer.full_name  -> customer.0.full_name (clone #0)
      * customer.full_name  -> customer.1.full_name (clone #1)
+     *
+     * @return the number of copies
      */
-    private static void handleGenericLoop(@NonNull TemplateDocument doc, @NonNull TemplateElement elementToExpand, @NonNull String arrayPath, @NonNull JsonNode data) {
+    static int handleGenericLoop(@NonNull TemplateDocument doc, @NonNull TemplateElement elementToExpand, @NonNull String arrayPath, @NonNull JsonNode data) {
         JsonNode arrayNode = data.at("/" + arrayPath.replace(".", "/"));
         if (arrayNode == null || !arrayNode.isArray()) {
-            return;
+            return 0;
         }
 
         for (int index = 0; index < arrayNode.size(); index++) {
@@ -171,6 +400,7 @@ public class RenderEngine {
             }
         }
         doc.removeChild(elementToExpand);
+        return arrayNode.size();
     }
 
     /**
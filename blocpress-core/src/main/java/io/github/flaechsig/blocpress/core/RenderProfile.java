@@ -0,0 +1,124 @@
+package io.github.flaechsig.blocpress.core;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Kostenaufstellung eines Render-Vorgangs ("explain"): Dauer je Phase und je Template-Konstrukt.
+ *
+ * <p><b>Fachlicher Kontext:</b>
+ * Ist ein Template langsam, sieht man der Gesamtzeit nicht an, ob die vielen Bedingungen, eine verschachtelte
+ * Wiederholungsgruppe oder ein Baustein die Ursache ist. Der Profiler wird als {@link StageListener} an den Merge
+ * übergeben und summiert die Zeiten je Bedingung, je Wiederholungsgruppe (mit Anzahl der Kopien), je Baustein
+ * (Laden und Einmischen) und je Feld. Felder in Wiederholungsgruppen werden ohne Index zusammengefasst
+ * ({@code produkte.0.preis} und {@code produkte.1.preis} zählen als {@code produkte.preis}). Bei einem
+ * Serienbrief werden die Werte aller Datensätze addiert.</p>
+ *
+ * <p>Ein Profil gehört zu genau einem Render-Vorgang und ist nicht thread-sicher.</p>
+ *
+ * <p><b>Design-Referenzen:</b></p>
+ * <ul>
+ *   <li>EDC: <a href="docs/Element_Design_Concept.adoc#edc-tf-5">TF-5: Dokument generieren</a></li>
+ * </ul>
+ */
+public final class RenderProfile implements StageListener {
+
+    private static final Pattern LOOP_INDEX = Pattern.compile("\\.\\d+(?=\\.|$)");
+
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private final Map<String, Cost> conditions = new LinkedHashMap<>();
+    private final Map<String, Cost> repeatGroups = new LinkedHashMap<>();
+    private final Map<String, TextBlockCost> textBlocks = new LinkedHashMap<>();
+    private final Map<String, Cost> fields = new LinkedHashMap<>();
+
+    /**
+     * Accumulated cost of a template construct.
+     *
+     * @param count number of evaluations, copies (repeat groups) or occurrences (fields)
+     * @param nanos total duration in nanoseconds
+     */
+    public record Cost(long count, long nanos) {
+        Cost add(long count, long nanos) {
+            return new Cost(this.count + count, this.nanos + nanos);
+        }
+    }
+
+    /**
+     * Accumulated cost of a text block.
+     *
+     * @param count      number of sections the text block was merged into
+     * @param loadNanos  total duration of loading the text block
+     * @param mergeNanos total duration of merging styles and content
+     */
+    public record TextBlockCost(long count, long loadNanos, long mergeNanos) {
+        TextBlockCost add(long loadNanos, long mergeNanos) {
+            return new TextBlockCost(count + 1, this.loadNanos + loadNanos, this.mergeNanos + mergeNanos);
+        }
+    }
+
+    @Override
+    public void completed(String stage, long nanos) {
+        phases.merge(stage, nanos, Long::sum);
+    }
+
+    @Override
+    public void textBlock(URL textBlock, long loadNanos, long mergeNanos) {
+        textBlocks.merge(textBlock.toString(), new TextBlockCost(1, loadNanos, mergeNanos),
+                (cost, added) -> cost.add(loadNanos, mergeNanos));
+    }
+
+    @Override
+    public void condition(String condition, long nanos) {
+        conditions.merge(condition, new Cost(1, nanos), (cost, added) -> cost.add(1, nanos));
+    }
+
+    @Override
+    public void repeatGroup(String arrayPath, int copies, long nanos) {
+        repeatGroups.merge(LOOP_INDEX.matcher(arrayPath).replaceAll(""), new Cost(copies, nanos),
+                (cost, added) -> cost.add(copies, nanos));
+    }
+
+    @Override
+    public void field(String field, long nanos) {
+        String name = field == null ? "" : LOOP_INDEX.matcher(field).replaceAll("");
+        fields.merge(name, new Cost(1, nanos), (cost, added) -> cost.add(1, nanos));
+    }
+
+    /**
+     * @return duration in nanoseconds per phase, in the order the phases first completed
+     */
+    public Map<String, Long> phases() {
+        return Collections.unmodifiableMap(phases);
+    }
+
+    /**
+     * @return cost per condition as written in the template
+     */
+    public Map<String, Cost> conditions() {
+        return Collections.unmodifiableMap(conditions);
+    }
+
+    /**
+     * @return cost per repeat group, keyed by the array path without loop indexes
+     */
+    public Map<String, Cost> repeatGroups() {
+        return Collections.unmodifiableMap(repeatGroups);
+    }
+
+    /**
+     * @return cost per text block URL
+     */
+    public Map<String, TextBlockCost> textBlocks() {
+        return Collections.unmodifiableMap(textBlocks);
+    }
+
+    /**
+     * @return cost per field name without loop indexes
+     */
+    public Map<String, Cost> fields() {
+        return Collections.unmodifiableMap(fields);
+    }
+}
@@ -0,0 +1,119 @@
+package io.github.flaechsig.blocpress.core;
+
+import java.net.URL;
+
+/**
+ * Receives the duration of every merge phase ({@code load}, {@code text-blocks}, {@code conditions},
+ * {@code loops}, {@code fields}, {@code append}, {@code save}), e.g. to record it as a metric.
+ * A mail merge reports the phases once per record.
+ *
+ * <p>Listeners that break the cost down per template construct ({@link RenderProfile}) also override the element
+ * callbacks, which are reported within the phases.</p>
+ */
+@FunctionalInterface
+public interface StageListener {
+
+    /**
+     * Listener that ignores all phases.
+     */
+    StageListener NONE = (stage, nanos) -> {
+    };
+
+    /**
+     * @param stage name of the completed phase
+     * @param nanos duration of the phase in nanoseconds
+     */
+    void completed(String stage, long nanos);
+
+    /**
+     * Identifies the merged template in the {@code blocpress.MergePhase} recordings. Only called while the event is
+     * recorded.
+     *
+     * @return name, version and id of the template, {@code null} to record the template URL
+     */
+    default String template() {
+        return null;
+    }
+
+    /**
+     * A text block was loaded and merged into a section of the template.
+     *
+     * @param textBlock  URL of the text block
+     * @param loadNanos  duration of loading the text block
+     * @param mergeNanos duration of merging its styles and content
+     */
+    default void textBlock(URL textBlock, long loadNanos, long mergeNanos) {
+    }
+
+    /**
+     * A conditional element was resolved.
+     *
+     * @param condition the condition as written in the template
+     * @param nanos     duration of evaluating the condition and resolving the element
+     */
+    default void condition(String condition, long nanos) {
+    }
+
+    /**
+     * A repeat group was duplicated for the items of its array.
+     *
+     * @param arrayPath path of the array in the data
+     * @param copies    number of copies
+     * @param nanos     duration of duplicating the group and indexing its fields
+     */
+    default void repeatGroup(String arrayPath, int copies, long nanos) {
+    }
+
+    /**
+     * A field was formatted and replaced by its value.
+     *
+     * @param field name of the field
+     * @param nanos duration of formatting and replacing the field
+     */
+    default void field(String field, long nanos) {
+    }
+
+    /**
+     * @return a listener that reports every phase and element to this listener and then to {@code other}
+     */
+    default StageListener andThen(StageListener other) {
+        StageListener first = this;
+        return new StageListener() {
+            @Override
+            public void completed(String stage, long nanos) {
+                first.completed(stage, nanos);
+                other.completed(stage, nanos);
+            }
+
+            @Override
+            public String template() {
+                String template = first.template();
+                return template != null ? template : other.template();
+            }
+
+            @Override
+            public void textBlock(URL textBlock, long loadNanos, long mergeNanos) {
+                first.textBlock(textBlock, loadNanos, mergeNanos);
+                other.textBlock(textBlock, loadNanos, mergeNanos);
+            }
+
+            @Override
+            public void condition(String condition, long nanos) {
+                first.condition(condition, nanos);
+                other.condition(condition, nanos);
+            }
+
+            @Override
+            public void repeatGroup(String arrayPath, int copies, long nanos) {
+                first.repeatGroup(arrayPath, copies, nanos);
+                other.repeatGroup(arrayPath, copies, nanos);
+            }
+
+            @Override
+            public void field(String field, long nanos) {
+                first.field(field, nanos);
+                other.field(field, nanos);
+            }
+        };
+    }
+}
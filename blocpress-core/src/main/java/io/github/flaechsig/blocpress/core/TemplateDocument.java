@@ -48,12 +48,28 @@ public interface TemplateDocument {
      */
     void merge(TemplateDocument tbDocument, TemplateSectionElement section);
 
+    /**
+     * Appends the body of another, already merged document of the same template as a new record (mail merge).
+     * The record starts on a new page and its page numbering restarts at 1. Styles that are identical in both
+     * documents are shared, resources of the document package (images, fonts) are not duplicated.
+     *
+     * @param record The merged document to append.
+     */
+    void appendRecord(TemplateDocument record);
+
     /**
      * Determines repetition groups (sections or table rows) based on arrays.
      * Returns: Template element -> arrayPath (e.g., "policy_holder" or "policy_holder.children")
      */
     Map<TemplateElement, String> findRepeatGroups(JsonNode data);
 
+    /**
+     * Estimates the heap the content of the document occupies, see {@link TemplateElement#estimatedBytes()}.
+     *
+     * @return the estimated size in bytes
+     */
+    long estimatedBytes();
+
     /**
      * Duplicates a template element, creating a new instance with the same structure an place it
      * directly after the original element.
@@ -105,6 +121,16 @@ public interface TemplateDocument {
      */
     void setFieldValue(TemplateElement userField, String value);
 
+    /**
+     * Formats a value for a user-defined field the same way {@link #setFieldValue} inserts it,
+     * without changing the document.
+     *
+     * @param userField The template element representing the user-defined field.
+     * @param value     The raw value; {@code null} results in an empty string.
+     * @return The formatted value.
+     */
+    String formatFieldValue(TemplateElement userField, String value);
+
     /**
      * @return All data list keys which represent array elements in the template data.
      */
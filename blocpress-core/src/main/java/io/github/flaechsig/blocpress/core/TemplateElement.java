@@ -44,6 +44,13 @@ public interface TemplateElement {
      */
     boolean matchCondition(JsonNode data);
 
+    /**
+     * Retrieves the condition of the template element as written in the template.
+     *
+     * @return the condition, {@code null} if the element is not conditional
+     */
+    String getCondition();
+
     /**
      * Resolves the condition for the template element based on the provided data.
      * If the condition matches, the element is resolved and its content is updated accordingly.
@@ -52,6 +59,14 @@ public interface TemplateElement {
      */
     void resolveCondition(JsonNode data);
 
+    /**
+     * Estimates the heap one copy of this element occupies. Used to check the memory budget of a render before
+     * repeat groups are duplicated.
+     *
+     * @return the estimated size in bytes
+     */
+    long estimatedBytes();
+
     /**
      * Removes the template element from its parent node.
      */
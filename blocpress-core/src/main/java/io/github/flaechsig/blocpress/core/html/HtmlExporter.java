@@ -0,0 +1,626 @@
+package io.github.flaechsig.blocpress.core.html;
+
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import org.odftoolkit.odfdom.doc.OdfTextDocument;
+import org.odftoolkit.odfdom.pkg.OdfPackage;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import static io.github.flaechsig.blocpress.core.html.OdfText.DRAW_NS;
+import static io.github.flaechsig.blocpress.core.html.OdfText.FO_NS;
+import static io.github.flaechsig.blocpress.core.html.OdfText.OFFICE_NS;
+import static io.github.flaechsig.blocpress.core.html.OdfText.STYLE_NS;
+import static io.github.flaechsig.blocpress.core.html.OdfText.SVG_NS;
+import static io.github.flaechsig.blocpress.core.html.OdfText.TABLE_NS;
+import static io.github.flaechsig.blocpress.core.html.OdfText.TEXT_NS;
+import static io.github.flaechsig.blocpress.core.html.OdfText.XLINK_NS;
+import static io.github.flaechsig.blocpress.core.html.OdfText.children;
+import static io.github.flaechsig.blocpress.core.html.OdfText.firstChild;
+import static io.github.flaechsig.blocpress.core.html.OdfText.isHidden;
+import static io.github.flaechsig.blocpress.core.html.OdfText.isIgnored;
+import static io.github.flaechsig.blocpress.core.html.OdfText.load;
+
+/**
+ * Exportiert ein gemergtes ODT-Dokument als eigenständiges HTML.
+ *
+ * <p><b>Fachlicher Kontext:</b>
+ * Das Portal zeigt Dokumente direkt im Browser an. Statt eines PDFs aus LibreOffice mit pdf.js wird das HTML
+ * direkt aus dem ODF-DOM erzeugt, ohne externen Prozess. Absatz-, Zeichen- und Tabellenvorlagen werden zu
+ * CSS-Klassen, Bilder werden als Data-URI eingebettet. Die Ausgabe ist eine Vorschau: Kopf- und Fußzeilen,
+ * Seitenumbrüche und Textumfluss entfallen.</p>
+ *
+ * <p><b>Design-Referenzen:</b></p>
+ * <ul>
+ *   <li>EDC: <a href="docs/Element_Design_Concept.adoc#edc-c-5">C-5: Export-Formate (ODT, PDF, RTF)</a></li>
+ * </ul>
+ */
+public class HtmlExporter {
+
+    /** Style families that become CSS classes, with their class prefix. */
+    private static final Map<String, String> FAMILY_PREFIXES = Map.of(
+            "paragraph", "p-",
+            "text", "t-",
+            "table", "tb-",
+            "table-column", "tc-",
+            "table-row", "tr-",
+            "table-cell", "td-",
+            "section", "s-");
+
+    /** fo: attributes that have the same name and value syntax in CSS. */
+    private static final Set<String> CSS_PROPERTIES = Set.of(
+            "font-size", "font-weight", "font-style", "font-variant", "font-family", "color", "background-color",
+            "letter-spacing", "text-transform", "text-shadow", "text-indent",
+            "margin", "margin-top", "margin-bottom", "margin-left", "margin-right",
+            "padding", "padding-top", "padding-bottom", "padding-left", "padding-right",
+            "border", "border-top", "border-bottom", "border-left", "border-right");
+
+    private static final String BASE_CSS = """
+            body{margin:0;background:#fff}
+            .bp-page{box-sizing:border-box;margin:0 auto}
+            p,h1,h2,h3,h4,h5,h6{margin:0;font-size:inherit;font-weight:inherit}
+            table{border-collapse:collapse}
+            td{vertical-align:top}
+            .bp-tab{display:inline-block;width:1.25cm}
+            .bp-notes{border-top:1px solid #000;margin-top:1em}
+            """;
+
+    private final OdfPackage pkg;
+    private final Map<String, Element> common = new HashMap<>();
+    private final Map<String, Element> automatic = new HashMap<>();
+    private final Map<String, Element> listStyles = new HashMap<>();
+    private final Map<String, String> fontFamilies = new HashMap<>();
+    private final StringBuilder html = new StringBuilder();
+    private final List<Element> notes = new ArrayList<>();
+
+    private HtmlExporter(OdfTextDocument document) throws Exception {
+        this.pkg = document.getPackage();
+        Document stylesDom = document.getStylesDom();
+        Document contentDom = document.getContentDom();
+        collect(firstChild(stylesDom.getDocumentElement(), OFFICE_NS, "styles"), common);
+        collect(firstChild(contentDom.getDocumentElement(), OFFICE_NS, "automatic-styles"), automatic);
+        for (Document dom : List.of(stylesDom, contentDom)) {
+            for (Element face : children(firstChild(dom.getDocumentElement(), OFFICE_NS, "font-face-decls"))) {
+                fontFamilies.put(face.getAttributeNS(STYLE_NS, "name"), fontFamily(face));
+            }
+        }
+    }
+
+    /**
+     * Exports the document as HTML page with embedded CSS and images.
+     *
+     * @param odt merged ODT document
+     * @return the HTML document, UTF-8 encoded
+     */
+    @SneakyThrows
+    public static byte[] toHtml(@NonNull byte[] odt) {
+        OdfTextDocument document = load(odt);
+        return new HtmlExporter(document).export(document).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String export(OdfTextDocument document) throws Exception {
+        html.append("<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\">");
+        String title = OdfText.title(document);
+        if (title != null) {
+            html.append("<title>").append(escape(title)).append("</title>");
+        }
+        html.append("<style>\n").append(BASE_CSS).append(css(document)).append("</style></head>\n<body><div class=\"bp-page\">\n");
+        blocks(document.getContentRoot(), 1, null);
+        if (!notes.isEmpty()) {
+            html.append("<div class=\"bp-notes\">\n");
+            for (Element note : notes) {
+                blocks(firstChild(note, TEXT_NS, "note-body"), 1, null);
+            }
+            html.append("</div>\n");
+        }
+        html.append("</div></body></html>\n");
+        return html.toString();
+    }
+
+    // ------------------------------------------------------------------ styles
+
+    private static void collect(Element container, Map<String, Element> target) {
+        for (Element style : children(container)) {
+            String name = style.getAttributeNS(STYLE_NS, "name");
+            if ("style".equals(style.getLocalName())) {
+                target.put(style.getAttributeNS(STYLE_NS, "family") + "/" + name, style);
+            } else if ("list-style".equals(style.getLocalName()) && TEXT_NS.equals(style.getNamespaceURI())) {
+                target.put("list/" + name, style);
+            }
+        }
+    }
+
+    private static String fontFamily(Element face) {
+        String family = face.getAttributeNS(SVG_NS, "font-family");
+        if (family.isEmpty()) {
+            family = face.getAttributeNS(STYLE_NS, "name");
+        }
+        if (!family.startsWith("'") && !family.startsWith("\"")) {
+            family = "'" + family + "'";
+        }
+        String generic = switch (face.getAttributeNS(STYLE_NS, "font-family-generic")) {
+            case "roman" -> "serif";
+            case "swiss" -> "sans-serif";
+            case "modern" -> "monospace";
+            default -> null;
+        };
+        return generic == null ? family : family + "," + generic;
+    }
+
+    private String css(OdfTextDocument document) throws Exception {
+        StringBuilder css = new StringBuilder();
+        Element page = pageLayout(document.getStylesDom());
+        if (page != null) {
+            Map<String, String> props = new LinkedHashMap<>();
+            Element properties = firstChild(page, STYLE_NS, "page-layout-properties");
+            String width = properties == null ? "" : properties.getAttributeNS(FO_NS, "page-width");
+            if (!width.isEmpty()) {
+                props.put("max-width", width);
+            }
+            for (String side : List.of("top", "right", "bottom", "left")) {
+                String margin = properties == null ? "" : properties.getAttributeNS(FO_NS, "margin-" + side);
+                if (!margin.isEmpty()) {
+                    props.put("padding-" + side, margin);
+                }
+            }
+            rule(css, ".bp-page", props);
+        }
+        for (Element style : children(firstChild(document.getStylesDom().getDocumentElement(), OFFICE_NS, "styles"))) {
+            if ("default-style".equals(style.getLocalName())) {
+                Map<String, String> props = new LinkedHashMap<>();
+                apply(style, props);
+                switch (style.getAttributeNS(STYLE_NS, "family")) {
+                    case "paragraph" -> rule(css, ".bp-page", props);
+                    case "table" -> rule(css, "table", props);
+                    default -> {
+                    }
+                }
+            }
+        }
+        for (Map.Entry<String, Element> style : common.entrySet()) {
+            addRule(css, style.getValue(), false);
+        }
+        for (Map.Entry<String, Element> style : automatic.entrySet()) {
+            addRule(css, style.getValue(), true);
+        }
+        return css.toString();
+    }
+
+    private static Element pageLayout(Document stylesDom) {
+        Element masterStyles = firstChild(stylesDom.getDocumentElement(), OFFICE_NS, "master-styles");
+        Element master = firstChild(masterStyles, STYLE_NS, "master-page");
+        if (master == null) {
+            return null;
+        }
+        String name = master.getAttributeNS(STYLE_NS, "page-layout-name");
+        for (Element layout : children(firstChild(stylesDom.getDocumentElement(), OFFICE_NS, "automatic-styles"))) {
+            if ("page-layout".equals(layout.getLocalName()) && name.equals(layout.getAttributeNS(STYLE_NS, "name"))) {
+                return layout;
+            }
+        }
+        return null;
+    }
+
+    private void addRule(StringBuilder css, Element style, boolean isAutomatic) {
+        String family = style.getAttributeNS(STYLE_NS, "family");
+        if (!FAMILY_PREFIXES.containsKey(family)) {
+            return;
+        }
+        Map<String, String> props = new LinkedHashMap<>();
+        resolve(style, props, 0);
+        rule(css, "." + className(family, style.getAttributeNS(STYLE_NS, "name"), isAutomatic), props);
+    }
+
+    private void resolve(Element style, Map<String, String> props, int depth) {
+        String parent = style.getAttributeNS(STYLE_NS, "parent-style-name");
+        Element parentStyle = common.get(style.getAttributeNS(STYLE_NS, "family") + "/" + parent);
+        if (!parent.isEmpty() && parentStyle != null && depth < 20) {
+            resolve(parentStyle, props, depth + 1);
+        }
+        apply(style, props);
+    }
+
+    private void apply(Element style, Map<String, String> props) {
+        for (Element properties : children(style)) {
+            var attributes = properties.getAttributes();
+            for (int i = 0; i < attributes.getLength(); i++) {
+                Node attribute = attributes.item(i);
+                property(attribute.getNamespaceURI(), attribute.getLocalName(), attribute.getNodeValue(), props);
+            }
+        }
+    }
+
+    private void property(String ns, String name, String value, Map<String, String> props) {
+        if (FO_NS.equals(ns)) {
+            switch (name) {
+                case "text-align" -> props.put("text-align", switch (value) {
+                    case "start" -> "left";
+                    case "end" -> "right";
+                    default -> value;
+                });
+                case "line-height" -> props.put("line-height", value.endsWith("%")
+                        ? String.format(Locale.ROOT, "%.2f", Float.parseFloat(value.substring(0, value.length() - 1)) / 100f * 1.15f)
+                        : value);
+                case "break-before", "break-after" -> {
+                    if ("page".equals(value)) {
+                        props.put("page-" + name, "always");
+                    }
+                }
+                case "min-height" -> props.put("min-height", value);
+                default -> {
+                    if (CSS_PROPERTIES.contains(name)) {
+                        props.put(name, value);
+                    }
+                }
+            }
+        } else if (STYLE_NS.equals(ns)) {
+            switch (name) {
+                case "font-name" -> {
+                    String family = fontFamilies.get(value);
+                    props.put("font-family", family != null ? family : "'" + value + "'");
+                }
+                case "text-underline-style" -> decoration(props, "underline", !"none".equals(value));
+                case "text-line-through-style" -> decoration(props, "line-through", !"none".equals(value));
+                case "text-position" -> {
+                    if (value.startsWith("super") || value.matches("[1-9].*")) {
+                        props.put("vertical-align", "super");
+                        props.put("font-size", "58%");
+                    } else if (value.startsWith("sub") || value.startsWith("-")) {
+                        props.put("vertical-align", "sub");
+                        props.put("font-size", "58%");
+                    }
+                }
+                case "vertical-align" -> {
+                    if (!"automatic".equals(value)) {
+                        props.put("vertical-align", value);
+                    }
+                }
+                case "width", "column-width" -> props.put("width", value);
+                case "rel-width" -> props.put("width", value);
+                case "row-height" -> props.put("height", value);
+                case "min-row-height" -> props.put("min-height", value);
+                default -> {
+                }
+            }
+        } else if (TABLE_NS.equals(ns) && "align".equals(name)) {
+            switch (value) {
+                case "center" -> {
+                    props.put("margin-left", "auto");
+                    props.put("margin-right", "auto");
+                }
+                case "right" -> props.put("margin-left", "auto");
+                default -> {
+                }
+            }
+        }
+    }
+
+    private static void decoration(Map<String, String> props, String line, boolean on) {
+        List<String> lines = new ArrayList<>(List.of(props.getOrDefault("text-decoration", "none").split(" ")));
+        lines.remove("none");
+        lines.remove(line);
+        if (on) {
+            lines.add(line);
+        }
+        props.put("text-decoration", lines.isEmpty() ? "none" : String.join(" ", lines));
+    }
+
+    private static void rule(StringBuilder css, String selector, Map<String, String> props) {
+        if (props.isEmpty()) {
+            return;
+        }
+        css.append(selector).append('{');
+        props.forEach((name, value) -> css.append(name).append(':').append(value).append(';'));
+        css.append("}\n");
+    }
+
+    private String classOf(String family, String name) {
+        if (name.isEmpty()) {
+            return null;
+        }
+        if (automatic.containsKey(family + "/" + name)) {
+            return className(family, name, true);
+        }
+        return common.containsKey(family + "/" + name) ? className(family, name, false) : null;
+    }
+
+    private static String className(String family, String name, boolean isAutomatic) {
+        return FAMILY_PREFIXES.get(family) + (isAutomatic ? "a-" : "") + name.replaceAll("[^A-Za-z0-9_-]", "_");
+    }
+
+    private boolean isOrdered(String listStyle, int level) {
+        Element style = automatic.getOrDefault("list/" + listStyle, common.get("list/" + listStyle));
+        for (Element levelStyle : children(style)) {
+            if (String.valueOf(level).equals(levelStyle.getAttributeNS(TEXT_NS, "level"))) {
+                return "list-level-style-number".equals(levelStyle.getLocalName());
+            }
+        }
+        return false;
+    }
+
+    // ------------------------------------------------------------------ content
+
+    private void blocks(Node parent, int listLevel, String listStyle) throws Exception {
+        for (Element el : children(parent)) {
+            if (isIgnored(el) || isHidden(el)) {
+                continue;
+            }
+            String ns = el.getNamespaceURI();
+            String local = el.getLocalName();
+            if (TEXT_NS.equals(ns) && ("p".equals(local) || "h".equals(local))) {
+                paragraph(el);
+            } else if (TABLE_NS.equals(ns) && "table".equals(local)) {
+                table(el);
+            } else if (TEXT_NS.equals(ns) && "list".equals(local)) {
+                list(el, listLevel, listStyle);
+            } else if (TEXT_NS.equals(ns) && "section".equals(local)) {
+                open("div", classOf("section", el.getAttributeNS(TEXT_NS, "style-name")));
+                blocks(el, listLevel, listStyle);
+                html.append("</div>\n");
+            } else if (DRAW_NS.equals(ns) && "frame".equals(local)) {
+                List<Element> textBoxes = new ArrayList<>();
+                frame(el, textBoxes);
+                textBoxes(textBoxes);
+            } else {
+                // Verzeichnisse (index-body, index-title) und unbekannte Container
+                blocks(el, listLevel, listStyle);
+            }
+        }
+    }
+
+    private void paragraph(Element p) throws Exception {
+        String tag = "p";
+        if ("h".equals(p.getLocalName())) {
+            String level = p.getAttributeNS(TEXT_NS, "outline-level");
+            tag = "h" + Math.min(6, Math.max(1, level.isEmpty() ? 1 : Integer.parseInt(level)));
+        }
+        open(tag, classOf("paragraph", p.getAttributeNS(TEXT_NS, "style-name")));
+        List<Element> textBoxes = new ArrayList<>();
+        int length = html.length();
+        inlines(p, textBoxes);
+        if (html.length() == length) {
+            // leere Absätze behalten ihre Zeilenhöhe
+            html.append("<br>");
+        }
+        html.append("</").append(tag).append(">\n");
+        textBoxes(textBoxes);
+    }
+
+    private void inlines(Node parent, List<Element> textBoxes) throws Exception {
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node.getNodeType() == Node.TEXT_NODE) {
+                html.append(escape(OdfText.collapse(node.getNodeValue())));
+                continue;
+            }
+            if (!(node instanceof Element el) || isIgnored(el) || isHidden(el)) {
+                continue;
+            }
+            String ns = el.getNamespaceURI();
+            String local = el.getLocalName();
+            if (TEXT_NS.equals(ns)) {
+                switch (local) {
+                    case "span" -> {
+                        open("span", classOf("text", el.getAttributeNS(TEXT_NS, "style-name")));
+                        inlines(el, textBoxes);
+                        html.append("</span>");
+                    }
+                    case "a" -> {
+                        html.append("<a href=\"").append(escape(el.getAttributeNS(XLINK_NS, "href"))).append("\">");
+                        inlines(el, textBoxes);
+                        html.append("</a>");
+                    }
+                    case "s" -> html.append("&nbsp;".repeat(OdfText.spaceCount(el)));
+                    case "tab" -> html.append("<span class=\"bp-tab\"></span>");
+                    case "line-break" -> html.append("<br>");
+                    case "note" -> {
+                        notes.add(el);
+                        Element citation = firstChild(el, TEXT_NS, "note-citation");
+                        html.append("<sup>").append(escape(citation == null ? String.valueOf(notes.size()) : OdfText.text(citation)))
+                                .append("</sup>");
+                    }
+                    default -> inlines(el, textBoxes);
+                }
+            } else if (DRAW_NS.equals(ns) && "frame".equals(local)) {
+                frame(el, textBoxes);
+            } else if (DRAW_NS.equals(ns) && "a".equals(local)) {
+                inlines(el, textBoxes);
+            }
+        }
+    }
+
+    private void frame(Element frame, List<Element> textBoxes) {
+        for (Element child : children(frame)) {
+            if (DRAW_NS.equals(child.getNamespaceURI()) && "image".equals(child.getLocalName())) {
+                String src = dataUri(child);
+                if (src != null) {
+                    Element title = firstChild(frame, SVG_NS, "title");
+                    html.append("<img src=\"").append(src).append("\" alt=\"")
+                            .append(escape(title == null ? "" : OdfText.text(title))).append('"');
+                    String width = frame.getAttributeNS(SVG_NS, "width");
+                    String height = frame.getAttributeNS(SVG_NS, "height");
+                    if (!width.isEmpty() && !height.isEmpty()) {
+                        html.append(" style=\"width:").append(width).append(";height:").append(height).append('"');
+                    }
+                    html.append('>');
+                    return;
+                }
+            } else if (DRAW_NS.equals(child.getNamespaceURI()) && "text-box".equals(child.getLocalName())) {
+                textBoxes.add(frame);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Text frames contain block content, which must not be nested into the paragraph; they follow it.
+     */
+    private void textBoxes(List<Element> frames) throws Exception {
+        for (Element frame : frames) {
+            String width = frame.getAttributeNS(SVG_NS, "width");
+            html.append("<div class=\"bp-frame\"");
+            if (!width.isEmpty()) {
+                html.append(" style=\"width:").append(width).append('"');
+            }
+            html.append(">\n");
+            blocks(firstChild(frame, DRAW_NS, "text-box"), 1, null);
+            html.append("</div>\n");
+        }
+    }
+
+    private String dataUri(Element image) {
+        byte[] data = null;
+        String href = image.getAttributeNS(XLINK_NS, "href");
+        Element binary = firstChild(image, OFFICE_NS, "binary-data");
+        if (binary != null) {
+            data = Base64.getMimeDecoder().decode(OdfText.text(binary).trim());
+        } else if (!href.isEmpty() && !href.contains(":") && !href.startsWith("/")) {
+            data = pkg.getBytes(href.startsWith("./") ? href.substring(2) : href);
+        }
+        String lower = href.toLowerCase(Locale.ROOT);
+        String mediaType = lower.endsWith(".png") ? "image/png"
+                : lower.endsWith(".jpg") || lower.endsWith(".jpeg") ? "image/jpeg"
+                : lower.endsWith(".gif") ? "image/gif"
+                : lower.endsWith(".svg") ? "image/svg+xml"
+                : lower.endsWith(".webp") ? "image/webp"
+                : lower.endsWith(".bmp") ? "image/bmp"
+                : binary != null ? "image/png"
+                : null;
+        if (data == null || mediaType == null) {
+            return null;
+        }
+        return "data:" + mediaType + ";base64," + Base64.getEncoder().encodeToString(data);
+    }
+
+    private void table(Element table) throws Exception {
+        open("table", classOf("table", table.getAttributeNS(TABLE_NS, "style-name")));
+        html.append("\n<colgroup>");
+        for (Element column : columns(table)) {
+            int repeat = OdfText.repeat(column, "number-columns-repeated");
+            String cls = classOf("table-column", column.getAttributeNS(TABLE_NS, "style-name"));
+            for (int i = 0; i < repeat; i++) {
+                open("col", cls);
+            }
+        }
+        html.append("</colgroup>\n");
+        for (Element child : children(table)) {
+            switch (child.getLocalName()) {
+                case "table-header-rows" -> {
+                    html.append("<thead>\n");
+                    rows(child, "th");
+                    html.append("</thead>\n");
+                }
+                case "table-rows", "table-row-group" -> rows(child, "td");
+                case "table-row" -> row(child, "td");
+                default -> {
+                }
+            }
+        }
+        html.append("</table>\n");
+    }
+
+    private static List<Element> columns(Element table) {
+        List<Element> columns = new ArrayList<>();
+        for (Element child : children(table)) {
+            switch (child.getLocalName()) {
+                case "table-column" -> columns.add(child);
+                case "table-columns", "table-header-columns", "table-column-group" -> columns.addAll(columns(child));
+                default -> {
+                }
+            }
+        }
+        return columns;
+    }
+
+    private void rows(Element group, String cellTag) throws Exception {
+        for (Element child : children(group)) {
+            if ("table-row".equals(child.getLocalName())) {
+                row(child, cellTag);
+            } else if ("table-rows".equals(child.getLocalName()) || "table-row-group".equals(child.getLocalName())) {
+                rows(child, cellTag);
+            }
+        }
+    }
+
+    private void row(Element row, String cellTag) throws Exception {
+        String cls = classOf("table-row", row.getAttributeNS(TABLE_NS, "style-name"));
+        for (int r = OdfText.repeat(row, "number-rows-repeated"); r > 0; r--) {
+            open("tr", cls);
+            for (Element cell : children(row)) {
+                if (!"table-cell".equals(cell.getLocalName())) {
+                    continue;
+                }
+                for (int c = OdfText.repeat(cell, "number-columns-repeated"); c > 0; c--) {
+                    cell(cell, cellTag);
+                }
+            }
+            html.append("</tr>\n");
+        }
+    }
+
+    private void cell(Element cell, String tag) throws Exception {
+        html.append('<').append(tag);
+        String cls = classOf("table-cell", cell.getAttributeNS(TABLE_NS, "style-name"));
+        if (cls != null) {
+            html.append(" class=\"").append(cls).append('"');
+        }
+        for (String span : List.of("columns", "rows")) {
+            int count = OdfText.repeat(cell, "number-" + span + "-spanned");
+            if (count > 1) {
+                html.append(' ').append(span.equals("columns") ? "colspan" : "rowspan").append("=\"").append(count).append('"');
+            }
+        }
+        html.append('>');
+        blocks(cell, 1, null);
+        html.append("</").append(tag).append(">\n");
+    }
+
+    private void list(Element list, int level, String inheritedStyle) throws Exception {
+        String style = list.getAttributeNS(TEXT_NS, "style-name");
+        if (style.isEmpty()) {
+            style = inheritedStyle;
+        }
+        String tag = style != null && isOrdered(style, level) ? "ol" : "ul";
+        html.append('<').append(tag).append(">\n");
+        for (Element item : children(list)) {
+            if ("list-item".equals(item.getLocalName()) || "list-header".equals(item.getLocalName())) {
+                html.append("list-header".equals(item.getLocalName()) ? "<li style=\"list-style:none\">" : "<li>");
+                blocks(item, level + 1, style);
+                html.append("</li>\n");
+            }
+        }
+        html.append("</").append(tag).append(">\n");
+    }
+
+    private void open(String tag, String cls) {
+        html.append('<').append(tag);
+        if (cls != null) {
+            html.append(" class=\"").append(cls).append('"');
+        }
+        html.append('>');
+    }
+
+    private static String escape(String text) {
+        StringBuilder out = new StringBuilder(text.length());
+        for (char c : text.toCharArray()) {
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '"' -> out.append("&quot;");
+                default -> out.append(c);
+            }
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,133 @@
+package io.github.flaechsig.blocpress.core.html;
+
+import org.odftoolkit.odfdom.doc.OdfTextDocument;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * DOM helpers shared by the HTML and plain-text export.
+ */
+final class OdfText {
+
+    static final String OFFICE_NS = "urn:oasis:names:tc:opendocument:xmlns:office:1.0";
+    static final String STYLE_NS = "urn:oasis:names:tc:opendocument:xmlns:style:1.0";
+    static final String TEXT_NS = "urn:oasis:names:tc:opendocument:xmlns:text:1.0";
+    static final String TABLE_NS = "urn:oasis:names:tc:opendocument:xmlns:table:1.0";
+    static final String DRAW_NS = "urn:oasis:names:tc:opendocument:xmlns:drawing:1.0";
+    static final String FO_NS = "urn:oasis:names:tc:opendocument:xmlns:xsl-fo-compatible:1.0";
+    static final String SVG_NS = "urn:oasis:names:tc:opendocument:xmlns:svg-compatible:1.0";
+    static final String XLINK_NS = "http://www.w3.org/1999/xlink";
+    private static final String DC_NS = "http://purl.org/dc/elements/1.1/";
+
+    /** Elements that only carry markers, declarations or metadata and produce no output. */
+    private static final Set<String> IGNORED = Set.of(
+            "bookmark", "bookmark-start", "bookmark-end", "reference-mark", "reference-mark-start", "reference-mark-end",
+            "soft-page-break", "alphabetical-index-mark", "alphabetical-index-mark-start", "alphabetical-index-mark-end",
+            "toc-mark", "toc-mark-start", "toc-mark-end", "user-index-mark", "user-index-mark-start", "user-index-mark-end",
+            "tracked-changes", "table-of-content-source", "alphabetical-index-source", "illustration-index-source",
+            "table-index-source", "object-index-source", "user-index-source", "bibliography-source", "section-source",
+            "annotation", "annotation-end", "forms");
+
+    private OdfText() {
+    }
+
+    static OdfTextDocument load(byte[] odt) throws Exception {
+        try (var in = new ByteArrayInputStream(odt)) {
+            return OdfTextDocument.loadDocument(in);
+        }
+    }
+
+    /**
+     * Document title from the metadata, {@code null} if none is set.
+     */
+    static String title(OdfTextDocument document) throws Exception {
+        NodeList titles = document.getMetaDom().getElementsByTagNameNS(DC_NS, "title");
+        if (titles.getLength() == 0) {
+            return null;
+        }
+        String title = text(titles.item(0)).trim();
+        return title.isEmpty() ? null : title;
+    }
+
+    static boolean isIgnored(Element el) {
+        String ns = el.getNamespaceURI();
+        return (TEXT_NS.equals(ns) || OFFICE_NS.equals(ns)) && (IGNORED.contains(el.getLocalName()) || el.getLocalName().endsWith("-decls"));
+    }
+
+    /**
+     * Hidden sections, paragraphs, text and fields.
+     */
+    static boolean isHidden(Element el) {
+        return "none".equals(el.getAttributeNS(TEXT_NS, "display"))
+                || "true".equals(el.getAttributeNS(TEXT_NS, "is-hidden"));
+    }
+
+    /**
+     * Collapses white space inside a text node the way ODF defines it; spaces to keep are {@code text:s} elements.
+     */
+    static String collapse(String text) {
+        return text.replaceAll("[ \\t\\r\\n]+", " ");
+    }
+
+    static int spaceCount(Element s) {
+        return count(s.getAttributeNS(TEXT_NS, "c"));
+    }
+
+    /**
+     * Reads a table repetition or span count (e.g. {@code table:number-columns-repeated}), 1 if absent.
+     */
+    static int repeat(Element el, String attribute) {
+        return count(el.getAttributeNS(TABLE_NS, attribute));
+    }
+
+    private static int count(String value) {
+        try {
+            return value.isEmpty() ? 1 : Math.max(1, Integer.parseInt(value));
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+
+    /**
+     * Text content of a node; {@code getTextContent()} of odfdom elements does not include nested elements.
+     */
+    static String text(Node node) {
+        StringBuilder text = new StringBuilder();
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.TEXT_NODE) {
+                text.append(child.getNodeValue());
+            } else if (child instanceof Element) {
+                text.append(text(child));
+            }
+        }
+        return text.toString();
+    }
+
+    static List<Element> children(Node parent) {
+        List<Element> result = new ArrayList<>();
+        if (parent == null) {
+            return result;
+        }
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof Element el) {
+                result.add(el);
+            }
+        }
+        return result;
+    }
+
+    static Element firstChild(Node parent, String ns, String localName) {
+        for (Element el : children(parent)) {
+            if (ns.equals(el.getNamespaceURI()) && localName.equals(el.getLocalName())) {
+                return el;
+            }
+        }
+        return null;
+    }
+}
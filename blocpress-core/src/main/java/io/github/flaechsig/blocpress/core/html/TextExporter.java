@@ -0,0 +1,176 @@
+package io.github.flaechsig.blocpress.core.html;
+
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.github.flaechsig.blocpress.core.html.OdfText.DRAW_NS;
+import static io.github.flaechsig.blocpress.core.html.OdfText.TABLE_NS;
+import static io.github.flaechsig.blocpress.core.html.OdfText.TEXT_NS;
+import static io.github.flaechsig.blocpress.core.html.OdfText.children;
+import static io.github.flaechsig.blocpress.core.html.OdfText.firstChild;
+import static io.github.flaechsig.blocpress.core.html.OdfText.isHidden;
+import static io.github.flaechsig.blocpress.core.html.OdfText.isIgnored;
+
+/**
+ * Exportiert ein gemergtes ODT-Dokument als reinen Text.
+ *
+ * <p><b>Fachlicher Kontext:</b>
+ * Für Textvorschauen, Suchindizes und E-Mail-Bodies wird der Inhalt ohne Formatierung benötigt. Jeder Absatz
+ * wird eine Zeile, Tabellenzellen werden durch Tabulatoren getrennt, Listeneinträge erhalten ein Aufzählungszeichen.
+ * Bilder, Kopf- und Fußzeilen entfallen.</p>
+ *
+ * <p><b>Design-Referenzen:</b></p>
+ * <ul>
+ *   <li>EDC: <a href="docs/Element_Design_Concept.adoc#edc-c-5">C-5: Export-Formate (ODT, PDF, RTF)</a></li>
+ * </ul>
+ */
+public class TextExporter {
+
+    private final StringBuilder text = new StringBuilder();
+
+    private TextExporter() {
+    }
+
+    /**
+     * Exports the text content of the document.
+     *
+     * @param odt merged ODT document
+     * @return the text, UTF-8 encoded with {@code \n} line ends
+     */
+    @SneakyThrows
+    public static byte[] toText(@NonNull byte[] odt) {
+        TextExporter exporter = new TextExporter();
+        exporter.blocks(OdfText.load(odt).getContentRoot(), "");
+        return exporter.text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void blocks(Node parent, String indent) {
+        for (Element el : children(parent)) {
+            block(el, indent);
+        }
+    }
+
+    private void block(Element el, String indent) {
+        if (isIgnored(el) || isHidden(el)) {
+            return;
+        }
+        String ns = el.getNamespaceURI();
+        String local = el.getLocalName();
+        if (TEXT_NS.equals(ns) && ("p".equals(local) || "h".equals(local))) {
+            paragraph(el, indent);
+        } else if (TABLE_NS.equals(ns) && "table".equals(local)) {
+            table(el);
+        } else if (TEXT_NS.equals(ns) && "list".equals(local)) {
+            list(el, indent);
+        } else if (DRAW_NS.equals(ns) && "frame".equals(local)) {
+            blocks(firstChild(el, DRAW_NS, "text-box"), indent);
+        } else {
+            blocks(el, indent);
+        }
+    }
+
+    private void paragraph(Element p, String prefix) {
+        List<Element> textBoxes = new ArrayList<>();
+        StringBuilder line = new StringBuilder();
+        inlines(p, line, textBoxes);
+        text.append(prefix).append(line.toString().strip()).append('\n');
+        for (Element frame : textBoxes) {
+            blocks(firstChild(frame, DRAW_NS, "text-box"), "");
+        }
+    }
+
+    private static void inlines(Node parent, StringBuilder line, List<Element> textBoxes) {
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node.getNodeType() == Node.TEXT_NODE) {
+                line.append(OdfText.collapse(node.getNodeValue()));
+                continue;
+            }
+            if (!(node instanceof Element el) || isIgnored(el) || isHidden(el)) {
+                continue;
+            }
+            if (TEXT_NS.equals(el.getNamespaceURI())) {
+                switch (el.getLocalName()) {
+                    case "s" -> line.append(" ".repeat(OdfText.spaceCount(el)));
+                    case "tab" -> line.append('\t');
+                    case "line-break" -> line.append('\n');
+                    case "note" -> {
+                        Element citation = firstChild(el, TEXT_NS, "note-citation");
+                        if (citation != null) {
+                            line.append('[').append(OdfText.text(citation)).append(']');
+                        }
+                    }
+                    default -> inlines(el, line, textBoxes);
+                }
+            } else if (DRAW_NS.equals(el.getNamespaceURI())) {
+                if ("frame".equals(el.getLocalName()) && firstChild(el, DRAW_NS, "text-box") != null) {
+                    textBoxes.add(el);
+                } else if ("a".equals(el.getLocalName())) {
+                    inlines(el, line, textBoxes);
+                }
+            }
+        }
+    }
+
+    private void table(Element table) {
+        for (Element row : rows(table)) {
+            List<String> cells = new ArrayList<>();
+            for (Element cell : children(row)) {
+                if (!"table-cell".equals(cell.getLocalName())) {
+                    continue;
+                }
+                StringBuilder content = new StringBuilder();
+                for (Element p : children(cell)) {
+                    StringBuilder line = new StringBuilder();
+                    inlines(p, line, new ArrayList<>());
+                    if (!line.isEmpty()) {
+                        content.append(content.isEmpty() ? "" : " ").append(line.toString().strip());
+                    }
+                }
+                for (int c = OdfText.repeat(cell, "number-columns-repeated"); c > 0; c--) {
+                    cells.add(content.toString());
+                }
+            }
+            for (int r = OdfText.repeat(row, "number-rows-repeated"); r > 0; r--) {
+                text.append(String.join("\t", cells).stripTrailing()).append('\n');
+            }
+        }
+    }
+
+    private static List<Element> rows(Element group) {
+        List<Element> rows = new ArrayList<>();
+        for (Element child : children(group)) {
+            switch (child.getLocalName()) {
+                case "table-row" -> rows.add(child);
+                case "table-header-rows", "table-rows", "table-row-group" -> rows.addAll(rows(child));
+                default -> {
+                }
+            }
+        }
+        return rows;
+    }
+
+    private void list(Element list, String indent) {
+        for (Element item : children(list)) {
+            if (!"list-item".equals(item.getLocalName()) && !"list-header".equals(item.getLocalName())) {
+                continue;
+            }
+            boolean first = "list-item".equals(item.getLocalName());
+            for (Element child : children(item)) {
+                boolean isParagraph = TEXT_NS.equals(child.getNamespaceURI())
+                        && ("p".equals(child.getLocalName()) || "h".equals(child.getLocalName()));
+                if (isParagraph && first && !isHidden(child)) {
+                    paragraph(child, indent + "- ");
+                    first = false;
+                } else {
+                    block(child, indent + "  ");
+                }
+            }
+        }
+    }
+}
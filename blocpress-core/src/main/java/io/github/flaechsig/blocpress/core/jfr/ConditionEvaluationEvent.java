@@ -0,0 +1,31 @@
+package io.github.flaechsig.blocpress.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for evaluating the condition of a conditional element with JEXL. Emitted once per condition,
+ * so recordings usually only keep the slow ones (threshold in {@code blocpress.jfc}).
+ */
+@Name("blocpress.ConditionEvaluation")
+@Label("Condition Evaluation")
+@Category({"blocpress", "Render"})
+@Description("Evaluation of a condition of a conditional element")
+@StackTrace(false)
+public final class ConditionEvaluationEvent extends Event {
+
+    @Label("Condition")
+    private String condition;
+
+    @Label("Result")
+    private boolean result;
+
+    public void set(String condition, boolean result) {
+        this.condition = condition;
+        this.result = result;
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.flaechsig.blocpress.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for one {@code soffice} invocation converting one or more documents.
+ */
+@Name("blocpress.Conversion")
+@Label("LibreOffice Conversion")
+@Category({"blocpress", "Conversion"})
+@Description("Conversion of documents by a LibreOffice process")
+public final class ConversionEvent extends Event {
+
+    @Label("Format")
+    private String format;
+
+    @Label("PDF Profile")
+    @Description("Filter options of the PDF export, empty for the LibreOffice defaults")
+    private String pdfProfile;
+
+    @Label("Documents")
+    private int documents;
+
+    @Label("Bytes Read")
+    @DataAmount
+    private long bytesRead;
+
+    @Label("Bytes Written")
+    @DataAmount
+    private long bytesWritten;
+
+    @Label("Exit Code")
+    private int exitCode;
+
+    public void setFormat(String format, String pdfProfile) {
+        this.format = format;
+        this.pdfProfile = pdfProfile;
+    }
+
+    public void setDocuments(int documents, long bytesRead) {
+        this.documents = documents;
+        this.bytesRead = bytesRead;
+    }
+
+    public void setResult(int exitCode, long bytesWritten) {
+        this.exitCode = exitCode;
+        this.bytesWritten = bytesWritten;
+    }
+}
@@ -0,0 +1,39 @@
+package io.github.flaechsig.blocpress.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for formatting the value of a user field with its number or date style. Emitted once per field,
+ * so recordings usually only keep the slow ones (threshold in {@code blocpress.jfc}).
+ */
+@Name("blocpress.FieldFormat")
+@Label("Field Format")
+@Category({"blocpress", "Render"})
+@Description("Formatting of a user field value with its data style")
+@StackTrace(false)
+public final class FieldFormatEvent extends Event {
+
+    @Label("Field")
+    private String field;
+
+    @Label("Type")
+    private String type;
+
+    @Label("Data Style")
+    private String style;
+
+    @Label("Value Length")
+    private int valueLength;
+
+    public void set(String field, String type, String style, int valueLength) {
+        this.field = field;
+        this.type = type;
+        this.style = style;
+        this.valueLength = valueLength;
+    }
+}
@@ -0,0 +1,64 @@
+package io.github.flaechsig.blocpress.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one phase ({@code load}, {@code text-blocks}, {@code conditions}, {@code loops}, {@code fields},
+ * {@code append}, {@code save}) of merging a template with a data record.
+ */
+@Name("blocpress.MergePhase")
+@Label("Merge Phase")
+@Category({"blocpress", "Render"})
+@Description("One phase of merging a template with a data record")
+@StackTrace(false)
+public final class MergePhaseEvent extends Event {
+
+    @Label("Template")
+    @Description("Name, version and id of the stored template, otherwise its URL")
+    private String template;
+
+    @Label("Phase")
+    private final String phase;
+
+    @Label("Elements")
+    @Description("Text blocks, conditional elements, repeat groups or fields processed by the phase")
+    private int elements;
+
+    @Label("Array Items")
+    @Description("Copies of repeat groups created for the array items of the data")
+    private long arrayItems;
+
+    @Label("Bytes Written")
+    @DataAmount
+    private long bytesWritten;
+
+    public MergePhaseEvent(String phase) {
+        this.phase = phase;
+    }
+
+    public void setTemplate(String template) {
+        this.template = template;
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public void setElements(int elements) {
+        this.elements = elements;
+    }
+
+    public void setArrayItems(long arrayItems) {
+        this.arrayItems = arrayItems;
+    }
+
+    public void setBytesWritten(long bytesWritten) {
+        this.bytesWritten = bytesWritten;
+    }
+}
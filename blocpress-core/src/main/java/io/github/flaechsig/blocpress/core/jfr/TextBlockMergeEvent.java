@@ -0,0 +1,40 @@
+package io.github.flaechsig.blocpress.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for merging a text block into a section of a template.
+ */
+@Name("blocpress.TextBlockMerge")
+@Label("Text Block Merge")
+@Category({"blocpress", "Render"})
+@Description("Import of a text block into a section of the template")
+@StackTrace(false)
+public final class TextBlockMergeEvent extends Event {
+
+    @Label("Template")
+    private String template;
+
+    @Label("Text Block")
+    private String textBlock;
+
+    @Label("Nodes")
+    @Description("Top-level nodes imported from the text block")
+    private int nodes;
+
+    @Label("Renamed Styles")
+    @Description("Styles of the text block renamed because the template defines them differently")
+    private int renamedStyles;
+
+    public void set(String template, String textBlock, int nodes, int renamedStyles) {
+        this.template = template;
+        this.textBlock = textBlock;
+        this.nodes = nodes;
+        this.renamedStyles = renamedStyles;
+    }
+}
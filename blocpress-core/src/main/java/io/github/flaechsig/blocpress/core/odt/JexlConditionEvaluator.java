@@ -1,5 +1,6 @@
 package io.github.flaechsig.blocpress.core.odt;
 
+import io.github.flaechsig.blocpress.core.jfr.ConditionEvaluationEvent;
 import org.apache.commons.jexl3.*;
 import org.apache.commons.lang3.StringUtils;
 
@@ -42,6 +43,8 @@ public final class JexlConditionEvaluator {
             return true; // leere Bedingung => sichtbar
         }
 
+        ConditionEvaluationEvent event = new ConditionEvaluationEvent();
+        event.begin();
         String expr = preprocessCondition(conditionRaw);
 
         JexlContext ctx = new MapContext();
@@ -59,7 +62,12 @@ public final class JexlConditionEvaluator {
             throw new IllegalArgumentException("Fehler bei der Auswertung der Bedingung: " + conditionRaw, ex);
         }
 
-        return toBooleanResult(result);
+        boolean visible = toBooleanResult(result);
+        if (event.shouldCommit()) {
+            event.set(conditionRaw, visible);
+            event.commit();
+        }
+        return visible;
     }
 
     private static boolean toBooleanResult(Object result) {
@@ -0,0 +1,302 @@
+package io.github.flaechsig.blocpress.core.odt;
+
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import org.odftoolkit.odfdom.doc.OdfTextDocument;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Zerlegt ein bereits gemergtes ODT-Dokument in mehrere eigenständige Teildokumente, die unabhängig
+ * voneinander konvertiert und anschließend wieder zusammengesetzt werden können.
+ *
+ * <p>Geschnitten wird nur an Grenzen, an denen ein Seitenumbruch das Layout nicht zerstört:
+ * vor Bereichen ({@code text:section}) auf oberster Ebene, vor Datensätzen eines Serienbriefs und
+ * zwischen Zeilen von Tabellen auf oberster Ebene (Wiederholungsgruppen). Jedes Teildokument enthält
+ * alle Styles, Master-Pages und Deklarationen des Originals. Kopfzeilen von Tabellen
+ * ({@code table:table-header-rows}) werden in jedes Teildokument übernommen.</p>
+ *
+ * <p>Außer an Serienbrief-Grenzen beginnt jedes Teildokument auf einer neuen Seite. Seitennummern und
+ * Seitenanzahl stimmen erst nach {@link #renumber(byte[], int, int)} mit dem Gesamtdokument überein.</p>
+ *
+ * <p><b>Design-Referenzen:</b></p>
+ * <ul>
+ *   <li>EDC: <a href="docs/Element_Design_Concept.adoc#edc-ti-3">TI-3: LibreOffice API</a></li>
+ * </ul>
+ */
+public class OdtDocumentSplitter {
+
+    private static final String OFFICE_NS = "urn:oasis:names:tc:opendocument:xmlns:office:1.0";
+    private static final String TEXT_NS = "urn:oasis:names:tc:opendocument:xmlns:text:1.0";
+    private static final String TABLE_NS = "urn:oasis:names:tc:opendocument:xmlns:table:1.0";
+
+    private OdtDocumentSplitter() {
+    }
+
+    /**
+     * Splits the document into at most {@code maxChunks} parts of roughly equal size.
+     *
+     * @param odt       merged ODT document
+     * @param maxChunks upper bound for the number of parts
+     * @return the parts in document order; the unchanged input if the document offers no suitable boundary
+     */
+    @SneakyThrows
+    public static List<byte[]> split(byte[] odt, int maxChunks) {
+        if (maxChunks < 2) {
+            return List.of(odt);
+        }
+
+        List<Unit> units = units(bodyChildren(load(odt)));
+        long total = units.stream().mapToLong(Unit::weight).sum();
+
+        // Schnitt an der ersten Grenze, deren Einheit zur Hälfte hinter der nächsten idealen Schnittposition liegt
+        List<List<Unit>> chunks = new ArrayList<>();
+        List<Unit> current = new ArrayList<>();
+        long consumed = 0;
+        for (Unit unit : units) {
+            long nextCut = total * (chunks.size() + 1) / maxChunks;
+            if (!current.isEmpty() && unit.boundary() && chunks.size() < maxChunks - 1
+                    && consumed + unit.weight() / 2 >= nextCut) {
+                chunks.add(current);
+                current = new ArrayList<>();
+            }
+            current.add(unit);
+            consumed += unit.weight();
+        }
+        chunks.add(current);
+
+        if (chunks.size() < 2) {
+            return List.of(odt);
+        }
+
+        List<byte[]> result = new ArrayList<>(chunks.size());
+        for (List<Unit> chunk : chunks) {
+            result.add(extract(odt, chunk));
+        }
+        return result;
+    }
+
+    /**
+     * @return {@code true} if the document shows page numbers or the page count, i.e. the parts of
+     * {@link #split(byte[], int)} have to be renumbered before the final conversion
+     */
+    @SneakyThrows
+    public static boolean hasPageFields(byte[] odt) {
+        OdfTextDocument document = load(odt);
+        for (Document dom : List.of(document.getContentDom(), document.getStylesDom())) {
+            if (dom.getElementsByTagNameNS(TEXT_NS, "page-number").getLength() > 0
+                    || dom.getElementsByTagNameNS(TEXT_NS, "page-count").getLength() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adjusts a part of {@link #split(byte[], int)} to its position in the overall document: page numbering
+     * starts at {@code firstPage} and page count fields show {@code totalPages}. A part that starts a
+     * mail-merge record keeps its own numbering.
+     *
+     * @param chunk      part of a split document
+     * @param firstPage  page number of the first page of this part within the overall document
+     * @param totalPages number of pages of the overall document
+     * @return the adjusted part
+     */
+    @SneakyThrows
+    public static byte[] renumber(@NonNull byte[] chunk, int firstPage, int totalPages) {
+        OdfTextDocument document = load(chunk);
+
+        if (firstPage > 1) {
+            List<Element> children = bodyChildren(document);
+            if (!children.isEmpty()) {
+                setStartPage(document, children.get(0), firstPage);
+            }
+        }
+
+        for (Document dom : List.of(document.getContentDom(), document.getStylesDom())) {
+            NodeList fields = dom.getElementsByTagNameNS(TEXT_NS, "page-count");
+            for (int i = fields.getLength() - 1; i >= 0; i--) {
+                Node field = fields.item(i);
+                field.getParentNode().replaceChild(dom.createTextNode(String.valueOf(totalPages)), field);
+            }
+        }
+
+        return save(document);
+    }
+
+    private static void setStartPage(OdfTextDocument document, Element first, int page) {
+        Element target = first;
+        while (isText(target, "section") || isText(target, "list") || isText(target, "list-item")) {
+            Element child = firstElementChild(target);
+            if (child == null) {
+                break;
+            }
+            target = child;
+        }
+
+        if (isText(target, "p") || isText(target, "h")) {
+            String style = target.getAttributeNS(TEXT_NS, "style-name");
+            if (style.startsWith(OdtTemplateDocument.RECORD_START_STYLE_PREFIX)) {
+                // Serienbrief-Datensatz: Nummerierung beginnt ohnehin bei 1
+                return;
+            }
+            target.setAttributeNS(TEXT_NS, "text:style-name",
+                    OdtHelper.createPageStartStyle(document, "paragraph", style, "BP_Chunk_Start", page));
+        } else if (TABLE_NS.equals(target.getNamespaceURI()) && "table".equals(target.getLocalName())) {
+            String style = target.getAttributeNS(TABLE_NS, "style-name");
+            target.setAttributeNS(TABLE_NS, "table:style-name",
+                    OdtHelper.createPageStartStyle(document, "table", style, "BP_Chunk_Start", page));
+        } else {
+            Element empty = first.getOwnerDocument().createElementNS(TEXT_NS, "text:p");
+            first.getParentNode().insertBefore(empty, first);
+            empty.setAttributeNS(TEXT_NS, "text:style-name",
+                    OdtHelper.createPageStartStyle(document, "paragraph", "", "BP_Chunk_Start", page));
+        }
+    }
+
+    /**
+     * Loads a fresh copy of the document and removes everything that does not belong to the chunk.
+     */
+    private static byte[] extract(byte[] odt, List<Unit> chunk) throws Exception {
+        Map<Integer, Set<Integer>> keep = new HashMap<>();
+        for (Unit unit : chunk) {
+            Set<Integer> rows = keep.computeIfAbsent(unit.child(), k -> new HashSet<>());
+            if (unit.row() >= 0) {
+                rows.add(unit.row());
+            }
+        }
+
+        OdfTextDocument document = load(odt);
+        List<Element> children = bodyChildren(document);
+        for (int i = 0; i < children.size(); i++) {
+            Element child = children.get(i);
+            Set<Integer> rows = keep.get(i);
+            if (rows == null) {
+                child.getParentNode().removeChild(child);
+            } else if (!rows.isEmpty()) {
+                List<Element> tableRows = rows(child);
+                for (int r = 0; r < tableRows.size(); r++) {
+                    if (!rows.contains(r)) {
+                        child.removeChild(tableRows.get(r));
+                    }
+                }
+            }
+        }
+        return save(document);
+    }
+
+    private static List<Unit> units(List<Element> children) {
+        List<Unit> units = new ArrayList<>();
+        for (int i = 0; i < children.size(); i++) {
+            Element child = children.get(i);
+            List<Element> rows = TABLE_NS.equals(child.getNamespaceURI()) && "table".equals(child.getLocalName())
+                    ? rows(child)
+                    : List.of();
+            if (rows.size() > 1) {
+                for (int r = 0; r < rows.size(); r++) {
+                    units.add(new Unit(i, r, weight(rows.get(r)), r > 0));
+                }
+            } else {
+                boolean boundary = isText(child, "section")
+                        || child.getAttributeNS(TEXT_NS, "style-name").startsWith(OdtTemplateDocument.RECORD_START_STYLE_PREFIX);
+                units.add(new Unit(i, -1, weight(child), boundary));
+            }
+        }
+        return units;
+    }
+
+    /**
+     * Rough measure for the layout effort of an element: text length plus a constant per paragraph.
+     */
+    private static long weight(Element element) {
+        return textLength(element) + 40L * (element.getElementsByTagNameNS(TEXT_NS, "p").getLength() + 1);
+    }
+
+    private static long textLength(Node node) {
+        if (node.getNodeType() == Node.TEXT_NODE) {
+            return node.getNodeValue().length();
+        }
+        long length = 0;
+        for (Node c = node.getFirstChild(); c != null; c = c.getNextSibling()) {
+            length += textLength(c);
+        }
+        return length;
+    }
+
+    /**
+     * Body elements of the document without the declarations at its start.
+     */
+    private static List<Element> bodyChildren(OdfTextDocument document) throws Exception {
+        List<Element> children = new ArrayList<>();
+        for (Node c = document.getContentRoot().getFirstChild(); c != null; c = c.getNextSibling()) {
+            if (c instanceof Element el && !isDeclaration(el)) {
+                children.add(el);
+            }
+        }
+        return children;
+    }
+
+    private static boolean isDeclaration(Element el) {
+        if (TEXT_NS.equals(el.getNamespaceURI())) {
+            return el.getLocalName().endsWith("-decls") || "tracked-changes".equals(el.getLocalName());
+        }
+        return OFFICE_NS.equals(el.getNamespaceURI()) && "forms".equals(el.getLocalName());
+    }
+
+    private static List<Element> rows(Element table) {
+        List<Element> rows = new ArrayList<>();
+        for (Node c = table.getFirstChild(); c != null; c = c.getNextSibling()) {
+            if (c instanceof Element el && TABLE_NS.equals(el.getNamespaceURI()) && "table-row".equals(el.getLocalName())) {
+                rows.add(el);
+            }
+        }
+        return rows;
+    }
+
+    private static boolean isText(Element el, String localName) {
+        return TEXT_NS.equals(el.getNamespaceURI()) && localName.equals(el.getLocalName());
+    }
+
+    private static Element firstElementChild(Element parent) {
+        for (Node c = parent.getFirstChild(); c != null; c = c.getNextSibling()) {
+            if (c instanceof Element el) {
+                return el;
+            }
+        }
+        return null;
+    }
+
+    private static OdfTextDocument load(byte[] odt) throws Exception {
+        try (var in = new ByteArrayInputStream(odt)) {
+            return OdfTextDocument.loadDocument(in);
+        }
+    }
+
+    private static byte[] save(OdfTextDocument document) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        document.save(out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Smallest part the document can be split into: a top-level body element or a row of a top-level table.
+     *
+     * @param child    index of the body element
+     * @param row      row index within the table, {@code -1} for the whole element
+     * @param weight   estimated layout effort
+     * @param boundary whether a new chunk may start before this unit
+     */
+    private record Unit(int child, int row, long weight, boolean boundary) {
+    }
+}
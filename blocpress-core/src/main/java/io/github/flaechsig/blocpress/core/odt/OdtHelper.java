@@ -2,11 +2,18 @@ package io.github.flaechsig.blocpress.core.odt;
 
 import lombok.SneakyThrows;
 import io.github.flaechsig.blocpress.core.TemplateElement;
+import org.apache.commons.lang3.StringUtils;
+import org.odftoolkit.odfdom.doc.OdfTextDocument;
 import org.odftoolkit.odfdom.pkg.OdfElement;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 
@@ -28,6 +35,36 @@ public class OdtHelper {
             "table", "urn:oasis:names:tc:opendocument:xmlns:table:1.0",
             "draw", "urn:oasis:names:tc:opendocument:xmlns:drawing:1.0"
     );
+    private static final String OFFICE_NS = "urn:oasis:names:tc:opendocument:xmlns:office:1.0";
+    private static final String STYLE_NS = "urn:oasis:names:tc:opendocument:xmlns:style:1.0";
+    /** Rough heap footprint of a DOM node without its text (object header, references, attribute map). */
+    private static final long NODE_BYTES = 160;
+
+    /**
+     * Estimates the heap a copy of the node and its descendants occupies: a fixed amount per node plus two bytes
+     * per character of text and attribute values.
+     */
+    public static long estimatedBytes(Node root) {
+        long bytes = 0;
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            bytes += NODE_BYTES;
+            if (node.getNodeType() == Node.TEXT_NODE) {
+                bytes += 2L * node.getNodeValue().length();
+            }
+            NamedNodeMap attributes = node.getAttributes();
+            for (int i = 0; attributes != null && i < attributes.getLength(); i++) {
+                Node attribute = attributes.item(i);
+                bytes += NODE_BYTES + 2L * (attribute.getNodeName().length() + attribute.getNodeValue().length());
+            }
+            for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+                pending.push(child);
+            }
+        }
+        return bytes;
+    }
 
     /**
      * Extracts named elements into list of template elements
@@ -55,4 +92,68 @@ public class OdtHelper {
         return nodes;
     }
 
+    /**
+     * Creates an automatic style that lets the element start on a new page with the given page number.
+     * ODF requires a master page for this; the style is derived from {@code originalStyle}
+     * (an automatic style is copied, a common style becomes the parent).
+     *
+     * @param family        style family, {@code paragraph} or {@code table}
+     * @param originalStyle current style of the element, may be empty
+     * @param name          name of the new style
+     * @param pageNumber    page number of the new page
+     * @return name of the new style
+     */
+    @SneakyThrows
+    static String createPageStartStyle(OdfTextDocument document, String family, String originalStyle, String name, int pageNumber) {
+        Document contentDom = document.getContentDom();
+        Node automaticStyles = contentDom.getElementsByTagNameNS(OFFICE_NS, "automatic-styles").item(0);
+
+        Element style = null;
+        NodeList styles = automaticStyles.getChildNodes();
+        for (int i = 0; i < styles.getLength(); i++) {
+            if (styles.item(i) instanceof Element el && StringUtils.isNotEmpty(originalStyle)
+                    && originalStyle.equals(el.getAttributeNS(STYLE_NS, "name"))) {
+                style = (Element) el.cloneNode(true);
+                break;
+            }
+        }
+        if (style == null) {
+            style = contentDom.createElementNS(STYLE_NS, "style:style");
+            style.setAttributeNS(STYLE_NS, "style:family", family);
+            if (StringUtils.isNotEmpty(originalStyle)) {
+                style.setAttributeNS(STYLE_NS, "style:parent-style-name", originalStyle);
+            }
+        }
+
+        style.setAttributeNS(STYLE_NS, "style:name", name);
+        if (StringUtils.isBlank(style.getAttributeNS(STYLE_NS, "master-page-name"))) {
+            style.setAttributeNS(STYLE_NS, "style:master-page-name", firstMasterPageName(document));
+        }
+
+        String propertiesName = family + "-properties";
+        Element properties = null;
+        for (Node c = style.getFirstChild(); c != null; c = c.getNextSibling()) {
+            if (c instanceof Element el && STYLE_NS.equals(el.getNamespaceURI()) && propertiesName.equals(el.getLocalName())) {
+                properties = el;
+                break;
+            }
+        }
+        if (properties == null) {
+            properties = contentDom.createElementNS(STYLE_NS, "style:" + propertiesName);
+            style.insertBefore(properties, style.getFirstChild());
+        }
+        properties.setAttributeNS(STYLE_NS, "style:page-number", String.valueOf(pageNumber));
+
+        automaticStyles.appendChild(style);
+        return name;
+    }
+
+    @SneakyThrows
+    private static String firstMasterPageName(OdfTextDocument document) {
+        Node masterPage = document.getStylesDom().getElementsByTagNameNS(STYLE_NS, "master-page").item(0);
+        if (masterPage instanceof Element el && StringUtils.isNotBlank(el.getAttributeNS(STYLE_NS, "name"))) {
+            return el.getAttributeNS(STYLE_NS, "name");
+        }
+        return "Standard";
+    }
 }
@@ -7,6 +7,7 @@ import org.apache.commons.lang3.StringUtils;
 import io.github.flaechsig.blocpress.core.TemplateDocument;
 import io.github.flaechsig.blocpress.core.TemplateElement;
 import io.github.flaechsig.blocpress.core.TemplateSectionElement;
+import io.github.flaechsig.blocpress.core.jfr.TextBlockMergeEvent;
 import org.odftoolkit.odfdom.doc.OdfTextDocument;
 import org.odftoolkit.odfdom.dom.OdfContentDom;
 import org.odftoolkit.odfdom.dom.element.text.TextSectionElement;
@@ -43,9 +44,13 @@ public class OdtTemplateDocument implements TemplateDocument {
 
     private static final Pattern SECTION_PARAMS = Pattern.compile("^\\s*[^()]+\\((.*)\\)\\s*$");
     private static final String TABLE_NS = "urn:oasis:names:tc:opendocument:xmlns:table:1.0";
+    /** Prefix of the paragraph styles that start a mail-merge record on a new page. */
+    static final String RECORD_START_STYLE_PREFIX = "BP_Record_";
 
     private final URL url;
     OdfTextDocument document;
+    private int recordCount = 1;
+    private final Map<String, String> recordStartStyles = new HashMap<>();
 
     private static final String OFFICE_NS = "urn:oasis:names:tc:opendocument:xmlns:office:1.0";
     private static final String STYLE_NS = "urn:oasis:names:tc:opendocument:xmlns:style:1.0";
@@ -94,6 +99,12 @@ public class OdtTemplateDocument implements TemplateDocument {
         return result;
     }
 
+    @Override
+    @SneakyThrows
+    public long estimatedBytes() {
+        return OdtHelper.estimatedBytes(document.getContentRoot());
+    }
+
     /**
      * Duplicates a template element, creating a new instance with the same structure and place it
      * directly after the original element.
@@ -193,18 +204,25 @@ public class OdtTemplateDocument implements TemplateDocument {
 
         OdfContentDom dom = (OdfContentDom) parent.getOwnerDocument();
         TextSpanElement span = dom.newOdfElement(TextSpanElement.class);
-        span.setTextContent(UserFieldFormatter.formatUserFieldValue(document, odfElement, newValue));
+        span.setTextContent(formatFieldValue(userField, newValue));
 
         parent.insertBefore(span, odfElement);
         parent.removeChild(odfElement);
         ((OdtTemplateElement) userField).element = span;
     }
 
+    @Override
+    public String formatFieldValue(@NonNull TemplateElement userField, String value) {
+        return UserFieldFormatter.formatUserFieldValue(document, ((OdtTemplateElement) userField).element, value);
+    }
+
     @Override
     @SneakyThrows
     public void merge(TemplateDocument tbDocument, TemplateSectionElement sectionElement) {
         OdtTemplateSectionElement section = (OdtTemplateSectionElement) sectionElement;
         OdtTemplateDocument source = (OdtTemplateDocument) tbDocument;
+        TextBlockMergeEvent event = new TextBlockMergeEvent();
+        event.begin();
 
         Map<String, String> renameMap = mergeStylesSmart(source);
         Map<String, String> pathMapping = parseSectionNameMapping(section);
@@ -234,6 +252,124 @@ public class OdtTemplateDocument implements TemplateDocument {
             rewriteStyleReferences(imported, renameMap);
             wrkSection.appendChild(imported);
         }
+
+        if (event.shouldCommit()) {
+            event.set(url.toString(), source.url.toString(), nodesToImport.size(), renameMap.size());
+            event.commit();
+        }
+    }
+
+    /**
+     * Appends the body of an already merged record document. Declarations at the start of the body
+     * (user fields, sequences, ...) are skipped, since they are identical for documents of the same template.
+     * Names that must be unique within a document (sections, tables, frames, bookmarks) are prefixed per record.
+     */
+    @Override
+    @SneakyThrows
+    public void appendRecord(TemplateDocument recordDocument) {
+        OdtTemplateDocument source = (OdtTemplateDocument) recordDocument;
+        String namePrefix = "R" + (++recordCount) + "_";
+
+        Map<String, String> renameMap = mergeStylesSmart(source);
+
+        var officeText = document.getContentRoot();
+        Document targetDom = officeText.getOwnerDocument();
+        boolean first = true;
+
+        var childNodes = source.document.getContentRoot().getChildNodes();
+        for (int i = 0; i < childNodes.getLength(); i++) {
+            var childNode = childNodes.item(i);
+            if (childNode.getNodeType() != Node.ELEMENT_NODE || isBodyDeclaration(childNode)) {
+                continue;
+            }
+
+            Node imported = targetDom.importNode(childNode, true);
+            rewriteStyleReferences(imported, renameMap);
+            prefixUniqueNames(imported, namePrefix);
+
+            if (first) {
+                markRecordStart(officeText, imported);
+                first = false;
+            }
+            officeText.appendChild(imported);
+        }
+    }
+
+    private static boolean isBodyDeclaration(Node node) {
+        String ns = node.getNamespaceURI();
+        String local = node.getLocalName();
+        if (TEXT_NS.equals(ns)) {
+            return local.endsWith("-decls") || "tracked-changes".equals(local);
+        }
+        return OFFICE_NS.equals(ns) && "forms".equals(local);
+    }
+
+    /**
+     * Lets the record start on a new page with page numbering restarted at 1. This requires a paragraph
+     * style with a master page; the first paragraph of the record gets a copy of its style with these properties.
+     */
+    private void markRecordStart(Node officeText, Node recordStart) {
+        Node paragraph = recordStart;
+        while (paragraph instanceof Element el && TEXT_NS.equals(el.getNamespaceURI()) && "section".equals(el.getLocalName())) {
+            paragraph = firstElementChild(el);
+        }
+
+        if (!(paragraph instanceof Element el && isParagraph(el))) {
+            // Tabellen o.ä. am Anfang: leeren Absatz als Seitenumbruch-Träger voranstellen
+            Element empty = officeText.getOwnerDocument().createElementNS(TEXT_NS, "text:p");
+            officeText.appendChild(empty);
+            paragraph = empty;
+        }
+
+        Element p = (Element) paragraph;
+        String styleName = p.getAttributeNS(TEXT_NS, "style-name");
+        p.setAttributeNS(TEXT_NS, "text:style-name", recordStartStyle(styleName));
+    }
+
+    private String recordStartStyle(String originalStyle) {
+        String key = StringUtils.defaultIfBlank(originalStyle, "");
+        return recordStartStyles.computeIfAbsent(key, k -> OdtHelper.createPageStartStyle(
+                document, "paragraph", k, RECORD_START_STYLE_PREFIX + (k.isEmpty() ? "Default" : k), 1));
+    }
+
+    private static boolean isParagraph(Element el) {
+        return TEXT_NS.equals(el.getNamespaceURI()) && ("p".equals(el.getLocalName()) || "h".equals(el.getLocalName()));
+    }
+
+    private static Element firstElementChild(Element parent) {
+        for (Node c = parent.getFirstChild(); c != null; c = c.getNextSibling()) {
+            if (c instanceof Element el) {
+                return el;
+            }
+        }
+        return null;
+    }
+
+    private void prefixUniqueNames(Node root, String prefix) {
+        if (root instanceof Element el) {
+            String ns = el.getNamespaceURI();
+            String local = el.getLocalName();
+            if (TEXT_NS.equals(ns) && ("section".equals(local) || local.startsWith("bookmark"))) {
+                prefixAttribute(el, TEXT_NS, "text:name", prefix);
+                prefixAttribute(el, TEXT_NS, "text:ref-name", prefix);
+            } else if (TABLE_NS.equals(ns) && "table".equals(local)) {
+                prefixAttribute(el, TABLE_NS, "table:name", prefix);
+            } else if (DRAW_NS.equals(ns) && "frame".equals(local)) {
+                prefixAttribute(el, DRAW_NS, "draw:name", prefix);
+            }
+        }
+        NodeList nl = root.getChildNodes();
+        for (int i = 0; i < nl.getLength(); i++) {
+            prefixUniqueNames(nl.item(i), prefix);
+        }
+    }
+
+    private static void prefixAttribute(Element el, String ns, String qualifiedName, String prefix) {
+        String localName = qualifiedName.substring(qualifiedName.indexOf(':') + 1);
+        String value = el.getAttributeNS(ns, localName);
+        if (StringUtils.isNotBlank(value)) {
+            el.setAttributeNS(ns, qualifiedName, prefix + value);
+        }
     }
 
     /**
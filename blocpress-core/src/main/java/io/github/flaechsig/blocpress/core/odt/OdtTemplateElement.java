@@ -36,6 +36,11 @@ public class OdtTemplateElement implements TemplateElement {
         return element.getAttribute("text:name");
     }
 
+    @Override
+    public String getCondition() {
+        return isConditional() ? element.getAttribute("text:condition") : null;
+    }
+
     @Override
     public void setName(String name) {
         element.setAttribute("text:name", name);
@@ -126,6 +131,11 @@ public class OdtTemplateElement implements TemplateElement {
         }
     }
 
+    @Override
+    public long estimatedBytes() {
+        return OdtHelper.estimatedBytes(element);
+    }
+
     @Override
     public void remove() {
         element.getParentNode().removeChild(element);
@@ -1,6 +1,7 @@
 package io.github.flaechsig.blocpress.core.odt;
 
 import io.github.flaechsig.blocpress.core.DataType;
+import io.github.flaechsig.blocpress.core.jfr.FieldFormatEvent;
 import lombok.NonNull;
 import lombok.SneakyThrows;
 import org.apache.commons.lang3.StringUtils;
@@ -56,18 +57,27 @@ public final class UserFieldFormatter {
             return "";
         }
 
+        FieldFormatEvent event = new FieldFormatEvent();
+        event.begin();
+
         // 1) Rohwert lesen: office:value (präferiert) oder Text-Inhalt
         DataType officeValueType = findFieldType(document, field);
         String raw = officeValue.toString().trim();
         String styleName = field.getAttributeNS(STYLE_NS, "data-style-name");
 
         // 2) Falls office:value-type float oder numeric, parsen wir als Zahl
-        return switch (officeValueType) {
+        String formatted = switch (officeValueType) {
             case FLOAT -> formatNumber(document, styleName, raw);
             case CURRENCY -> formatNumber(document, styleName, raw);
             case DATE -> formatDate(document, styleName, raw);
             default -> raw;
         };
+
+        if (event.shouldCommit()) {
+            event.set(field.getAttribute("text:name"), officeValueType.name(), styleName, raw.length());
+            event.commit();
+        }
+        return formatted;
     }
 
     private static DataType findFieldType(@NonNull OdfTextDocument document, @NonNull OdfElement field) {
@@ -0,0 +1,100 @@
+package io.github.flaechsig.blocpress.core.pdf;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.destination.PDPageXYZDestination;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDDocumentOutline;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineNode;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Drawing state of the current page. Coordinates passed in are measured from the top of the page;
+ * the conversion to the PDF coordinate system happens here.
+ */
+final class DrawContext {
+
+    private final PDDocument document;
+    private final Map<String, PDImageXObject> images = new HashMap<>();
+    private final PDDocumentOutline outline = new PDDocumentOutline();
+    private final Deque<Map.Entry<Integer, PDOutlineNode>> outlineStack = new ArrayDeque<>();
+
+    PDPage page;
+    PDPageContentStream content;
+    float pageHeight;
+    int pageNumber;
+    int pageCount;
+
+    DrawContext(PDDocument document) {
+        this.document = document;
+        outlineStack.push(Map.entry(0, outline));
+    }
+
+    void text(float x, float baseline, String text, PDFont font, float size, Color color, boolean underline) throws IOException {
+        content.beginText();
+        content.setFont(font, size);
+        content.setNonStrokingColor(color);
+        content.newLineAtOffset(x, pageHeight - baseline);
+        content.showText(text);
+        content.endText();
+        if (underline) {
+            float width = font.getStringWidth(text) / 1000f * size;
+            line(x, baseline + size * 0.1f, x + width, baseline + size * 0.1f, size * 0.05f, color);
+        }
+    }
+
+    void line(float x1, float y1, float x2, float y2, float width, Color color) throws IOException {
+        content.setStrokingColor(color);
+        content.setLineWidth(width);
+        content.moveTo(x1, pageHeight - y1);
+        content.lineTo(x2, pageHeight - y2);
+        content.stroke();
+    }
+
+    void fill(float x, float top, float width, float height, Color color) throws IOException {
+        content.setNonStrokingColor(color);
+        content.addRect(x, pageHeight - top - height, width, height);
+        content.fill();
+    }
+
+    void image(String key, byte[] data, float x, float top, float width, float height) throws IOException {
+        PDImageXObject image = images.get(key);
+        if (image == null) {
+            image = PDImageXObject.createFromByteArray(document, data, key);
+            images.put(key, image);
+        }
+        content.drawImage(image, x, pageHeight - top - height, width, height);
+    }
+
+    /**
+     * Adds a bookmark for a heading, nested by outline level.
+     */
+    void bookmark(String title, int level, float top) {
+        while (outlineStack.size() > 1 && outlineStack.peek().getKey() >= level) {
+            outlineStack.pop();
+        }
+        PDPageXYZDestination destination = new PDPageXYZDestination();
+        destination.setPage(page);
+        destination.setTop(Math.round(pageHeight - top));
+        PDOutlineItem item = new PDOutlineItem();
+        item.setTitle(title);
+        item.setDestination(destination);
+        outlineStack.peek().getValue().addLast(item);
+        outlineStack.push(Map.entry(level, item));
+    }
+
+    void finish() {
+        if (outline.hasChildren()) {
+            document.getDocumentCatalog().setDocumentOutline(outline);
+        }
+    }
+}
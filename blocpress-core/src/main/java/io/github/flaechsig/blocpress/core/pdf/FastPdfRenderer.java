@@ -0,0 +1,90 @@
+package io.github.flaechsig.blocpress.core.pdf;
+
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.odftoolkit.odfdom.doc.OdfTextDocument;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Erzeugt PDF direkt in der JVM mit PDFBox, ohne LibreOffice.
+ *
+ * <p><b>Fachlicher Kontext:</b>
+ * Der Großteil der Dokumente sind einseitige Briefe aus Absätzen, wenigen Formatvorlagen, einem Logo und einer
+ * kleinen Tabelle. Für diese Dokumente ist der Start eines LibreOffice-Prozesses der dominierende Kostenanteil.
+ * Der Fast-Path setzt eine Teilmenge von ODF selbst: Absatz- und Zeichenvorlagen, einfache Tabellen
+ * (ohne Zeilenverbund und Verschachtelung), Rasterbilder, Kopf- und Fußzeile der ersten Master-Page sowie
+ * Seitennummer und Seitenanzahl.</p>
+ *
+ * <p>Unterstützt werden nur Schriften, die zu den PDF-Standardschriften metrisch kompatibel sind
+ * (Liberation Sans/Serif/Mono, Arial, Times New Roman, Courier New), damit Zeilenumbrüche mit LibreOffice
+ * übereinstimmen. Alles außerhalb der Teilmenge führt zu einer {@link UnsupportedFeatureException};
+ * Aufrufer fallen dann auf LibreOffice zurück.</p>
+ *
+ * <p><b>Design-Referenzen:</b></p>
+ * <ul>
+ *   <li>EDC: <a href="docs/Element_Design_Concept.adoc#edc-ti-3">TI-3: LibreOffice API</a></li>
+ * </ul>
+ */
+@Slf4j
+public class FastPdfRenderer {
+
+    private FastPdfRenderer() {
+    }
+
+    /**
+     * Renders the document to PDF.
+     *
+     * @param odt merged ODT document
+     * @return the PDF document
+     * @throws UnsupportedFeatureException if the document uses a feature outside the supported subset
+     */
+    @SneakyThrows
+    public static byte[] render(@NonNull byte[] odt) {
+        Layouter layouter = new Layouter(load(odt), feature -> {
+            throw new UnsupportedFeatureException(feature);
+        });
+        layouter.layout();
+        return layouter.draw();
+    }
+
+    /**
+     * Renders the document to PDF if it only uses supported features.
+     *
+     * @param odt merged ODT document
+     * @return the PDF document, empty if LibreOffice has to convert the document
+     */
+    public static Optional<byte[]> tryRender(@NonNull byte[] odt) {
+        try {
+            return Optional.of(render(odt));
+        } catch (UnsupportedFeatureException e) {
+            log.debug("Falling back to LibreOffice: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Lists all features of a template that prevent the fast path, e.g. for the template validation.
+     *
+     * @param odt ODT document or template
+     * @return descriptions of the unsupported features, empty if the document can be rendered by {@link #render(byte[])}
+     */
+    @SneakyThrows
+    public static List<String> unsupportedFeatures(@NonNull byte[] odt) {
+        Set<String> features = new LinkedHashSet<>();
+        new Layouter(load(odt), features::add).layout();
+        return new ArrayList<>(features);
+    }
+
+    private static OdfTextDocument load(byte[] odt) throws Exception {
+        try (var in = new ByteArrayInputStream(odt)) {
+            return OdfTextDocument.loadDocument(in);
+        }
+    }
+}
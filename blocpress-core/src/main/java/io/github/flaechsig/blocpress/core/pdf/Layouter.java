@@ -0,0 +1,1185 @@
+package io.github.flaechsig.blocpress.core.pdf;
+
+import io.github.flaechsig.blocpress.core.pdf.StyleSheet.Props;
+import io.github.flaechsig.blocpress.core.pdf.StyleSheet.Scope;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.odftoolkit.odfdom.doc.OdfTextDocument;
+import org.odftoolkit.odfdom.pkg.OdfPackage;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.awt.Color;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static io.github.flaechsig.blocpress.core.pdf.StyleSheet.FO_NS;
+import static io.github.flaechsig.blocpress.core.pdf.StyleSheet.OFFICE_NS;
+import static io.github.flaechsig.blocpress.core.pdf.StyleSheet.STYLE_NS;
+import static io.github.flaechsig.blocpress.core.pdf.StyleSheet.SVG_NS;
+import static io.github.flaechsig.blocpress.core.pdf.StyleSheet.children;
+import static io.github.flaechsig.blocpress.core.pdf.StyleSheet.firstChild;
+import static io.github.flaechsig.blocpress.core.pdf.StyleSheet.toPoints;
+
+/**
+ * Lays out the supported ODF subset into pages of drawing operations.
+ *
+ * Every feature outside the subset is reported to the {@code unsupported} callback. The renderer throws
+ * there; the classification collects the messages and continues with a best-effort layout.
+ */
+final class Layouter {
+
+    private static final String TEXT_NS = "urn:oasis:names:tc:opendocument:xmlns:text:1.0";
+    private static final String TABLE_NS = "urn:oasis:names:tc:opendocument:xmlns:table:1.0";
+    private static final String DRAW_NS = "urn:oasis:names:tc:opendocument:xmlns:drawing:1.0";
+    private static final String XLINK_NS = "http://www.w3.org/1999/xlink";
+
+    /** Inline elements that only carry markers and are not printed. */
+    private static final Set<String> IGNORED_INLINE = Set.of(
+            "bookmark", "bookmark-start", "bookmark-end", "reference-mark", "reference-mark-start", "reference-mark-end",
+            "soft-page-break", "alphabetical-index-mark", "toc-mark", "user-index-mark", "annotation", "annotation-end");
+    /** Fields whose current value is stored as element content. */
+    private static final Set<String> STATIC_FIELDS = Set.of(
+            "user-field-get", "variable-get", "variable-set", "date", "time", "sequence", "conditional-text", "expression",
+            "text-input", "user-defined", "author-name", "author-initials", "title", "subject", "description",
+            "sender-firstname", "sender-lastname", "sender-company", "sender-street", "sender-city", "sender-postal-code",
+            "sender-email", "sender-phone-work", "file-name", "creation-date", "creation-time");
+    private static final float DEFAULT_TAB_DISTANCE = 1.25f * 72f / 2.54f;
+
+    @FunctionalInterface
+    interface Op {
+        void draw(DrawContext ctx, float top) throws IOException;
+    }
+
+    /**
+     * Vertical unit of the layout: a line of a paragraph or a table row.
+     *
+     * @param repeat rows to repeat at the top of a new page (table header rows)
+     */
+    record Box(float height, float before, float after, boolean breakBefore, boolean breakAfter, int pageNumberReset,
+               List<Op> ops, List<Box> repeat) {
+
+        static Box of(float height, List<Op> ops) {
+            return new Box(height, 0, 0, false, false, 0, ops, null);
+        }
+
+        Box withRepeat(List<Box> rows) {
+            return new Box(height, before, after, breakBefore, breakAfter, pageNumberReset, ops, rows);
+        }
+    }
+
+    private record PlacedOp(Op op, float top) {
+    }
+
+    static final class Page {
+        int number;
+        final List<PlacedOp> ops = new ArrayList<>();
+    }
+
+    private record Frame(String key, byte[] data, float width, float height, Props props, Element element) {
+    }
+
+    private sealed interface Inline permits Word, Space, Tab, Break, InlineImage, Field {
+    }
+
+    private record Word(String text, Props props, PDFont font) implements Inline {
+    }
+
+    private record Space(Props props, PDFont font, boolean hard) implements Inline {
+    }
+
+    private record Tab() implements Inline {
+    }
+
+    private record Break() implements Inline {
+    }
+
+    private record InlineImage(Frame frame) implements Inline {
+    }
+
+    private record Field(String kind, Props props, PDFont font, String placeholder) implements Inline {
+    }
+
+    private record Placed(Inline item, float x, float width) {
+    }
+
+    private final StyleSheet styles;
+    private final OdfTextDocument document;
+    private final OdfPackage pkg;
+    private final Consumer<String> unsupported;
+
+    private float pageWidth = 595.3f;
+    private float pageHeight = 841.9f;
+    private float marginLeft;
+    private float marginRight;
+    private float marginTop;
+    private float marginBottom;
+    private float bodyTop;
+    private float bodyBottom;
+    private String masterPage = "Standard";
+    private List<Box> header = List.of();
+    private List<Box> footer = List.of();
+    private float footerTop;
+    private final Map<Integer, List<Op>> pageFrames = new HashMap<>();
+
+    final List<Page> pages = new ArrayList<>();
+    private Page page;
+    private float y;
+    private boolean pageEmpty;
+    private boolean pendingBreak;
+
+    Layouter(OdfTextDocument document, Consumer<String> unsupported) throws Exception {
+        this.document = document;
+        this.pkg = document.getPackage();
+        this.unsupported = unsupported;
+        this.styles = new StyleSheet(document.getStylesDom(), document.getContentDom());
+    }
+
+    /**
+     * Lays out header, footer and body.
+     */
+    void layout() throws Exception {
+        setupPage();
+        newPage();
+        page.number = 1;
+        flow(blocks(children(document.getContentRoot()), Scope.CONTENT, marginLeft, pageWidth - marginLeft - marginRight, false));
+    }
+
+    // ------------------------------------------------------------------ page setup
+
+    private void setupPage() throws Exception {
+        Element masterStyles = firstChild(document.getStylesDom().getDocumentElement(), OFFICE_NS, "master-styles");
+        Element master = firstChild(masterStyles, STYLE_NS, "master-page");
+        Props layout = new Props();
+        if (master != null) {
+            masterPage = master.getAttributeNS(STYLE_NS, "name");
+            layout = styles.pageLayout(master.getAttributeNS(STYLE_NS, "page-layout-name"));
+        }
+
+        if (layout.get("pl.page-width") != null) {
+            pageWidth = layout.length("pl.page-width");
+            pageHeight = layout.length("pl.page-height");
+        }
+        marginLeft = layout.side("pl.margin", "left");
+        marginRight = layout.side("pl.margin", "right");
+        marginTop = layout.side("pl.margin", "top");
+        marginBottom = layout.side("pl.margin", "bottom");
+        checkPageLayout(layout);
+
+        float contentWidth = pageWidth - marginLeft - marginRight;
+        bodyTop = marginTop;
+        bodyBottom = pageHeight - marginBottom;
+        footerTop = bodyBottom;
+        if (master == null) {
+            return;
+        }
+
+        for (String variant : List.of("header-left", "header-first", "footer-left", "footer-first")) {
+            Element element = firstChild(master, STYLE_NS, variant);
+            if (element != null && !"false".equals(element.getAttributeNS(STYLE_NS, "display"))) {
+                unsupported.accept("different header/footer on first or left pages");
+            }
+        }
+
+        Element headerElement = firstChild(master, STYLE_NS, "header");
+        if (headerElement != null && !"false".equals(headerElement.getAttributeNS(STYLE_NS, "display"))) {
+            float x = marginLeft + layout.length("header.margin-left");
+            float width = contentWidth - layout.length("header.margin-left") - layout.length("header.margin-right");
+            header = blocks(children(headerElement), Scope.STYLES, x, width, true);
+            float height = Math.max(layout.length("header.min-height"), stackHeight(header));
+            bodyTop = marginTop + height + layout.length("header.margin-bottom");
+        }
+
+        Element footerElement = firstChild(master, STYLE_NS, "footer");
+        if (footerElement != null && !"false".equals(footerElement.getAttributeNS(STYLE_NS, "display"))) {
+            float x = marginLeft + layout.length("footer.margin-left");
+            float width = contentWidth - layout.length("footer.margin-left") - layout.length("footer.margin-right");
+            footer = blocks(children(footerElement), Scope.STYLES, x, width, true);
+            float height = Math.max(layout.length("footer.min-height"), stackHeight(footer));
+            footerTop = pageHeight - marginBottom - height;
+            bodyBottom = footerTop - layout.length("footer.margin-top");
+        }
+    }
+
+    private void checkPageLayout(Props layout) {
+        if (parseInt(layout.get("pl.column-count")) > 1) {
+            unsupported.accept("page columns");
+        }
+        if (layout.get("pl.background-image") != null || isColored(layout.get("pl.background-color"))) {
+            unsupported.accept("page background");
+        }
+        if (isBorder(layout.get("pl.border")) || isBorder(layout.get("pl.border-top"))) {
+            unsupported.accept("page border");
+        }
+        String writingMode = layout.get("pl.writing-mode");
+        if (writingMode != null && !writingMode.startsWith("lr")) {
+            unsupported.accept("writing mode " + writingMode);
+        }
+    }
+
+    // ------------------------------------------------------------------ blocks
+
+    private List<Box> blocks(List<Element> elements, Scope scope, float x, float width, boolean nested) throws Exception {
+        List<Box> boxes = new ArrayList<>();
+        for (Element el : elements) {
+            String ns = el.getNamespaceURI();
+            String local = el.getLocalName();
+            if (TEXT_NS.equals(ns) && ("p".equals(local) || "h".equals(local))) {
+                boxes.addAll(paragraph(el, scope, x, width));
+            } else if (TABLE_NS.equals(ns) && "table".equals(local)) {
+                if (nested) {
+                    unsupported.accept("nested table");
+                } else {
+                    boxes.addAll(table(el, scope, x, width));
+                }
+            } else if (TEXT_NS.equals(ns) && "section".equals(local)) {
+                if ("none".equals(el.getAttributeNS(TEXT_NS, "display"))) {
+                    continue;
+                }
+                Props section = styles.resolve(scope, "section", el.getAttributeNS(TEXT_NS, "style-name"));
+                if (parseInt(section.get("s.column-count")) > 1) {
+                    unsupported.accept("section columns");
+                }
+                if (isColored(section.get("s.background-color"))) {
+                    unsupported.accept("section background");
+                }
+                boxes.addAll(blocks(children(el), scope, x + section.length("s.margin-left"),
+                        width - section.length("s.margin-left") - section.length("s.margin-right"), nested));
+            } else if (TEXT_NS.equals(ns) && "tracked-changes".equals(local)) {
+                if (el.hasChildNodes() && !children(el).isEmpty()) {
+                    unsupported.accept("tracked changes");
+                }
+            } else if (DRAW_NS.equals(ns) && "frame".equals(local) && "page".equals(el.getAttributeNS(TEXT_NS, "anchor-type"))) {
+                pageFrame(el, scope);
+            } else if (!isIgnoredBlock(el)) {
+                unsupported.accept("element " + el.getNodeName());
+            }
+        }
+        return boxes;
+    }
+
+    private static boolean isIgnoredBlock(Element el) {
+        String local = el.getLocalName();
+        if (TEXT_NS.equals(el.getNamespaceURI())) {
+            return local.endsWith("-decls") || "section-source".equals(local) || "soft-page-break".equals(local)
+                    || local.startsWith("bookmark");
+        }
+        return OFFICE_NS.equals(el.getNamespaceURI()) && "forms".equals(local);
+    }
+
+    // ------------------------------------------------------------------ paragraphs
+
+    private List<Box> paragraph(Element p, Scope scope, float x, float width) throws Exception {
+        Props ps = styles.resolve(scope, "paragraph", p.getAttributeNS(TEXT_NS, "style-name"));
+        checkParagraph(ps);
+        checkText(ps);
+
+        float left = x + ps.side("p.margin", "left");
+        float avail = width - ps.side("p.margin", "left") - ps.side("p.margin", "right");
+
+        List<Inline> inlines = new ArrayList<>();
+        List<Frame> floating = new ArrayList<>();
+        collectInlines(p, ps, scope, inlines, floating);
+
+        List<List<Placed>> lines = breakLines(inlines, ps, avail);
+        List<Box> boxes = new ArrayList<>();
+
+        // Bilder ohne Umlauf stehen über dem Text, durchlaufende Bilder liegen hinter/vor dem Text
+        List<Op> floatOps = new ArrayList<>();
+        float reserved = 0;
+        for (Frame frame : floating) {
+            String wrap = frame.props().get("g.wrap");
+            float[] pos = framePosition(frame, left, avail);
+            if (wrap == null || "none".equals(wrap)) {
+                reserved = Math.max(reserved, pos[1] + frame.height());
+            } else if (!"run-through".equals(wrap)) {
+                unsupported.accept("text wrap around image");
+            }
+            boolean pageRelative = "page".equals(frame.props().get("g.vertical-rel"));
+            floatOps.add((ctx, top) -> ctx.image(frame.key(), frame.data(), pos[0],
+                    pageRelative ? pos[1] : top + pos[1], frame.width(), frame.height()));
+        }
+
+        boolean breakBefore = "page".equals(ps.get("p.break-before")) || checkMasterPage(ps.get("master-page-name"));
+        int reset = parseInt(ps.get("p.page-number"));
+        float before = ps.side("p.margin", "top");
+        float after = ps.side("p.margin", "bottom");
+        String align = ps.get("p.text-align");
+
+        if (reserved > 0) {
+            boxes.add(new Box(reserved, before, 0, breakBefore, false, reset, floatOps, null));
+            floatOps = new ArrayList<>();
+            breakBefore = false;
+            reset = 0;
+            before = 0;
+        }
+
+        for (int i = 0; i < lines.size(); i++) {
+            boolean first = i == 0;
+            boolean last = i == lines.size() - 1;
+            List<Placed> line = lines.get(i);
+            boolean forced = !line.isEmpty() && line.get(line.size() - 1).item() instanceof Break;
+            float indent = first ? ps.length("p.text-indent") : 0;
+
+            float[] metrics = lineMetrics(line, ps);
+            float height = lineHeight(ps, metrics[0] + metrics[1]);
+            float baseline = height - metrics[1];
+
+            List<Op> ops = new ArrayList<>();
+            if (first) {
+                ops.addAll(floatOps);
+                if ("h".equals(p.getLocalName())) {
+                    String title = plainText(p);
+                    int level = Math.max(1, parseInt(p.getAttributeNS(TEXT_NS, "outline-level")));
+                    ops.add((ctx, top) -> ctx.bookmark(title, level, top));
+                }
+            }
+            ops.add(lineOp(line, left + indent, avail - indent, align, last || forced, baseline));
+
+            boxes.add(new Box(height, first ? before : 0, last ? after : 0, first && breakBefore,
+                    last && "page".equals(ps.get("p.break-after")), first ? reset : 0, ops, null));
+        }
+        return boxes;
+    }
+
+    private void checkParagraph(Props ps) {
+        if (isColored(ps.get("p.background-color")) || ps.get("p.background-image") != null) {
+            unsupported.accept("paragraph background");
+        }
+        for (String side : List.of("", "-top", "-bottom", "-left", "-right")) {
+            if (isBorder(ps.get("p.border" + side))) {
+                unsupported.accept("paragraph border");
+                break;
+            }
+        }
+        if (ps.get("p.drop-cap") != null) {
+            unsupported.accept("drop caps");
+        }
+        String stops = ps.get("p.tab-stops");
+        if (stops != null) {
+            for (String stop : stops.split(";")) {
+                if (!stop.isEmpty() && !stop.startsWith("left@")) {
+                    unsupported.accept("tab stop type " + stop.substring(0, stop.indexOf('@')));
+                }
+            }
+        }
+        String writingMode = ps.get("p.writing-mode");
+        if (writingMode != null && !writingMode.startsWith("lr") && !"page".equals(writingMode)) {
+            unsupported.accept("writing mode " + writingMode);
+        }
+    }
+
+    private void checkText(Props ts) {
+        if (styles.font(ts) == null) {
+            unsupported.accept("font '" + styles.fontFamily(ts) + "'");
+        }
+        String position = ts.get("t.text-position");
+        if (position != null && !position.startsWith("0%") && !position.startsWith("0 ")) {
+            unsupported.accept("superscript/subscript");
+        }
+        if ("small-caps".equals(ts.get("t.font-variant"))) {
+            unsupported.accept("small caps");
+        }
+        String transform = ts.get("t.text-transform");
+        if (transform != null && !"none".equals(transform)) {
+            unsupported.accept("text transformation");
+        }
+        String strike = ts.get("t.text-line-through-style");
+        if (strike != null && !"none".equals(strike)) {
+            unsupported.accept("strike-through");
+        }
+        if (isColored(ts.get("t.background-color"))) {
+            unsupported.accept("text highlighting");
+        }
+        String spacing = ts.get("t.letter-spacing");
+        if (spacing != null && !"normal".equals(spacing) && toPoints(spacing) != 0f) {
+            unsupported.accept("letter spacing");
+        }
+        String scale = ts.get("t.text-scale");
+        if (scale != null && !"100%".equals(scale)) {
+            unsupported.accept("character scaling");
+        }
+    }
+
+    private boolean checkMasterPage(String name) {
+        if (name == null) {
+            return false;
+        }
+        if (!name.equals(masterPage)) {
+            unsupported.accept("multiple master pages");
+        }
+        return true;
+    }
+
+    private void collectInlines(Node parent, Props text, Scope scope, List<Inline> out, List<Frame> floating) throws Exception {
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node.getNodeType() == Node.TEXT_NODE) {
+                addText(node.getNodeValue(), text, out);
+                continue;
+            }
+            if (!(node instanceof Element el)) {
+                continue;
+            }
+            String ns = el.getNamespaceURI();
+            String local = el.getLocalName();
+            if (OFFICE_NS.equals(ns) && IGNORED_INLINE.contains(local) || TEXT_NS.equals(ns) && IGNORED_INLINE.contains(local)) {
+                continue;
+            }
+            if (TEXT_NS.equals(ns)) {
+                switch (local) {
+                    case "span" -> {
+                        Props span = text.with(styles.resolve(scope, "text", el.getAttributeNS(TEXT_NS, "style-name")));
+                        checkText(span);
+                        collectInlines(el, span, scope, out, floating);
+                    }
+                    case "a" -> collectInlines(el, text, scope, out, floating);
+                    case "s" -> {
+                        int count = Math.max(1, parseInt(el.getAttributeNS(TEXT_NS, "c")));
+                        for (int i = 0; i < count; i++) {
+                            out.add(new Space(text, font(text), true));
+                        }
+                    }
+                    case "tab" -> out.add(new Tab());
+                    case "line-break" -> out.add(new Break());
+                    case "page-number", "page-count" -> {
+                        String format = el.getAttributeNS(STYLE_NS, "num-format");
+                        if (!format.isEmpty() && !"1".equals(format)) {
+                            unsupported.accept("page number format " + format);
+                        }
+                        String placeholder = plainText(el);
+                        out.add(new Field(local, text, font(text), placeholder.isBlank() ? "99" : placeholder));
+                    }
+                    default -> {
+                        if ("none".equals(el.getAttributeNS(TEXT_NS, "display"))) {
+                            continue;
+                        }
+                        if (STATIC_FIELDS.contains(local)) {
+                            collectInlines(el, text, scope, out, floating);
+                        } else {
+                            unsupported.accept("element " + el.getNodeName());
+                        }
+                    }
+                }
+            } else if (DRAW_NS.equals(ns) && "frame".equals(local)) {
+                Frame frame = frame(el, scope);
+                if (frame == null) {
+                    continue;
+                }
+                if ("as-char".equals(el.getAttributeNS(TEXT_NS, "anchor-type"))) {
+                    out.add(new InlineImage(frame));
+                } else {
+                    floating.add(frame);
+                }
+            } else {
+                unsupported.accept("element " + el.getNodeName());
+            }
+        }
+    }
+
+    /**
+     * Splits text into words and collapsible spaces (ODF whitespace handling).
+     */
+    private void addText(String value, Props text, List<Inline> out) {
+        String normalized = value.replace("­", "").replaceAll("[\\t\\n\\r ]+", " ");
+        PDFont font = font(text);
+        int start = 0;
+        for (int i = 0; i <= normalized.length(); i++) {
+            if (i == normalized.length() || normalized.charAt(i) == ' ') {
+                if (i > start) {
+                    out.add(new Word(normalized.substring(start, i), text, font));
+                }
+                if (i < normalized.length()) {
+                    boolean collapse = !out.isEmpty() && out.get(out.size() - 1) instanceof Space s && !s.hard();
+                    if (!collapse) {
+                        out.add(new Space(text, font, false));
+                    }
+                }
+                start = i + 1;
+            }
+        }
+    }
+
+    private List<List<Placed>> breakLines(List<Inline> inlines, Props ps, float avail) {
+        float firstIndent = ps.length("p.text-indent");
+        List<List<Placed>> lines = new ArrayList<>();
+        List<Placed> line = new ArrayList<>();
+        float x = 0;
+        float limit = avail - firstIndent;
+
+        for (Inline item : inlines) {
+            switch (item) {
+                case Space space -> {
+                    if (line.isEmpty() && !space.hard()) {
+                        continue;
+                    }
+                    float w = width(space.font(), " ", space.props().fontSize());
+                    line.add(new Placed(space, x, w));
+                    x += w;
+                }
+                case Tab tab -> {
+                    float pos = nextTab(ps, x);
+                    if (pos > limit && !line.isEmpty()) {
+                        lines.add(line);
+                        line = new ArrayList<>();
+                        limit = avail;
+                        pos = nextTab(ps, 0);
+                    }
+                    line.add(new Placed(tab, x, pos - x));
+                    x = pos;
+                }
+                case Break br -> {
+                    line.add(new Placed(br, x, 0));
+                    lines.add(line);
+                    line = new ArrayList<>();
+                    x = 0;
+                    limit = avail;
+                }
+                default -> {
+                    float w = itemWidth(item);
+                    if (x + w > limit && hasContent(line)) {
+                        lines.add(line);
+                        line = new ArrayList<>();
+                        x = 0;
+                        limit = avail;
+                    }
+                    line.add(new Placed(item, x, w));
+                    x += w;
+                }
+            }
+        }
+        lines.add(line);
+        return lines;
+    }
+
+    private float nextTab(Props ps, float x) {
+        String stops = ps.get("p.tab-stops");
+        if (stops != null) {
+            for (String stop : stops.split(";")) {
+                if (!stop.isEmpty()) {
+                    float pos = Float.parseFloat(stop.substring(stop.indexOf('@') + 1));
+                    if (pos > x + 0.01f) {
+                        return pos;
+                    }
+                }
+            }
+        }
+        float distance = styles.resolve(Scope.STYLES, "paragraph", null).length("p.tab-stop-distance");
+        if (distance <= 0) {
+            distance = DEFAULT_TAB_DISTANCE;
+        }
+        return (float) (Math.floor(x / distance) + 1) * distance;
+    }
+
+    private static boolean hasContent(List<Placed> line) {
+        for (Placed placed : line) {
+            if (!(placed.item() instanceof Space)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private float itemWidth(Inline item) {
+        return switch (item) {
+            case Word word -> width(word.font(), word.text(), word.props().fontSize());
+            case Field field -> width(field.font(), field.placeholder(), field.props().fontSize());
+            case InlineImage image -> image.frame().width();
+            default -> 0f;
+        };
+    }
+
+    /**
+     * @return ascent and descent (including line gap) of the line in points
+     */
+    private float[] lineMetrics(List<Placed> line, Props ps) {
+        float ascent = 0;
+        float descent = 0;
+        boolean text = false;
+        for (Placed placed : line) {
+            Props props = switch (placed.item()) {
+                case Word word -> word.props();
+                case Space space -> space.props();
+                case Field field -> field.props();
+                default -> null;
+            };
+            if (props != null) {
+                float[] m = StyleSheet.verticalMetrics(font(props));
+                ascent = Math.max(ascent, m[0] * props.fontSize());
+                descent = Math.max(descent, m[1] * props.fontSize());
+                text = true;
+            } else if (placed.item() instanceof InlineImage image) {
+                ascent = Math.max(ascent, image.frame().height());
+            }
+        }
+        if (!text) {
+            float[] m = StyleSheet.verticalMetrics(font(ps));
+            ascent = Math.max(ascent, m[0] * ps.fontSize());
+            descent = Math.max(descent, m[1] * ps.fontSize());
+        }
+        return new float[]{ascent, descent};
+    }
+
+    private static float lineHeight(Props ps, float natural) {
+        String lineHeight = ps.get("p.line-height");
+        float height = natural;
+        if (lineHeight != null && lineHeight.endsWith("%")) {
+            height = natural * Float.parseFloat(lineHeight.substring(0, lineHeight.length() - 1)) / 100f;
+        } else if (lineHeight != null && !"normal".equals(lineHeight)) {
+            height = toPoints(lineHeight);
+        }
+        if (ps.get("p.line-height-at-least") != null) {
+            height = Math.max(height, ps.length("p.line-height-at-least"));
+        }
+        if (ps.get("p.line-spacing") != null) {
+            height += ps.length("p.line-spacing");
+        }
+        return height;
+    }
+
+    /**
+     * Draws one line. Adjacent words and spaces with the same style are drawn as a single run unless the
+     * line is justified.
+     */
+    private Op lineOp(List<Placed> line, float left, float avail, String align, boolean lastLine, float baselineOffset) {
+        int end = line.size();
+        while (end > 0 && (line.get(end - 1).item() instanceof Space s && !s.hard() || line.get(end - 1).item() instanceof Break)) {
+            end--;
+        }
+        List<Placed> items = line.subList(0, end);
+        float used = items.isEmpty() ? 0 : items.get(end - 1).x() + items.get(end - 1).width();
+
+        float offset = 0;
+        float extraPerSpace = 0;
+        if ("center".equals(align)) {
+            offset = (avail - used) / 2;
+        } else if ("end".equals(align) || "right".equals(align)) {
+            offset = avail - used;
+        } else if ("justify".equals(align) && !lastLine) {
+            long spaces = items.stream().filter(p -> p.item() instanceof Space).count();
+            if (spaces > 0) {
+                extraPerSpace = (avail - used) / spaces;
+            }
+        }
+
+        float startX = left + offset;
+        float extra = extraPerSpace;
+        List<Placed> drawn = List.copyOf(items);
+        return (ctx, top) -> {
+            float baseline = top + baselineOffset;
+            float shift = 0;
+            StringBuilder run = new StringBuilder();
+            Props runProps = null;
+            PDFont runFont = null;
+            float runX = 0;
+            for (Placed placed : drawn) {
+                Inline item = placed.item();
+                boolean joinable = extra == 0 && (item instanceof Word || item instanceof Space);
+                Props props = item instanceof Word w ? w.props() : item instanceof Space s ? s.props() : null;
+                if (run.length() > 0 && (!joinable || props != runProps)) {
+                    ctx.text(runX, baseline, run.toString(), runFont, runProps.fontSize(), runProps.color(), runProps.isUnderline());
+                    run.setLength(0);
+                }
+                float x = startX + placed.x() + shift;
+                switch (item) {
+                    case Word word -> {
+                        if (joinable) {
+                            if (run.length() == 0) {
+                                runX = x;
+                                runProps = word.props();
+                                runFont = word.font();
+                            }
+                            run.append(word.text());
+                        } else {
+                            ctx.text(x, baseline, word.text(), word.font(), word.props().fontSize(), word.props().color(), word.props().isUnderline());
+                        }
+                    }
+                    case Space space -> {
+                        if (joinable && run.length() > 0) {
+                            run.append(' ');
+                        }
+                        shift += extra;
+                    }
+                    case Field field -> {
+                        String value = "page-number".equals(field.kind()) ? String.valueOf(ctx.pageNumber) : String.valueOf(ctx.pageCount);
+                        ctx.text(x, baseline, value, field.font(), field.props().fontSize(), field.props().color(), field.props().isUnderline());
+                    }
+                    case InlineImage image -> ctx.image(image.frame().key(), image.frame().data(), x,
+                            baseline - image.frame().height(), image.frame().width(), image.frame().height());
+                    default -> {
+                    }
+                }
+            }
+            if (run.length() > 0) {
+                ctx.text(runX, baseline, run.toString(), runFont, runProps.fontSize(), runProps.color(), runProps.isUnderline());
+            }
+        };
+    }
+
+    // ------------------------------------------------------------------ tables
+
+    private List<Box> table(Element table, Scope scope, float x, float width) throws Exception {
+        Props ts = styles.resolve(scope, "table", table.getAttributeNS(TABLE_NS, "style-name"));
+        float marginLeft = ts.side("tbl.margin", "left");
+        float tableWidth = ts.get("tbl.width") != null ? ts.length("tbl.width") : width - marginLeft - ts.side("tbl.margin", "right");
+        String align = ts.get("tbl.align");
+        float tx = switch (align == null ? "margins" : align) {
+            case "center" -> x + (width - tableWidth) / 2;
+            case "right" -> x + width - tableWidth;
+            default -> x + marginLeft;
+        };
+
+        List<Float> columns = columns(styles, table, scope, tableWidth);
+        List<Element> headerRows = new ArrayList<>();
+        List<Element> bodyRows = new ArrayList<>();
+        for (Element child : children(table)) {
+            switch (child.getLocalName()) {
+                case "table-header-rows" -> headerRows.addAll(rowsOf(child));
+                case "table-rows" -> bodyRows.addAll(rowsOf(child));
+                case "table-row" -> bodyRows.add(child);
+                case "table-column", "table-columns", "table-header-columns", "soft-page-break" -> {
+                }
+                default -> unsupported.accept("table element " + child.getNodeName());
+            }
+        }
+
+        List<Box> header = new ArrayList<>();
+        for (Element row : headerRows) {
+            header.add(row(row, scope, columns, tx));
+        }
+        List<Box> boxes = new ArrayList<>(header);
+        for (Element row : bodyRows) {
+            boxes.add(row(row, scope, columns, tx).withRepeat(header.isEmpty() ? null : header));
+        }
+        if (boxes.isEmpty()) {
+            return boxes;
+        }
+
+        boolean breakBefore = "page".equals(ts.get("tbl.break-before")) || checkMasterPage(ts.get("master-page-name"));
+        Box first = boxes.get(0);
+        boxes.set(0, new Box(first.height(), ts.side("tbl.margin", "top"), first.after(), breakBefore, first.breakAfter(),
+                parseInt(ts.get("tbl.page-number")), first.ops(), first.repeat()));
+        Box last = boxes.get(boxes.size() - 1);
+        boxes.set(boxes.size() - 1, new Box(last.height(), last.before(), ts.side("tbl.margin", "bottom"), last.breakBefore(),
+                "page".equals(ts.get("tbl.break-after")), last.pageNumberReset(), last.ops(), last.repeat()));
+        return boxes;
+    }
+
+    private List<Element> rowsOf(Element group) {
+        List<Element> rows = new ArrayList<>();
+        for (Element child : children(group)) {
+            if ("table-row".equals(child.getLocalName())) {
+                rows.add(child);
+            } else if (!"soft-page-break".equals(child.getLocalName())) {
+                unsupported.accept("table element " + child.getNodeName());
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Column widths in points, scaled to the table width.
+     */
+    static List<Float> columns(StyleSheet styles, Element table, Scope scope, float tableWidth) {
+        List<Float> absolute = new ArrayList<>();
+        List<Float> relative = new ArrayList<>();
+        List<Element> columnElements = new ArrayList<>();
+        for (Element child : children(table)) {
+            if ("table-column".equals(child.getLocalName())) {
+                columnElements.add(child);
+            } else if ("table-columns".equals(child.getLocalName()) || "table-header-columns".equals(child.getLocalName())) {
+                columnElements.addAll(children(child));
+            }
+        }
+        for (Element column : columnElements) {
+            Props cs = styles.resolve(scope, "table-column", column.getAttributeNS(TABLE_NS, "style-name"));
+            int repeat = Math.max(1, parseInt(column.getAttributeNS(TABLE_NS, "number-columns-repeated")));
+            String rel = cs.get("col.rel-column-width");
+            for (int i = 0; i < repeat; i++) {
+                absolute.add(cs.length("col.column-width"));
+                relative.add(rel == null ? 0f : Float.parseFloat(rel.replace("*", "")));
+            }
+        }
+
+        List<Float> source = absolute.stream().allMatch(w -> w > 0) ? absolute : relative;
+        float sum = (float) source.stream().mapToDouble(Float::doubleValue).sum();
+        List<Float> widths = new ArrayList<>();
+        for (int i = 0; i < source.size(); i++) {
+            widths.add(sum > 0 ? source.get(i) * tableWidth / sum : tableWidth / source.size());
+        }
+        return widths;
+    }
+
+    private Box row(Element row, Scope scope, List<Float> columns, float tx) throws Exception {
+        Props rs = styles.resolve(scope, "table-row", row.getAttributeNS(TABLE_NS, "style-name"));
+        List<Runnable> drawings = new ArrayList<>();
+        List<CellLayout> cells = new ArrayList<>();
+        int column = 0;
+
+        for (Element cell : children(row)) {
+            int repeat = Math.max(1, parseInt(cell.getAttributeNS(TABLE_NS, "number-columns-repeated")));
+            if ("covered-table-cell".equals(cell.getLocalName())) {
+                column += repeat;
+                continue;
+            }
+            if (!"table-cell".equals(cell.getLocalName())) {
+                unsupported.accept("table element " + cell.getNodeName());
+                continue;
+            }
+            if (parseInt(cell.getAttributeNS(TABLE_NS, "number-rows-spanned")) > 1) {
+                unsupported.accept("cells spanning rows");
+            }
+            int span = Math.max(1, parseInt(cell.getAttributeNS(TABLE_NS, "number-columns-spanned")));
+            for (int r = 0; r < repeat && column < columns.size(); r++) {
+                float cx = tx;
+                for (int i = 0; i < column; i++) {
+                    cx += columns.get(i);
+                }
+                float cw = 0;
+                for (int i = column; i < Math.min(columns.size(), column + span); i++) {
+                    cw += columns.get(i);
+                }
+                cells.add(cell(cell, scope, cx, cw));
+                column += span;
+            }
+        }
+
+        float height = 0;
+        for (CellLayout cell : cells) {
+            height = Math.max(height, cell.contentHeight + cell.padTop + cell.padBottom);
+        }
+        height = Math.max(height, rs.length("row.min-row-height"));
+        if (rs.get("row.row-height") != null) {
+            height = rs.length("row.row-height");
+        }
+        if (height > bodyBottom - bodyTop && bodyBottom > bodyTop) {
+            unsupported.accept("table row taller than a page");
+        }
+
+        float rowHeight = height;
+        List<Op> ops = new ArrayList<>();
+        for (CellLayout cell : cells) {
+            ops.add((ctx, top) -> cell.draw(ctx, top, rowHeight));
+        }
+        return Box.of(rowHeight, ops);
+    }
+
+    private final class CellLayout {
+        float x;
+        float width;
+        float padTop;
+        float padBottom;
+        float contentHeight;
+        String verticalAlign;
+        Color background;
+        final String[] borders = new String[4];
+        List<Box> content;
+
+        void draw(DrawContext ctx, float top, float rowHeight) throws IOException {
+            if (background != null) {
+                ctx.fill(x, top, width, rowHeight, background);
+            }
+            float offset = padTop;
+            if ("middle".equals(verticalAlign)) {
+                offset += (rowHeight - padTop - padBottom - contentHeight) / 2;
+            } else if ("bottom".equals(verticalAlign)) {
+                offset += rowHeight - padTop - padBottom - contentHeight;
+            }
+            float y = top + offset;
+            for (Box box : content) {
+                y += box.before();
+                for (Op op : box.ops()) {
+                    op.draw(ctx, y);
+                }
+                y += box.height() + box.after();
+            }
+            border(ctx, borders[0], x, top, x + width, top);
+            border(ctx, borders[1], x + width, top, x + width, top + rowHeight);
+            border(ctx, borders[2], x, top + rowHeight, x + width, top + rowHeight);
+            border(ctx, borders[3], x, top, x, top + rowHeight);
+        }
+
+        private void border(DrawContext ctx, String border, float x1, float y1, float x2, float y2) throws IOException {
+            if (!isBorder(border)) {
+                return;
+            }
+            float lineWidth = 0.5f;
+            Color color = Color.BLACK;
+            for (String part : border.trim().split("\\s+")) {
+                if (part.startsWith("#")) {
+                    color = StyleSheet.color(part);
+                } else if (Character.isDigit(part.charAt(0)) || part.charAt(0) == '.') {
+                    lineWidth = toPoints(part);
+                }
+            }
+            ctx.line(x1, y1, x2, y2, lineWidth, color);
+        }
+    }
+
+    private CellLayout cell(Element cell, Scope scope, float x, float width) throws Exception {
+        Props cs = styles.resolve(scope, "table-cell", cell.getAttributeNS(TABLE_NS, "style-name"));
+        CellLayout layout = new CellLayout();
+        layout.x = x;
+        layout.width = width;
+        layout.padTop = cs.side("c.padding", "top");
+        layout.padBottom = cs.side("c.padding", "bottom");
+        float padLeft = cs.side("c.padding", "left");
+        float padRight = cs.side("c.padding", "right");
+        layout.verticalAlign = cs.get("c.vertical-align");
+        layout.background = isColored(cs.get("c.background-color")) ? StyleSheet.color(cs.get("c.background-color")) : null;
+        String[] sides = {"top", "right", "bottom", "left"};
+        for (int i = 0; i < 4; i++) {
+            String specific = cs.get("c.border-" + sides[i]);
+            layout.borders[i] = specific != null ? specific : cs.get("c.border");
+        }
+        if (cs.get("c.background-image") != null) {
+            unsupported.accept("cell background image");
+        }
+        layout.content = blocks(children(cell), scope, x + padLeft, width - padLeft - padRight, true);
+        layout.contentHeight = stackHeight(layout.content);
+        return layout;
+    }
+
+    // ------------------------------------------------------------------ frames
+
+    private Frame frame(Element frame, Scope scope) throws Exception {
+        Props props = styles.resolve(scope, "graphic", frame.getAttributeNS(DRAW_NS, "style-name"));
+        float width = toPoints(frame.getAttributeNS(SVG_NS, "width"));
+        float height = toPoints(frame.getAttributeNS(SVG_NS, "height"));
+        if (width <= 0 || height <= 0) {
+            unsupported.accept("frame without absolute size");
+            return null;
+        }
+
+        for (Element child : children(frame)) {
+            if (!DRAW_NS.equals(child.getNamespaceURI()) || !"image".equals(child.getLocalName())) {
+                continue;
+            }
+            String href = child.getAttributeNS(XLINK_NS, "href");
+            String lower = href.toLowerCase();
+            if (lower.endsWith(".svg") || lower.endsWith(".wmf") || lower.endsWith(".emf") || lower.endsWith(".svm")) {
+                continue;
+            }
+            byte[] data = null;
+            Element binary = firstChild(child, OFFICE_NS, "binary-data");
+            if (binary != null) {
+                data = Base64.getMimeDecoder().decode(binary.getTextContent().trim());
+                href = "binary-" + System.identityHashCode(child);
+            } else if (!href.isEmpty() && !href.contains(":") && !href.startsWith("/")) {
+                data = pkg.getBytes(href.startsWith("./") ? href.substring(2) : href);
+            }
+            if (data != null) {
+                return new Frame(href, data, width, height, props, frame);
+            }
+        }
+
+        for (Element child : children(frame)) {
+            if ("text-box".equals(child.getLocalName())) {
+                unsupported.accept("text frame");
+                return null;
+            }
+        }
+        unsupported.accept("frame content (vector or linked image)");
+        return null;
+    }
+
+    /**
+     * @return x and y of the frame; y relative to the paragraph or, for {@code vertical-rel=page}, to the page
+     */
+    private float[] framePosition(Frame frame, float areaX, float areaWidth) {
+        Props props = frame.props();
+        Element el = frame.element();
+        String hrel = props.get("g.horizontal-rel");
+        boolean pageRelative = hrel != null && hrel.startsWith("page") && !"page-content".equals(hrel);
+        float base = pageRelative ? 0 : areaX;
+        float relWidth = pageRelative ? pageWidth : areaWidth;
+        String hpos = props.get("g.horizontal-pos");
+        float x = switch (hpos == null ? "from-left" : hpos) {
+            case "left" -> base;
+            case "center" -> base + (relWidth - frame.width()) / 2;
+            case "right" -> base + relWidth - frame.width();
+            default -> base + toPoints(el.getAttributeNS(SVG_NS, "x"));
+        };
+        String vpos = props.get("g.vertical-pos");
+        float y = "from-top".equals(vpos) || vpos == null ? toPoints(el.getAttributeNS(SVG_NS, "y")) : 0;
+        if (vpos != null && !"from-top".equals(vpos) && !"top".equals(vpos)) {
+            unsupported.accept("vertical image position " + vpos);
+        }
+        return new float[]{x, y};
+    }
+
+    private void pageFrame(Element el, Scope scope) throws Exception {
+        Frame frame = frame(el, scope);
+        if (frame == null) {
+            return;
+        }
+        String hrel = frame.props().get("g.horizontal-rel");
+        String vrel = frame.props().get("g.vertical-rel");
+        float x = toPoints(el.getAttributeNS(SVG_NS, "x")) + ("page-content".equals(hrel) ? marginLeft : 0);
+        float y = toPoints(el.getAttributeNS(SVG_NS, "y")) + ("page-content".equals(vrel) ? marginTop : 0);
+        int pageIndex = Math.max(1, parseInt(el.getAttributeNS(TEXT_NS, "anchor-page-number")));
+        pageFrames.computeIfAbsent(pageIndex, k -> new ArrayList<>())
+                .add((ctx, top) -> ctx.image(frame.key(), frame.data(), x, y, frame.width(), frame.height()));
+    }
+
+    // ------------------------------------------------------------------ pagination
+
+    private void flow(List<Box> boxes) {
+        boolean firstBox = true;
+        for (Box box : boxes) {
+            if ((box.breakBefore() || pendingBreak) && !firstBox) {
+                newPage();
+            }
+            pendingBreak = false;
+            if (box.pageNumberReset() > 0) {
+                page.number = box.pageNumberReset();
+            }
+            if (!pageEmpty && y + box.before() + box.height() > bodyBottom) {
+                newPage();
+                if (box.repeat() != null) {
+                    for (Box row : box.repeat()) {
+                        place(row, 0);
+                    }
+                }
+            }
+            place(box, box.before());
+            pendingBreak = box.breakAfter();
+            firstBox = false;
+        }
+    }
+
+    private void place(Box box, float before) {
+        y += before;
+        for (Op op : box.ops()) {
+            page.ops.add(new PlacedOp(op, y));
+        }
+        y += box.height() + box.after();
+        pageEmpty = false;
+    }
+
+    private void newPage() {
+        Page previous = page;
+        page = new Page();
+        page.number = previous == null ? 1 : previous.number + 1;
+        pages.add(page);
+        y = bodyTop;
+        pageEmpty = true;
+    }
+
+    /**
+     * Draws all pages into a new PDF document.
+     */
+    byte[] draw() throws IOException {
+        try (PDDocument pdf = new PDDocument()) {
+            DrawContext ctx = new DrawContext(pdf);
+            ctx.pageCount = pages.size();
+            ctx.pageHeight = pageHeight;
+            for (int i = 0; i < pages.size(); i++) {
+                Page current = pages.get(i);
+                PDPage pdPage = new PDPage(new PDRectangle(pageWidth, pageHeight));
+                pdf.addPage(pdPage);
+                ctx.page = pdPage;
+                ctx.pageNumber = current.number;
+                try (PDPageContentStream content = new PDPageContentStream(pdf, pdPage)) {
+                    ctx.content = content;
+                    for (Op op : pageFrames.getOrDefault(i + 1, List.of())) {
+                        op.draw(ctx, 0);
+                    }
+                    drawStack(ctx, header, marginTop);
+                    for (PlacedOp placed : current.ops) {
+                        placed.op().draw(ctx, placed.top());
+                    }
+                    drawStack(ctx, footer, footerTop);
+                }
+            }
+            ctx.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            pdf.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static void drawStack(DrawContext ctx, List<Box> boxes, float top) throws IOException {
+        float y = top;
+        for (Box box : boxes) {
+            y += box.before();
+            for (Op op : box.ops()) {
+                op.draw(ctx, y);
+            }
+            y += box.height() + box.after();
+        }
+    }
+
+    // ------------------------------------------------------------------ helpers
+
+    private static float stackHeight(List<Box> boxes) {
+        float height = 0;
+        for (Box box : boxes) {
+            height += box.before() + box.height() + box.after();
+        }
+        return height;
+    }
+
+    private PDFont font(Props props) {
+        PDFont font = styles.font(props);
+        return font != null ? font : PDType1Font.HELVETICA;
+    }
+
+    private float width(PDFont font, String text, float size) {
+        try {
+            return font.getStringWidth(text) / 1000f * size;
+        } catch (IllegalArgumentException e) {
+            unsupported.accept("characters outside the standard font encoding in '" + text + "'");
+            return text.length() * size * 0.5f;
+        } catch (IOException e) {
+            throw new UnsupportedFeatureException("font metrics: " + e.getMessage());
+        }
+    }
+
+    private static String plainText(Element el) {
+        StringBuilder sb = new StringBuilder();
+        appendText(el, sb);
+        return sb.toString().replaceAll("\\s+", " ").trim();
+    }
+
+    private static void appendText(Node node, StringBuilder sb) {
+        for (Node c = node.getFirstChild(); c != null; c = c.getNextSibling()) {
+            if (c.getNodeType() == Node.TEXT_NODE) {
+                sb.append(c.getNodeValue());
+            } else if (c instanceof Element el && TEXT_NS.equals(el.getNamespaceURI()) && "s".equals(el.getLocalName())) {
+                sb.append(' ');
+            } else {
+                appendText(c, sb);
+            }
+        }
+    }
+
+    private static boolean isColored(String color) {
+        return color != null && !"transparent".equals(color);
+    }
+
+    private static boolean isBorder(String border) {
+        return border != null && !"none".equals(border) && !border.isBlank() && !border.startsWith("0pt") && !border.startsWith("0cm");
+    }
+
+    static int parseInt(String value) {
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
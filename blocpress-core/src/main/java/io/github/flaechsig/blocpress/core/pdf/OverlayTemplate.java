@@ -0,0 +1,29 @@
+package io.github.flaechsig.blocpress.core.pdf;
+
+import java.util.List;
+
+/**
+ * Pre-converted form of a layout-stable template, see {@link PdfOverlay}.
+ *
+ * @param templateHash SHA-256 of the template the overlay was prepared from (hex)
+ * @param basePdf      the template converted to PDF with all fields empty
+ * @param fields       positions at which the field values are written, in the order of
+ *                     {@link io.github.flaechsig.blocpress.core.TemplateDocument#collectUserFields()}
+ */
+public record OverlayTemplate(String templateHash, byte[] basePdf, List<Field> fields) {
+
+    /**
+     * Position and text style of one user field.
+     *
+     * @param name     field name (dot notation)
+     * @param page     page index, starting at 0
+     * @param x        left edge of the value in points from the left page edge
+     * @param baseline baseline in points from the top page edge
+     * @param width    space in points from {@code x} to the right edge of the line; wider values are not stamped
+     * @param font     name of the PDF standard font, e.g. {@code Helvetica-Bold}
+     * @param size     font size in points
+     * @param color    text color as {@code #rrggbb}
+     */
+    public record Field(String name, int page, float x, float baseline, float width, String font, float size, String color) {
+    }
+}
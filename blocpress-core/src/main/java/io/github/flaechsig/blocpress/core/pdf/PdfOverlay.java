@@ -0,0 +1,456 @@
+package io.github.flaechsig.blocpress.core.pdf;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.flaechsig.blocpress.core.LibreOfficeProcessor;
+import io.github.flaechsig.blocpress.core.OutputFormat;
+import io.github.flaechsig.blocpress.core.RenderEngine;
+import io.github.flaechsig.blocpress.core.TemplateDocument;
+import io.github.flaechsig.blocpress.core.TemplateElement;
+import io.github.flaechsig.blocpress.core.pdf.StyleSheet.Props;
+import io.github.flaechsig.blocpress.core.pdf.StyleSheet.Scope;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.TextPosition;
+import org.odftoolkit.odfdom.doc.OdfTextDocument;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import java.awt.Color;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Overlay-Modus für formularartige Templates: das Template wird einmalig in ein PDF konvertiert,
+ * pro Request werden nur noch die formatierten Feldwerte mit PDFBox an die vorab ermittelten
+ * Koordinaten geschrieben.
+ *
+ * <p><b>Fachlicher Kontext:</b>
+ * Bei Templates ohne Wiederholungsgruppen, Bedingungen und Textbausteine hängt das Layout nicht
+ * von den Daten ab, solange jedes Feld am Ende seines Absatzes steht und der Absatz linksbündig ist:
+ * dann verschiebt ein längerer oder kürzerer Wert keinen anderen Text. Solche Templates gelten als
+ * layout-stabil ({@link #layoutStabilityIssues(URL)}).</p>
+ *
+ * <p>Zur Vorbereitung ({@link #prepare(URL)}) wird das Template zweimal konvertiert: einmal mit
+ * Markertexten statt Feldern, aus denen die Koordinaten gelesen werden, und einmal mit leeren Feldern
+ * als Hintergrund. Die Werte werden in der PDF-Standardschrift gesetzt, die zur Schrift des Feldes
+ * metrisch kompatibel ist. Werte werden nicht umbrochen: passt ein Wert nicht in den Rest der Zeile
+ * (Seite, Bereich, Tabellenzelle und Absatzeinzug), wird das Dokument über LibreOffice erzeugt.</p>
+ *
+ * <p><b>Design-Referenzen:</b></p>
+ * <ul>
+ *   <li>EDC: <a href="docs/Element_Design_Concept.adoc#edc-tf-5">TF-5: Dokument generieren</a></li>
+ * </ul>
+ */
+public class PdfOverlay {
+
+    private static final String TEXT_NS = "urn:oasis:names:tc:opendocument:xmlns:text:1.0";
+    private static final String TABLE_NS = "urn:oasis:names:tc:opendocument:xmlns:table:1.0";
+    private static final List<String> FIELD_ELEMENTS = List.of("user-field-get", "variable-get");
+    private static final Set<String> INVISIBLE_ELEMENTS = Set.of(
+            "bookmark", "bookmark-start", "bookmark-end", "soft-page-break", "s");
+    private static final Pattern MARKER = Pattern.compile("#BP(\\d+)#");
+
+    /**
+     * Converts an ODT document to PDF, e.g. with LibreOffice.
+     */
+    @FunctionalInterface
+    public interface PdfConverter {
+        byte[] convert(byte[] odt) throws IOException;
+    }
+
+    private PdfOverlay() {
+    }
+
+    /**
+     * Checks whether the layout of a template is independent of its data.
+     *
+     * @param template ODT template
+     * @return reasons why the template is not layout-stable, empty if the overlay mode can be used
+     */
+    @SneakyThrows
+    public static List<String> layoutStabilityIssues(@NonNull URL template) {
+        List<String> issues = new ArrayList<>();
+        TemplateDocument doc = TemplateDocument.load(template);
+        if (!doc.collectConditionalTemplateElements().isEmpty()) {
+            issues.add("conditional content");
+        }
+        if (!doc.collectIncludedTextBlocks().isEmpty()) {
+            issues.add("text blocks");
+        }
+
+        OdfTextDocument odf = load(read(template));
+        StyleSheet styles = new StyleSheet(odf.getStylesDom(), odf.getContentDom());
+        for (Element field : fields(odf)) {
+            String name = field.getAttributeNS(TEXT_NS, "name");
+            Element paragraph = paragraphOf(field);
+            if (paragraph == null) {
+                issues.add("field '" + name + "' outside a paragraph");
+                continue;
+            }
+            if (!isTrailing(field, paragraph)) {
+                issues.add("field '" + name + "' is followed by text");
+            }
+            Props props = fieldProps(styles, field, paragraph);
+            String align = props.get("p.text-align");
+            if ("center".equals(align) || "end".equals(align) || "right".equals(align)) {
+                issues.add("field '" + name + "' in centered or right-aligned paragraph");
+            }
+            if (styles.font(props) == null) {
+                issues.add("field '" + name + "' uses font '" + styles.fontFamily(props) + "'");
+            }
+        }
+        return issues;
+    }
+
+    /**
+     * Prepares the overlay of a layout-stable template with LibreOffice.
+     *
+     * @param template ODT template, see {@link #layoutStabilityIssues(URL)}
+     * @return the base PDF and the field positions
+     */
+    public static OverlayTemplate prepare(@NonNull URL template) {
+        return prepare(template, odt -> LibreOfficeProcessor.refreshAndTransform(odt, OutputFormat.PDF));
+    }
+
+    /**
+     * Prepares the overlay of a layout-stable template.
+     *
+     * @param template  ODT template, see {@link #layoutStabilityIssues(URL)}
+     * @param converter ODT to PDF conversion
+     * @return the base PDF and the field positions
+     * @throws IllegalStateException if a field does not appear in the converted document
+     */
+    @SneakyThrows
+    public static OverlayTemplate prepare(@NonNull URL template, @NonNull PdfConverter converter) {
+        byte[] content = read(template);
+        OdfTextDocument odf = load(content);
+        StyleSheet styles = new StyleSheet(odf.getStylesDom(), odf.getContentDom());
+        List<Element> fields = fields(odf);
+
+        byte[] marked = converter.convert(replaceFields(content, i -> "#BP" + i + "#"));
+        byte[] blank = converter.convert(replaceFields(content, i -> ""));
+        Map<Integer, float[]> positions = locateMarkers(marked);
+        float[] textArea = textArea(odf, styles);
+
+        List<OverlayTemplate.Field> result = new ArrayList<>();
+        for (int i = 0; i < fields.size(); i++) {
+            Element field = fields.get(i);
+            String name = field.getAttributeNS(TEXT_NS, "name");
+            float[] position = positions.get(i);
+            if (position == null) {
+                throw new IllegalStateException("Field '" + name + "' not found in converted template");
+            }
+            Element paragraph = paragraphOf(field);
+            Props props = fieldProps(styles, field, paragraph);
+            PDFont font = styles.font(props);
+            Color color = props.color();
+            float width = rightEdge(styles, paragraph, textArea) - position[1];
+            result.add(new OverlayTemplate.Field(name, (int) position[0], position[1], position[2], Math.max(0, width),
+                    font != null ? font.getName() : "Helvetica", props.fontSize(),
+                    String.format("#%06x", color.getRGB() & 0xffffff)));
+        }
+        return new OverlayTemplate(hash(content), blank, result);
+    }
+
+    /**
+     * Renders a document by writing the formatted field values onto the base PDF.
+     *
+     * @param template ODT template the overlay was prepared from
+     * @param overlay  prepared overlay
+     * @param data     JSON data
+     * @return the PDF document
+     * @throws UnsupportedFeatureException if the data expands repeat groups or a value cannot be set in the standard font
+     *                                     or does not fit the rest of its line
+     */
+    @SneakyThrows
+    public static byte[] render(@NonNull URL template, @NonNull OverlayTemplate overlay, @NonNull JsonNode data) {
+        TemplateDocument doc = TemplateDocument.load(template);
+        if (!doc.findRepeatGroups(data).isEmpty()) {
+            throw new UnsupportedFeatureException("repeat groups");
+        }
+        List<String> values = new ArrayList<>();
+        for (TemplateElement field : doc.collectUserFields()) {
+            values.add(doc.formatFieldValue(field, RenderEngine.getFieldValue(field.getName(), data)));
+        }
+        return stamp(overlay, values);
+    }
+
+    /**
+     * Writes already formatted values onto the base PDF.
+     *
+     * @param overlay prepared overlay
+     * @param values  formatted values in the order of {@link OverlayTemplate#fields()}
+     * @return the PDF document
+     * @throws UnsupportedFeatureException if a value cannot be set in the standard font or does not fit the rest of its line
+     */
+    @SneakyThrows
+    public static byte[] stamp(@NonNull OverlayTemplate overlay, @NonNull List<String> values) {
+        if (values.size() != overlay.fields().size()) {
+            throw new IllegalArgumentException("Expected " + overlay.fields().size() + " values, got " + values.size());
+        }
+        Map<Integer, List<Integer>> byPage = new HashMap<>();
+        for (int i = 0; i < values.size(); i++) {
+            String value = values.get(i);
+            if (value != null && !value.isEmpty()) {
+                byPage.computeIfAbsent(overlay.fields().get(i).page(), k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        try (PDDocument document = PDDocument.load(overlay.basePdf())) {
+            for (var entry : byPage.entrySet()) {
+                PDPage page = document.getPage(entry.getKey());
+                PDRectangle box = page.getMediaBox();
+                try (PDPageContentStream content = new PDPageContentStream(document, page,
+                        PDPageContentStream.AppendMode.APPEND, true, true)) {
+                    for (int i : entry.getValue()) {
+                        OverlayTemplate.Field field = overlay.fields().get(i);
+                        PDFont font = StyleSheet.standardFont(field.font());
+                        String value = values.get(i);
+                        try {
+                            font.encode(value);
+                        } catch (IllegalArgumentException e) {
+                            throw new UnsupportedFeatureException("characters outside the standard font encoding in field '" + field.name() + "'");
+                        }
+                        if (font.getStringWidth(value) / 1000 * field.size() > field.width()) {
+                            // LibreOffice würde umbrechen und den folgenden Text verschieben
+                            throw new UnsupportedFeatureException("value of field '" + field.name() + "' exceeds the line width");
+                        }
+                        content.beginText();
+                        content.setFont(font, field.size());
+                        content.setNonStrokingColor(StyleSheet.color(field.color()));
+                        content.newLineAtOffset(box.getLowerLeftX() + field.x(), box.getUpperRightY() - field.baseline());
+                        content.showText(value);
+                        content.endText();
+                    }
+                }
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * @return SHA-256 of the template content, to detect an overlay that belongs to another template version
+     */
+    @SneakyThrows
+    public static String hash(@NonNull byte[] template) {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(template));
+    }
+
+    private static Map<Integer, float[]> locateMarkers(byte[] pdf) throws IOException {
+        Map<Integer, float[]> positions = new HashMap<>();
+        try (PDDocument document = PDDocument.load(pdf)) {
+            PDFTextStripper stripper = new PDFTextStripper() {
+                @Override
+                protected void writeString(String text, List<TextPosition> textPositions) {
+                    Matcher m = MARKER.matcher(text);
+                    while (m.find()) {
+                        if (m.start() < textPositions.size()) {
+                            TextPosition start = textPositions.get(m.start());
+                            positions.putIfAbsent(Integer.parseInt(m.group(1)),
+                                    new float[]{getCurrentPageNo() - 1, start.getXDirAdj(), start.getYDirAdj()});
+                        }
+                    }
+                }
+            };
+            stripper.getText(document);
+        }
+        return positions;
+    }
+
+    /**
+     * Left edge and width of the body text area of the default page style.
+     */
+    private static float[] textArea(OdfTextDocument odf, StyleSheet styles) throws Exception {
+        Element masterStyles = StyleSheet.firstChild(odf.getStylesDom().getDocumentElement(), StyleSheet.OFFICE_NS, "master-styles");
+        Element master = StyleSheet.firstChild(masterStyles, StyleSheet.STYLE_NS, "master-page");
+        Props layout = master != null
+                ? styles.pageLayout(master.getAttributeNS(StyleSheet.STYLE_NS, "page-layout-name"))
+                : new Props();
+        float pageWidth = layout.get("pl.page-width") != null ? layout.length("pl.page-width") : PDRectangle.A4.getWidth();
+        float left = layout.side("pl.margin", "left");
+        return new float[]{left, pageWidth - left - layout.side("pl.margin", "right")};
+    }
+
+    /**
+     * Right edge of the lines of a paragraph in points from the left page edge: the text area narrowed by
+     * enclosing sections and table cells and by the paragraph indent, computed like the {@link FastPdfRenderer}.
+     */
+    private static float rightEdge(StyleSheet styles, Element paragraph, float[] textArea) {
+        List<Element> ancestors = new ArrayList<>();
+        for (Node n = paragraph.getParentNode(); n instanceof Element el; n = n.getParentNode()) {
+            ancestors.add(0, el);
+        }
+        float x = textArea[0];
+        float width = textArea[1];
+        float tableX = x;
+        List<Float> columns = List.of();
+        for (Element el : ancestors) {
+            if (TEXT_NS.equals(el.getNamespaceURI()) && "section".equals(el.getLocalName())) {
+                Props section = styles.resolve(Scope.CONTENT, "section", el.getAttributeNS(TEXT_NS, "style-name"));
+                x += section.length("s.margin-left");
+                width -= section.length("s.margin-left") + section.length("s.margin-right");
+            } else if (TABLE_NS.equals(el.getNamespaceURI()) && "table".equals(el.getLocalName())) {
+                Props ts = styles.resolve(Scope.CONTENT, "table", el.getAttributeNS(TABLE_NS, "style-name"));
+                float marginLeft = ts.side("tbl.margin", "left");
+                float tableWidth = ts.get("tbl.width") != null ? ts.length("tbl.width") : width - marginLeft - ts.side("tbl.margin", "right");
+                String align = ts.get("tbl.align");
+                tableX = switch (align == null ? "margins" : align) {
+                    case "center" -> x + (width - tableWidth) / 2;
+                    case "right" -> x + width - tableWidth;
+                    default -> x + marginLeft;
+                };
+                columns = Layouter.columns(styles, el, Scope.CONTENT, tableWidth);
+            } else if (TABLE_NS.equals(el.getNamespaceURI()) && "table-cell".equals(el.getLocalName())) {
+                // jede Spalte hat ein Zellelement, überspannte Spalten ein covered-table-cell
+                int column = 0;
+                for (Node s = el.getPreviousSibling(); s != null; s = s.getPreviousSibling()) {
+                    if (s instanceof Element cell) {
+                        column += Math.max(1, Layouter.parseInt(cell.getAttributeNS(TABLE_NS, "number-columns-repeated")));
+                    }
+                }
+                int span = Math.max(1, Layouter.parseInt(el.getAttributeNS(TABLE_NS, "number-columns-spanned")));
+                Props cs = styles.resolve(Scope.CONTENT, "table-cell", el.getAttributeNS(TABLE_NS, "style-name"));
+                x = tableX;
+                width = 0;
+                for (int i = 0; i < Math.min(columns.size(), column + span); i++) {
+                    if (i < column) {
+                        x += columns.get(i);
+                    } else {
+                        width += columns.get(i);
+                    }
+                }
+                x += cs.side("c.padding", "left");
+                width -= cs.side("c.padding", "left") + cs.side("c.padding", "right");
+            }
+        }
+        Props ps = styles.resolve(Scope.CONTENT, "paragraph", paragraph.getAttributeNS(TEXT_NS, "style-name"));
+        return x + width - ps.side("p.margin", "right");
+    }
+
+    private static byte[] replaceFields(byte[] template, IntFunction<String> text) throws Exception {
+        OdfTextDocument odf = load(template);
+        List<Element> fields = fields(odf);
+        for (int i = 0; i < fields.size(); i++) {
+            Element field = fields.get(i);
+            Element span = field.getOwnerDocument().createElementNS(TEXT_NS, "text:span");
+            span.setTextContent(text.apply(i));
+            field.getParentNode().replaceChild(span, field);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        odf.save(out);
+        return out.toByteArray();
+    }
+
+    /**
+     * User fields of the document body in the order of {@link TemplateDocument#collectUserFields()}.
+     */
+    private static List<Element> fields(OdfTextDocument odf) throws Exception {
+        List<Element> fields = new ArrayList<>();
+        for (String localName : FIELD_ELEMENTS) {
+            NodeList nodes = odf.getContentRoot().getElementsByTagNameNS(TEXT_NS, localName);
+            for (int i = 0; i < nodes.getLength(); i++) {
+                fields.add((Element) nodes.item(i));
+            }
+        }
+        return fields;
+    }
+
+    private static Element paragraphOf(Element field) {
+        for (Node n = field.getParentNode(); n != null; n = n.getParentNode()) {
+            if (n instanceof Element el && TEXT_NS.equals(el.getNamespaceURI())
+                    && ("p".equals(el.getLocalName()) || "h".equals(el.getLocalName()))) {
+                return el;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return {@code true} if nothing visible follows the field within its paragraph
+     */
+    private static boolean isTrailing(Element field, Element paragraph) {
+        for (Node n = field; n != paragraph; n = n.getParentNode()) {
+            for (Node s = n.getNextSibling(); s != null; s = s.getNextSibling()) {
+                if (!isBlank(s)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isBlank(Node node) {
+        if (node.getNodeType() == Node.TEXT_NODE) {
+            return node.getNodeValue().isBlank();
+        }
+        if (!(node instanceof Element el)) {
+            return true;
+        }
+        if (!TEXT_NS.equals(el.getNamespaceURI())) {
+            return false;
+        }
+        if (INVISIBLE_ELEMENTS.contains(el.getLocalName())) {
+            return true;
+        }
+        if (!"span".equals(el.getLocalName())) {
+            return false;
+        }
+        for (Node c = el.getFirstChild(); c != null; c = c.getNextSibling()) {
+            if (!isBlank(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Text properties at the position of the field: paragraph style overlaid by all enclosing character styles.
+     */
+    private static Props fieldProps(StyleSheet styles, Element field, Element paragraph) {
+        List<Element> spans = new ArrayList<>();
+        for (Node n = field.getParentNode(); n != paragraph && n != null; n = n.getParentNode()) {
+            if (n instanceof Element el && TEXT_NS.equals(el.getNamespaceURI()) && "span".equals(el.getLocalName())) {
+                spans.add(0, el);
+            }
+        }
+        Props props = styles.resolve(Scope.CONTENT, "paragraph", paragraph.getAttributeNS(TEXT_NS, "style-name"));
+        for (Element span : spans) {
+            props = props.with(styles.resolve(Scope.CONTENT, "text", span.getAttributeNS(TEXT_NS, "style-name")));
+        }
+        return props;
+    }
+
+    private static byte[] read(URL url) throws IOException {
+        try (InputStream in = url.openStream()) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static OdfTextDocument load(byte[] odt) throws Exception {
+        try (var in = new ByteArrayInputStream(odt)) {
+            return OdfTextDocument.loadDocument(in);
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package io.github.flaechsig.blocpress.core.pdf;
+
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves ODF styles (default style, common styles, automatic styles and parent chains) into flat
+ * property maps. Property keys are the local attribute names prefixed by the properties element,
+ * e.g. {@code t.font-size} for {@code style:text-properties/@fo:font-size}.
+ */
+final class StyleSheet {
+
+    static final String OFFICE_NS = "urn:oasis:names:tc:opendocument:xmlns:office:1.0";
+    static final String STYLE_NS = "urn:oasis:names:tc:opendocument:xmlns:style:1.0";
+    static final String FO_NS = "urn:oasis:names:tc:opendocument:xmlns:xsl-fo-compatible:1.0";
+    static final String SVG_NS = "urn:oasis:names:tc:opendocument:xmlns:svg-compatible:1.0";
+
+    private static final Pattern LENGTH = Pattern.compile("(-?[0-9]*\\.?[0-9]+)\\s*(cm|mm|in|pt|pc|px)?");
+    private static final Map<String, String> PROPERTY_PREFIXES = Map.of(
+            "paragraph-properties", "p.",
+            "text-properties", "t.",
+            "table-properties", "tbl.",
+            "table-column-properties", "col.",
+            "table-row-properties", "row.",
+            "table-cell-properties", "c.",
+            "graphic-properties", "g.",
+            "section-properties", "s.",
+            "page-layout-properties", "pl.",
+            "header-footer-properties", "hf.");
+
+    /**
+     * Font families whose metrics match one of the PDF standard fonts.
+     */
+    private static final Map<String, String> STANDARD_FAMILIES = Map.ofEntries(
+            Map.entry("liberation sans", "Helvetica"),
+            Map.entry("arial", "Helvetica"),
+            Map.entry("helvetica", "Helvetica"),
+            Map.entry("liberation serif", "Times"),
+            Map.entry("times new roman", "Times"),
+            Map.entry("times", "Times"),
+            Map.entry("liberation mono", "Courier"),
+            Map.entry("courier new", "Courier"),
+            Map.entry("courier", "Courier"));
+
+    private final Map<String, Element> common = new HashMap<>();
+    private final Map<String, Element> stylesAutomatic = new HashMap<>();
+    private final Map<String, Element> contentAutomatic = new HashMap<>();
+    private final Map<String, Element> defaults = new HashMap<>();
+    private final Map<String, Element> fontFaces = new HashMap<>();
+    private final Map<String, Element> pageLayouts = new HashMap<>();
+    private final Map<String, Props> cache = new HashMap<>();
+
+    /**
+     * Where a style reference comes from: automatic styles of content.xml and styles.xml may use the same names.
+     */
+    enum Scope { CONTENT, STYLES }
+
+    StyleSheet(Document stylesDom, Document contentDom) {
+        collect(stylesDom, "styles", common);
+        collect(stylesDom, "automatic-styles", stylesAutomatic);
+        collect(contentDom, "automatic-styles", contentAutomatic);
+        for (Document dom : List.of(stylesDom, contentDom)) {
+            for (Element face : children(firstChild(dom.getDocumentElement(), OFFICE_NS, "font-face-decls"))) {
+                fontFaces.put(face.getAttributeNS(STYLE_NS, "name"), face);
+            }
+        }
+        for (Element style : children(firstChild(stylesDom.getDocumentElement(), OFFICE_NS, "styles"))) {
+            if ("default-style".equals(style.getLocalName())) {
+                defaults.put(style.getAttributeNS(STYLE_NS, "family"), style);
+            }
+        }
+        for (Element style : children(firstChild(stylesDom.getDocumentElement(), OFFICE_NS, "automatic-styles"))) {
+            if ("page-layout".equals(style.getLocalName())) {
+                pageLayouts.put(style.getAttributeNS(STYLE_NS, "name"), style);
+            }
+        }
+    }
+
+    private static void collect(Document dom, String container, Map<String, Element> target) {
+        for (Element style : children(firstChild(dom.getDocumentElement(), OFFICE_NS, container))) {
+            if ("style".equals(style.getLocalName())) {
+                target.put(style.getAttributeNS(STYLE_NS, "family") + "/" + style.getAttributeNS(STYLE_NS, "name"), style);
+            }
+        }
+    }
+
+    /**
+     * Resolves a style including its parents. Paragraph-like families start from the default style,
+     * character styles ({@code text}) only contain their own properties.
+     */
+    Props resolve(Scope scope, String family, String name) {
+        String key = scope + "/" + family + "/" + name;
+        Props cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Element style = name == null || name.isEmpty() ? null : lookup(scope, family, name);
+        Props props;
+        if (style == null) {
+            props = "text".equals(family) ? new Props() : defaultProps(family);
+        } else {
+            String parent = style.getAttributeNS(STYLE_NS, "parent-style-name");
+            props = resolve(Scope.STYLES, family, parent).copy();
+            apply(style, props);
+            props.values.put("master-page-name", style.getAttributeNS(STYLE_NS, "master-page-name"));
+        }
+        cache.put(key, props);
+        return props;
+    }
+
+    private Props defaultProps(String family) {
+        Props props = new Props();
+        Element defaultStyle = defaults.get(family);
+        if (defaultStyle != null) {
+            apply(defaultStyle, props);
+        }
+        return props;
+    }
+
+    private Element lookup(Scope scope, String family, String name) {
+        Element style = (scope == Scope.CONTENT ? contentAutomatic : stylesAutomatic).get(family + "/" + name);
+        return style != null ? style : common.get(family + "/" + name);
+    }
+
+    /**
+     * @return the properties of a page layout, {@code pl.*}, header {@code header.*} and footer {@code footer.*}
+     */
+    Props pageLayout(String name) {
+        Props props = new Props();
+        Element layout = pageLayouts.get(name);
+        if (layout != null) {
+            for (Element child : children(layout)) {
+                if ("page-layout-properties".equals(child.getLocalName())) {
+                    applyProperties(child, "pl.", props);
+                } else if ("header-style".equals(child.getLocalName()) || "footer-style".equals(child.getLocalName())) {
+                    String prefix = child.getLocalName().replace("-style", ".");
+                    for (Element hf : children(child)) {
+                        applyProperties(hf, prefix, props);
+                    }
+                }
+            }
+        }
+        return props;
+    }
+
+    static void apply(Element style, Props props) {
+        for (Element child : children(style)) {
+            String prefix = PROPERTY_PREFIXES.get(child.getLocalName());
+            if (prefix != null && STYLE_NS.equals(child.getNamespaceURI())) {
+                applyProperties(child, prefix, props);
+            }
+        }
+    }
+
+    private static void applyProperties(Element properties, String prefix, Props props) {
+        var attributes = properties.getAttributes();
+        for (int i = 0; i < attributes.getLength(); i++) {
+            Node attribute = attributes.item(i);
+            if (attribute.getLocalName() != null && !"xmlns".equals(attribute.getPrefix())) {
+                props.put(prefix + attribute.getLocalName(), attribute.getNodeValue());
+            }
+        }
+        for (Element child : children(properties)) {
+            switch (child.getLocalName()) {
+                case "tab-stops" -> props.put(prefix + "tab-stops", tabStops(child));
+                case "columns" -> props.put(prefix + "column-count", child.getAttributeNS(FO_NS, "column-count"));
+                case "background-image" -> {
+                    if (!child.getAttributeNS("http://www.w3.org/1999/xlink", "href").isEmpty() || child.hasChildNodes()) {
+                        props.put(prefix + "background-image", "true");
+                    }
+                }
+                default -> {
+                    // weitere Kind-Elemente (z.B. style:drop-cap) werden von der Klassifizierung gemeldet
+                    props.put(prefix + child.getLocalName(), "true");
+                }
+            }
+        }
+    }
+
+    /**
+     * Serializes tab stops as {@code type@position;...} with positions in points.
+     */
+    private static String tabStops(Element tabStops) {
+        List<String> stops = new ArrayList<>();
+        for (Element stop : children(tabStops)) {
+            String type = stop.getAttributeNS(STYLE_NS, "type");
+            stops.add((type.isEmpty() ? "left" : type) + "@" + toPoints(stop.getAttributeNS(STYLE_NS, "position")));
+        }
+        return String.join(";", stops);
+    }
+
+    /**
+     * Maps the font of resolved text properties to a PDF standard font.
+     *
+     * @return the font, {@code null} if the family is not metric-compatible with a standard font
+     */
+    PDFont font(Props props) {
+        String standard = STANDARD_FAMILIES.get(fontFamily(props).toLowerCase(Locale.ROOT));
+        if (standard == null) {
+            return null;
+        }
+        boolean bold = props.isBold();
+        boolean italic = props.isItalic();
+        return switch (standard) {
+            case "Times" -> bold ? (italic ? PDType1Font.TIMES_BOLD_ITALIC : PDType1Font.TIMES_BOLD)
+                    : (italic ? PDType1Font.TIMES_ITALIC : PDType1Font.TIMES_ROMAN);
+            case "Courier" -> bold ? (italic ? PDType1Font.COURIER_BOLD_OBLIQUE : PDType1Font.COURIER_BOLD)
+                    : (italic ? PDType1Font.COURIER_OBLIQUE : PDType1Font.COURIER);
+            default -> bold ? (italic ? PDType1Font.HELVETICA_BOLD_OBLIQUE : PDType1Font.HELVETICA_BOLD)
+                    : (italic ? PDType1Font.HELVETICA_OBLIQUE : PDType1Font.HELVETICA);
+        };
+    }
+
+    /**
+     * @return the standard font with the given PostScript name, e.g. {@code Helvetica-Bold}; {@code null} if unknown
+     */
+    static PDFont standardFont(String name) {
+        for (PDType1Font font : List.of(
+                PDType1Font.HELVETICA, PDType1Font.HELVETICA_BOLD, PDType1Font.HELVETICA_OBLIQUE, PDType1Font.HELVETICA_BOLD_OBLIQUE,
+                PDType1Font.TIMES_ROMAN, PDType1Font.TIMES_BOLD, PDType1Font.TIMES_ITALIC, PDType1Font.TIMES_BOLD_ITALIC,
+                PDType1Font.COURIER, PDType1Font.COURIER_BOLD, PDType1Font.COURIER_OBLIQUE, PDType1Font.COURIER_BOLD_OBLIQUE)) {
+            if (font.getName().equals(name)) {
+                return font;
+            }
+        }
+        return null;
+    }
+
+    String fontFamily(Props props) {
+        String family = props.get("t.font-family");
+        String fontName = props.get("t.font-name");
+        if (fontName != null) {
+            Element face = fontFaces.get(fontName);
+            family = face != null ? face.getAttributeNS(SVG_NS, "font-family") : fontName;
+        }
+        return family == null ? "Liberation Serif" : family.replace("'", "").replace("\"", "").trim();
+    }
+
+    /**
+     * Ascent and descent (including the line gap) as fraction of the font size, taken from the Liberation
+     * fonts LibreOffice uses.
+     */
+    static float[] verticalMetrics(PDFont font) {
+        String name = font.getName();
+        if (name.startsWith("Times")) {
+            return new float[]{0.891f, 0.258f};
+        }
+        if (name.startsWith("Courier")) {
+            return new float[]{0.833f, 0.300f};
+        }
+        return new float[]{0.905f, 0.245f};
+    }
+
+    static float toPoints(String value) {
+        if (value == null || value.isBlank()) {
+            return 0f;
+        }
+        Matcher m = LENGTH.matcher(value.trim());
+        if (!m.lookingAt()) {
+            return 0f;
+        }
+        float number = Float.parseFloat(m.group(1));
+        String unit = m.group(2) == null ? "pt" : m.group(2);
+        return switch (unit) {
+            case "cm" -> number * 72f / 2.54f;
+            case "mm" -> number * 72f / 25.4f;
+            case "in" -> number * 72f;
+            case "pc" -> number * 12f;
+            case "px" -> number * 0.75f;
+            default -> number;
+        };
+    }
+
+    static Color color(String value) {
+        if (value == null || !value.startsWith("#") || value.length() != 7) {
+            return null;
+        }
+        return new Color(Integer.parseInt(value.substring(1), 16));
+    }
+
+    static List<Element> children(Node parent) {
+        List<Element> result = new ArrayList<>();
+        if (parent != null) {
+            for (Node c = parent.getFirstChild(); c != null; c = c.getNextSibling()) {
+                if (c instanceof Element el) {
+                    result.add(el);
+                }
+            }
+        }
+        return result;
+    }
+
+    static Element firstChild(Node parent, String ns, String localName) {
+        for (Element child : children(parent)) {
+            if (ns.equals(child.getNamespaceURI()) && localName.equals(child.getLocalName())) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Flat, resolved style properties.
+     */
+    static final class Props {
+        private static final Set<String> BOLD = Set.of("bold", "600", "700", "800", "900");
+
+        final Map<String, String> values = new LinkedHashMap<>();
+
+        Props copy() {
+            Props copy = new Props();
+            copy.values.putAll(values);
+            return copy;
+        }
+
+        /**
+         * Overlays {@code other}, e.g. a character style over paragraph properties.
+         */
+        Props with(Props other) {
+            Props result = copy();
+            other.values.forEach(result::put);
+            return result;
+        }
+
+        void put(String key, String value) {
+            if ("t.font-size".equals(key) && value.endsWith("%")) {
+                float base = values.containsKey(key) ? toPoints(values.get(key)) : 12f;
+                value = base * Float.parseFloat(value.substring(0, value.length() - 1)) / 100f + "pt";
+            }
+            values.put(key, value);
+        }
+
+        String get(String key) {
+            String value = values.get(key);
+            return value == null || value.isEmpty() ? null : value;
+        }
+
+        float length(String key) {
+            return toPoints(values.get(key));
+        }
+
+        /**
+         * Side specific length with fallback to the shorthand, e.g. {@code c.padding-left} → {@code c.padding}.
+         */
+        float side(String key, String side) {
+            String specific = get(key + "-" + side);
+            return toPoints(specific != null ? specific : values.get(key));
+        }
+
+        float fontSize() {
+            String size = get("t.font-size");
+            return size == null ? 12f : toPoints(size);
+        }
+
+        boolean isBold() {
+            String weight = get("t.font-weight");
+            return weight != null && BOLD.contains(weight);
+        }
+
+        boolean isItalic() {
+            String style = get("t.font-style");
+            return "italic".equals(style) || "oblique".equals(style);
+        }
+
+        boolean isUnderline() {
+            String underline = get("t.text-underline-style");
+            return underline != null && !"none".equals(underline);
+        }
+
+        Color color() {
+            Color color = StyleSheet.color(get("t.color"));
+            return color != null ? color : Color.BLACK;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package io.github.flaechsig.blocpress.core.pdf;
+
+/**
+ * Signals that a document uses an ODF feature the {@link FastPdfRenderer} cannot lay out.
+ * Callers fall back to LibreOffice in this case.
+ */
+public class UnsupportedFeatureException extends RuntimeException {
+
+    public UnsupportedFeatureException(String feature) {
+        super("Unsupported by fast-path PDF renderer: " + feature);
+    }
+}
@@ -0,0 +1,190 @@
+package io.github.flaechsig.blocpress.core.worker;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.flaechsig.blocpress.core.Deadline;
+import io.github.flaechsig.blocpress.core.RenderCancelledException;
+import io.github.flaechsig.blocpress.core.RenderEngine;
+import lombok.NonNull;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merge-Worker in einer eigenen JVM.
+ *
+ * <p><b>Fachlicher Kontext:</b>
+ * Sehr große Dokumente (z.B. Serienbriefe mit tausenden Datensätzen) belegen während des Merges viel Heap und
+ * verursachen lange GC-Pausen, unter denen auch kleine, parallel laufende Aufträge leiden. Der Render-Service kann
+ * solche Aufträge deshalb an lokal gestartete Worker-Prozesse mit eigenem Heap abgeben und selbst mit einem kleinen
+ * Heap auskommen. Der Worker liest Aufträge von {@code stdin} und schreibt die gemergten Dokumente nach
+ * {@code stdout}; Log-Ausgaben gehen nach {@code stderr}.</p>
+ *
+ * <p>Protokoll (Frames im Format von {@link DataOutputStream}):</p>
+ * <ul>
+ *   <li>Auftrag: Template-URL (UTF), Serienbrief (boolean), verbleibende Frist in ms (long), Anzahl Datensätze
+ *       (int), je Datensatz Länge (int) und JSON-Bytes</li>
+ *   <li>Ergebnis: Status (byte), bei {@link #OK} Länge (int) und ODT-Bytes, sonst Meldung (UTF), danach der
+ *       belegte Heap des Workers (long)</li>
+ * </ul>
+ *
+ * <p><b>Design-Referenzen:</b></p>
+ * <ul>
+ *   <li>EDC: <a href="docs/Element_Design_Concept.adoc#edc-tf-5">TF-5: Dokument generieren</a></li>
+ * </ul>
+ */
+public final class MergeWorker {
+
+    static final byte OK = 0;
+    static final byte TIMEOUT = 1;
+    static final byte ERROR = 2;
+
+    private static final int MAX_MESSAGE_LENGTH = 2000;
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private MergeWorker() {
+    }
+
+    /**
+     * A merge job sent to a worker.
+     *
+     * @param template  template, must be readable by the worker process (e.g. a local file)
+     * @param records   data of the document, one record per letter for a mail merge
+     * @param mailMerge merge all records into one document, otherwise only the first record is used
+     * @param timeout   time left until the deadline of the render
+     */
+    public record Job(@NonNull URL template, @NonNull List<JsonNode> records, boolean mailMerge,
+                      @NonNull Duration timeout) {
+    }
+
+    /**
+     * The answer of a worker.
+     *
+     * @param status        {@link #OK}, {@link #TIMEOUT} or {@link #ERROR}
+     * @param document      the merged ODT document if successful
+     * @param message       error message if not successful
+     * @param heapCommitted heap committed by the worker JVM after the job
+     */
+    public record Result(byte status, byte[] document, String message, long heapCommitted) {
+
+        /**
+         * @return the merged document
+         * @throws RenderCancelledException if the deadline passed in the worker
+         * @throws IOException              if the merge failed in the worker
+         */
+        public byte[] get() throws IOException {
+            return switch (status) {
+                case OK -> document;
+                case TIMEOUT -> throw new RenderCancelledException("merge worker", true);
+                default -> throw new IOException("Merge worker failed: " + message);
+            };
+        }
+    }
+
+    /**
+     * Entry point of the worker process. Serves jobs until {@code stdin} is closed.
+     */
+    public static void main(String[] args) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+        // stdout gehört dem Protokoll, Log-Ausgaben der Bibliotheken dürfen es nicht stören
+        System.setOut(System.err);
+        serve(new DataInputStream(new BufferedInputStream(System.in)), out);
+    }
+
+    static void serve(DataInputStream in, DataOutputStream out) throws IOException {
+        while (true) {
+            Job job;
+            try {
+                job = readJob(in);
+            } catch (EOFException e) {
+                return;
+            }
+            writeResult(out, run(job));
+            out.flush();
+        }
+    }
+
+    static Result run(Job job) {
+        Deadline deadline = Deadline.after(job.timeout());
+        try {
+            byte[] document = job.mailMerge()
+                    ? RenderEngine.mailMerge(job.template(), job.records(), deadline)
+                    : RenderEngine.mergeTemplate(job.template(), job.records().getFirst(), deadline);
+            return new Result(OK, document, null, heapCommitted());
+        } catch (RenderCancelledException e) {
+            return new Result(TIMEOUT, null, e.getMessage(), heapCommitted());
+        } catch (Exception e) {
+            return new Result(ERROR, null, String.valueOf(e.getMessage()), heapCommitted());
+        }
+    }
+
+    public static void writeJob(DataOutputStream out, Job job) throws IOException {
+        out.writeUTF(job.template().toString());
+        out.writeBoolean(job.mailMerge());
+        out.writeLong(job.timeout().toMillis());
+        out.writeInt(job.records().size());
+        for (JsonNode data : job.records()) {
+            byte[] json = mapper.writeValueAsBytes(data);
+            out.writeInt(json.length);
+            out.write(json);
+        }
+    }
+
+    static Job readJob(DataInputStream in) throws IOException {
+        URL template = URI.create(in.readUTF()).toURL();
+        boolean mailMerge = in.readBoolean();
+        Duration timeout = Duration.ofMillis(in.readLong());
+        int count = in.readInt();
+        List<JsonNode> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            records.add(mapper.readTree(readBytes(in)));
+        }
+        return new Job(template, records, mailMerge, timeout);
+    }
+
+    static void writeResult(DataOutputStream out, Result result) throws IOException {
+        out.writeByte(result.status());
+        if (result.status() == OK) {
+            out.writeInt(result.document().length);
+            out.write(result.document());
+        } else {
+            out.writeUTF(StringUtils.abbreviate(result.message(), MAX_MESSAGE_LENGTH));
+        }
+        out.writeLong(result.heapCommitted());
+    }
+
+    public static Result readResult(DataInputStream in) throws IOException {
+        byte status = in.readByte();
+        byte[] document = null;
+        String message = null;
+        if (status == OK) {
+            document = readBytes(in);
+        } else {
+            message = in.readUTF();
+        }
+        return new Result(status, document, message, in.readLong());
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static long heapCommitted() {
+        return Runtime.getRuntime().totalMemory();
+    }
+}
@@ -0,0 +1,62 @@
+package io.github.flaechsig.blocpress.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeadlineTest {
+
+    private final URI baseUri = Path.of(System.getProperty("user.dir"), "src/test/resources")
+            .toAbsolutePath()
+            .toUri();
+
+    @Test
+    public void mergeStopsAfterDeadline() throws Exception {
+        var template = baseUri.resolve("kuendigung.odt").normalize().toURL();
+        var data = new ObjectMapper().readTree("{}");
+
+        var expired = assertThrows(RenderCancelledException.class,
+                () -> RenderEngine.mergeTemplate(template, data, Deadline.after(Duration.ZERO)));
+        assertTrue(expired.isTimeout());
+
+        Deadline cancelled = Deadline.none();
+        cancelled.cancel();
+        var aborted = assertThrows(RenderCancelledException.class,
+                () -> RenderEngine.mailMerge(template, List.of(data, data), cancelled));
+        assertFalse(aborted.isTimeout());
+
+        assertNotNull(RenderEngine.mergeTemplate(template, data, Deadline.after(Duration.ofMinutes(1))));
+    }
+
+    @Test
+    public void awaitCancelsPendingWork() throws Exception {
+        CompletableFuture<String> never = new CompletableFuture<>();
+        long start = System.nanoTime();
+
+        assertThrows(RenderCancelledException.class,
+                () -> Deadline.after(Duration.ofMillis(150)).await(never, "conversion"));
+
+        assertTrue(never.isCancelled());
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 1000);
+    }
+
+    @Test
+    public void processIsKilledWhenCancelled() throws Exception {
+        Process process = new ProcessBuilder("sleep", "30").start();
+        Deadline deadline = Deadline.none();
+        CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS).execute(deadline::cancel);
+
+        var e = assertThrows(RenderCancelledException.class, () -> deadline.await(process, "conversion"));
+
+        assertFalse(e.isTimeout());
+        assertTrue(process.waitFor(5, TimeUnit.SECONDS), "process must be killed");
+    }
+}
@@ -0,0 +1,126 @@
+package io.github.flaechsig.blocpress.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.flaechsig.blocpress.core.odt.OdtDocumentSplitter;
+import org.junit.jupiter.api.Test;
+import org.odftoolkit.odfdom.doc.OdfTextDocument;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static io.github.flaechsig.blocpress.util.ResourceUtil.extractOdtContent;
+import static io.github.flaechsig.blocpress.util.ResourceUtil.loadDocumentAsBytes;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DocumentSplitTest {
+    private static final String STYLE_NS = "urn:oasis:names:tc:opendocument:xmlns:style:1.0";
+    private static final String TEXT_NS = "urn:oasis:names:tc:opendocument:xmlns:text:1.0";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final URI baseUri = Path.of(System.getProperty("user.dir"), "src/test/resources")
+            .toAbsolutePath()
+            .toUri();
+
+    @Test
+    public void splitsRepeatGroupAtRowBoundaries() throws Exception {
+        var template = baseUri.resolve("loop_table.odt").normalize().toURL();
+        StringBuilder products = new StringBuilder();
+        for (int i = 0; i < 60; i++) {
+            products.append(i == 0 ? "" : ",").append("{\"name\": \"Produkt_%03d\", \"menge\": 1, \"preis\": 1.00}".formatted(i));
+        }
+        JsonNode data = mapper.readTree("{\"kunde\": \"Max Mustermann\", \"produkte\": [" + products + "]}");
+        byte[] merged = RenderEngine.mergeTemplate(template, data);
+
+        List<byte[]> chunks = OdtDocumentSplitter.split(merged, 3);
+
+        assertEquals(3, chunks.size());
+        List<String> seen = new ArrayList<>();
+        for (byte[] chunk : chunks) {
+            List<String> names = productNames(extractOdtContent(chunk));
+            assertFalse(names.isEmpty(), "every chunk must contain rows of the repeat group");
+            seen.addAll(names);
+        }
+        assertEquals(productNames(extractOdtContent(merged)), seen, "chunks must contain every row exactly once, in order");
+    }
+
+    @Test
+    public void splitsMailMergeAtRecordBoundaries() throws Exception {
+        var template = baseUri.resolve("kuendigung.odt").normalize().toURL();
+        JsonNode data = mapper.readTree(new String(loadDocumentAsBytes("/kuendigung.json")));
+        byte[] merged = RenderEngine.mailMerge(template, List.of(data, data, data, data));
+
+        List<byte[]> chunks = OdtDocumentSplitter.split(merged, 2);
+
+        assertEquals(2, chunks.size());
+        try (var in = new ByteArrayInputStream(chunks.get(1))) {
+            OdfTextDocument doc = OdfTextDocument.loadDocument(in);
+            Element first = (Element) doc.getContentRoot().getElementsByTagNameNS(TEXT_NS, "p").item(0);
+            assertTrue(first.getAttributeNS(TEXT_NS, "style-name").startsWith("BP_Record_"),
+                    "second chunk must start with a record");
+        }
+    }
+
+    @Test
+    public void documentWithoutBoundaryIsNotSplit() throws Exception {
+        byte[] odt = loadDocumentAsBytes("/kuendigung.odt");
+        List<byte[]> chunks = OdtDocumentSplitter.split(odt, 4);
+        assertEquals(1, chunks.size());
+        assertSame(odt, chunks.get(0));
+    }
+
+    @Test
+    public void renumberSetsStartPageAndPageCount() throws Exception {
+        byte[] chunk = withPageCountField(loadDocumentAsBytes("/kuendigung.odt"));
+        assertTrue(OdtDocumentSplitter.hasPageFields(chunk));
+
+        byte[] renumbered = OdtDocumentSplitter.renumber(chunk, 5, 12);
+
+        try (var in = new ByteArrayInputStream(renumbered)) {
+            OdfTextDocument doc = OdfTextDocument.loadDocument(in);
+            assertEquals(0, doc.getContentDom().getElementsByTagNameNS(TEXT_NS, "page-count").getLength());
+            assertTrue(extractOdtContent(renumbered).contains("von 12"));
+
+            NodeList styles = doc.getContentDom().getElementsByTagNameNS(STYLE_NS, "style");
+            Element start = null;
+            for (int i = 0; i < styles.getLength(); i++) {
+                if ("BP_Chunk_Start".equals(((Element) styles.item(i)).getAttributeNS(STYLE_NS, "name"))) {
+                    start = (Element) styles.item(i);
+                }
+            }
+            assertNotNull(start, "chunk start style expected");
+            Element props = (Element) start.getElementsByTagNameNS(STYLE_NS, "paragraph-properties").item(0);
+            assertEquals("5", props.getAttributeNS(STYLE_NS, "page-number"));
+        }
+    }
+
+    private static byte[] withPageCountField(byte[] odt) throws Exception {
+        try (var in = new ByteArrayInputStream(odt)) {
+            OdfTextDocument doc = OdfTextDocument.loadDocument(in);
+            var dom = doc.getContentDom();
+            Element p = dom.createElementNS(TEXT_NS, "text:p");
+            p.appendChild(dom.createTextNode("Seite 1 von "));
+            p.appendChild(dom.createElementNS(TEXT_NS, "text:page-count"));
+            doc.getContentRoot().appendChild(p);
+            var out = new ByteArrayOutputStream();
+            doc.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static List<String> productNames(String text) {
+        List<String> names = new ArrayList<>();
+        var matcher = Pattern.compile("Produkt_\\d{3}").matcher(text);
+        while (matcher.find()) {
+            names.add(matcher.group());
+        }
+        return names;
+    }
+}
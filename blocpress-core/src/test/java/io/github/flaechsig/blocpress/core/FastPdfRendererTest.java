@@ -0,0 +1,120 @@
+package io.github.flaechsig.blocpress.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.flaechsig.blocpress.core.pdf.FastPdfRenderer;
+import io.github.flaechsig.blocpress.core.pdf.UnsupportedFeatureException;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.github.flaechsig.blocpress.util.ResourceUtil.loadDocumentAsBytes;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class FastPdfRendererTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final URI baseUri = Path.of(System.getProperty("user.dir"), "src/test/resources")
+            .toAbsolutePath()
+            .toUri();
+
+    @Test
+    public void rendersSimpleTemplateWithoutLibreOffice() throws Exception {
+        var template = baseUri.resolve("loop_table.odt").normalize().toURL();
+        JsonNode data = mapper.readTree("""
+                {"kunde": "Max Mustermann", "produkte": [
+                  {"name": "Apfel", "menge": 1, "preis": 1.00},
+                  {"name": "Birne", "menge": 2, "preis": 1.50}
+                ]}""");
+        byte[] merged = RenderEngine.mergeTemplate(template, data);
+
+        assertTrue(FastPdfRenderer.unsupportedFeatures(merged).isEmpty());
+        byte[] pdf = FastPdfRenderer.render(merged);
+
+        try (PDDocument document = PDDocument.load(pdf)) {
+            assertEquals(1, document.getNumberOfPages());
+            String text = new PDFTextStripper().getText(document);
+            assertTrue(text.contains("Apfel"), text);
+            assertTrue(text.contains("Birne"), text);
+        }
+    }
+
+    @Test
+    public void longTableContinuesOnNextPage() throws Exception {
+        var template = baseUri.resolve("loop_table.odt").normalize().toURL();
+        StringBuilder products = new StringBuilder();
+        for (int i = 0; i < 150; i++) {
+            products.append(i == 0 ? "" : ",").append("{\"name\": \"Produkt_%03d\", \"menge\": 1, \"preis\": 1.00}".formatted(i));
+        }
+        JsonNode data = mapper.readTree("{\"kunde\": \"Max Mustermann\", \"produkte\": [" + products + "]}");
+        byte[] pdf = FastPdfRenderer.render(RenderEngine.mergeTemplate(template, data));
+
+        try (PDDocument document = PDDocument.load(pdf)) {
+            assertTrue(document.getNumberOfPages() > 1);
+            String text = new PDFTextStripper().getText(document);
+            assertTrue(text.contains("Produkt_000"));
+            assertTrue(text.contains("Produkt_149"));
+        }
+    }
+
+    @Test
+    public void reportsUnsupportedFeatures() throws Exception {
+        byte[] odt = loadDocumentAsBytes("/kuendigung.odt");
+
+        List<String> features = FastPdfRenderer.unsupportedFeatures(odt);
+
+        assertTrue(features.contains("font 'Aptos'"), features.toString());
+        assertTrue(FastPdfRenderer.tryRender(odt).isEmpty());
+        assertThrows(UnsupportedFeatureException.class, () -> FastPdfRenderer.render(odt));
+    }
+
+    @Test
+    public void matchesLibreOfficeTextAndPageCount() throws Exception {
+        assumeTrue(sofficeInstalled(), "LibreOffice (soffice) not installed");
+        Map<String, String> templates = new LinkedHashMap<>();
+        templates.put("loop_table.odt", """
+                {"kunde": "Max Mustermann", "produkte": [
+                  {"name": "Apfel", "menge": 1, "preis": 1.00},
+                  {"name": "Birne", "menge": 2, "preis": 1.50}
+                ]}""");
+        templates.put("numberformats.odt", "{}");
+        templates.put("sample-04.odt", "{}");
+        templates.put("sample-05.odt", "{}");
+        templates.put("special_agreement.odt", "{}");
+
+        for (var entry : templates.entrySet()) {
+            var template = baseUri.resolve(entry.getKey()).normalize().toURL();
+            byte[] merged = RenderEngine.mergeTemplate(template, mapper.readTree(entry.getValue()));
+            assertTrue(FastPdfRenderer.unsupportedFeatures(merged).isEmpty(), entry.getKey());
+
+            try (PDDocument fast = PDDocument.load(FastPdfRenderer.render(merged));
+                 PDDocument office = PDDocument.load(LibreOfficeProcessor.refreshAndTransform(merged, OutputFormat.PDF))) {
+                assertEquals(office.getNumberOfPages(), fast.getNumberOfPages(), entry.getKey());
+                // Zeilenumbrüche unterscheiden sich je nach Schriftmetrik, verglichen werden nur die Wörter
+                assertEquals(words(office), words(fast), entry.getKey());
+            }
+        }
+    }
+
+    private static List<String> words(PDDocument document) throws Exception {
+        return Arrays.stream(new PDFTextStripper().getText(document).split("\\s+"))
+                .filter(word -> !word.isEmpty())
+                .sorted()
+                .toList();
+    }
+
+    private static boolean sofficeInstalled() {
+        return Arrays.stream(System.getenv().getOrDefault("PATH", "").split(File.pathSeparator))
+                .anyMatch(dir -> Files.isExecutable(Path.of(dir, "soffice")));
+    }
+}
@@ -0,0 +1,101 @@
+package io.github.flaechsig.blocpress.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.flaechsig.blocpress.core.html.HtmlExporter;
+import io.github.flaechsig.blocpress.core.html.TextExporter;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HtmlExporterTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final URI baseUri = Path.of(System.getProperty("user.dir"), "src/test/resources")
+            .toAbsolutePath()
+            .toUri();
+
+    private byte[] mergeLoopTable() throws Exception {
+        var template = baseUri.resolve("loop_table.odt").normalize().toURL();
+        JsonNode data = mapper.readTree("""
+                {"produkte": [
+                  {"name": "Apfel", "menge": 1, "preis": 1.00},
+                  {"name": "Birne & Quitte", "menge": 2, "preis": 1.50}
+                ]}""");
+        return RenderEngine.mergeTemplate(template, data);
+    }
+
+    @Test
+    public void exportsHtmlWithStylesAndTables() throws Exception {
+        String html = new String(HtmlExporter.toHtml(mergeLoopTable()), StandardCharsets.UTF_8);
+
+        assertTrue(html.startsWith("<!DOCTYPE html>"));
+        assertTrue(html.contains("<style>"));
+        assertTrue(html.contains(".p-"), "paragraph styles must become CSS classes");
+        assertTrue(html.contains("<table"));
+        assertTrue(html.contains("<td") && html.contains("Apfel") && html.contains("Birne"), html);
+        assertTrue(html.contains("Birne &amp; Quitte"), "text must be escaped");
+    }
+
+    @Test
+    public void embedsImagesAsDataUri() throws Exception {
+        String html = new String(HtmlExporter.toHtml(mergeStyledImage()), StandardCharsets.UTF_8);
+
+        Matcher img = Pattern.compile("<img src=\"data:image/png;base64,([A-Za-z0-9+/=]+)\" alt=\"([^\"]*)\" "
+                + "style=\"([^\"]*)\">").matcher(html);
+        assertTrue(img.find(), html);
+        byte[] png = Base64.getDecoder().decode(img.group(1));
+        assertArrayEquals(new byte[]{(byte) 0x89, 'P', 'N', 'G'}, Arrays.copyOf(png, 4));
+        assertEquals("Firmenlogo", img.group(2));
+        assertEquals("width:2cm;height:1cm", img.group(3));
+    }
+
+    @Test
+    public void mapsSpanAndCellStylesToCss() throws Exception {
+        String html = new String(HtmlExporter.toHtml(mergeStyledImage()), StandardCharsets.UTF_8);
+
+        assertTrue(html.contains("<span class=\"t-a-T1\">gekündigt</span>"), html);
+        assertEquals(Set.of("font-weight:bold", "color:#c00000", "text-decoration:underline"),
+                declarations(html, ".t-a-T1"));
+        assertTrue(html.contains("<span class=\"t-Betont\">Monatsende</span>"), html);
+        assertEquals(Set.of("font-style:italic"), declarations(html, ".t-Betont"));
+
+        assertTrue(html.contains("<td class=\"td-a-Tabelle1_A1\">"), html);
+        assertEquals(Set.of("background-color:#dddddd", "padding:0.1cm", "border:0.5pt solid #000000",
+                "vertical-align:middle"), declarations(html, ".td-a-Tabelle1_A1"));
+        assertEquals(Set.of("width:10cm", "margin-left:auto", "margin-right:auto"),
+                declarations(html, ".tb-a-Tabelle1"));
+    }
+
+    private byte[] mergeStyledImage() throws Exception {
+        var template = baseUri.resolve("styled_image.odt").normalize().toURL();
+        return RenderEngine.mergeTemplate(template, mapper.createObjectNode());
+    }
+
+    /**
+     * @return the declarations of the CSS rule with this selector
+     */
+    private static Set<String> declarations(String html, String selector) {
+        Matcher rule = Pattern.compile("(?m)^" + Pattern.quote(selector) + "\\{([^}]*)}").matcher(html);
+        assertTrue(rule.find(), "no CSS rule " + selector + " in " + html);
+        return Set.of(rule.group(1).split(";"));
+    }
+
+    @Test
+    public void exportsPlainText() throws Exception {
+        String text = new String(TextExporter.toText(mergeLoopTable()), StandardCharsets.UTF_8);
+
+        assertTrue(text.lines().anyMatch(line -> line.startsWith("Apfel\t1")), text);
+        assertTrue(text.contains("Birne & Quitte"), text);
+        assertFalse(text.contains("<"), text);
+    }
+}
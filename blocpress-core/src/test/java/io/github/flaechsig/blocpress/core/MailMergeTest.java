@@ -0,0 +1,119 @@
+package io.github.flaechsig.blocpress.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.odftoolkit.odfdom.doc.OdfTextDocument;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.github.flaechsig.blocpress.util.ResourceUtil.extractOdtContent;
+import static io.github.flaechsig.blocpress.util.ResourceUtil.loadDocumentAsBytes;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MailMergeTest {
+    private static final String STYLE_NS = "urn:oasis:names:tc:opendocument:xmlns:style:1.0";
+    private static final String TEXT_NS = "urn:oasis:names:tc:opendocument:xmlns:text:1.0";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final URI baseUri = Path.of(System.getProperty("user.dir"), "src/test/resources")
+            .toAbsolutePath()
+            .toUri();
+
+    @Test
+    public void mergesAllRecordsIntoOneDocument() throws Exception {
+        var template = baseUri.resolve("loop_table.odt").normalize().toURL();
+        List<JsonNode> records = new ArrayList<>();
+        for (String name : List.of("Alpha", "Beta", "Gamma")) {
+            records.add(mapper.readTree("""
+                    {
+                      "kunde": "Max Mustermann",
+                      "produkte": [
+                        {"name": "%s", "menge" : 1, "preis": 1.00},
+                        {"name": "Birne", "menge" : 2, "preis": 1.50}
+                      ]
+                    }
+                    """.formatted(name)));
+        }
+
+        byte[] merged = RenderEngine.mailMerge(template, records);
+
+        String single = extractOdtContent(RenderEngine.mergeTemplate(template, records.get(0)));
+        String actual = extractOdtContent(merged);
+        assertTrue(actual.startsWith(single), "first record must be rendered unchanged");
+        int alpha = actual.indexOf("Alpha");
+        int beta = actual.indexOf("Beta");
+        int gamma = actual.indexOf("Gamma");
+        assertTrue(alpha >= 0 && alpha < beta && beta < gamma, "records must appear in order");
+        assertEquals(3, actual.split("Birne", -1).length - 1, "every record must expand its own loop");
+    }
+
+    @Test
+    public void reportsMergePhasesOfEveryRecord() throws Exception {
+        var template = baseUri.resolve("loop_table.odt").normalize().toURL();
+        JsonNode data = mapper.readTree("""
+                {"produkte": [{"name": "Apfel", "menge": 1, "preis": 1.00}]}""");
+        Map<String, Integer> stages = new LinkedHashMap<>();
+
+        RenderEngine.mailMerge(template, List.of(data, data), Deadline.none(), MemoryBudget.unlimited(),
+                (stage, nanos) -> {
+                    assertTrue(nanos >= 0);
+                    stages.merge(stage, 1, Integer::sum);
+                });
+
+        assertEquals(List.of("load", "text-blocks", "conditions", "loops", "fields", "append", "save"),
+                List.copyOf(stages.keySet()));
+        assertEquals(2, stages.get("loops"));
+        assertEquals(1, stages.get("append"));
+        assertEquals(1, stages.get("save"));
+    }
+
+    @Test
+    public void recordsStartOnNewPageWithPageNumberReset() throws Exception {
+        var template = baseUri.resolve("kuendigung.odt").normalize().toURL();
+        JsonNode data = mapper.readTree(new String(loadDocumentAsBytes("/kuendigung.json")));
+
+        byte[] merged = RenderEngine.mailMerge(template, List.of(data, data, data));
+
+        try (var in = new ByteArrayInputStream(merged)) {
+            OdfTextDocument doc = OdfTextDocument.loadDocument(in);
+            NodeList styles = doc.getContentDom().getElementsByTagNameNS(STYLE_NS, "style");
+            List<String> recordStyles = new ArrayList<>();
+            for (int i = 0; i < styles.getLength(); i++) {
+                Element style = (Element) styles.item(i);
+                String name = style.getAttributeNS(STYLE_NS, "name");
+                if (name.startsWith("BP_Record_")) {
+                    recordStyles.add(name);
+                    assertFalse(style.getAttributeNS(STYLE_NS, "master-page-name").isBlank());
+                    Element props = (Element) style.getElementsByTagNameNS(STYLE_NS, "paragraph-properties").item(0);
+                    assertEquals("1", props.getAttributeNS(STYLE_NS, "page-number"));
+                }
+            }
+            assertEquals(1, recordStyles.size(), "record start style must be shared by all records");
+
+            int recordStarts = 0;
+            NodeList paragraphs = doc.getContentRoot().getElementsByTagNameNS(TEXT_NS, "p");
+            for (int i = 0; i < paragraphs.getLength(); i++) {
+                if (recordStyles.contains(((Element) paragraphs.item(i)).getAttributeNS(TEXT_NS, "style-name"))) {
+                    recordStarts++;
+                }
+            }
+            assertEquals(2, recordStarts);
+            assertEquals(1, doc.getContentRoot().getElementsByTagNameNS(TEXT_NS, "user-field-decls").getLength());
+        }
+    }
+
+    @Test
+    public void emptyRecordListIsRejected() throws Exception {
+        var template = baseUri.resolve("kuendigung.odt").normalize().toURL();
+        assertThrows(IllegalArgumentException.class, () -> RenderEngine.mailMerge(template, List.of()));
+    }
+}
@@ -0,0 +1,88 @@
+package io.github.flaechsig.blocpress.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MemoryBudgetTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final URI baseUri = Path.of(System.getProperty("user.dir"), "src/test/resources")
+            .toAbsolutePath()
+            .toUri();
+
+    private URL loopTable() throws Exception {
+        return baseUri.resolve("loop_table.odt").normalize().toURL();
+    }
+
+    private JsonNode products(int count) {
+        ObjectNode data = mapper.createObjectNode();
+        ArrayNode products = data.putArray("produkte");
+        for (int i = 0; i < count; i++) {
+            products.addObject().put("name", "Produkt " + i).put("menge", i).put("preis", 1.5);
+        }
+        return data;
+    }
+
+    @Test
+    public void estimateGrowsWithArrayLength() throws Exception {
+        long small;
+        long large;
+        try (MemoryBudget budget = MemoryBudget.unlimited()) {
+            RenderEngine.mergeTemplate(loopTable(), products(10), Deadline.none(), budget);
+            small = budget.reservedBytes();
+        }
+        try (MemoryBudget budget = MemoryBudget.unlimited()) {
+            RenderEngine.mergeTemplate(loopTable(), products(1000), Deadline.none(), budget);
+            large = budget.reservedBytes();
+            if (budget.allocatedBytes() >= 0) {
+                assertTrue(budget.allocatedBytes() > 0);
+            }
+        }
+
+        assertTrue(small > 0);
+        assertTrue(large > small * 10, small + " / " + large);
+    }
+
+    @Test
+    public void oversizedRenderIsRejectedBeforeCloning() throws Exception {
+        var pool = new MemoryBudget.Pool(1L << 30);
+        try (MemoryBudget budget = MemoryBudget.of(1L << 20, pool)) {
+            var e = assertThrows(MemoryBudgetExceededException.class,
+                    () -> RenderEngine.mergeTemplate(loopTable(), products(100_000), Deadline.none(), budget));
+
+            assertFalse(e.isShared());
+            assertEquals(1L << 20, e.getLimitBytes());
+            assertTrue(e.getEstimatedBytes() > 1L << 20);
+            assertEquals(0, budget.reservedBytes());
+        }
+        assertEquals(pool.capacity(), pool.available());
+    }
+
+    @Test
+    public void poolIsSharedByConcurrentRenders() throws Exception {
+        var pool = new MemoryBudget.Pool(1L << 20);
+        try (MemoryBudget first = MemoryBudget.of(Long.MAX_VALUE, pool)) {
+            first.reserve(800 * 1024);
+
+            try (MemoryBudget second = MemoryBudget.of(Long.MAX_VALUE, pool)) {
+                var e = assertThrows(MemoryBudgetExceededException.class, () -> second.reserve(400 * 1024));
+                assertTrue(e.isShared());
+            }
+        }
+
+        try (MemoryBudget third = MemoryBudget.of(Long.MAX_VALUE, pool)) {
+            third.reserve(400 * 1024);
+            assertEquals(pool.capacity() - 400 * 1024, pool.available());
+        }
+        assertEquals(pool.capacity(), pool.available());
+    }
+}
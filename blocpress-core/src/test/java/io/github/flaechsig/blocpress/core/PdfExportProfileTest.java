@@ -0,0 +1,119 @@
+package io.github.flaechsig.blocpress.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.odftoolkit.odfdom.doc.OdfTextDocument;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static io.github.flaechsig.blocpress.util.ResourceUtil.loadDocumentAsBytes;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@Slf4j
+public class PdfExportProfileTest {
+
+    @Test
+    public void filterOptionsAreValidJson() throws Exception {
+        var web = new PdfExportProfile(150, 75, false, 0, false, false);
+        var archive = new PdfExportProfile(null, 90, true, 2, false, false);
+
+        JsonNode webOptions = new ObjectMapper().readTree(web.filterOptions());
+        JsonNode archiveOptions = new ObjectMapper().readTree(archive.filterOptions());
+
+        assertEquals("150", webOptions.at("/MaxImageResolution/value").asText());
+        assertEquals("75", webOptions.at("/Quality/value").asText());
+        assertTrue(archiveOptions.at("/ReduceImageResolution").isMissingNode());
+        assertEquals("2", archiveOptions.at("/SelectPdfVersion/value").asText());
+        assertEquals("true", archiveOptions.at("/UseLosslessCompression/value").asText());
+        assertFalse(web.allowsJvmRendering());
+        assertFalse(archive.allowsJvmRendering());
+        assertTrue(new PdfExportProfile(null, 90, true, 0, false, false).allowsJvmRendering());
+    }
+
+    @Test
+    public void profileIsPassedToPdfFilterOnly() {
+        var profile = new PdfExportProfile(150, 75, false, 0, false, false);
+        Path dir = Path.of("out");
+        List<Path> inputs = List.of(Path.of("in.odt"));
+
+        List<String> pdf = LibreOfficeProcessor.buildCommand(OutputFormat.PDF, profile, dir, inputs, null);
+        List<String> rtf = LibreOfficeProcessor.buildCommand(OutputFormat.RTF, profile, dir, inputs, null);
+        List<String> plain = LibreOfficeProcessor.buildCommand(OutputFormat.PDF, null, dir, inputs, null);
+
+        assertEquals("pdf:writer_pdf_Export:" + profile.filterOptions(), pdf.get(pdf.indexOf("--convert-to") + 1));
+        assertEquals("rtf", rtf.get(rtf.indexOf("--convert-to") + 1));
+        assertEquals("pdf", plain.get(plain.indexOf("--convert-to") + 1));
+    }
+
+    @Test
+    public void rejectsInvalidValues() {
+        assertThrows(IllegalArgumentException.class, () -> new PdfExportProfile(null, 0, false, 0, false, false));
+        assertThrows(IllegalArgumentException.class, () -> new PdfExportProfile(null, 90, false, 4, false, false));
+    }
+
+    /**
+     * Conversion time and output size per profile for a letter with a photo. Requires LibreOffice in the path.
+     */
+    @Test
+    public void benchmarkProfiles() throws Exception {
+        assumeTrue(sofficeInstalled(), "LibreOffice (soffice) not installed");
+        byte[] odt = letterWithPhoto();
+        Map<String, PdfExportProfile> profiles = new LinkedHashMap<>();
+        profiles.put("web", new PdfExportProfile(150, 75, false, 0, false, false));
+        profiles.put("print", new PdfExportProfile(null, 90, true, 0, false, false));
+        profiles.put("archive", new PdfExportProfile(null, 90, false, 2, false, false));
+
+        Map<String, Integer> sizes = new LinkedHashMap<>();
+        LibreOfficeProcessor.refreshAndTransform(odt, OutputFormat.PDF, null, null); // warm-up
+        for (var profile : profiles.entrySet()) {
+            long start = System.nanoTime();
+            byte[] pdf = LibreOfficeProcessor.refreshAndTransform(odt, OutputFormat.PDF, null, profile.getValue());
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            sizes.put(profile.getKey(), pdf.length);
+            log.info("PDF profile {}: {} ms, {} bytes", profile.getKey(), millis, pdf.length);
+        }
+
+        assertTrue(sizes.get("web") < sizes.get("print"), sizes.toString());
+    }
+
+    private static byte[] letterWithPhoto() throws Exception {
+        BufferedImage photo = new BufferedImage(1600, 1200, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < photo.getHeight(); y++) {
+            for (int x = 0; x < photo.getWidth(); x++) {
+                photo.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        Path jpeg = Files.createTempFile("photo", ".jpg");
+        try {
+            ImageIO.write(photo, "jpg", jpeg.toFile());
+            try (var document = OdfTextDocument.loadDocument(new ByteArrayInputStream(loadDocumentAsBytes("/kuendigung_generated.odt")));
+                 var out = new ByteArrayOutputStream()) {
+                document.newImage(jpeg.toUri());
+                document.save(out);
+                return out.toByteArray();
+            }
+        } finally {
+            Files.deleteIfExists(jpeg);
+        }
+    }
+
+    private static boolean sofficeInstalled() {
+        return Arrays.stream(System.getenv().getOrDefault("PATH", "").split(File.pathSeparator))
+                .anyMatch(dir -> Files.isExecutable(Path.of(dir, "soffice")));
+    }
+}
@@ -0,0 +1,83 @@
+package io.github.flaechsig.blocpress.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.flaechsig.blocpress.core.pdf.FastPdfRenderer;
+import io.github.flaechsig.blocpress.core.pdf.OverlayTemplate;
+import io.github.flaechsig.blocpress.core.pdf.PdfOverlay;
+import io.github.flaechsig.blocpress.core.pdf.UnsupportedFeatureException;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PdfOverlayTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final URI baseUri = Path.of(System.getProperty("user.dir"), "src/test/resources")
+            .toAbsolutePath()
+            .toUri();
+
+    @Test
+    public void stampsFormattedValuesOntoPreparedPdf() throws Exception {
+        var template = baseUri.resolve("numberformats.odt").normalize().toURL();
+        assertTrue(PdfOverlay.layoutStabilityIssues(template).isEmpty());
+
+        OverlayTemplate overlay = PdfOverlay.prepare(template, FastPdfRenderer::render);
+
+        assertEquals(PdfOverlay.hash(Files.readAllBytes(Path.of(template.toURI()))), overlay.templateHash());
+        assertFalse(overlay.fields().isEmpty());
+        assertTrue(overlay.fields().stream().allMatch(f -> "numbertest".equals(f.name()) && f.page() == 0 && f.x() > 0));
+        try (PDDocument base = PDDocument.load(overlay.basePdf())) {
+            assertFalse(new PDFTextStripper().getText(base).contains("12345"), "base PDF must not contain field values");
+        }
+
+        JsonNode data = mapper.readTree("{\"numbertest\": -98765.4321}");
+        byte[] pdf = PdfOverlay.render(template, overlay, data);
+
+        try (PDDocument document = PDDocument.load(pdf)) {
+            String text = new PDFTextStripper().getText(document);
+            assertTrue(text.contains("-98.765,43"), text);
+            assertFalse(text.contains("#BP"), text);
+        }
+    }
+
+    @Test
+    public void valueWiderThanTheLineIsNotStamped() throws Exception {
+        var template = baseUri.resolve("numberformats.odt").normalize().toURL();
+        OverlayTemplate overlay = PdfOverlay.prepare(template, FastPdfRenderer::render);
+        // A4 mit 2 cm Rändern: rund 482 pt bis zum rechten Rand
+        assertTrue(overlay.fields().stream().allMatch(f -> f.width() > 400 && f.x() + f.width() < 600), overlay.fields().toString());
+
+        List<String> values = new ArrayList<>(Collections.nCopies(overlay.fields().size(), "1,00"));
+        assertDoesNotThrow(() -> PdfOverlay.stamp(overlay, values));
+
+        values.set(1, "9".repeat(120));
+        UnsupportedFeatureException e = assertThrows(UnsupportedFeatureException.class, () -> PdfOverlay.stamp(overlay, values));
+        assertTrue(e.getMessage().contains("numbertest"), e.getMessage());
+    }
+
+    @Test
+    public void fieldFollowedByTextIsNotLayoutStable() throws Exception {
+        var template = baseUri.resolve("special_agreement.odt").normalize().toURL();
+
+        List<String> issues = PdfOverlay.layoutStabilityIssues(template);
+
+        assertTrue(issues.contains("field 'firstname' is followed by text"), issues.toString());
+    }
+
+    @Test
+    public void conditionalTemplateIsNotLayoutStable() throws Exception {
+        var template = baseUri.resolve("IfConditionTrue.odt").normalize().toURL();
+
+        assertTrue(PdfOverlay.layoutStabilityIssues(template).contains("conditional content"));
+    }
+}
@@ -0,0 +1,76 @@
+package io.github.flaechsig.blocpress.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RenderProfileTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final URI baseUri = Path.of(System.getProperty("user.dir"), "src/test/resources")
+            .toAbsolutePath()
+            .toUri();
+
+    @Test
+    public void breaksDownRepeatGroupsAndFields() throws Exception {
+        var template = baseUri.resolve("loop_table.odt").normalize().toURL();
+        List<JsonNode> records = List.of(
+                mapper.readTree("""
+                        {"produkte": [{"name": "Apfel", "menge": 1, "preis": 1.00}, {"name": "Birne", "menge": 2, "preis": 1.50}]}"""),
+                mapper.readTree("""
+                        {"produkte": [{"name": "Quitte", "menge": 3, "preis": 2.00}]}"""));
+        RenderProfile profile = new RenderProfile();
+
+        RenderEngine.mailMerge(template, records, Deadline.none(), MemoryBudget.unlimited(), profile);
+
+        assertEquals(Set.of("load", "text-blocks", "conditions", "loops", "fields", "append", "save"),
+                profile.phases().keySet());
+        var produkte = profile.repeatGroups().get("produkte");
+        assertNotNull(produkte, profile.repeatGroups().toString());
+        assertEquals(3, produkte.count(), "copies of both records");
+        assertTrue(produkte.nanos() > 0);
+        assertEquals(3, profile.fields().get("produkte.menge").count(), "fields are grouped without loop index");
+        assertTrue(profile.conditions().isEmpty());
+    }
+
+    @Test
+    public void breaksDownConditionsAndTextBlocks() throws Exception {
+        RenderProfile profile = new RenderProfile();
+        RenderEngine.mergeTemplate(baseUri.resolve("IfCondition.odt").normalize().toURL(),
+                mapper.readTree("""
+                        {"kunde": {"anrede": "FRAU", "nachname": "Müller"}}"""),
+                Deadline.none(), MemoryBudget.unlimited(), profile);
+
+        assertFalse(profile.conditions().isEmpty());
+        assertTrue(profile.conditions().keySet().stream().allMatch(condition -> condition.contains("kunde.anrede")),
+                profile.conditions().toString());
+
+        RenderProfile textBlocks = new RenderProfile();
+        RenderEngine.mergeTemplate(baseUri.resolve("sample-05.odt").normalize().toURL(),
+                mapper.readTree("""
+                        {"customer": [{"gender": "MALE", "firstName": "Michael", "lastName": "Miller"}]}"""),
+                Deadline.none(), MemoryBudget.unlimited(), textBlocks);
+
+        assertFalse(textBlocks.textBlocks().isEmpty(), "sample-05 includes text blocks");
+        textBlocks.textBlocks().values().forEach(cost -> assertTrue(cost.loadNanos() > 0 && cost.mergeNanos() > 0));
+    }
+
+    @Test
+    public void andThenReportsToBothListeners() {
+        RenderProfile first = new RenderProfile();
+        RenderProfile second = new RenderProfile();
+        StageListener both = first.andThen(second);
+
+        both.condition("a == 1", 5);
+        both.repeatGroup("kunden.0.vertraege", 2, 7);
+
+        assertEquals(new RenderProfile.Cost(1, 5), second.conditions().get("a == 1"));
+        assertEquals(new RenderProfile.Cost(2, 7), first.repeatGroups().get("kunden.vertraege"));
+    }
+}
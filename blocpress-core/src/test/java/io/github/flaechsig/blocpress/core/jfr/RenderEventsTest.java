@@ -0,0 +1,134 @@
+package io.github.flaechsig.blocpress.core.jfr;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.flaechsig.blocpress.core.Deadline;
+import io.github.flaechsig.blocpress.core.MemoryBudget;
+import io.github.flaechsig.blocpress.core.RenderEngine;
+import io.github.flaechsig.blocpress.core.StageListener;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RenderEventsTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final URI baseUri = Path.of(System.getProperty("user.dir"), "src/test/resources")
+            .toAbsolutePath()
+            .toUri();
+
+    @Test
+    public void recordsMergePhasesWithCounts() throws Exception {
+        var template = baseUri.resolve("loop_table.odt").normalize().toURL();
+        JsonNode data = mapper.readTree("""
+                {"produkte": [
+                  {"name": "Apfel", "menge": 1, "preis": 1.00},
+                  {"name": "Birne", "menge": 2, "preis": 1.50},
+                  {"name": "Quitte", "menge": 3, "preis": 2.00}
+                ]}""");
+
+        byte[] document;
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable(MergePhaseEvent.class).withThreshold(Duration.ZERO);
+            recording.enable(FieldFormatEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+            document = RenderEngine.mergeTemplate(template, data);
+            recording.stop();
+            events = read(recording);
+        }
+
+        Map<String, RecordedEvent> phases = events.stream()
+                .filter(event -> event.getEventType().getName().equals("blocpress.MergePhase"))
+                .collect(Collectors.toMap(event -> event.getString("phase"), Function.identity()));
+        assertEquals(List.of("conditions", "fields", "load", "loops", "save", "text-blocks"),
+                phases.keySet().stream().sorted().toList());
+        assertEquals(template.toString(), phases.get("loops").getString("template"));
+        assertEquals(1, phases.get("loops").getInt("elements"));
+        assertEquals(3, phases.get("loops").getLong("arrayItems"));
+        assertTrue(phases.get("fields").getInt("elements") >= 9, "three fields per copied row");
+        assertEquals(document.length, phases.get("save").getLong("bytesWritten"));
+
+        List<RecordedEvent> fields = events.stream()
+                .filter(event -> event.getEventType().getName().equals("blocpress.FieldFormat"))
+                .toList();
+        assertTrue(fields.stream().anyMatch(event -> event.getString("field").equals("produkte.1.menge")),
+                fields.stream().map(event -> event.getString("field")).toList().toString());
+    }
+
+    @Test
+    public void recordsTemplateNamedByListener() throws Exception {
+        var template = baseUri.resolve("loop_table.odt").normalize().toURL();
+        StageListener stages = new StageListener() {
+            @Override
+            public void completed(String stage, long nanos) {
+            }
+
+            @Override
+            public String template() {
+                return "loop_table v2 (42)";
+            }
+        };
+
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable(MergePhaseEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+            RenderEngine.mergeTemplate(template, mapper.readTree("{\"produkte\": []}"), Deadline.none(),
+                    MemoryBudget.unlimited(), stages);
+            recording.stop();
+            events = read(recording);
+        }
+
+        List<RecordedEvent> phases = events.stream()
+                .filter(event -> event.getEventType().getName().equals("blocpress.MergePhase"))
+                .toList();
+        assertFalse(phases.isEmpty());
+        assertTrue(phases.stream().allMatch(event -> event.getString("template").equals("loop_table v2 (42)")));
+    }
+
+    @Test
+    public void recordsConditionEvaluations() throws Exception {
+        var template = baseUri.resolve("IfCondition.odt").normalize().toURL();
+        JsonNode data = mapper.readTree("""
+                {"kunde": {"anrede": "FRAU", "nachname": "Müller"}}""");
+
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable(ConditionEvaluationEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+            RenderEngine.mergeTemplate(template, data);
+            recording.stop();
+            events = read(recording);
+        }
+
+        List<RecordedEvent> conditions = events.stream()
+                .filter(event -> event.getEventType().getName().equals("blocpress.ConditionEvaluation"))
+                .toList();
+        assertFalse(conditions.isEmpty());
+        assertTrue(conditions.stream().anyMatch(event -> event.getBoolean("result")));
+        assertTrue(conditions.stream().allMatch(event -> event.getString("condition").contains("FRAU")), "data values are substituted");
+    }
+
+    private static List<RecordedEvent> read(Recording recording) throws Exception {
+        Path file = Files.createTempFile("blocpress", ".jfr");
+        try {
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
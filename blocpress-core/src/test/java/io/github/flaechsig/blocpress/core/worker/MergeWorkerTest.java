@@ -0,0 +1,57 @@
+package io.github.flaechsig.blocpress.core.worker;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.flaechsig.blocpress.core.RenderCancelledException;
+import io.github.flaechsig.blocpress.core.html.TextExporter;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MergeWorkerTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final URI baseUri = Path.of(System.getProperty("user.dir"), "src/test/resources")
+            .toAbsolutePath()
+            .toUri();
+
+    @Test
+    public void workerProcessServesSeveralJobs() throws Exception {
+        URL template = baseUri.resolve("loop_table.odt").normalize().toURL();
+        JsonNode data = mapper.readTree("""
+                {"produkte": [{"name": "Apfel", "menge": 1, "preis": 1.00}]}""");
+        Process worker = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                MergeWorker.class.getName())
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        try (var out = new DataOutputStream(worker.getOutputStream());
+             var in = new DataInputStream(worker.getInputStream())) {
+            MergeWorker.writeJob(out, new MergeWorker.Job(template, List.of(data), false, Duration.ofMinutes(1)));
+            out.flush();
+            MergeWorker.Result merged = MergeWorker.readResult(in);
+
+            String text = new String(TextExporter.toText(merged.get()), StandardCharsets.UTF_8);
+            assertTrue(text.contains("Apfel"), text);
+            assertTrue(merged.heapCommitted() > 0);
+
+            MergeWorker.writeJob(out, new MergeWorker.Job(template, List.of(data, data), true, Duration.ZERO));
+            out.flush();
+            var late = assertThrows(RenderCancelledException.class, () -> MergeWorker.readResult(in).get());
+            assertTrue(late.isTimeout());
+        }
+        assertTrue(worker.waitFor(10, TimeUnit.SECONDS), "worker must exit when stdin is closed");
+        assertEquals(0, worker.exitValue());
+    }
+}
@@ -0,0 +1,34 @@
+package io.github.flaechsig.blocpress.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Latency distribution of the measured requests of a scenario, in milliseconds. Percentiles use the nearest-rank
+ * method on all recorded latencies.
+ */
+public record LatencyStats(long count, double meanMillis, double p50Millis, double p95Millis, double p99Millis,
+                           double maxMillis) {
+
+    /**
+     * @param nanos latencies in nanoseconds, in any order
+     */
+    static LatencyStats of(long[] nanos) {
+        if (nanos.length == 0) {
+            return new LatencyStats(0, 0, 0, 0, 0, 0);
+        }
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        double mean = Arrays.stream(sorted).average().orElse(0);
+        return new LatencyStats(sorted.length, millis(mean), millis(percentile(sorted, 50)),
+                millis(percentile(sorted, 95)), millis(percentile(sorted, 99)), millis(sorted[sorted.length - 1]));
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static double millis(double nanos) {
+        return Math.round(nanos / 1e4) / 100.0;
+    }
+}
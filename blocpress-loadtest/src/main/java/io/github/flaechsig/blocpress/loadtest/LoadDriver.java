@@ -0,0 +1,179 @@
+package io.github.flaechsig.blocpress.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Sends the requests of a scenario with a fixed number of concurrent clients (closed model: every client sends its
+ * next request as soon as the previous one is answered). Requests started during the warmup are not measured.
+ */
+final class LoadDriver {
+    private static final Logger logger = LoggerFactory.getLogger(LoadDriver.class);
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(5);
+
+    private final HttpClient client;
+    private final URI baseUrl;
+    private final Optional<String> token;
+    private final ServerMetrics metrics;
+
+    LoadDriver(HttpClient client, URI baseUrl, Optional<String> token) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.token = token;
+        this.metrics = new ServerMetrics(client, baseUrl);
+    }
+
+    ScenarioResult run(Scenario scenario, Workload workload, int concurrency, Duration warmup, Duration duration)
+            throws InterruptedException {
+        HttpRequest request = request(scenario, workload);
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long measureUntil = measureFrom + duration.toNanos();
+        logger.info("Scenario {}: {} clients, warmup {}, duration {}", scenario.id(), concurrency, warmup, duration);
+
+        List<Client> clients = new ArrayList<>();
+        OptionalDouble allocatedBefore;
+        OptionalDouble allocatedAfter;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                Client c = new Client(request, measureFrom, measureUntil);
+                clients.add(c);
+                executor.submit(c::run);
+            }
+            sleepUntil(measureFrom);
+            allocatedBefore = metrics.allocatedBytes();
+            sleepUntil(measureUntil);
+            allocatedAfter = metrics.allocatedBytes();
+        }
+
+        long requests = 0;
+        Map<String, Long> statusCounts = new TreeMap<>();
+        long[] latencies = new long[0];
+        for (Client c : clients) {
+            requests += c.requests;
+            c.statusCounts.forEach((status, count) -> statusCounts.merge(status, count, Long::sum));
+            latencies = concat(latencies, Arrays.copyOf(c.latencies, c.measured));
+        }
+        long errors = requests - latencies.length;
+        double seconds = duration.toNanos() / 1e9;
+        Double allocationRate = allocatedBefore.isPresent() && allocatedAfter.isPresent()
+                ? Math.round((allocatedAfter.getAsDouble() - allocatedBefore.getAsDouble()) / seconds / 1e4) / 100.0
+                : null;
+        return new ScenarioResult(scenario.id(), concurrency, requests, errors, statusCounts,
+                Math.round(latencies.length / seconds * 100) / 100.0, LatencyStats.of(latencies), allocationRate);
+    }
+
+    /**
+     * Imports the template of the workload into the production store of blocpress-render.
+     */
+    void importTemplate(Workload workload) throws IOException, InterruptedException {
+        var body = mapper.createObjectNode()
+                .put("id", UUID.nameUUIDFromBytes(workload.templateName().getBytes()).toString())
+                .put("name", workload.templateName())
+                .put("version", 1)
+                .put("contentBase64", Base64.getEncoder().encodeToString(workload.template()))
+                .put("validFrom", "2000-01-01T00:00:00");
+        body.set("sampleData", workload.data());
+        HttpResponse<String> response = client.send(post(baseUrl.resolve("api/render/templates/import"),
+                mapper.writeValueAsBytes(body)), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 400) {
+            throw new IOException("Template import failed with status " + response.statusCode() + ": " + response.body());
+        }
+    }
+
+    private HttpRequest request(Scenario scenario, Workload workload) {
+        try {
+            return post(baseUrl.resolve(scenario.path(workload)), mapper.writeValueAsBytes(scenario.body(workload)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private HttpRequest post(URI uri, byte[] body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        token.ifPresent(t -> builder.header("Authorization", "Bearer " + t));
+        return builder.build();
+    }
+
+    private static void sleepUntil(long nanoTime) throws InterruptedException {
+        long remaining = nanoTime - System.nanoTime();
+        if (remaining > 0) {
+            Thread.sleep(Duration.ofNanos(remaining));
+        }
+    }
+
+    private static long[] concat(long[] a, long[] b) {
+        long[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    /**
+     * One client; its counters are only read after it finished.
+     */
+    private final class Client {
+        private final HttpRequest request;
+        private final long measureFrom;
+        private final long measureUntil;
+        private final Map<String, Long> statusCounts = new TreeMap<>();
+        private long[] latencies = new long[1024];
+        private int measured;
+        private long requests;
+
+        Client(HttpRequest request, long measureFrom, long measureUntil) {
+            this.request = request;
+            this.measureFrom = measureFrom;
+            this.measureUntil = measureUntil;
+        }
+
+        void run() {
+            long start;
+            while ((start = System.nanoTime()) < measureUntil) {
+                String status;
+                try {
+                    status = String.valueOf(client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode());
+                } catch (IOException e) {
+                    status = "error";
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long latency = System.nanoTime() - start;
+                if (start < measureFrom) {
+                    continue;
+                }
+                requests++;
+                statusCounts.merge(status, 1L, Long::sum);
+                if (status.length() == 3 && status.charAt(0) < '4') {
+                    if (measured == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, measured * 2);
+                    }
+                    latencies[measured++] = latency;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package io.github.flaechsig.blocpress.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Report of a load test run, written as {@value #JSON_FILE} (input for later comparisons) and {@value #HTML_FILE}.
+ * With a baseline, the HTML report shows the change of every value against the scenario of the same name and
+ * concurrency in the baseline.
+ *
+ * @param startedAt  start of the run (ISO-8601)
+ * @param target     URL of blocpress-render
+ * @param converter  {@code stub <latency>} or {@code soffice}
+ * @param warmup     warmup per scenario
+ * @param duration   measured time per scenario
+ * @param results    results per scenario
+ */
+public record LoadReport(String startedAt, String target, String converter, String warmup, String duration,
+                         List<ScenarioResult> results) {
+    static final String JSON_FILE = "report.json";
+    static final String HTML_FILE = "report.html";
+
+    private static final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    static LoadReport read(Path json) throws IOException {
+        return mapper.readValue(json.toFile(), LoadReport.class);
+    }
+
+    /**
+     * Writes the JSON and the HTML report into {@code dir}.
+     */
+    void write(Path dir, Optional<LoadReport> baseline) throws IOException {
+        Files.createDirectories(dir);
+        mapper.writeValue(dir.resolve(JSON_FILE).toFile(), this);
+        Files.writeString(dir.resolve(HTML_FILE), toHtml(baseline), StandardCharsets.UTF_8);
+    }
+
+    String toHtml(Optional<LoadReport> baseline) {
+        StringBuilder html = new StringBuilder("""
+                <!DOCTYPE html>
+                <html><head><meta charset="utf-8"><title>blocpress load test</title>
+                <style>
+                body { font-family: sans-serif; } table { border-collapse: collapse; }
+                th, td { border: 1px solid #ccc; padding: 4px 8px; text-align: right; }
+                th:first-child, td:first-child { text-align: left; }
+                .better { color: #1a7f37; } .worse { color: #cf222e; }
+                </style></head><body>
+                <h1>blocpress load test</h1>
+                """);
+        html.append("<p>").append(escape(startedAt)).append(" &middot; ").append(escape(target))
+                .append(" &middot; converter ").append(escape(converter))
+                .append(" &middot; warmup ").append(escape(warmup))
+                .append(" &middot; duration ").append(escape(duration)).append("</p>\n");
+        baseline.ifPresent(b -> html.append("<p>Compared with baseline of ").append(escape(b.startedAt()))
+                .append(" (converter ").append(escape(b.converter())).append(")</p>\n"));
+
+        html.append("<table><tr><th>Scenario</th><th>Clients</th><th>Requests</th><th>Errors</th>"
+                + "<th>Throughput [1/s]</th><th>p50 [ms]</th><th>p95 [ms]</th><th>p99 [ms]</th><th>max [ms]</th>"
+                + "<th>Allocation [MB/s]</th></tr>\n");
+        for (ScenarioResult result : results) {
+            Optional<ScenarioResult> before = baseline.flatMap(b -> b.find(result.scenario(), result.concurrency()));
+            html.append("<tr><td>").append(escape(result.scenario())).append("</td>")
+                    .append(cell(String.valueOf(result.concurrency()), "", null))
+                    .append(cell(String.valueOf(result.requests()), "", null))
+                    .append(cell(String.valueOf(result.errors()), "", null))
+                    .append(cell(result, before, ScenarioResult::throughput, true))
+                    .append(cell(result, before, r -> r.latency().p50Millis(), false))
+                    .append(cell(result, before, r -> r.latency().p95Millis(), false))
+                    .append(cell(result, before, r -> r.latency().p99Millis(), false))
+                    .append(cell(result, before, r -> r.latency().maxMillis(), false))
+                    .append(result.allocatedMbPerSecond() == null ? cell("n/a", "", null)
+                            : cell(result, before.filter(b -> b.allocatedMbPerSecond() != null),
+                            ScenarioResult::allocatedMbPerSecond, false))
+                    .append("</tr>\n");
+        }
+        return html.append("</table>\n</body></html>\n").toString();
+    }
+
+    private Optional<ScenarioResult> find(String scenario, int concurrency) {
+        return results.stream()
+                .filter(r -> r.scenario().equals(scenario) && r.concurrency() == concurrency)
+                .findFirst();
+    }
+
+    /**
+     * @param higherIsBetter whether an increase is an improvement (throughput) or a regression (latency, allocation)
+     */
+    private static String cell(ScenarioResult result, Optional<ScenarioResult> before,
+                               ToDoubleFunction<ScenarioResult> value, boolean higherIsBetter) {
+        double current = value.applyAsDouble(result);
+        String text = format(current);
+        if (before.isEmpty()) {
+            return cell(text, "", null);
+        }
+        double previous = value.applyAsDouble(before.get());
+        if (previous == 0) {
+            return cell(text, "", null);
+        }
+        double change = (current - previous) / previous * 100;
+        String css = Math.abs(change) < 1 ? "" : (change > 0) == higherIsBetter ? "better" : "worse";
+        return cell(text, css, String.format(Locale.ROOT, "%+.1f%%", change));
+    }
+
+    private static String cell(String text, String css, String change) {
+        String cls = css.isEmpty() ? "" : " class=\"" + css + "\"";
+        String suffix = change == null ? "" : " (" + change + ")";
+        return "<td" + cls + ">" + escape(text) + suffix + "</td>";
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
@@ -0,0 +1,91 @@
+package io.github.flaechsig.blocpress.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * End-to-end load test of blocpress-render.
+ *
+ * <p><b>Fachlicher Kontext:</b>
+ * Die JMH-Benchmarks in {@code blocpress-benchmarks} messen einzelne Schritte des Merge; ob eine Änderung den
+ * Durchsatz des Dienstes verbessert, zeigt erst eine Messung über den ganzen REST-Pfad mit Admission Control,
+ * Batching, Template-Cache und Konvertierung. Der Lasttest startet dafür blocpress-render gegen eine
+ * PostgreSQL-Instanz (oder nutzt einen laufenden Dienst), importiert ein Template und belastet nacheinander die
+ * gewählten Endpunkte mit einer festen Zahl paralleler Clients. LibreOffice wird standardmäßig durch den
+ * deterministischen Stub-Konverter mit fester Latenz ersetzt, damit die Zahlen reproduzierbar sind und nicht von
+ * der soffice-Installation abhängen. Berichtet werden Durchsatz, p50/p95/p99-Latenz und die Allokationsrate des
+ * Dienstes als JSON und HTML; ein früherer JSON-Bericht kann als Vergleichsbasis angegeben werden.</p>
+ *
+ * <p><b>Design-Referenzen:</b></p>
+ * <ul>
+ *   <li>EDC: <a href="docs/Element_Design_Concept.adoc#edc-tf-5">TF-5: Dokument generieren</a></li>
+ * </ul>
+ */
+public final class LoadTest {
+    private static final Logger logger = LoggerFactory.getLogger(LoadTest.class);
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (List.of(args).contains("--help")) {
+            System.out.println(LoadTestOptions.USAGE);
+            return;
+        }
+        LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(LoadTestOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+        Optional<LoadReport> baseline = options.baseline().isPresent()
+                ? Optional.of(LoadReport.read(options.baseline().get()))
+                : Optional.empty();
+
+        RenderServer server = options.url().isPresent() ? null
+                : RenderServer.start(options.renderJar(), options.stubLatency(), options.reportDir().resolve("render.log"));
+        try {
+            URI url = options.url().orElseGet(server::url);
+            LoadReport report = run(url, options);
+            report.write(options.reportDir(), baseline);
+            logger.info("Report written to {}", options.reportDir().resolve(LoadReport.HTML_FILE).toAbsolutePath());
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    static LoadReport run(URI url, LoadTestOptions options) throws Exception {
+        String startedAt = Instant.now().toString();
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        Workload workload = Workload.bundled(options.outputType(), options.records());
+        LoadDriver driver = new LoadDriver(client, url, options.token());
+        driver.importTemplate(workload);
+
+        List<ScenarioResult> results = new ArrayList<>();
+        for (Scenario scenario : options.scenarios()) {
+            ScenarioResult result = driver.run(scenario, workload, options.concurrency(), options.warmup(),
+                    options.duration());
+            logger.info("{}: {} req/s, p50 {} ms, p95 {} ms, p99 {} ms, {} errors", result.scenario(),
+                    result.throughput(), result.latency().p50Millis(), result.latency().p95Millis(),
+                    result.latency().p99Millis(), result.errors());
+            results.add(result);
+        }
+        // Bei einem laufenden Dienst ist unbekannt, wie er konvertiert
+        String converter = options.url().isPresent() ? "external"
+                : options.stubLatency().map(l -> "stub " + l.toMillis() + "ms").orElse("soffice");
+        return new LoadReport(startedAt, url.toString(), converter, options.warmup().toString(),
+                options.duration().toString(), results);
+    }
+}
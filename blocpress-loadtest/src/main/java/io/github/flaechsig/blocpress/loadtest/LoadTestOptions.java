@@ -0,0 +1,138 @@
+package io.github.flaechsig.blocpress.loadtest;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Command line options of the load test.
+ *
+ * @param url          URL of a running blocpress-render; empty to start one from {@code renderJar}
+ * @param renderJar    {@code quarkus-run.jar} of blocpress-render, started when no URL is given
+ * @param stubLatency  latency of the stub converter per soffice invocation; empty to convert with LibreOffice
+ * @param scenarios    endpoints to load, one after the other
+ * @param concurrency  concurrent clients per scenario
+ * @param warmup       time before measuring starts
+ * @param duration     measured time per scenario
+ * @param outputType   output format of the renders
+ * @param records      data records per mail merge request
+ * @param token        JWT for the endpoints that render stored templates, empty if authentication is disabled
+ * @param reportDir    directory of the JSON and HTML report
+ * @param baseline     JSON report of an earlier run to compare with
+ */
+public record LoadTestOptions(
+        Optional<URI> url,
+        Path renderJar,
+        Optional<Duration> stubLatency,
+        List<Scenario> scenarios,
+        int concurrency,
+        Duration warmup,
+        Duration duration,
+        String outputType,
+        int records,
+        Optional<String> token,
+        Path reportDir,
+        Optional<Path> baseline) {
+
+    private static final Pattern DURATION = Pattern.compile("(\\d+)(ms|s|m)");
+
+    static final String USAGE = """
+            Usage: java -jar loadtest.jar [options]
+              --url <url>               running blocpress-render (default: start --render-jar)
+              --render-jar <path>       default blocpress-render/target/quarkus-app/quarkus-run.jar
+              --converter stub|soffice  default stub
+              --stub-latency <d>        latency per conversion of the stub converter, default 200ms
+              --scenarios <list>        by-name,template,mail-merge,bundle (default: all)
+              --concurrency <n>         concurrent clients, default 8
+              --warmup <d>              default 10s
+              --duration <d>            default 30s
+              --output-type <type>      pdf|odt|rtf|html|text, default pdf
+              --records <n>             records per mail merge, default 20
+              --token <jwt>             bearer token for the stored-template endpoints
+              --report-dir <path>       default target/loadtest
+              --baseline <report.json>  earlier report to compare with
+            Durations: 500ms, 30s, 2m""";
+
+    /**
+     * @throws IllegalArgumentException for unknown options or invalid values
+     */
+    public static LoadTestOptions parse(String... args) {
+        Optional<URI> url = Optional.empty();
+        Path renderJar = Path.of("blocpress-render", "target", "quarkus-app", "quarkus-run.jar");
+        boolean stub = true;
+        Duration stubLatency = Duration.ofMillis(200);
+        List<Scenario> scenarios = List.of(Scenario.values());
+        int concurrency = 8;
+        Duration warmup = Duration.ofSeconds(10);
+        Duration duration = Duration.ofSeconds(30);
+        String outputType = "pdf";
+        int records = 20;
+        Optional<String> token = Optional.empty();
+        Path reportDir = Path.of("target", "loadtest");
+        Optional<Path> baseline = Optional.empty();
+
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--url" -> url = Optional.of(URI.create(value.endsWith("/") ? value : value + "/"));
+                case "--render-jar" -> renderJar = Path.of(value);
+                case "--converter" -> stub = switch (value) {
+                    case "stub" -> true;
+                    case "soffice" -> false;
+                    default -> throw new IllegalArgumentException("Unknown converter " + value);
+                };
+                case "--stub-latency" -> stubLatency = duration(value);
+                case "--scenarios" -> scenarios = scenarios(value);
+                case "--concurrency" -> concurrency = positive(option, value);
+                case "--warmup" -> warmup = duration(value);
+                case "--duration" -> duration = duration(value);
+                case "--output-type" -> outputType = value;
+                case "--records" -> records = positive(option, value);
+                case "--token" -> token = Optional.of(value);
+                case "--report-dir" -> reportDir = Path.of(value);
+                case "--baseline" -> baseline = Optional.of(Path.of(value));
+                default -> throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+        return new LoadTestOptions(url, renderJar, stub ? Optional.of(stubLatency) : Optional.empty(), scenarios,
+                concurrency, warmup, duration, outputType, records, token, reportDir, baseline);
+    }
+
+    static Duration duration(String value) {
+        Matcher m = DURATION.matcher(value.trim());
+        if (!m.matches()) {
+            throw new IllegalArgumentException("Invalid duration " + value);
+        }
+        long amount = Long.parseLong(m.group(1));
+        return switch (m.group(2)) {
+            case "ms" -> Duration.ofMillis(amount);
+            case "s" -> Duration.ofSeconds(amount);
+            default -> Duration.ofMinutes(amount);
+        };
+    }
+
+    private static List<Scenario> scenarios(String value) {
+        List<Scenario> scenarios = new ArrayList<>();
+        for (String name : value.split(",")) {
+            scenarios.add(Scenario.byName(name.trim()));
+        }
+        return List.copyOf(scenarios);
+    }
+
+    private static int positive(String option, String value) {
+        int n = Integer.parseInt(value);
+        if (n < 1) {
+            throw new IllegalArgumentException(option + " must be at least 1");
+        }
+        return n;
+    }
+}
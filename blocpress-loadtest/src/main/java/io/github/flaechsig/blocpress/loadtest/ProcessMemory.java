@@ -0,0 +1,44 @@
+package io.github.flaechsig.blocpress.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.OptionalDouble;
+
+/**
+ * Memory of a process from {@code /proc/<pid>/status} (Linux): resident set ({@value #RESIDENT}) and its peak
+ * ({@value #PEAK}). On other systems the values are empty.
+ */
+final class ProcessMemory {
+    static final String RESIDENT = "VmRSS";
+    static final String PEAK = "VmHWM";
+
+    private ProcessMemory() {
+    }
+
+    /**
+     * @param field {@link #RESIDENT} or {@link #PEAK}
+     * @return the value in MB, empty if it cannot be read
+     */
+    static OptionalDouble megabytes(long pid, String field) {
+        try {
+            return parse(Files.readString(Path.of("/proc", String.valueOf(pid), "status")), field);
+        } catch (IOException e) {
+            return OptionalDouble.empty();
+        }
+    }
+
+    /**
+     * @return the value of the field in MB, empty if the status has no such field
+     */
+    static OptionalDouble parse(String status, String field) {
+        for (String line : status.split("\n")) {
+            if (line.startsWith(field + ":")) {
+                // z. B. "VmRSS:	  123456 kB"
+                String[] parts = line.substring(field.length() + 1).trim().split("\\s+");
+                return OptionalDouble.of(Math.round(Long.parseLong(parts[0]) / 1024.0 * 10) / 10.0);
+            }
+        }
+        return OptionalDouble.empty();
+    }
+}
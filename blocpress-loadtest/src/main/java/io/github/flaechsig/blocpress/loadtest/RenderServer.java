@@ -0,0 +1,184 @@
+package io.github.flaechsig.blocpress.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.utility.DockerImageName;
+import org.testcontainers.utility.MountableFile;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * blocpress-render started by the load test: the {@code quarkus-run.jar} in a separate JVM against a PostgreSQL
+ * container with the production schema ({@code docker/init-production.sql}). With a stub latency, LibreOffice is
+ * replaced by the stub converter of blocpress-render and the overlay preparation at import is disabled, so neither
+ * needs soffice. For the startup benchmark it is started without database instead, see {@link #startStateless}.
+ */
+final class RenderServer implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(RenderServer.class);
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+    // kurz genug, um den Start des nativen Image (einige 10 ms) zu messen
+    private static final long READY_POLL_MILLIS = 10;
+    private static final String DB_USER = "workbench";
+
+    private final GenericContainer<?> postgres;
+    private final Process process;
+    private final URI url;
+    private Duration startupTime;
+
+    private RenderServer(GenericContainer<?> postgres, Process process, URI url) {
+        this.postgres = postgres;
+        this.process = process;
+        this.url = url;
+    }
+
+    static RenderServer start(Path renderJar, Optional<Duration> stubLatency, Path logFile)
+            throws IOException, InterruptedException {
+        if (!Files.isRegularFile(renderJar)) {
+            throw new IOException(renderJar + " not found, build blocpress-render first (mvn package -pl blocpress-render -am)");
+        }
+        GenericContainer<?> postgres = new GenericContainer<>(DockerImageName.parse("postgres:17-alpine"))
+                .withEnv("POSTGRES_DB", "production")
+                .withEnv("POSTGRES_USER", DB_USER)
+                .withEnv("POSTGRES_PASSWORD", DB_USER)
+                .withCopyFileToContainer(MountableFile.forClasspathResource("loadtest/init-production.sql"),
+                        "/docker-entrypoint-initdb.d/init-production.sql")
+                .withExposedPorts(5432)
+                // der Server startet während der Initialisierung einmal neu
+                .waitingFor(Wait.forLogMessage(".*database system is ready to accept connections.*\\s", 2));
+        postgres.start();
+
+        Map<String, String> env = new HashMap<>(Map.of(
+                "QUARKUS_DATASOURCE_JDBC_URL", "jdbc:postgresql://" + postgres.getHost() + ":"
+                        + postgres.getMappedPort(5432) + "/production",
+                "QUARKUS_DATASOURCE_USERNAME", DB_USER,
+                "QUARKUS_DATASOURCE_PASSWORD", DB_USER));
+        stubLatency.ifPresent(latency -> {
+            env.put("BLOCPRESS_RENDER_CONVERTER_STUB_LATENCY", latency.toMillis() + "ms");
+            env.put("BLOCPRESS_RENDER_OVERLAY_ENABLED", "false");
+        });
+        List<String> command = List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-jar", renderJar.toAbsolutePath().toString());
+        RenderServer server = launch(command, env, postgres, logFile);
+        logger.info("blocpress-render started on {} ({})", server.url,
+                stubLatency.map(l -> "stub converter " + l.toMillis() + " ms").orElse("LibreOffice"));
+        return server;
+    }
+
+    /**
+     * Starts blocpress-render without database in the Quarkus profile {@code stateless}, which only serves
+     * {@code /api/render/template}.
+     *
+     * @param command the JVM or native executable command line
+     */
+    static RenderServer startStateless(List<String> command, Path logFile) throws IOException, InterruptedException {
+        return launch(command, new HashMap<>(Map.of("QUARKUS_PROFILE", "stateless")), null, logFile);
+    }
+
+    private static RenderServer launch(List<String> command, Map<String, String> env, GenericContainer<?> postgres,
+                                       Path logFile) throws IOException, InterruptedException {
+        int port = freePort();
+        env.put("QUARKUS_HTTP_PORT", String.valueOf(port));
+        // Debug-Logging pro Request würde die Messung verfälschen
+        env.put("QUARKUS_LOG_CATEGORY__ORG_JBOSS_RESTEASY_REACTIVE__LEVEL", "INFO");
+        env.put("QUARKUS_LOG_CATEGORY__IO_GITHUB_FLAECHSIG_BLOCPRESS_RENDER__LEVEL", "INFO");
+
+        Files.createDirectories(logFile.toAbsolutePath().getParent());
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(logFile.toFile());
+        builder.environment().putAll(env);
+        long started = System.nanoTime();
+        Process process;
+        try {
+            process = builder.start();
+        } catch (IOException e) {
+            if (postgres != null) {
+                postgres.stop();
+            }
+            throw e;
+        }
+
+        RenderServer server = new RenderServer(postgres, process, URI.create("http://localhost:" + port + "/"));
+        try {
+            server.awaitReady(logFile);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            server.close();
+            throw e;
+        }
+        server.startupTime = Duration.ofNanos(System.nanoTime() - started);
+        return server;
+    }
+
+    URI url() {
+        return url;
+    }
+
+    /**
+     * @return the time from starting the process until it reported ready
+     */
+    Duration startupTime() {
+        return startupTime;
+    }
+
+    long pid() {
+        return process.pid();
+    }
+
+    private void awaitReady(Path logFile) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest ready = HttpRequest.newBuilder(url.resolve("q/health/ready")).GET().build();
+        long until = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < until) {
+            if (!process.isAlive()) {
+                throw new IOException("blocpress-render terminated with exit code " + process.exitValue()
+                        + ", see " + logFile);
+            }
+            try {
+                if (client.send(ready, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // noch nicht gestartet
+            }
+            Thread.sleep(READY_POLL_MILLIS);
+        }
+        throw new IOException("blocpress-render not ready after " + STARTUP_TIMEOUT + ", see " + logFile);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @Override
+    public void close() {
+        process.destroy();
+        try {
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+        if (postgres != null) {
+            postgres.stop();
+        }
+    }
+}
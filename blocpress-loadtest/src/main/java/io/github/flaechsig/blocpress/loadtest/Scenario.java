@@ -0,0 +1,113 @@
+package io.github.flaechsig.blocpress.loadtest;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Endpoints of blocpress-render driven by the load test, with the request body each of them expects.
+ */
+public enum Scenario {
+    /**
+     * {@code POST /api/render/{name}}: stored template, one data record.
+     */
+    BY_NAME("by-name") {
+        @Override
+        String path(Workload workload) {
+            return "api/render/" + workload.templateName();
+        }
+
+        @Override
+        ObjectNode body(Workload workload) {
+            ObjectNode body = json.objectNode();
+            body.set("data", workload.data());
+            body.put("outputType", workload.outputType());
+            return body;
+        }
+    },
+    /**
+     * {@code POST /api/render/template}: template sent with every request (Base64).
+     */
+    TEMPLATE("template") {
+        @Override
+        String path(Workload workload) {
+            return "api/render/template";
+        }
+
+        @Override
+        ObjectNode body(Workload workload) {
+            ObjectNode body = BY_NAME.body(workload);
+            body.put("template", Base64.getEncoder().encodeToString(workload.template()));
+            return body;
+        }
+    },
+    /**
+     * {@code POST /api/render/{name}/mail-merge}: one document from {@link Workload#records()} data records.
+     */
+    MAIL_MERGE("mail-merge") {
+        @Override
+        String path(Workload workload) {
+            return "api/render/" + workload.templateName() + "/mail-merge";
+        }
+
+        @Override
+        ObjectNode body(Workload workload) {
+            ObjectNode body = json.objectNode();
+            ArrayNode records = body.putArray("records");
+            for (int i = 0; i < workload.records(); i++) {
+                records.add(workload.data());
+            }
+            body.put("outputType", workload.outputType());
+            return body;
+        }
+    },
+    /**
+     * {@code POST /api/render/{name}/bundle}: one merge, PDF and ODT as ZIP.
+     */
+    BUNDLE("bundle") {
+        @Override
+        String path(Workload workload) {
+            return "api/render/" + workload.templateName() + "/bundle";
+        }
+
+        @Override
+        ObjectNode body(Workload workload) {
+            ObjectNode body = json.objectNode();
+            body.set("data", workload.data());
+            body.putArray("outputTypes").add("pdf").add("odt");
+            return body;
+        }
+    };
+
+    private static final JsonNodeFactory json = JsonNodeFactory.instance;
+
+    private final String id;
+
+    Scenario(String id) {
+        this.id = id;
+    }
+
+    /**
+     * @return the name of the scenario on the command line and in the report
+     */
+    public String id() {
+        return id;
+    }
+
+    /**
+     * @return the request path relative to the base URL of blocpress-render
+     */
+    abstract String path(Workload workload);
+
+    abstract ObjectNode body(Workload workload);
+
+    static Scenario byName(String id) {
+        return Arrays.stream(values())
+                .filter(s -> s.id.equals(id))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown scenario " + id));
+    }
+}
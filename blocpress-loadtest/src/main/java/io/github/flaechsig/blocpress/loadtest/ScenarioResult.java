@@ -0,0 +1,20 @@
+package io.github.flaechsig.blocpress.loadtest;
+
+import java.util.Map;
+
+/**
+ * Result of one scenario.
+ *
+ * @param scenario              id of the {@link Scenario}
+ * @param concurrency           concurrent clients
+ * @param requests              requests started within the measured time
+ * @param errors                requests that failed or were answered with a status of 400 or above
+ * @param statusCounts          requests per HTTP status, {@code error} for requests without response
+ * @param throughput            successful requests per second
+ * @param latency               latency distribution of the successful requests
+ * @param allocatedMbPerSecond  heap allocation rate of blocpress-render, {@code null} if its metrics are not available
+ */
+public record ScenarioResult(String scenario, int concurrency, long requests, long errors,
+                             Map<String, Long> statusCounts, double throughput, LatencyStats latency,
+                             Double allocatedMbPerSecond) {
+}
@@ -0,0 +1,56 @@
+package io.github.flaechsig.blocpress.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.OptionalDouble;
+
+/**
+ * Reads the bytes allocated by blocpress-render from its Prometheus endpoint ({@code /q/metrics}, Micrometer
+ * metric {@value #ALLOCATED_METRIC}). The difference of two readings over the measured time is the allocation rate.
+ */
+final class ServerMetrics {
+    static final String ALLOCATED_METRIC = "jvm_gc_memory_allocated_bytes_total";
+
+    private final HttpClient client;
+    private final URI metrics;
+
+    ServerMetrics(HttpClient client, URI baseUrl) {
+        this.client = client;
+        this.metrics = baseUrl.resolve("q/metrics");
+    }
+
+    /**
+     * @return the bytes allocated since the start of blocpress-render, empty if the metric cannot be read
+     */
+    OptionalDouble allocatedBytes() {
+        try {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(metrics).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            return response.statusCode() == 200 ? parse(response.body()) : OptionalDouble.empty();
+        } catch (IOException e) {
+            return OptionalDouble.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return OptionalDouble.empty();
+        }
+    }
+
+    /**
+     * @return the sum of all samples of the metric in the Prometheus text format
+     */
+    static OptionalDouble parse(String prometheus) {
+        double sum = 0;
+        boolean found = false;
+        for (String line : prometheus.split("\n")) {
+            if (line.startsWith(ALLOCATED_METRIC + " ") || line.startsWith(ALLOCATED_METRIC + "{")) {
+                String[] parts = line.trim().split("\\s+");
+                sum += Double.parseDouble(parts[parts.length - 1]);
+                found = true;
+            }
+        }
+        return found ? OptionalDouble.of(sum) : OptionalDouble.empty();
+    }
+}
@@ -0,0 +1,174 @@
+package io.github.flaechsig.blocpress.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalDouble;
+import java.util.stream.Stream;
+
+/**
+ * Startup and footprint of the JVM and the native build of blocpress-render.
+ *
+ * <p><b>Fachlicher Kontext:</b>
+ * Für den zustandslosen Pfad ({@code /api/render/template}) soll blocpress-render als natives Executable in kleinen,
+ * schnell startenden Containern laufen. Der Benchmark startet beide Builds mehrmals ohne Datenbank (Quarkus-Profil
+ * {@code stateless}), misst die Zeit bis {@code /q/health/ready}, die Latenz des ersten und der folgenden Renders
+ * sowie den Resident Set der Prozesse im Leerlauf, nach den Renders und als Spitzenwert. Berichtet wird der Median
+ * über alle Starts als JSON; die Ausgabeformate beschränken sich auf die im Prozess erzeugten (ODT, HTML, Text),
+ * damit LibreOffice die Messung nicht dominiert.</p>
+ *
+ * <p><b>Design-Referenzen:</b></p>
+ * <ul>
+ *   <li>EDC: <a href="docs/Element_Design_Concept.adoc#edc-tf-5">TF-5: Dokument generieren</a></li>
+ * </ul>
+ */
+public final class StartupBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(StartupBenchmark.class);
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (List.of(args).contains("--help")) {
+            System.out.println(StartupOptions.USAGE);
+            return;
+        }
+        StartupOptions options;
+        try {
+            options = StartupOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(StartupOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+        String startedAt = Instant.now().toString();
+        List<String> java = List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-jar", existing(options.renderJar()).toAbsolutePath().toString());
+        List<String> nativeRunner = List.of(runner(options.nativeRunner()).toAbsolutePath().toString());
+
+        List<StartupReport.Result> results = List.of(
+                measure("jvm", java, options),
+                measure("native", nativeRunner, options));
+        for (StartupReport.Result r : results) {
+            logger.info("{}: ready after {} ms, first render {} ms, render {} ms, RSS idle {} MB, loaded {} MB, peak {} MB",
+                    r.build(), r.startupMillis(), r.firstRenderMillis(), r.renderMillis(), r.idleRssMb(),
+                    r.loadedRssMb(), r.peakRssMb());
+        }
+        new StartupReport(startedAt, options.outputType(), options.runs(), options.renders(), results)
+                .write(options.reportDir());
+        logger.info("Report written to {}", options.reportDir().resolve(StartupReport.JSON_FILE).toAbsolutePath());
+    }
+
+    static StartupReport.Result measure(String build, List<String> command, StartupOptions options)
+            throws IOException, InterruptedException {
+        Workload workload = Workload.bundled(options.outputType(), 1);
+        byte[] body = mapper.writeValueAsBytes(Scenario.TEMPLATE.body(workload));
+        int runs = options.runs();
+        double[] startup = new double[runs];
+        double[] firstRender = new double[runs];
+        double[] render = new double[runs];
+        List<OptionalDouble> idle = new ArrayList<>();
+        List<OptionalDouble> loaded = new ArrayList<>();
+        List<OptionalDouble> peak = new ArrayList<>();
+
+        try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()) {
+            for (int run = 0; run < runs; run++) {
+                Path log = options.reportDir().resolve(build + "-" + run + ".log");
+                try (RenderServer server = RenderServer.startStateless(command, log)) {
+                    startup[run] = millis(server.startupTime().toNanos());
+                    idle.add(ProcessMemory.megabytes(server.pid(), ProcessMemory.RESIDENT));
+                    HttpRequest request = HttpRequest.newBuilder(server.url().resolve(Scenario.TEMPLATE.path(workload)))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                            .build();
+                    long total = 0;
+                    for (int i = 0; i < options.renders(); i++) {
+                        long latency = render(client, request);
+                        if (i == 0) {
+                            firstRender[run] = millis(latency);
+                        } else {
+                            total += latency;
+                        }
+                    }
+                    render[run] = options.renders() > 1 ? millis(total / (options.renders() - 1)) : firstRender[run];
+                    loaded.add(ProcessMemory.megabytes(server.pid(), ProcessMemory.RESIDENT));
+                    peak.add(ProcessMemory.megabytes(server.pid(), ProcessMemory.PEAK));
+                }
+                logger.info("{} start {}: ready after {} ms", build, run + 1, startup[run]);
+            }
+        }
+        return new StartupReport.Result(build, median(startup), median(firstRender), median(render),
+                median(idle), median(loaded), median(peak));
+    }
+
+    /**
+     * @return the latency in nanoseconds
+     */
+    private static long render(HttpClient client, HttpRequest request) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        long latency = System.nanoTime() - start;
+        if (response.statusCode() != 200) {
+            throw new IOException("Render failed with status " + response.statusCode() + ": "
+                    + new String(response.body()));
+        }
+        return latency;
+    }
+
+    static double median(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int n = sorted.length;
+        double median = n % 2 == 1 ? sorted[n / 2] : (sorted[n / 2 - 1] + sorted[n / 2]) / 2;
+        return Math.round(median * 10) / 10.0;
+    }
+
+    /**
+     * @return the median, {@code null} if a value is missing
+     */
+    private static Double median(List<OptionalDouble> values) {
+        if (values.stream().anyMatch(OptionalDouble::isEmpty)) {
+            return null;
+        }
+        return median(values.stream().mapToDouble(OptionalDouble::getAsDouble).toArray());
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1e5) / 10.0;
+    }
+
+    private static Path existing(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            throw new IOException(file + " not found, build blocpress-render first (mvn package -pl blocpress-render -am)");
+        }
+        return file;
+    }
+
+    /**
+     * @param path the native executable or the directory containing the {@code *-runner}
+     */
+    static Path runner(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return existing(path);
+        }
+        try (Stream<Path> files = Files.list(path)) {
+            return files.filter(f -> f.getFileName().toString().endsWith("-runner") && Files.isExecutable(f))
+                    .findFirst()
+                    .orElseThrow(() -> new IOException("No native executable in " + path
+                            + ", build it first (mvn package -pl blocpress-render -am -Pnative)"));
+        }
+    }
+}
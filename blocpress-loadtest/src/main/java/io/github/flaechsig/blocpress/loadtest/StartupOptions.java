@@ -0,0 +1,68 @@
+package io.github.flaechsig.blocpress.loadtest;
+
+import java.nio.file.Path;
+
+/**
+ * Command line options of the startup benchmark.
+ *
+ * @param renderJar     {@code quarkus-run.jar} of blocpress-render (JVM build)
+ * @param nativeRunner  native executable of blocpress-render ({@code mvn package -Pnative}), or the directory
+ *                      containing it
+ * @param runs          starts per build; startup time and memory are the median over all starts
+ * @param renders       renders per start after the node is ready
+ * @param outputType    output format of the renders
+ * @param reportDir     directory of the JSON report
+ */
+public record StartupOptions(Path renderJar, Path nativeRunner, int runs, int renders, String outputType,
+                             Path reportDir) {
+
+    static final String USAGE = """
+            Usage: java -cp loadtest.jar io.github.flaechsig.blocpress.loadtest.StartupBenchmark [options]
+              --render-jar <path>       default blocpress-render/target/quarkus-app/quarkus-run.jar
+              --native <path>           default: the *-runner in blocpress-render/target
+              --runs <n>                starts per build, default 5
+              --renders <n>             renders per start, default 50
+              --output-type <type>      odt|html|text (no LibreOffice needed), default html
+              --report-dir <path>       default target/startup""";
+
+    /**
+     * @throws IllegalArgumentException for unknown options or invalid values
+     */
+    public static StartupOptions parse(String... args) {
+        Path renderJar = Path.of("blocpress-render", "target", "quarkus-app", "quarkus-run.jar");
+        Path nativeRunner = Path.of("blocpress-render", "target");
+        int runs = 5;
+        int renders = 50;
+        String outputType = "html";
+        Path reportDir = Path.of("target", "startup");
+
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--render-jar" -> renderJar = Path.of(value);
+                case "--native" -> nativeRunner = Path.of(value);
+                case "--runs" -> runs = positive(option, value);
+                case "--renders" -> renders = positive(option, value);
+                case "--output-type" -> outputType = switch (value) {
+                    case "odt", "html", "text" -> value;
+                    default -> throw new IllegalArgumentException("Output type " + value + " needs LibreOffice");
+                };
+                case "--report-dir" -> reportDir = Path.of(value);
+                default -> throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+        return new StartupOptions(renderJar, nativeRunner, runs, renders, outputType, reportDir);
+    }
+
+    private static int positive(String option, String value) {
+        int n = Integer.parseInt(value);
+        if (n < 1) {
+            throw new IllegalArgumentException(option + " must be at least 1");
+        }
+        return n;
+    }
+}
@@ -0,0 +1,44 @@
+package io.github.flaechsig.blocpress.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Report of a startup benchmark run, written as {@value #JSON_FILE}.
+ *
+ * @param startedAt   start of the run (ISO-8601)
+ * @param outputType  output format of the renders
+ * @param runs        starts per build
+ * @param renders     renders per start
+ * @param results     results per build
+ */
+public record StartupReport(String startedAt, String outputType, int runs, int renders, List<Result> results) {
+    static final String JSON_FILE = "startup.json";
+
+    private static final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    /**
+     * Medians over all starts of one build. Memory values are {@code null} if {@code /proc} is not available.
+     *
+     * @param build             {@code jvm} or {@code native}
+     * @param startupMillis     time from starting the process until {@code /q/health/ready} answered 200
+     * @param firstRenderMillis latency of the first render
+     * @param renderMillis      mean latency of the following renders
+     * @param idleRssMb         resident memory when ready
+     * @param loadedRssMb       resident memory after the renders
+     * @param peakRssMb         peak resident memory
+     */
+    public record Result(String build, double startupMillis, double firstRenderMillis, double renderMillis,
+                         Double idleRssMb, Double loadedRssMb, Double peakRssMb) {
+    }
+
+    void write(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        mapper.writeValue(dir.resolve(JSON_FILE).toFile(), this);
+    }
+}
@@ -0,0 +1,42 @@
+package io.github.flaechsig.blocpress.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Template and data sent by the load test. The template is imported into the production store under
+ * {@link #TEMPLATE_NAME} before the scenarios start.
+ *
+ * @param templateName name of the stored template
+ * @param template     ODT template
+ * @param data         data of one record
+ * @param outputType   output format of the renders
+ * @param records      data records per mail merge request
+ */
+public record Workload(String templateName, byte[] template, JsonNode data, String outputType, int records) {
+    static final String TEMPLATE_NAME = "loadtest";
+
+    /**
+     * @return the bundled template and data ({@code loadtest/kuendigung.odt}, {@code loadtest/kuendigung.json})
+     */
+    static Workload bundled(String outputType, int records) {
+        try (InputStream template = resource("kuendigung.odt"); InputStream data = resource("kuendigung.json")) {
+            return new Workload(TEMPLATE_NAME, template.readAllBytes(), new ObjectMapper().readTree(data),
+                    outputType, records);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static InputStream resource(String name) throws IOException {
+        InputStream in = Workload.class.getResourceAsStream("/loadtest/" + name);
+        if (in == null) {
+            throw new IOException("Missing resource loadtest/" + name);
+        }
+        return in;
+    }
+}
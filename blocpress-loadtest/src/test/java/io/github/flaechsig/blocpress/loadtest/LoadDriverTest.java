@@ -0,0 +1,66 @@
+package io.github.flaechsig.blocpress.loadtest;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadDriverTest {
+
+    private HttpServer server;
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/api/render/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            // jeder fünfte Aufruf schlägt fehl
+            int status = calls.incrementAndGet() % 5 == 0 ? 503 : 200;
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void measuresLatencyAndCountsErrors() throws Exception {
+        URI url = URI.create("http://localhost:" + server.getAddress().getPort() + "/");
+        LoadDriver driver = new LoadDriver(HttpClient.newHttpClient(), url, Optional.empty());
+        Workload workload = new Workload("test", new byte[0], JsonNodeFactory.instance.objectNode(), "pdf", 2);
+
+        ScenarioResult result = driver.run(Scenario.BY_NAME, workload, 4, Duration.ofMillis(100), Duration.ofMillis(500));
+
+        assertEquals("by-name", result.scenario());
+        assertTrue(result.requests() > 20, "requests: " + result.requests());
+        assertEquals(result.requests(), result.statusCounts().values().stream().mapToLong(Long::longValue).sum());
+        assertEquals(result.statusCounts().getOrDefault("503", 0L), result.errors());
+        assertEquals(result.requests() - result.errors(), result.latency().count());
+        assertTrue(result.latency().p50Millis() >= 5, "p50: " + result.latency().p50Millis());
+        assertTrue(result.throughput() > 0);
+        // ohne /q/metrics keine Allokationsrate
+        assertNull(result.allocatedMbPerSecond());
+    }
+}
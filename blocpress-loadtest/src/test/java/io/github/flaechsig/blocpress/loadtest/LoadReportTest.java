@@ -0,0 +1,70 @@
+package io.github.flaechsig.blocpress.loadtest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadReportTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void percentilesUseNearestRank() {
+        long[] nanos = LongStream.rangeClosed(1, 100).map(i -> i * 1_000_000).toArray();
+
+        LatencyStats stats = LatencyStats.of(nanos);
+
+        assertEquals(100, stats.count());
+        assertEquals(50.0, stats.p50Millis());
+        assertEquals(95.0, stats.p95Millis());
+        assertEquals(99.0, stats.p99Millis());
+        assertEquals(100.0, stats.maxMillis());
+        assertEquals(50.5, stats.meanMillis());
+    }
+
+    @Test
+    void allocatedBytesAreReadFromPrometheusFormat() {
+        String metrics = """
+                # HELP jvm_gc_memory_allocated_bytes_total Incremented for an increase in the size of the young generation
+                # TYPE jvm_gc_memory_allocated_bytes_total counter
+                jvm_gc_memory_allocated_bytes_total 1.2E9
+                jvm_gc_memory_promoted_bytes_total 5.0E7
+                """;
+
+        assertEquals(1.2e9, ServerMetrics.parse(metrics).orElseThrow());
+        assertTrue(ServerMetrics.parse("http_server_requests_seconds_count 3").isEmpty());
+    }
+
+    @Test
+    void jsonReportCanBeReadAsBaseline() throws Exception {
+        LoadReport report = report(100, 20.0);
+
+        report.write(dir, Optional.empty());
+
+        assertEquals(report, LoadReport.read(dir.resolve(LoadReport.JSON_FILE)));
+        assertTrue(dir.resolve(LoadReport.HTML_FILE).toFile().isFile());
+    }
+
+    @Test
+    void htmlShowsChangeAgainstBaseline() {
+        String html = report(120, 10.0).toHtml(Optional.of(report(100, 20.0)));
+
+        assertTrue(html.contains("120.00 (+20.0%)"), html);
+        assertTrue(html.contains("<td class=\"better\">10.00 (-50.0%)</td>"), html);
+    }
+
+    private static LoadReport report(double throughput, double p95) {
+        LatencyStats latency = new LatencyStats(1000, 8.0, 5.0, p95, 30.0, 50.0);
+        ScenarioResult result = new ScenarioResult("by-name", 8, 1000, 0, Map.of("200", 1000L), throughput, latency, 12.5);
+        return new LoadReport("2026-01-01T00:00:00Z", "http://localhost:8080/", "stub 200ms", "PT10S", "PT30S",
+                List.of(result));
+    }
+}
@@ -0,0 +1,44 @@
+package io.github.flaechsig.blocpress.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadTestOptionsTest {
+
+    @Test
+    void defaultsUseStubConverterAndAllScenarios() {
+        LoadTestOptions options = LoadTestOptions.parse();
+
+        assertEquals(Optional.empty(), options.url());
+        assertEquals(Optional.of(Duration.ofMillis(200)), options.stubLatency());
+        assertEquals(List.of(Scenario.values()), options.scenarios());
+        assertEquals(8, options.concurrency());
+    }
+
+    @Test
+    void parsesOptions() {
+        LoadTestOptions options = LoadTestOptions.parse("--url", "http://localhost:8080", "--converter", "soffice",
+                "--scenarios", "by-name,bundle", "--concurrency", "32", "--duration", "2m", "--warmup", "500ms");
+
+        assertEquals(Optional.of(URI.create("http://localhost:8080/")), options.url());
+        assertEquals(Optional.empty(), options.stubLatency());
+        assertEquals(List.of(Scenario.BY_NAME, Scenario.BUNDLE), options.scenarios());
+        assertEquals(32, options.concurrency());
+        assertEquals(Duration.ofMinutes(2), options.duration());
+        assertEquals(Duration.ofMillis(500), options.warmup());
+    }
+
+    @Test
+    void rejectsInvalidOptions() {
+        assertThrows(IllegalArgumentException.class, () -> LoadTestOptions.parse("--threads", "4"));
+        assertThrows(IllegalArgumentException.class, () -> LoadTestOptions.parse("--scenarios", "pdf"));
+        assertThrows(IllegalArgumentException.class, () -> LoadTestOptions.parse("--duration", "30"));
+        assertThrows(IllegalArgumentException.class, () -> LoadTestOptions.parse("--concurrency"));
+    }
+}
@@ -0,0 +1,37 @@
+package io.github.flaechsig.blocpress.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.OptionalDouble;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProcessMemoryTest {
+
+    private static final String STATUS = """
+            Name:	blocpress-render
+            VmPeak:	 1234567 kB
+            VmHWM:	   81920 kB
+            VmRSS:	   65536 kB
+            Threads:	24
+            """;
+
+    @Test
+    void readsResidentAndPeakInMegabytes() {
+        assertEquals(OptionalDouble.of(64.0), ProcessMemory.parse(STATUS, ProcessMemory.RESIDENT));
+        assertEquals(OptionalDouble.of(80.0), ProcessMemory.parse(STATUS, ProcessMemory.PEAK));
+    }
+
+    @Test
+    void missingFieldIsEmpty() {
+        assertEquals(OptionalDouble.empty(), ProcessMemory.parse("Name:\tjava\n", ProcessMemory.RESIDENT));
+    }
+
+    @Test
+    void readsOwnProcess() {
+        // nur unter Linux verfügbar
+        OptionalDouble rss = ProcessMemory.megabytes(ProcessHandle.current().pid(), ProcessMemory.RESIDENT);
+
+        rss.ifPresent(mb -> assertTrue(mb > 0));
+    }
+}
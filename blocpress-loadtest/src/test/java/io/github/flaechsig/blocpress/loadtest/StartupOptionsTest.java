@@ -0,0 +1,40 @@
+package io.github.flaechsig.blocpress.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StartupOptionsTest {
+
+    @Test
+    void defaultsRenderHtmlFiveTimesFifty() {
+        StartupOptions options = StartupOptions.parse();
+
+        assertEquals(5, options.runs());
+        assertEquals(50, options.renders());
+        assertEquals("html", options.outputType());
+        assertEquals(Path.of("blocpress-render", "target"), options.nativeRunner());
+    }
+
+    @Test
+    void parsesOptions() {
+        StartupOptions options = StartupOptions.parse("--native", "app-runner", "--runs", "3", "--renders", "10",
+                "--output-type", "odt", "--report-dir", "out");
+
+        assertEquals(Path.of("app-runner"), options.nativeRunner());
+        assertEquals(3, options.runs());
+        assertEquals(10, options.renders());
+        assertEquals("odt", options.outputType());
+        assertEquals(Path.of("out"), options.reportDir());
+    }
+
+    @Test
+    void rejectsInvalidOptions() {
+        assertThrows(IllegalArgumentException.class, () -> StartupOptions.parse("--output-type", "pdf"));
+        assertThrows(IllegalArgumentException.class, () -> StartupOptions.parse("--runs", "0"));
+        assertThrows(IllegalArgumentException.class, () -> StartupOptions.parse("--url", "http://localhost"));
+        assertThrows(IllegalArgumentException.class, () -> StartupOptions.parse("--renders"));
+    }
+}
@@ -0,0 +1,26 @@
+#!/bin/sh
+# Erzeugt aus dem CRaC-Image (Dockerfile.crac) ein Image mit Checkpoint der aufgewärmten JVM.
+#
+# Usage: crac-checkpoint.sh <image> [docker run options]
+#   z.B. crac-checkpoint.sh flaechsig/blocpress-render:2.0.0-crac --network blocpress_blocpress \
+#          -e QUARKUS_DATASOURCE_JDBC_URL=jdbc:postgresql://postgres:5432/production
+#
+# Der Lauf braucht die Datenbank der Zielumgebung: Warm-up und Konfiguration werden mit in den
+# Checkpoint übernommen. Ergebnis: <image>-checkpoint
+set -e
+
+IMAGE=${1:?"Usage: crac-checkpoint.sh <image> [docker run options]"}
+shift
+CONTAINER=blocpress-render-checkpoint
+
+docker rm -f "$CONTAINER" >/dev/null 2>&1 || true
+# Die JVM wird nach dem Checkpoint beendet (Exit-Code != 0); CRIU benötigt erweiterte Rechte
+docker run --name "$CONTAINER" --privileged -e CRAC_CHECKPOINT=true "$@" "$IMAGE" || true
+if ! docker cp "$CONTAINER:/app/crac/pstree.img" - >/dev/null 2>&1; then
+  echo "No checkpoint written, see: docker logs $CONTAINER" >&2
+  exit 1
+fi
+docker commit --change 'ENV CRAC_CHECKPOINT=false' "$CONTAINER" "$IMAGE-checkpoint"
+docker rm "$CONTAINER" >/dev/null
+echo "Checkpoint image: $IMAGE-checkpoint"
+echo "Restore: docker run --cap-add CHECKPOINT_RESTORE --cap-add SYS_PTRACE ... $IMAGE-checkpoint"
@@ -0,0 +1,23 @@
+#!/bin/sh
+# Startet blocpress-render: aus einem CRaC-Checkpoint (Dockerfile.crac), mit AppCDS-Archiv (APPCDS=true)
+# oder normal. CRAC_CHECKPOINT=true startet den Lauf, der nach dem Warm-up den Checkpoint schreibt.
+set -e
+
+APP=/app
+CRAC_DIR=$APP/crac
+
+if [ "$CRAC_CHECKPOINT" = "true" ]; then
+  mkdir -p "$CRAC_DIR"
+  exec java -XX:CRaCCheckpointTo="$CRAC_DIR" -Dblocpress.render.checkpoint.after-warmup=true \
+    $JAVA_OPTS -jar "$APP/quarkus-run.jar"
+fi
+
+if [ -f "$CRAC_DIR/pstree.img" ]; then
+  exec java -XX:CRaCRestoreFrom="$CRAC_DIR"
+fi
+
+if [ -f "$APP/app-cds.jsa" ]; then
+  exec java -XX:SharedArchiveFile="$APP/app-cds.jsa" $JAVA_OPTS -jar "$APP/quarkus-run.jar"
+fi
+
+exec java $JAVA_OPTS -jar "$APP/quarkus-run.jar"
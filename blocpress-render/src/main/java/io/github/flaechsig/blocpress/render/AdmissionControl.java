@@ -0,0 +1,433 @@
+package io.github.flaechsig.blocpress.render;
+
+import io.github.flaechsig.blocpress.core.Deadline;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.quarkus.vertx.http.runtime.CurrentVertxRequest;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.jwt.JsonWebToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Admission control and scheduling in front of the render stages.
+ *
+ * Merge and LibreOffice conversion each run with a bounded number of concurrent jobs and a bounded queue.
+ * A request arriving at a full queue is rejected with 429 and a {@code Retry-After} derived from the queue
+ * depth and the observed service time of the stage, instead of piling up soffice processes and heap.
+ * While the conversion queue is full, the readiness check reports the node as not ready so the load
+ * balancer routes around it.
+ *
+ * Queued requests are served by weighted fair queuing over the {@link RenderPriority} classes
+ * ({@code blocpress.render.scheduling.weight.<class>}), so interactive renders overtake bulk jobs without
+ * starving them. The class is taken from the JWT claim {@value #PRIORITY_CLAIM} or the endpoint; the
+ * {@value #PRIORITY_HEADER} header can only lower it. Optional bulkheads cap the concurrent jobs per template
+ * ({@code blocpress.render.templates."<name>".max-concurrent}) and per caller
+ * ({@code blocpress.render.scheduling.max-per-caller}). The queue wait is reported per stage and class in
+ * the timer {@value #QUEUE_WAIT_METRIC}; the gauges {@value #QUEUE_DEPTH_METRIC} and {@value #ACTIVE_METRIC} show
+ * the waiting and running jobs per stage.
+ */
+@ApplicationScoped
+public class AdmissionControl {
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControl.class);
+
+    static final String PRIORITY_HEADER = "X-Render-Priority";
+    static final String PRIORITY_CLAIM = "render_priority";
+    static final String QUEUE_WAIT_METRIC = "blocpress.render.queue.wait";
+    static final String QUEUE_DEPTH_METRIC = "blocpress.render.queue.depth";
+    static final String ACTIVE_METRIC = "blocpress.render.queue.active";
+
+    /**
+     * A unit of work of a stage.
+     */
+    @FunctionalInterface
+    interface Work<T> {
+        T call() throws IOException;
+    }
+
+    @ConfigProperty(name = "blocpress.render.admission.merge.max-concurrent", defaultValue = "8")
+    int mergeConcurrency = 8;
+
+    @ConfigProperty(name = "blocpress.render.admission.merge.max-queue", defaultValue = "32")
+    int mergeQueue = 32;
+
+    @ConfigProperty(name = "blocpress.render.admission.convert.max-concurrent", defaultValue = "32")
+    int convertConcurrency = 32;
+
+    @ConfigProperty(name = "blocpress.render.admission.convert.max-queue", defaultValue = "64")
+    int convertQueue = 64;
+
+    @ConfigProperty(name = "blocpress.render.scheduling.weight.interactive", defaultValue = "8")
+    int interactiveWeight = 8;
+
+    @ConfigProperty(name = "blocpress.render.scheduling.weight.standard", defaultValue = "4")
+    int standardWeight = 4;
+
+    @ConfigProperty(name = "blocpress.render.scheduling.weight.bulk", defaultValue = "1")
+    int bulkWeight = 1;
+
+    @ConfigProperty(name = "blocpress.render.scheduling.max-per-caller")
+    Optional<Integer> maxPerCaller = Optional.empty();
+
+    @Inject
+    TemplateRenderConfig templateConfig;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    CurrentVertxRequest currentRequest;
+
+    @Inject
+    JsonWebToken jwt;
+
+    private Stage merge;
+    private Stage convert;
+
+    public AdmissionControl() {
+    }
+
+    AdmissionControl(int mergeConcurrency, int mergeQueue, int convertConcurrency, int convertQueue) {
+        this(mergeConcurrency, mergeQueue, convertConcurrency, convertQueue, Map::of, Optional.empty());
+    }
+
+    AdmissionControl(int mergeConcurrency, int mergeQueue, int convertConcurrency, int convertQueue,
+                     TemplateRenderConfig templateConfig, Optional<Integer> maxPerCaller) {
+        this.mergeConcurrency = mergeConcurrency;
+        this.mergeQueue = mergeQueue;
+        this.convertConcurrency = convertConcurrency;
+        this.convertQueue = convertQueue;
+        this.templateConfig = templateConfig;
+        this.maxPerCaller = maxPerCaller;
+        this.registry = new SimpleMeterRegistry();
+        init();
+    }
+
+    /**
+     * @throws IllegalStateException if a scheduling weight is below 1
+     */
+    @PostConstruct
+    void init() {
+        Map<RenderPriority, Integer> weights = new EnumMap<>(RenderPriority.class);
+        weights.put(RenderPriority.INTERACTIVE, interactiveWeight);
+        weights.put(RenderPriority.STANDARD, standardWeight);
+        weights.put(RenderPriority.BULK, bulkWeight);
+        weights.forEach((priority, weight) -> {
+            // 0 ergäbe unendliche Finish-Tags (Klasse verhungert), negative Gewichte überholen alle anderen
+            if (weight < 1) {
+                throw new IllegalStateException("blocpress.render.scheduling.weight." + priority.name().toLowerCase()
+                        + " must be at least 1, but is " + weight);
+            }
+        });
+        merge = new Stage("merge", mergeConcurrency, mergeQueue, weights, this::templateCap, maxPerCaller, registry);
+        convert = new Stage("convert", convertConcurrency, convertQueue, weights, this::templateCap, maxPerCaller, registry);
+        for (Stage stage : List.of(merge, convert)) {
+            registry.gauge(QUEUE_DEPTH_METRIC, Tags.of("stage", stage.name), stage, Stage::waiting);
+            registry.gauge(ACTIVE_METRIC, Tags.of("stage", stage.name), stage, Stage::running);
+        }
+    }
+
+    /**
+     * Classifies the current request.
+     *
+     * @param templateName    name of the stored template, {@code null} for templates sent with the request
+     * @param endpointDefault priority class of the endpoint, used if the JWT claim selects none
+     * @throws WebApplicationException (400) if the header or claim names no priority class
+     */
+    public RenderTicket ticket(String templateName, RenderPriority endpointDefault) {
+        RoutingContext context = currentRequest != null ? currentRequest.getCurrent() : null;
+        String header = context != null ? context.request().getHeader(PRIORITY_HEADER) : null;
+        String caller = jwt != null ? jwt.getName() : null;
+        String claim = jwt != null && caller != null ? jwt.getClaim(PRIORITY_CLAIM) : null;
+        return new RenderTicket(priority(header, claim, endpointDefault), templateName, caller);
+    }
+
+    /**
+     * The claim (or the endpoint default) is the highest class a caller may use; the header is set by the
+     * client itself and can therefore only lower it, e.g. for a bulk job of an interactive client.
+     *
+     * @throws WebApplicationException (400) if the header or claim names no priority class
+     */
+    static RenderPriority priority(String header, String claim, RenderPriority endpointDefault) {
+        RenderPriority ceiling = claim != null ? parse(claim) : endpointDefault;
+        RenderPriority requested = header != null ? parse(header) : ceiling;
+        // höhere Klassen haben die kleinere Ordinalzahl
+        return requested.compareTo(ceiling) > 0 ? requested : ceiling;
+    }
+
+    private static RenderPriority parse(String value) {
+        try {
+            return RenderPriority.parse(value);
+        } catch (IllegalArgumentException e) {
+            throw new WebApplicationException("Unknown render priority: " + value, Response.Status.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Runs a merge (template filling) once the merge stage admits it.
+     *
+     * @throws WebApplicationException (429) if the merge queue is full
+     */
+    public <T> T merge(RenderTicket ticket, Deadline deadline, Work<T> work) throws IOException {
+        return merge.run(ticket, deadline, work);
+    }
+
+    /**
+     * Runs a LibreOffice conversion once the convert stage admits it.
+     *
+     * @throws WebApplicationException (429) if the conversion queue is full
+     */
+    public <T> T convert(RenderTicket ticket, Deadline deadline, Work<T> work) throws IOException {
+        return convert.run(ticket, deadline, work);
+    }
+
+    /**
+     * @return {@code true} if new conversions would be rejected
+     */
+    public boolean converterSaturated() {
+        return convert.saturated();
+    }
+
+    Stage mergeStage() {
+        return merge;
+    }
+
+    Stage convertStage() {
+        return convert;
+    }
+
+    private Optional<Integer> templateCap(String templateName) {
+        return templateConfig.forTemplate(templateName).flatMap(TemplateRenderConfig.TemplateOptions::maxConcurrent);
+    }
+
+    /**
+     * Bounded concurrency with a bounded queue, served by weighted fair queuing: every waiting job gets a virtual
+     * finish tag {@code max(virtual time, last tag of its class) + 1 / weight}; a free slot goes to the eligible
+     * job with the smallest tag. Jobs whose template or caller is at its cap are skipped until a job of that
+     * template or caller completes. The service time is tracked as exponentially weighted moving average for the
+     * {@code Retry-After} estimate.
+     */
+    static final class Stage {
+        private static final long POLL_INTERVAL_MILLIS = 100;
+        private static final double SMOOTHING = 0.2;
+
+        private final String name;
+        private final int maxConcurrent;
+        private final int maxQueue;
+        private final Map<RenderPriority, Integer> weights;
+        private final Function<String, Optional<Integer>> templateCap;
+        private final Optional<Integer> callerCap;
+        private final MeterRegistry registry;
+
+        private final Map<RenderPriority, Deque<Waiter>> queues = new EnumMap<>(RenderPriority.class);
+        private final Map<RenderPriority, Double> lastTag = new EnumMap<>(RenderPriority.class);
+        private final Map<String, Integer> runningPerTemplate = new HashMap<>();
+        private final Map<String, Integer> runningPerCaller = new HashMap<>();
+        private double virtualTime;
+        private int running;
+        private int waiting;
+        private volatile double serviceMillis = 1000;
+
+        Stage(String name, int maxConcurrent, int maxQueue, Map<RenderPriority, Integer> weights,
+              Function<String, Optional<Integer>> templateCap, Optional<Integer> callerCap, MeterRegistry registry) {
+            this.name = name;
+            this.maxConcurrent = maxConcurrent;
+            this.maxQueue = maxQueue;
+            this.weights = weights;
+            this.templateCap = templateCap;
+            this.callerCap = callerCap;
+            this.registry = registry;
+            for (RenderPriority priority : RenderPriority.values()) {
+                queues.put(priority, new ArrayDeque<>());
+                lastTag.put(priority, 0.0);
+            }
+        }
+
+        <T> T run(RenderTicket ticket, Deadline deadline, Work<T> work) throws IOException {
+            acquire(ticket, deadline);
+            long start = System.nanoTime();
+            try {
+                return work.call();
+            } finally {
+                release(ticket);
+                double millis = (System.nanoTime() - start) / 1_000_000.0;
+                serviceMillis = SMOOTHING * millis + (1 - SMOOTHING) * serviceMillis;
+            }
+        }
+
+        private void acquire(RenderTicket ticket, Deadline deadline) throws IOException {
+            long enqueued = System.nanoTime();
+            Waiter waiter;
+            synchronized (this) {
+                if (waiting >= maxQueue && !hasCapacityFor(ticket)) {
+                    throw rejected();
+                }
+                double tag = Math.max(virtualTime, lastTag.get(ticket.priority())) + 1.0 / weights.get(ticket.priority());
+                lastTag.put(ticket.priority(), tag);
+                waiter = new Waiter(ticket, tag);
+                queues.get(ticket.priority()).addLast(waiter);
+                waiting++;
+                dispatch();
+            }
+            try {
+                while (true) {
+                    try {
+                        waiter.admitted.get(Math.min(POLL_INTERVAL_MILLIS, Math.max(1, deadline.remaining().toMillis())),
+                                TimeUnit.MILLISECONDS);
+                        break;
+                    } catch (TimeoutException e) {
+                        deadline.check(name + " queue");
+                    }
+                }
+            } catch (RuntimeException | InterruptedException | ExecutionException e) {
+                abandon(waiter);
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting in " + name + " queue", e);
+                }
+                if (e instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw new IOException(e);
+            }
+            registry.timer(QUEUE_WAIT_METRIC, "stage", name, "class", ticket.priority().name().toLowerCase())
+                    .record(Duration.ofNanos(System.nanoTime() - enqueued));
+        }
+
+        private synchronized void abandon(Waiter waiter) {
+            if (queues.get(waiter.ticket.priority()).remove(waiter)) {
+                waiting--;
+            } else if (waiter.admitted.isDone()) {
+                // zwischen Zulassung und Abbruch: Slot wieder freigeben
+                release(waiter.ticket);
+            }
+        }
+
+        private synchronized void release(RenderTicket ticket) {
+            running--;
+            decrement(runningPerTemplate, ticket.template());
+            decrement(runningPerCaller, ticket.caller());
+            dispatch();
+        }
+
+        /**
+         * Admits waiting jobs while slots are free, the eligible job with the smallest finish tag first.
+         */
+        private void dispatch() {
+            while (running < maxConcurrent) {
+                Waiter next = null;
+                for (Deque<Waiter> queue : queues.values()) {
+                    for (Waiter candidate : queue) {
+                        if (withinCaps(candidate.ticket)) {
+                            if (next == null || candidate.tag < next.tag) {
+                                next = candidate;
+                            }
+                            // innerhalb einer Klasse steigen die Tags, der erste zulässige genügt
+                            break;
+                        }
+                    }
+                }
+                if (next == null) {
+                    return;
+                }
+                queues.get(next.ticket.priority()).remove(next);
+                waiting--;
+                running++;
+                virtualTime = Math.max(virtualTime, next.tag);
+                increment(runningPerTemplate, next.ticket.template());
+                increment(runningPerCaller, next.ticket.caller());
+                next.admitted.complete(null);
+            }
+        }
+
+        private boolean hasCapacityFor(RenderTicket ticket) {
+            return running < maxConcurrent && withinCaps(ticket);
+        }
+
+        private boolean withinCaps(RenderTicket ticket) {
+            if (ticket.template() != null) {
+                Optional<Integer> cap = templateCap.apply(ticket.template());
+                if (cap.isPresent() && runningPerTemplate.getOrDefault(ticket.template(), 0) >= cap.get()) {
+                    return false;
+                }
+            }
+            return ticket.caller() == null || callerCap.isEmpty()
+                    || runningPerCaller.getOrDefault(ticket.caller(), 0) < callerCap.get();
+        }
+
+        private static void increment(Map<String, Integer> counts, String key) {
+            if (key != null) {
+                counts.merge(key, 1, Integer::sum);
+            }
+        }
+
+        private static void decrement(Map<String, Integer> counts, String key) {
+            if (key != null) {
+                counts.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+            }
+        }
+
+        private WebApplicationException rejected() {
+            long retryAfter = retryAfterSeconds();
+            logger.warn("Rejecting render: {} queue full ({} waiting), retry after {} s", name, waiting, retryAfter);
+            return new WebApplicationException(Response.status(Response.Status.TOO_MANY_REQUESTS)
+                    .header("Retry-After", retryAfter)
+                    .entity("Render service overloaded (" + name + " queue full)")
+                    .build());
+        }
+
+        /**
+         * Time until the current queue has drained: queue depth times service time, spread over the
+         * concurrent slots; at least one second.
+         */
+        synchronized long retryAfterSeconds() {
+            double drainMillis = (waiting + 1) * serviceMillis / maxConcurrent;
+            return Math.max(1, (long) Math.ceil(drainMillis / 1000));
+        }
+
+        synchronized boolean saturated() {
+            return running >= maxConcurrent && waiting >= maxQueue;
+        }
+
+        synchronized int waiting() {
+            return waiting;
+        }
+
+        synchronized int running() {
+            return running;
+        }
+    }
+
+    private static final class Waiter {
+        final RenderTicket ticket;
+        final double tag;
+        final CompletableFuture<Void> admitted = new CompletableFuture<>();
+
+        Waiter(RenderTicket ticket, double tag) {
+            this.ticket = ticket;
+            this.tag = tag;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package io.github.flaechsig.blocpress.render;
+
+import io.github.flaechsig.blocpress.core.Deadline;
+import io.github.flaechsig.blocpress.core.LibreOfficeProcessor;
+import io.github.flaechsig.blocpress.core.OutputFormat;
+import io.github.flaechsig.blocpress.core.PdfExportProfile;
+import io.github.flaechsig.blocpress.core.RenderCancelledException;
+import io.github.flaechsig.blocpress.core.odt.OdtDocumentSplitter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.multipdf.PDFMergerUtility;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Converts large merged documents to PDF in parallel chunks.
+ *
+ * The document is split at section, repeat-group or mail-merge record boundaries
+ * ({@link OdtDocumentSplitter}), the chunks are converted by separate soffice processes on a bounded
+ * pool and the resulting PDFs are stitched together with PDFBox, keeping bookmarks of all chunks.
+ * Every chunk conversion can be run in its own slot of the conversion stage ({@link AdmissionControl}), so the
+ * parallel soffice processes count against the capacity of the stage.
+ *
+ * If the document shows page numbers or the page count, a second conversion pass is needed: the page
+ * counts of the first pass determine the start page of every chunk and the total page count.
+ *
+ * Splitting is enabled per template with {@code blocpress.render.templates."<name>".split-threshold}.
+ */
+@ApplicationScoped
+public class ChunkedPdfConverter {
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedPdfConverter.class);
+    /** Base directory of the LibreOffice user profiles, one per converting thread. */
+    static final Path PROFILE_BASE = Path.of(System.getProperty("user.home"), ".blocpress", "profiles");
+
+    /**
+     * Converts one chunk to PDF using the given LibreOffice profile directory.
+     */
+    @FunctionalInterface
+    interface ChunkConverter {
+        byte[] convert(byte[] odt, Path userInstallation, PdfExportProfile pdfProfile, Deadline deadline) throws IOException;
+    }
+
+    /**
+     * Runs one chunk conversion, e.g. in a slot of the conversion stage of the {@link AdmissionControl}.
+     */
+    @FunctionalInterface
+    interface ChunkSlot {
+        byte[] run(AdmissionControl.Work<byte[]> conversion) throws IOException;
+    }
+
+    @Inject
+    TemplateRenderConfig templateConfig;
+
+    @ConfigProperty(name = "blocpress.render.split.parallelism", defaultValue = "4")
+    int parallelism = 4;
+
+    ChunkConverter converter = (odt, userInstallation, pdfProfile, deadline) ->
+            LibreOfficeProcessor.refreshAndTransform(odt, OutputFormat.PDF, userInstallation, pdfProfile, deadline);
+
+    @ConfigProperty(name = StubConverter.LATENCY_PROPERTY)
+    Optional<Duration> stubLatency = Optional.empty();
+
+    private ExecutorService executor;
+
+    public ChunkedPdfConverter() {
+    }
+
+    ChunkedPdfConverter(int parallelism, ChunkConverter converter, TemplateRenderConfig templateConfig) {
+        this.parallelism = parallelism;
+        this.converter = converter;
+        this.templateConfig = templateConfig;
+        init();
+    }
+
+    @PostConstruct
+    void init() {
+        stubLatency.ifPresent(latency -> {
+            StubConverter stub = new StubConverter(latency);
+            converter = (odt, userInstallation, pdfProfile, deadline) -> stub.convertChunk(odt, deadline);
+        });
+        AtomicInteger threads = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "blocpress-chunk-" + threads.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * @return {@code true} if documents of this template and size should be converted in chunks
+     */
+    public boolean appliesTo(String templateName, int documentSize) {
+        return templateConfig.forTemplate(templateName)
+                .flatMap(TemplateRenderConfig.TemplateOptions::splitThreshold)
+                .map(threshold -> documentSize >= threshold.asLongValue())
+                .orElse(false);
+    }
+
+    /**
+     * Converts a merged ODT document to PDF.
+     *
+     * @param odt merged ODT document
+     * @return the PDF of the whole document
+     * @throws IOException if a chunk could not be converted
+     */
+    public byte[] convert(byte[] odt) throws IOException {
+        return convert(odt, null);
+    }
+
+    /**
+     * Converts a merged ODT document to PDF with export options. The stitched document is not PDF/A
+     * conformant, so PDF/A profiles should not be split.
+     *
+     * @param odt        merged ODT document
+     * @param pdfProfile PDF export options for every chunk, {@code null} for the LibreOffice defaults
+     * @return the PDF of the whole document
+     * @throws IOException if a chunk could not be converted
+     */
+    public byte[] convert(byte[] odt, PdfExportProfile pdfProfile) throws IOException {
+        return convert(odt, pdfProfile, Deadline.none());
+    }
+
+    /**
+     * Converts a merged ODT document to PDF with export options. All chunk conversions are killed when the
+     * deadline passes or the render is cancelled.
+     *
+     * @param odt        merged ODT document
+     * @param pdfProfile PDF export options for every chunk, {@code null} for the LibreOffice defaults
+     * @param deadline   deadline of the render
+     * @return the PDF of the whole document
+     * @throws IOException              if a chunk could not be converted
+     * @throws RenderCancelledException if the deadline passed or the render was cancelled
+     */
+    public byte[] convert(byte[] odt, PdfExportProfile pdfProfile, Deadline deadline) throws IOException {
+        return convert(odt, pdfProfile, deadline, AdmissionControl.Work::call);
+    }
+
+    /**
+     * Converts a merged ODT document to PDF, every chunk within a slot acquired from {@code slot}.
+     *
+     * @param slot runs a chunk conversion once a slot is free
+     * @throws IOException              if a chunk could not be converted
+     * @throws RenderCancelledException if the deadline passed or the render was cancelled
+     */
+    public byte[] convert(byte[] odt, PdfExportProfile pdfProfile, Deadline deadline, ChunkSlot slot)
+            throws IOException {
+        List<byte[]> chunks = OdtDocumentSplitter.split(odt, parallelism);
+        logger.debug("Converting document of {} bytes in {} chunk(s)", odt.length, chunks.size());
+
+        List<byte[]> pdfs = convertAll(chunks, pdfProfile, deadline, slot);
+        if (chunks.size() > 1 && OdtDocumentSplitter.hasPageFields(odt)) {
+            List<Integer> pages = new ArrayList<>();
+            for (byte[] pdf : pdfs) {
+                pages.add(pageCount(pdf));
+            }
+            int total = pages.stream().mapToInt(Integer::intValue).sum();
+
+            List<byte[]> renumbered = new ArrayList<>();
+            int firstPage = 1;
+            for (int i = 0; i < chunks.size(); i++) {
+                renumbered.add(OdtDocumentSplitter.renumber(chunks.get(i), firstPage, total));
+                firstPage += pages.get(i);
+            }
+            logger.debug("Second pass with page numbering for {} pages", total);
+            pdfs = convertAll(renumbered, pdfProfile, deadline, slot);
+        }
+        return stitch(pdfs);
+    }
+
+    private List<byte[]> convertAll(List<byte[]> chunks, PdfExportProfile pdfProfile, Deadline deadline,
+                                    ChunkSlot slot) throws IOException {
+        List<Future<byte[]>> futures = new ArrayList<>();
+        for (byte[] chunk : chunks) {
+            futures.add(executor.submit(() -> {
+                Path profile = PROFILE_BASE.resolve(Thread.currentThread().getName());
+                return slot.run(() -> converter.convert(chunk, profile, pdfProfile, deadline));
+            }));
+        }
+
+        List<byte[]> results = new ArrayList<>();
+        try {
+            for (Future<byte[]> future : futures) {
+                results.add(deadline.await(future, "conversion"));
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Chunk conversion interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                // Abbruch oder 429 der Admission Control
+                throw runtime;
+            }
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        } finally {
+            futures.forEach(f -> f.cancel(true));
+        }
+    }
+
+    /**
+     * Concatenates the PDFs of all chunks. Outlines and page labels of the chunks are merged as well.
+     */
+    static byte[] stitch(List<byte[]> pdfs) throws IOException {
+        if (pdfs.size() == 1) {
+            return pdfs.get(0);
+        }
+        PDFMergerUtility merger = new PDFMergerUtility();
+        for (byte[] pdf : pdfs) {
+            merger.addSource(new ByteArrayInputStream(pdf));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        merger.setDestinationStream(out);
+        merger.mergeDocuments(MemoryUsageSetting.setupMainMemoryOnly());
+        return out.toByteArray();
+    }
+
+    private static int pageCount(byte[] pdf) throws IOException {
+        try (PDDocument document = PDDocument.load(pdf)) {
+            return document.getNumberOfPages();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
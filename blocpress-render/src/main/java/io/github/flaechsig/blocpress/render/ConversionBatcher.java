@@ -0,0 +1,310 @@
+package io.github.flaechsig.blocpress.render;
+
+import io.github.flaechsig.blocpress.core.ConversionResult;
+import io.github.flaechsig.blocpress.core.Deadline;
+import io.github.flaechsig.blocpress.core.LibreOfficeProcessor;
+import io.github.flaechsig.blocpress.core.OutputFormat;
+import io.github.flaechsig.blocpress.core.PdfExportProfile;
+import io.github.flaechsig.blocpress.core.RenderCancelledException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micro-batching collector for LibreOffice conversions.
+ *
+ * Concurrent conversion requests for the same output format and PDF profile are collected for a short
+ * window (default 20 ms) or until the batch is full (default 16 documents) and then
+ * converted with a single soffice invocation via {@link LibreOfficeProcessor#transformBatch}.
+ * Under load this amortises the process start of LibreOffice over many documents.
+ *
+ * Batches are converted by a fixed number of dispatcher threads ({@code blocpress.render.batch.concurrency}), each
+ * with its own LibreOffice user profile: soffice processes sharing a profile hand their work over to the first
+ * running instance or fail on the profile lock, so batches for different formats or PDF profiles would otherwise
+ * not really run in parallel.
+ *
+ * A failing document only fails its own request; the other documents of the batch are
+ * delivered normally. Requests whose deadline passes or that are cancelled leave their batch; the
+ * soffice process of a batch is killed once no request is waiting for it anymore.
+ *
+ * The documents waiting for their batch window are published in the gauge {@value #PENDING_METRIC}.
+ */
+@ApplicationScoped
+public class ConversionBatcher {
+    private static final Logger logger = LoggerFactory.getLogger(ConversionBatcher.class);
+
+    static final String PENDING_METRIC = "blocpress.render.batch.pending";
+
+    /**
+     * Converts a batch of documents to one output format, see {@link LibreOfficeProcessor#transformBatch}.
+     */
+    @FunctionalInterface
+    interface BatchConverter {
+        Map<String, ConversionResult> convert(Map<String, byte[]> inputs, OutputFormat format, PdfExportProfile pdfProfile,
+                                              Path userInstallation, Deadline deadline) throws IOException;
+    }
+
+    @ConfigProperty(name = "blocpress.render.batch.window", defaultValue = "20ms")
+    Duration window = Duration.ofMillis(20);
+
+    @ConfigProperty(name = "blocpress.render.batch.max-size", defaultValue = "16")
+    int maxSize = 16;
+
+    /**
+     * Batches converted at the same time, each by its own soffice process and user profile.
+     */
+    @ConfigProperty(name = "blocpress.render.batch.concurrency", defaultValue = "2")
+    int concurrency = 2;
+
+    BatchConverter converter = LibreOfficeProcessor::transformBatch;
+
+    @ConfigProperty(name = StubConverter.LATENCY_PROPERTY)
+    Optional<Duration> stubLatency = Optional.empty();
+
+    @Inject
+    MeterRegistry registry;
+
+    private final Map<Target, Batch> openBatches = new HashMap<>();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "blocpress-batch-timer");
+        t.setDaemon(true);
+        return t;
+    });
+    private ExecutorService dispatcher;
+    private long sequence;
+
+    public ConversionBatcher() {
+    }
+
+    ConversionBatcher(Duration window, int maxSize, BatchConverter converter) {
+        this(window, maxSize, 2, converter);
+    }
+
+    ConversionBatcher(Duration window, int maxSize, int concurrency, BatchConverter converter) {
+        this.window = window;
+        this.maxSize = maxSize;
+        this.concurrency = concurrency;
+        this.converter = converter;
+    }
+
+    @PostConstruct
+    void init() {
+        stubLatency.ifPresent(latency -> {
+            logger.warn("LibreOffice conversion replaced by stub converter ({} per batch)", latency);
+            StubConverter stub = new StubConverter(latency);
+            converter = (inputs, format, pdfProfile, userInstallation, deadline) ->
+                    stub.convertBatch(inputs, format, deadline);
+        });
+        registry.gauge(PENDING_METRIC, Tags.empty(), this, ConversionBatcher::pendingCount);
+    }
+
+    /**
+     * @return the dispatcher, created on first use since {@link #concurrency} is only known after injection
+     */
+    private synchronized ExecutorService dispatcher() {
+        if (dispatcher == null) {
+            AtomicInteger threads = new AtomicInteger();
+            dispatcher = Executors.newFixedThreadPool(concurrency, r -> {
+                Thread t = new Thread(r, "blocpress-batch-" + threads.getAndIncrement());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return dispatcher;
+    }
+
+    /**
+     * Converts a single document. Blocks until the batch containing the document has been converted.
+     *
+     * @param input  merged ODT document
+     * @param format target format
+     * @return the converted document
+     * @throws IOException if the conversion of this document failed
+     */
+    public byte[] convert(byte[] input, OutputFormat format) throws IOException {
+        return convert(input, format, null);
+    }
+
+    /**
+     * Converts a single document with PDF export options. Only documents with the same options share a batch.
+     *
+     * @param input      merged ODT document
+     * @param format     target format
+     * @param pdfProfile PDF export options, {@code null} for the LibreOffice defaults
+     * @return the converted document
+     * @throws IOException if the conversion of this document failed
+     */
+    public byte[] convert(byte[] input, OutputFormat format, PdfExportProfile pdfProfile) throws IOException {
+        return convert(input, format, pdfProfile, Deadline.none());
+    }
+
+    /**
+     * Converts a single document and stops waiting when the deadline passes or the render is cancelled.
+     *
+     * @param input      merged ODT document
+     * @param format     target format
+     * @param pdfProfile PDF export options, {@code null} for the LibreOffice defaults
+     * @param deadline   deadline of the render
+     * @return the converted document
+     * @throws IOException              if the conversion of this document failed
+     * @throws RenderCancelledException if the deadline passed or the render was cancelled
+     */
+    public byte[] convert(byte[] input, OutputFormat format, PdfExportProfile pdfProfile, Deadline deadline) throws IOException {
+        deadline.check("conversion");
+        CompletableFuture<byte[]> result = submit(input, format, pdfProfile);
+        try {
+            return deadline.await(result, "conversion");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("LibreOffice conversion interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    CompletableFuture<byte[]> submit(byte[] input, OutputFormat format) {
+        return submit(input, format, null);
+    }
+
+    CompletableFuture<byte[]> submit(byte[] input, OutputFormat format, PdfExportProfile pdfProfile) {
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        Batch full = null;
+        // Exportoptionen wirken nur auf PDF
+        Target target = new Target(format, format == OutputFormat.PDF ? pdfProfile : null);
+
+        synchronized (openBatches) {
+            Batch batch = openBatches.get(target);
+            if (batch == null) {
+                batch = new Batch(target);
+                openBatches.put(target, batch);
+                if (!window.isZero() && maxSize > 1) {
+                    Batch scheduled = batch;
+                    timer.schedule(() -> close(scheduled), window.toNanos(), TimeUnit.NANOSECONDS);
+                }
+            }
+            batch.jobs.put("job-" + sequence++, new Job(input, result));
+            if (batch.jobs.size() >= maxSize || window.isZero()) {
+                openBatches.remove(target);
+                full = batch;
+            }
+        }
+
+        if (full != null) {
+            dispatch(full);
+        }
+        return result;
+    }
+
+    private void close(Batch batch) {
+        synchronized (openBatches) {
+            if (openBatches.get(batch.target) != batch) {
+                // bereits wegen Erreichen der maximalen Größe verschickt
+                return;
+            }
+            openBatches.remove(batch.target);
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Batch batch) {
+        dispatcher().execute(() -> {
+            Map<String, byte[]> inputs = new LinkedHashMap<>();
+            // abgebrochene Aufträge (Frist abgelaufen, Client getrennt) werden nicht mehr konvertiert
+            batch.jobs.forEach((name, job) -> {
+                if (!job.result().isDone()) {
+                    inputs.put(name, job.input());
+                }
+            });
+            if (inputs.isEmpty()) {
+                return;
+            }
+            logger.debug("Converting batch of {} document(s) to {}", inputs.size(), batch.target.format());
+
+            Deadline deadline = Deadline.none();
+            CompletableFuture.allOf(batch.jobs.values().stream().map(Job::result).toArray(CompletableFuture[]::new))
+                    .whenComplete((r, e) -> deadline.cancel());
+            try {
+                // je Dispatcher-Thread ein eigenes Profil, damit gleichzeitige Batches sich nicht blockieren
+                Path userInstallation = ChunkedPdfConverter.PROFILE_BASE.resolve(Thread.currentThread().getName());
+                Map<String, ConversionResult> results = converter.convert(inputs, batch.target.format(),
+                        batch.target.pdfProfile(), userInstallation, deadline);
+                batch.jobs.forEach((name, job) -> {
+                    ConversionResult r = results.get(name);
+                    if (r != null && r.isSuccess()) {
+                        job.result().complete(r.content());
+                    } else {
+                        String error = r != null ? r.error() : "No conversion result for " + name;
+                        job.result().completeExceptionally(new IOException(error));
+                    }
+                });
+            } catch (RenderCancelledException e) {
+                logger.debug("Batch conversion of {} document(s) abandoned, no request is waiting", inputs.size());
+            } catch (Exception e) {
+                logger.error("Batch conversion of {} document(s) failed: {}", inputs.size(), e.getMessage());
+                batch.jobs.values().forEach(job -> job.result().completeExceptionally(e));
+            }
+        });
+    }
+
+    /**
+     * @return number of documents waiting for the current batch windows to close
+     */
+    public int pendingCount() {
+        synchronized (openBatches) {
+            return openBatches.values().stream().mapToInt(b -> b.jobs.size()).sum();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        List<Batch> remaining;
+        synchronized (openBatches) {
+            remaining = new ArrayList<>(openBatches.values());
+            openBatches.clear();
+        }
+        remaining.forEach(this::dispatch);
+        timer.shutdownNow();
+        dispatcher().shutdown();
+    }
+
+    private record Target(OutputFormat format, PdfExportProfile pdfProfile) {
+    }
+
+    private static final class Batch {
+        final Target target;
+        final Map<String, Job> jobs = new LinkedHashMap<>();
+
+        Batch(Target target) {
+            this.target = target;
+        }
+    }
+
+    private record Job(byte[] input, CompletableFuture<byte[]> result) {
+    }
+}
@@ -0,0 +1,25 @@
+package io.github.flaechsig.blocpress.render;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.Readiness;
+
+/**
+ * Reports the node as not ready while the conversion queue is full, see {@link AdmissionControl}.
+ */
+@Readiness
+@ApplicationScoped
+public class ConverterReadinessCheck implements HealthCheck {
+
+    @Inject
+    AdmissionControl admissionControl;
+
+    @Override
+    public HealthCheckResponse call() {
+        return HealthCheckResponse.named("converter")
+                .status(!admissionControl.converterSaturated())
+                .build();
+    }
+}
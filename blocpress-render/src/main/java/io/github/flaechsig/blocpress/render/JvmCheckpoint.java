@@ -0,0 +1,72 @@
+package io.github.flaechsig.blocpress.render;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.crac.Context;
+import org.crac.Core;
+import org.crac.Resource;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Checkpoint/restore of the warmed-up render JVM (CRaC).
+ *
+ * On a JVM with CRaC support started with {@code -XX:CRaCCheckpointTo}, {@code blocpress.render.checkpoint.after-warmup}
+ * takes the checkpoint as soon as the {@link TemplateWarmup} is finished; the image restored with
+ * {@code -XX:CRaCRestoreFrom} then serves with loaded classes, compiled code and LibreOffice profile within a
+ * second or two (see {@code Dockerfile.crac}). Before the checkpoint the idle merge worker processes are stopped and
+ * the database connections closed, since neither can be part of the image. After the restore the template timelines
+ * and pins are dropped: the image may be older than the active templates. On other JVMs the checkpoint is skipped.
+ */
+@ApplicationScoped
+public class JvmCheckpoint implements Resource {
+    private static final Logger logger = LoggerFactory.getLogger(JvmCheckpoint.class);
+
+    @Inject
+    MergeWorkerPool mergeWorkers;
+
+    @Inject
+    TemplateCache templateCache;
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @ConfigProperty(name = "blocpress.render.checkpoint.after-warmup", defaultValue = "false")
+    boolean afterWarmup = false;
+
+    void onStart(@Observes StartupEvent event) {
+        Core.getGlobalContext().register(this);
+    }
+
+    /**
+     * Takes the checkpoint if configured; returns in the restored JVM (or immediately if no checkpoint is taken).
+     */
+    void warmedUp() {
+        if (!afterWarmup) {
+            return;
+        }
+        try {
+            logger.info("Taking JVM checkpoint after warm-up");
+            Core.checkpointRestore();
+            logger.info("JVM restored from checkpoint");
+        } catch (Exception e) {
+            // ohne CRaC-JVM oder -XX:CRaCCheckpointTo läuft der Dienst einfach weiter
+            logger.warn("JVM checkpoint failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void beforeCheckpoint(Context<? extends Resource> context) {
+        mergeWorkers.stopIdle();
+        dataSource.flush(AgroalDataSource.FlushMode.ALL);
+    }
+
+    @Override
+    public void afterRestore(Context<? extends Resource> context) {
+        templateCache.invalidateAll();
+    }
+}
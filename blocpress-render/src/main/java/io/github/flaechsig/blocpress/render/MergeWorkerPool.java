@@ -0,0 +1,252 @@
+package io.github.flaechsig.blocpress.render;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.flaechsig.blocpress.core.Deadline;
+import io.github.flaechsig.blocpress.core.RenderEngine;
+import io.github.flaechsig.blocpress.core.worker.MergeWorker;
+import io.quarkus.runtime.ImageMode;
+import io.quarkus.runtime.configuration.MemorySize;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merges oversized documents in separate worker JVMs.
+ *
+ * Jobs whose data is at least {@code blocpress.render.workers.threshold} large are sent to a pool of local
+ * {@link MergeWorker} processes with their own heap ({@code blocpress.render.workers.max-heap}), connected via
+ * their stdin/stdout pipes. The garbage of giant documents then stays out of the render JVM, which keeps a small
+ * heap and short GC pauses for the many small requests. A worker is replaced after
+ * {@code blocpress.render.workers.max-jobs} jobs, when its committed heap grows beyond
+ * {@code blocpress.render.workers.recycle-heap}, when it breaks the protocol or when a render it works on is
+ * cancelled. The native image has no class path to start workers from; there all jobs are merged in process.
+ */
+@ApplicationScoped
+public class MergeWorkerPool {
+    private static final Logger logger = LoggerFactory.getLogger(MergeWorkerPool.class);
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    @ConfigProperty(name = "blocpress.render.workers.enabled", defaultValue = "false")
+    boolean enabled = false;
+
+    @ConfigProperty(name = "blocpress.render.workers.threshold", defaultValue = "1M")
+    MemorySize threshold = new MemorySize(BigInteger.valueOf(1024L * 1024));
+
+    @ConfigProperty(name = "blocpress.render.workers.size", defaultValue = "2")
+    int size = 2;
+
+    @ConfigProperty(name = "blocpress.render.workers.max-heap", defaultValue = "2g")
+    String maxHeap = "2g";
+
+    @ConfigProperty(name = "blocpress.render.workers.max-jobs", defaultValue = "50")
+    int maxJobs = 50;
+
+    @ConfigProperty(name = "blocpress.render.workers.recycle-heap", defaultValue = "1G")
+    MemorySize recycleHeap = new MemorySize(BigInteger.valueOf(1024L * 1024 * 1024));
+
+    /**
+     * Class path of the worker JVM. Not set: the directory of the blocpress-core jar (all libraries of the
+     * application), or the class path of the render JVM when running from classes.
+     */
+    @ConfigProperty(name = "blocpress.render.workers.classpath")
+    Optional<String> classpath = Optional.empty();
+
+    private final Deque<Worker> idle = new ConcurrentLinkedDeque<>();
+    private final Set<Worker> started = ConcurrentHashMap.newKeySet();
+    private Semaphore slots;
+    private ExecutorService exchanges;
+
+    public MergeWorkerPool() {
+    }
+
+    MergeWorkerPool(long threshold, int size, String maxHeap, int maxJobs, long recycleHeap) {
+        this.enabled = true;
+        this.threshold = new MemorySize(BigInteger.valueOf(threshold));
+        this.size = size;
+        this.maxHeap = maxHeap;
+        this.maxJobs = maxJobs;
+        this.recycleHeap = new MemorySize(BigInteger.valueOf(recycleHeap));
+        init();
+    }
+
+    @PostConstruct
+    void init() {
+        if (enabled && ImageMode.current() == ImageMode.NATIVE_RUN) {
+            logger.warn("Merge workers are not available in the native image, merging in process");
+            enabled = false;
+        }
+        slots = new Semaphore(size, true);
+        exchanges = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        started.forEach(Worker::stop);
+        exchanges.shutdownNow();
+    }
+
+    /**
+     * Stops the idle worker processes; busy workers finish their job. New workers are started on demand.
+     */
+    void stopIdle() {
+        Worker worker;
+        while ((worker = idle.poll()) != null) {
+            worker.stop();
+        }
+    }
+
+    /**
+     * Tells whether a job with this much data is merged by a worker.
+     *
+     * @param dataBytes size of the data records as serialized JSON, see {@link RenderMetrics#dataSize}
+     */
+    public boolean accepts(long dataBytes) {
+        return enabled && dataBytes >= threshold.asLongValue();
+    }
+
+    /**
+     * Merges the template in a worker process, see {@link RenderEngine#mergeTemplate} and
+     * {@link RenderEngine#mailMerge}. Waits for a free worker until the deadline passes.
+     *
+     * @param template  the template, must be readable by the worker process
+     * @param mailMerge merge all records into one document, otherwise only the first record is used
+     * @return the merged ODT document
+     */
+    public byte[] merge(URL template, List<JsonNode> records, boolean mailMerge, Deadline deadline) throws IOException {
+        try {
+            while (!slots.tryAcquire(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                deadline.check("merge worker queue");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Waiting for a merge worker interrupted", e);
+        }
+        try {
+            Worker worker = Optional.ofNullable(idle.poll()).orElseGet(this::start);
+            var job = new MergeWorker.Job(template, records, mailMerge, deadline.remaining());
+            MergeWorker.Result result = exchange(worker, job, deadline);
+            if (++worker.jobs < maxJobs && result.heapCommitted() < recycleHeap.asLongValue()) {
+                idle.push(worker);
+            } else {
+                logger.info("Recycling merge worker {} after {} jobs, {} bytes heap",
+                        worker.process.pid(), worker.jobs, result.heapCommitted());
+                worker.stop();
+            }
+            return result.get();
+        } finally {
+            slots.release();
+        }
+    }
+
+    /**
+     * Sends the job and waits for the answer. The worker is stopped if the exchange does not complete, so that
+     * no half-read answer is left in its pipe.
+     */
+    private MergeWorker.Result exchange(Worker worker, MergeWorker.Job job, Deadline deadline) throws IOException {
+        Future<MergeWorker.Result> answer = exchanges.submit(() -> {
+            MergeWorker.writeJob(worker.in, job);
+            worker.in.flush();
+            return MergeWorker.readResult(worker.out);
+        });
+        boolean completed = false;
+        try {
+            MergeWorker.Result result = deadline.await(answer, "merge worker");
+            completed = true;
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Merge worker interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Merge worker " + worker.process.pid() + " failed: " + e.getCause().getMessage(),
+                    e.getCause());
+        } finally {
+            if (!completed) {
+                worker.stop();
+            }
+        }
+    }
+
+    /**
+     * @return the number of running worker processes
+     */
+    int workers() {
+        return started.size();
+    }
+
+    private Worker start() {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Xmx" + maxHeap);
+        command.add("-cp");
+        command.add(classpath.orElseGet(MergeWorkerPool::defaultClasspath));
+        command.add(MergeWorker.class.getName());
+        try {
+            Process process = new ProcessBuilder(command)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            Worker worker = new Worker(process);
+            started.add(worker);
+            logger.info("Started merge worker {} with heap {}", process.pid(), maxHeap);
+            return worker;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot start merge worker: " + command, e);
+        }
+    }
+
+    private static String defaultClasspath() {
+        try {
+            Path core = Path.of(RenderEngine.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            if (Files.isRegularFile(core)) {
+                return core.getParent() + File.separator + "*";
+            }
+        } catch (Exception e) {
+            logger.debug("Location of blocpress-core unknown, using class path of the render JVM", e);
+        }
+        return System.getProperty("java.class.path");
+    }
+
+    private final class Worker {
+        final Process process;
+        final DataOutputStream in;
+        final DataInputStream out;
+        int jobs;
+
+        Worker(Process process) {
+            this.process = process;
+            this.in = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+            this.out = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+        }
+
+        void stop() {
+            started.remove(this);
+            process.destroyForcibly();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package io.github.flaechsig.blocpress.render;
+
+import io.github.flaechsig.blocpress.core.pdf.OverlayTemplate;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import org.apache.commons.jexl3.JexlArithmetic;
+
+/**
+ * Classes of the libraries that are only reached reflectively and therefore have to be registered for the native
+ * image. Quarkus registers the REST and entity types itself; the ODF DOM classes are registered by
+ * {@link OdfdomFeature}, the resource bundles in {@code META-INF/native-image}.
+ */
+@RegisterForReflection(targets = {
+        // JSON-Spalte overlay von ProductionTemplate (Hibernate/Jackson)
+        OverlayTemplate.class,
+        OverlayTemplate.Field.class,
+        // JEXL sucht Operator-Überladungen per Introspektion
+        JexlArithmetic.class,
+        // verschachtelte Antworttypen von TemplateCacheResource (Jackson)
+        TemplateCache.HeapStats.class,
+        TemplateCache.EntryInfo.class,
+        TemplateCache.TimelineInfo.class,
+        TemplateDiskStore.Stats.class,
+        TemplateDiskStore.Entry.class
+}, classNames = {
+        // Xerces lädt Parser-Konfiguration und Datentyp-Fabriken über seine ObjectFactory
+        "org.apache.xerces.parsers.XIncludeAwareParserConfiguration",
+        "org.apache.xerces.parsers.XML11Configuration",
+        "org.apache.xerces.impl.dv.dtd.DTDDVFactoryImpl",
+        "org.apache.xerces.impl.dv.dtd.XML11DTDDVFactoryImpl",
+        "org.apache.xerces.impl.dv.xs.SchemaDVFactoryImpl",
+        "org.apache.xerces.impl.dv.xs.ExtendedSchemaDVFactoryImpl",
+        // LSSerializer beim Speichern des ODF-Pakets und die Ausgabe-Handler des Xalan-Serializers
+        "org.apache.xml.serializer.dom3.LSSerializerImpl",
+        "org.apache.xml.serializer.ToXMLStream",
+        "org.apache.xml.serializer.ToHTMLStream",
+        "org.apache.xml.serializer.ToTextStream",
+        "org.apache.xml.serializer.ToUnknownStream",
+        "org.apache.xml.serializer.utils.SerializerMessages"
+})
+final class NativeImageReflection {
+    private NativeImageReflection() {
+    }
+}
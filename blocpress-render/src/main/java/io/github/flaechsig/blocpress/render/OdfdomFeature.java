@@ -0,0 +1,71 @@
+package io.github.flaechsig.blocpress.render;
+
+import org.graalvm.nativeimage.hosted.Feature;
+import org.graalvm.nativeimage.hosted.RuntimeReflection;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Constructor;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Registers the ODF DOM node classes of odfdom for reflection when building the native image.
+ *
+ * odfdom creates the nodes of a parsed document by name: {@code OdfXMLFactory} derives the class name from the
+ * qualified XML name and calls its {@code (OdfFileDom)} constructor reflectively. Listing the more than thousand
+ * element and attribute classes by hand would break with every odfdom update, so the image build scans the odfdom
+ * jar and registers every class with such a constructor. Enabled by {@code quarkus.native.additional-build-args}.
+ */
+public class OdfdomFeature implements Feature {
+    private static final String FILE_DOM = "org.odftoolkit.odfdom.pkg.OdfFileDom";
+    private static final String PACKAGE = "org/odftoolkit/odfdom/";
+
+    @Override
+    public void beforeAnalysis(BeforeAnalysisAccess access) {
+        Class<?> fileDom = access.findClassByName(FILE_DOM);
+        if (fileDom == null) {
+            throw new IllegalStateException(FILE_DOM + " not on the image class path");
+        }
+        for (String name : classNames(fileDom)) {
+            Class<?> type = access.findClassByName(name);
+            if (type != null) {
+                register(type, fileDom);
+            }
+        }
+    }
+
+    private static void register(Class<?> type, Class<?> fileDom) {
+        try {
+            Constructor<?> constructor = type.getConstructor(fileDom);
+            RuntimeReflection.register(type);
+            RuntimeReflection.register(constructor);
+        } catch (NoSuchMethodException | LinkageError e) {
+            // keine DOM-Klasse, oder sie verweist auf optionale Abhängigkeiten
+        }
+    }
+
+    /**
+     * @return the names of all classes of the odfdom jar
+     */
+    private static List<String> classNames(Class<?> fileDom) {
+        Path jar;
+        try {
+            jar = Path.of(fileDom.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Location of odfdom unknown", e);
+        }
+        try (JarFile file = new JarFile(jar.toFile())) {
+            return file.stream()
+                    .map(JarEntry::getName)
+                    .filter(n -> n.startsWith(PACKAGE) && n.endsWith(".class"))
+                    .map(n -> n.substring(0, n.length() - ".class".length()).replace('/', '.'))
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot scan " + jar, e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.flaechsig.blocpress.render;
+
+import io.github.flaechsig.blocpress.core.PdfExportProfile;
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Named PDF export profiles, e.g.
+ * <pre>
+ * blocpress.render.pdf.profiles."web".max-image-resolution=150
+ * blocpress.render.pdf.profiles."web".jpeg-quality=75
+ * blocpress.render.pdf.profiles."archive".pdf-a=2
+ * blocpress.render.pdf.default-profile=web
+ * </pre>
+ */
+@ConfigMapping(prefix = "blocpress.render.pdf")
+public interface PdfProfileConfig {
+
+    /**
+     * Profile used when neither the request nor the template selects one. Not set: LibreOffice defaults.
+     */
+    Optional<String> defaultProfile();
+
+    Map<String, Profile> profiles();
+
+    interface Profile {
+
+        /**
+         * Images are downsampled to this resolution (DPI). Not set: original resolution.
+         */
+        Optional<Integer> maxImageResolution();
+
+        @WithDefault("90")
+        int jpegQuality();
+
+        @WithDefault("false")
+        boolean losslessImages();
+
+        /**
+         * PDF/A part 1, 2 or 3 (conformance level b); 0 for plain PDF.
+         */
+        @WithDefault("0")
+        int pdfA();
+
+        @WithDefault("false")
+        boolean tagged();
+
+        @WithDefault("false")
+        boolean embedStandardFonts();
+
+        default PdfExportProfile toExportProfile() {
+            return new PdfExportProfile(maxImageResolution().orElse(null), jpegQuality(), losslessImages(), pdfA(),
+                    tagged(), embedStandardFonts());
+        }
+    }
+}
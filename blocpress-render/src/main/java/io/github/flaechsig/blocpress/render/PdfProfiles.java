@@ -0,0 +1,65 @@
+package io.github.flaechsig.blocpress.render;
+
+import io.github.flaechsig.blocpress.core.PdfExportProfile;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Selects the PDF export profile of a render request: the profile named in the request, otherwise the
+ * profile configured for the template ({@code blocpress.render.templates."<name>".pdf-profile}), otherwise
+ * {@code blocpress.render.pdf.default-profile}.
+ */
+@ApplicationScoped
+public class PdfProfiles {
+
+    @Inject
+    PdfProfileConfig config;
+
+    @Inject
+    TemplateRenderConfig templateConfig;
+
+    private Map<String, PdfExportProfile> profiles;
+    private String defaultProfile;
+
+    public PdfProfiles() {
+    }
+
+    PdfProfiles(Map<String, PdfExportProfile> profiles, String defaultProfile, TemplateRenderConfig templateConfig) {
+        this.profiles = profiles;
+        this.defaultProfile = defaultProfile;
+        this.templateConfig = templateConfig;
+    }
+
+    @PostConstruct
+    void init() {
+        profiles = new HashMap<>();
+        config.profiles().forEach((name, profile) -> profiles.put(name, profile.toExportProfile()));
+        defaultProfile = config.defaultProfile().orElse(null);
+    }
+
+    /**
+     * @param requested    profile name from the request, may be {@code null}
+     * @param templateName name of the stored template, {@code null} for templates sent with the request
+     * @return the export options, {@code null} for the LibreOffice defaults
+     * @throws IllegalArgumentException if the selected profile is not configured
+     */
+    public PdfExportProfile resolve(String requested, String templateName) {
+        String name = Optional.ofNullable(requested)
+                .filter(n -> !n.isBlank())
+                .or(() -> templateConfig.forTemplate(templateName).flatMap(TemplateRenderConfig.TemplateOptions::pdfProfile))
+                .orElse(defaultProfile);
+        if (name == null) {
+            return null;
+        }
+        PdfExportProfile profile = profiles.get(name);
+        if (profile == null) {
+            throw new IllegalArgumentException("Unknown PDF profile: " + name);
+        }
+        return profile;
+    }
+}
@@ -1,16 +1,22 @@
 package io.github.flaechsig.blocpress.render;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.flaechsig.blocpress.core.pdf.OverlayTemplate;
 import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
 import jakarta.persistence.Basic;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Query;
 import jakarta.persistence.Table;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -22,12 +28,21 @@ import java.util.UUID;
 @Table(name = "template")
 public class ProductionTemplate extends PanacheEntityBase {
 
+    /** Columns read into an {@link Activation}, without the content. */
+    private static final String ACTIVATION_COLUMNS = "id, name, version, valid_from, content_hash";
+
+    /** Current database time in UTC, comparable with {@code valid_from} regardless of the session time zone. */
+    private static final String NOW_UTC = "(CURRENT_TIMESTAMP AT TIME ZONE 'UTC')";
+
     @Id
     public UUID id;
 
     @Column(nullable = false)
     public String name;
 
+    /**
+     * Activation time in UTC.
+     */
     @Column(name = "valid_from", nullable = false)
     public LocalDateTime validFrom;
 
@@ -39,6 +54,31 @@ public class ProductionTemplate extends PanacheEntityBase {
     @JdbcTypeCode(SqlTypes.VARBINARY)
     public byte[] content;
 
+    /**
+     * SHA-256 of the content (hex), set at import; lets the template cache detect changed content without
+     * reading or hashing the content.
+     */
+    @Column(name = "content_hash", nullable = false, length = 64)
+    public String contentHash;
+
+    /**
+     * Pre-converted PDF with field positions for layout-stable templates (overlay mode),
+     * {@code null} if the template is always converted by LibreOffice.
+     */
+    @Basic(fetch = FetchType.LAZY)
+    @Column(columnDefinition = "jsonb")
+    @JdbcTypeCode(SqlTypes.JSON)
+    public OverlayTemplate overlay;
+
+    /**
+     * Data record used for the warm-up renders at startup (taken from the workbench test data),
+     * {@code null} if the template was imported without test data.
+     */
+    @Basic(fetch = FetchType.LAZY)
+    @Column(name = "sample_data", columnDefinition = "jsonb")
+    @JdbcTypeCode(SqlTypes.JSON)
+    public JsonNode sampleData;
+
     /**
      * Finds the currently active template by name.
      * Returns the template with the highest version for the most recent valid_from <= now().
@@ -48,7 +88,134 @@ public class ProductionTemplate extends PanacheEntityBase {
      * @return Currently active template, or null if not found
      */
     public static ProductionTemplate findLatestActiveByName(String name) {
-        return find("name = ?1 AND valid_from <= CURRENT_TIMESTAMP ORDER BY valid_from DESC, version DESC", name)
+        return find("name = ?1 AND validFrom <= ?2 ORDER BY validFrom DESC, version DESC",
+                name, LocalDateTime.now(ZoneOffset.UTC))
                 .firstResult();
     }
+
+    /**
+     * Finds the activation timeline of a template without transferring the content: all scheduled versions and the
+     * versions activated since one hour before now, including the one active at that time. The extra hour lets the
+     * caller resolve the active version with its own clock (see {@link #findLatestActiveByName}) even if it is
+     * behind the database clock. Ordered by valid_from and version, latest first.
+     *
+     * @param name Template name
+     * @return the activations, empty if there is no template with this name
+     */
+    public static List<Activation> findActivationsByName(String name) {
+        List<?> rows = getEntityManager()
+                .createNativeQuery("SELECT " + ACTIVATION_COLUMNS + " FROM template "
+                        + "WHERE name = ?1 AND valid_from >= COALESCE((SELECT MAX(valid_from) FROM template "
+                        + "WHERE name = ?1 AND valid_from <= " + NOW_UTC + " - INTERVAL '1 hour'), '-infinity') "
+                        + "ORDER BY valid_from DESC, version DESC")
+                .setParameter(1, name)
+                .getResultList();
+        return rows.stream().map(r -> activation((Object[]) r)).toList();
+    }
+
+    /**
+     * Finds an activated template version by id, without transferring the content. Rows are immutable per id, so
+     * the result can be cached for good once the version is active.
+     *
+     * @param id Template id
+     * @return the activation, or null if not found or scheduled later
+     */
+    public static Activation findActivationById(UUID id) {
+        return activation(getEntityManager()
+                .createNativeQuery("SELECT " + ACTIVATION_COLUMNS + " FROM template "
+                        + "WHERE id = ?1 AND valid_from <= " + NOW_UTC)
+                .setParameter(1, id));
+    }
+
+    /**
+     * Finds an activated version of a template by its version number, without transferring the content. Version
+     * numbers start at 1 for each valid_from, so the latest activated row with this number is used.
+     *
+     * @param name    Template name
+     * @param version Template version
+     * @return the activation, or null if not found or scheduled later
+     */
+    public static Activation findActivationByVersion(String name, int version) {
+        return activation(getEntityManager()
+                .createNativeQuery("SELECT " + ACTIVATION_COLUMNS + " FROM template "
+                        + "WHERE name = ?1 AND version = ?2 AND valid_from <= " + NOW_UTC + " "
+                        + "ORDER BY valid_from DESC LIMIT 1")
+                .setParameter(1, name)
+                .setParameter(2, version));
+    }
+
+    /**
+     * @return the content of the template, or null if not found
+     */
+    public static byte[] findContent(UUID id) {
+        return getEntityManager()
+                .createQuery("SELECT t.content FROM ProductionTemplate t WHERE t.id = ?1", byte[].class)
+                .setParameter(1, id)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * @return the overlay of the template, or null if it has none
+     */
+    public static OverlayTemplate findOverlay(UUID id) {
+        return getEntityManager()
+                .createQuery("SELECT t.overlay FROM ProductionTemplate t WHERE t.id = ?1", OverlayTemplate.class)
+                .setParameter(1, id)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * @return the warm-up data record of the template, or null if it has none
+     */
+    public static JsonNode findSampleData(UUID id) {
+        return getEntityManager()
+                .createQuery("SELECT t.sampleData FROM ProductionTemplate t WHERE t.id = ?1", JsonNode.class)
+                .setParameter(1, id)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Finds the names of the currently active templates, most recently activated first.
+     *
+     * @param limit maximum number of names
+     * @return names of templates with a valid_from <= now()
+     */
+    public static List<String> findActiveNames(int limit) {
+        return getEntityManager()
+                .createQuery("SELECT t.name FROM ProductionTemplate t WHERE t.validFrom <= ?1 "
+                        + "GROUP BY t.name ORDER BY MAX(t.validFrom) DESC", String.class)
+                .setParameter(1, LocalDateTime.now(ZoneOffset.UTC))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private static Activation activation(Query query) {
+        List<?> rows = query.getResultList();
+        return rows.isEmpty() ? null : activation((Object[]) rows.get(0));
+    }
+
+    private static Activation activation(Object[] row) {
+        LocalDateTime validFrom = row[3] instanceof Timestamp timestamp
+                ? timestamp.toLocalDateTime() : (LocalDateTime) row[3];
+        return new Activation((UUID) row[0], (String) row[1], ((Number) row[2]).intValue(), validFrom,
+                (String) row[4]);
+    }
+
+    /**
+     * One version of a template with the time it becomes active.
+     *
+     * @param id          template id
+     * @param name        template name
+     * @param version     template version
+     * @param validFrom   activation time
+     * @param contentHash SHA-256 of the content (hex), key of the {@link TemplateDiskStore}
+     */
+    public record Activation(UUID id, String name, int version, LocalDateTime validFrom, String contentHash) {
+    }
 }
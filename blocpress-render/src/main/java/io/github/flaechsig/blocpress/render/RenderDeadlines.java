@@ -0,0 +1,99 @@
+package io.github.flaechsig.blocpress.render;
+
+import io.github.flaechsig.blocpress.core.Deadline;
+import io.github.flaechsig.blocpress.core.RenderCancelledException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.vertx.http.runtime.CurrentVertxRequest;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+/**
+ * Creates the {@link Deadline} of a render request: the timeout in milliseconds from the {@value #TIMEOUT_HEADER}
+ * header, otherwise the timeout configured for the template ({@code blocpress.render.templates."<name>".timeout}),
+ * otherwise {@code blocpress.render.deadline.default}. The deadline is cancelled when the client disconnects.
+ *
+ * Aborted renders are counted in the metric {@value #ABORTED_METRIC}, tagged with {@code reason=timeout} or
+ * {@code reason=cancelled}.
+ */
+@ApplicationScoped
+public class RenderDeadlines {
+    private static final Logger logger = LoggerFactory.getLogger(RenderDeadlines.class);
+
+    static final String TIMEOUT_HEADER = "X-Render-Timeout";
+    static final String ABORTED_METRIC = "blocpress.render.aborted";
+
+    @ConfigProperty(name = "blocpress.render.deadline.default", defaultValue = "60s")
+    Duration defaultTimeout = Duration.ofSeconds(60);
+
+    @Inject
+    TemplateRenderConfig templateConfig;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    CurrentVertxRequest currentRequest;
+
+    public RenderDeadlines() {
+    }
+
+    RenderDeadlines(Duration defaultTimeout, TemplateRenderConfig templateConfig, MeterRegistry registry) {
+        this.defaultTimeout = defaultTimeout;
+        this.templateConfig = templateConfig;
+        this.registry = registry;
+    }
+
+    /**
+     * Starts the deadline of the current request.
+     *
+     * @param templateName name of the stored template, {@code null} for templates sent with the request
+     * @throws WebApplicationException (400) if the timeout header is invalid
+     */
+    public Deadline start(String templateName) {
+        RoutingContext context = currentRequest != null ? currentRequest.getCurrent() : null;
+        String header = context != null ? context.request().getHeader(TIMEOUT_HEADER) : null;
+        Duration timeout = header != null
+                ? parseTimeout(header)
+                : templateConfig.forTemplate(templateName)
+                .flatMap(TemplateRenderConfig.TemplateOptions::timeout)
+                .orElse(defaultTimeout);
+
+        Deadline deadline = Deadline.after(timeout);
+        if (context != null) {
+            context.response().closeHandler(v -> deadline.cancel());
+        }
+        return deadline;
+    }
+
+    /**
+     * Records an aborted render and maps it to the response status. The response of a cancelled render does not
+     * reach the client anymore.
+     */
+    public WebApplicationException aborted(RenderCancelledException e) {
+        String reason = e.isTimeout() ? "timeout" : "cancelled";
+        registry.counter(ABORTED_METRIC, "reason", reason).increment();
+        logger.warn("Render aborted ({}): {}", reason, e.getMessage());
+        return new WebApplicationException(e.getMessage(), Response.Status.SERVICE_UNAVAILABLE);
+    }
+
+    private static Duration parseTimeout(String header) {
+        try {
+            long millis = Long.parseLong(header.trim());
+            if (millis > 0) {
+                return Duration.ofMillis(millis);
+            }
+        } catch (NumberFormatException e) {
+            // unten als ungültig gemeldet
+        }
+        throw new WebApplicationException("Invalid " + TIMEOUT_HEADER + " header (milliseconds expected): " + header,
+                Response.Status.BAD_REQUEST);
+    }
+}
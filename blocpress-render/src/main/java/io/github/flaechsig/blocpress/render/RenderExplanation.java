@@ -0,0 +1,95 @@
+package io.github.flaechsig.blocpress.render;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.flaechsig.blocpress.core.RenderProfile;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Response of the explain endpoints: the cost breakdown of a render ({@link RenderProfile}) as JSON, the most
+ * expensive constructs first, and the duration per stage in the {@value #SERVER_TIMING_HEADER} header, which browser
+ * dev tools show with the request.
+ */
+final class RenderExplanation {
+    static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private RenderExplanation() {
+    }
+
+    static Response.ResponseBuilder response(RenderProfile profile, long totalNanos, long documentBytes) {
+        return Response.ok(toJson(profile, totalNanos, documentBytes), MediaType.APPLICATION_JSON)
+                .header(SERVER_TIMING_HEADER, serverTiming(profile, totalNanos));
+    }
+
+    static ObjectNode toJson(RenderProfile profile, long totalNanos, long documentBytes) {
+        ObjectNode json = mapper.createObjectNode();
+        json.put("totalMillis", millis(totalNanos));
+        json.put("documentBytes", documentBytes);
+
+        ObjectNode phases = json.putObject("phases");
+        profile.phases().forEach((phase, nanos) -> phases.put(phase, millis(nanos)));
+
+        ArrayNode conditions = json.putArray("conditions");
+        byCost(profile.conditions()).forEach((condition, cost) -> conditions.addObject()
+                .put("condition", condition)
+                .put("count", cost.count())
+                .put("millis", millis(cost.nanos())));
+
+        ArrayNode repeatGroups = json.putArray("repeatGroups");
+        byCost(profile.repeatGroups()).forEach((arrayPath, cost) -> repeatGroups.addObject()
+                .put("arrayPath", arrayPath)
+                .put("copies", cost.count())
+                .put("millis", millis(cost.nanos())));
+
+        ArrayNode textBlocks = json.putArray("textBlocks");
+        profile.textBlocks().entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, RenderProfile.TextBlockCost> e) ->
+                        e.getValue().loadNanos() + e.getValue().mergeNanos()).reversed())
+                .forEach(e -> textBlocks.addObject()
+                        .put("url", e.getKey())
+                        .put("count", e.getValue().count())
+                        .put("loadMillis", millis(e.getValue().loadNanos()))
+                        .put("mergeMillis", millis(e.getValue().mergeNanos())));
+
+        ArrayNode fields = json.putArray("fields");
+        byCost(profile.fields()).forEach((field, cost) -> fields.addObject()
+                .put("field", field)
+                .put("count", cost.count())
+                .put("millis", millis(cost.nanos())));
+        return json;
+    }
+
+    /**
+     * @return the stages and the total in the syntax of the {@code Server-Timing} header, durations in milliseconds
+     */
+    static String serverTiming(RenderProfile profile, long totalNanos) {
+        String stages = profile.phases().entrySet().stream()
+                .map(e -> timing(e.getKey(), e.getValue()))
+                .collect(Collectors.joining(", "));
+        return stages.isEmpty() ? timing("total", totalNanos) : stages + ", " + timing("total", totalNanos);
+    }
+
+    private static String timing(String name, long nanos) {
+        return String.format(Locale.ROOT, "%s;dur=%.2f", name, nanos / 1e6);
+    }
+
+    private static Map<String, RenderProfile.Cost> byCost(Map<String, RenderProfile.Cost> costs) {
+        return costs.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, RenderProfile.Cost> e) -> e.getValue().nanos()).reversed())
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1e4) / 100.0;
+    }
+}
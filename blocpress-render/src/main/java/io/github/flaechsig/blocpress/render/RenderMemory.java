@@ -0,0 +1,115 @@
+package io.github.flaechsig.blocpress.render;
+
+import io.github.flaechsig.blocpress.core.MemoryBudget;
+import io.github.flaechsig.blocpress.core.MemoryBudgetExceededException;
+import io.github.flaechsig.blocpress.core.RenderEngine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.configuration.MemorySize;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.math.BigInteger;
+
+/**
+ * Memory budget of the merges.
+ *
+ * Before the repeat groups of a template are duplicated, the {@link RenderEngine} estimates the size of the merged
+ * document and reserves it in a {@link MemoryBudget}. A merge whose estimate exceeds
+ * {@code blocpress.render.memory.max-per-render} is rejected with 413; if the renders running in parallel have
+ * reserved too much of {@code blocpress.render.memory.max-total}, the merge is rejected with 503 and a
+ * {@code Retry-After}. Both happen before the heap is filled, so one oversized request cannot take down the JVM.
+ *
+ * To calibrate the estimate, the estimated and the actually allocated bytes of every merge are recorded in the
+ * distribution summaries {@value #ESTIMATED_METRIC} and {@value #ALLOCATED_METRIC}; rejections are counted in
+ * {@value #REJECTED_METRIC}, tagged with {@code limit=render} or {@code limit=total}.
+ */
+@ApplicationScoped
+public class RenderMemory {
+    private static final Logger logger = LoggerFactory.getLogger(RenderMemory.class);
+
+    static final String ESTIMATED_METRIC = "blocpress.render.memory.estimated";
+    static final String ALLOCATED_METRIC = "blocpress.render.memory.allocated";
+    static final String REJECTED_METRIC = "blocpress.render.memory.rejected";
+
+    /** Reservations are returned when a merge completes, which usually takes a few seconds. */
+    private static final int RETRY_AFTER_SECONDS = 5;
+
+    /**
+     * A merge running within the given budget.
+     */
+    @FunctionalInterface
+    interface Merge {
+        byte[] run(MemoryBudget budget) throws IOException;
+    }
+
+    @ConfigProperty(name = "blocpress.render.memory.max-per-render", defaultValue = "256M")
+    MemorySize maxPerRender = new MemorySize(BigInteger.valueOf(256L * 1024 * 1024));
+
+    @ConfigProperty(name = "blocpress.render.memory.max-total", defaultValue = "1G")
+    MemorySize maxTotal = new MemorySize(BigInteger.valueOf(1024L * 1024 * 1024));
+
+    @Inject
+    MeterRegistry registry;
+
+    private MemoryBudget.Pool pool;
+
+    public RenderMemory() {
+    }
+
+    RenderMemory(long maxPerRender, long maxTotal, MeterRegistry registry) {
+        this.maxPerRender = new MemorySize(BigInteger.valueOf(maxPerRender));
+        this.maxTotal = new MemorySize(BigInteger.valueOf(maxTotal));
+        this.registry = registry;
+        init();
+    }
+
+    @PostConstruct
+    void init() {
+        pool = new MemoryBudget.Pool(maxTotal.asLongValue());
+    }
+
+    /**
+     * Runs a merge with a budget of its own, drawing on the memory shared by all renders.
+     *
+     * @throws WebApplicationException 413 if the document is too large for a single render, 503 if the shared
+     *                                 memory is exhausted
+     */
+    public byte[] merge(Merge merge) throws IOException {
+        try (MemoryBudget budget = MemoryBudget.of(maxPerRender.asLongValue(), pool)) {
+            byte[] result = merge.run(budget);
+            registry.summary(ESTIMATED_METRIC).record(budget.reservedBytes());
+            if (budget.allocatedBytes() >= 0) {
+                registry.summary(ALLOCATED_METRIC).record(budget.allocatedBytes());
+            }
+            return result;
+        } catch (MemoryBudgetExceededException e) {
+            throw rejected(e);
+        }
+    }
+
+    /**
+     * @return the memory not reserved by running merges
+     */
+    public long available() {
+        return pool.available();
+    }
+
+    private WebApplicationException rejected(MemoryBudgetExceededException e) {
+        registry.counter(REJECTED_METRIC, "limit", e.isShared() ? "total" : "render").increment();
+        logger.warn("Rejecting render: {}", e.getMessage());
+        if (e.isShared()) {
+            return new WebApplicationException(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", RETRY_AFTER_SECONDS)
+                    .entity(e.getMessage())
+                    .build());
+        }
+        return new WebApplicationException(e.getMessage(), Response.Status.REQUEST_ENTITY_TOO_LARGE);
+    }
+}
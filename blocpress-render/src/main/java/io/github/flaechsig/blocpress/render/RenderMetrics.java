@@ -0,0 +1,291 @@
+package io.github.flaechsig.blocpress.render;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.flaechsig.blocpress.core.OutputFormat;
+import io.github.flaechsig.blocpress.core.RenderProfile;
+import io.github.flaechsig.blocpress.core.StageListener;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer metrics of the render pipeline, exposed at {@code /q/metrics}.
+ *
+ * <ul>
+ *   <li>{@value #STAGE_METRIC} — timer per stage: the merge phases reported by the engine (load, text-blocks,
+ *       conditions, loops, fields, append, save), merge-worker, overlay, conversion and write; tagged with
+ *       template, version and format, published with histogram buckets for p95/p99 per stage</li>
+ *   <li>{@value #LOOKUP_METRIC} — timer of the template lookup, tagged {@code result=hit|disk|miss}: served
+ *       from the heap tier of the {@link TemplateCache}, from its disk tier, or loaded from the database</li>
+ *   <li>{@value #DATA_SIZE_METRIC} / {@value #DOCUMENT_SIZE_METRIC} — histograms of the request data (serialized
+ *       JSON) and of the delivered documents in bytes</li>
+ *   <li>{@value #CPU_METRIC} / {@value #ALLOCATED_METRIC} — CPU seconds and bytes allocated by merges in the render
+ *       JVM, per template</li>
+ * </ul>
+ *
+ * Queue depth and converter state are published by {@link AdmissionControl} and {@link ConversionBatcher}.
+ * Templates sent with the request are tagged {@value #AD_HOC}.
+ */
+@ApplicationScoped
+public class RenderMetrics {
+    static final String STAGE_METRIC = "blocpress.render.stage";
+    static final String LOOKUP_METRIC = "blocpress.render.template.lookup";
+    static final String DATA_SIZE_METRIC = "blocpress.render.data.size";
+    static final String DOCUMENT_SIZE_METRIC = "blocpress.render.document.size";
+    static final String CPU_METRIC = "blocpress.render.cpu";
+    static final String ALLOCATED_METRIC = "blocpress.render.allocated";
+    static final String AD_HOC = "adhoc";
+
+    private static final String NO_VERSION = "none";
+    private static final String ALL_FORMATS = "bundle";
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    /** Set by the {@link TemplateCache} on the calling thread when a template is not in the heap tier. */
+    private final ThreadLocal<String> loaded = new ThreadLocal<>();
+
+    @Inject
+    MeterRegistry registry;
+
+    public RenderMetrics() {
+    }
+
+    RenderMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Times a template lookup in the {@link TemplateCache}.
+     */
+    public <T> T lookup(String template, Supplier<T> lookup) {
+        loaded.remove();
+        long start = System.nanoTime();
+        try {
+            return lookup.get();
+        } finally {
+            String result = loaded.get() != null ? loaded.get() : "hit";
+            loaded.remove();
+            registry.timer(LOOKUP_METRIC, "template", template, "result", result)
+                    .record(Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * Marks the current lookup as cache miss.
+     */
+    void templateLoaded() {
+        loaded.set("miss");
+    }
+
+    /**
+     * Marks the current lookup as served from the disk tier.
+     */
+    void templateLoadedFromDisk() {
+        loaded.set("disk");
+    }
+
+    /**
+     * Starts recording the stages of a render.
+     *
+     * @param template name of the stored template, {@code null} for templates sent with the request
+     * @param version  version of the stored template, {@code null} if unknown
+     * @param format   output format, {@code null} for a bundle of several formats
+     */
+    public Stages stages(String template, Integer version, OutputFormat format) {
+        return new Stages(template != null ? template : AD_HOC, null,
+                version != null ? version.toString() : NO_VERSION,
+                format != null ? format.name().toLowerCase() : ALL_FORMATS, StageListener.NONE);
+    }
+
+    /**
+     * Starts recording the stages of a render of a stored template version.
+     *
+     * @param format output format, {@code null} for a bundle of several formats
+     */
+    public Stages stages(TemplateCache.Entry template, OutputFormat format) {
+        return new Stages(template.name(), template.id(), Integer.toString(template.version()),
+                format != null ? format.name().toLowerCase() : ALL_FORMATS, StageListener.NONE);
+    }
+
+    /**
+     * @return the size of the records as serialized JSON in bytes
+     */
+    public static long dataSize(List<JsonNode> records) throws IOException {
+        var counter = new CountingOutputStream();
+        for (JsonNode data : records) {
+            mapper.writeValue(counter, data);
+        }
+        return counter.count;
+    }
+
+    /**
+     * Stage timers of one render. Also receives the merge phases from the engine.
+     */
+    public final class Stages implements StageListener {
+        private final String template;
+        private final UUID id;
+        private final String version;
+        private final String format;
+        private final StageListener explain;
+
+        private Stages(String template, UUID id, String version, String format, StageListener explain) {
+            this.template = template;
+            this.id = id;
+            this.version = version;
+            this.format = format;
+            this.explain = explain;
+        }
+
+        @Override
+        public void completed(String stage, long nanos) {
+            Timer.builder(STAGE_METRIC)
+                    .tags("stage", stage, "template", template, "version", version, "format", format)
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(Duration.ofNanos(nanos));
+            explain.completed(stage, nanos);
+        }
+
+        @Override
+        public String template() {
+            return id != null ? template + " v" + version + " (" + id + ")" : null;
+        }
+
+        @Override
+        public void textBlock(URL textBlock, long loadNanos, long mergeNanos) {
+            explain.textBlock(textBlock, loadNanos, mergeNanos);
+        }
+
+        @Override
+        public void condition(String condition, long nanos) {
+            explain.condition(condition, nanos);
+        }
+
+        @Override
+        public void repeatGroup(String arrayPath, int copies, long nanos) {
+            explain.repeatGroup(arrayPath, copies, nanos);
+        }
+
+        @Override
+        public void field(String field, long nanos) {
+            explain.field(field, nanos);
+        }
+
+        /**
+         * @return the stages of the same render, tagged with another output format (one format of a bundle)
+         */
+        public Stages format(OutputFormat format) {
+            return new Stages(template, id, version, format.name().toLowerCase(), explain);
+        }
+
+        /**
+         * @return the stages of the same render, additionally reporting all stages and template elements to the
+         * profile
+         */
+        public Stages explain(RenderProfile profile) {
+            return new Stages(template, id, version, format, profile);
+        }
+
+        /**
+         * @return whether the render collects a cost breakdown; it then has to merge in the render JVM
+         */
+        public boolean explains() {
+            return explain != StageListener.NONE;
+        }
+
+        /**
+         * Runs a stage of the render, recording it as timer and as {@link RenderStageEvent}.
+         */
+        public <T> T time(String stage, AdmissionControl.Work<T> work) throws IOException {
+            RenderStageEvent event = new RenderStageEvent(template, version, format, stage);
+            event.begin();
+            long start = System.nanoTime();
+            try {
+                return work.call();
+            } finally {
+                completed(stage, System.nanoTime() - start);
+                event.commit();
+            }
+        }
+
+        /**
+         * Runs a merge in the current thread, records it as {@link RenderStageEvent} and adds its CPU time and
+         * allocated bytes to the counters of the template.
+         */
+        public byte[] merge(AdmissionControl.Work<byte[]> merge) throws IOException {
+            RenderStageEvent event = new RenderStageEvent(template, version, format, "merge");
+            event.begin();
+            long cpuBefore = threadCpuNanos();
+            long allocatedBefore = threadAllocatedBytes();
+            try {
+                return merge.call();
+            } finally {
+                event.commit();
+                long cpuAfter = threadCpuNanos();
+                long allocatedAfter = threadAllocatedBytes();
+                if (cpuBefore >= 0 && cpuAfter >= 0) {
+                    registry.counter(CPU_METRIC, "template", template).increment((cpuAfter - cpuBefore) / 1e9);
+                }
+                if (allocatedBefore >= 0 && allocatedAfter >= 0) {
+                    registry.counter(ALLOCATED_METRIC, "template", template).increment(allocatedAfter - allocatedBefore);
+                }
+            }
+        }
+
+        public void dataSize(long bytes) {
+            DistributionSummary.builder(DATA_SIZE_METRIC)
+                    .tags("template", template)
+                    .baseUnit("bytes")
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(bytes);
+        }
+
+        public void documentSize(byte[] document) {
+            DistributionSummary.builder(DOCUMENT_SIZE_METRIC)
+                    .tags("template", template, "format", format)
+                    .baseUnit("bytes")
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(document.length);
+        }
+    }
+
+    private static long threadCpuNanos() {
+        var threads = ManagementFactory.getThreadMXBean();
+        return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : -1;
+    }
+
+    private static long threadAllocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package io.github.flaechsig.blocpress.render;
+
+import java.util.Locale;
+
+/**
+ * Priority class of a render request, see {@link AdmissionControl}.
+ */
+public enum RenderPriority {
+    /** Customer portal, workbench preview: a user is waiting. */
+    INTERACTIVE,
+    /** Renders of stored templates by other services. */
+    STANDARD,
+    /** Nightly mail merges and other bulk jobs. */
+    BULK;
+
+    /**
+     * @throws IllegalArgumentException if the value names no priority class
+     */
+    public static RenderPriority parse(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -2,9 +2,20 @@ package io.github.flaechsig.blocpress.render;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import io.github.flaechsig.blocpress.core.LibreOfficeProcessor;
+import io.github.flaechsig.blocpress.core.Deadline;
 import io.github.flaechsig.blocpress.core.OutputFormat;
+import io.github.flaechsig.blocpress.core.PdfExportProfile;
+import io.github.flaechsig.blocpress.core.RenderCancelledException;
 import io.github.flaechsig.blocpress.core.RenderEngine;
+import io.github.flaechsig.blocpress.core.RenderProfile;
+import io.github.flaechsig.blocpress.core.html.HtmlExporter;
+import io.github.flaechsig.blocpress.core.html.TextExporter;
+import io.github.flaechsig.blocpress.core.pdf.FastPdfRenderer;
+import io.github.flaechsig.blocpress.core.pdf.OverlayTemplate;
+import io.github.flaechsig.blocpress.core.pdf.PdfOverlay;
+import io.github.flaechsig.blocpress.core.pdf.UnsupportedFeatureException;
+import io.github.flaechsig.blocpress.render.model.BundleRequest;
+import io.github.flaechsig.blocpress.render.model.MailMergeRequest;
 import io.github.flaechsig.blocpress.render.model.RenderByNameRequest;
 import io.github.flaechsig.blocpress.render.model.RenderRequest;
 import jakarta.annotation.security.PermitAll;
@@ -19,6 +30,7 @@ import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -28,6 +40,17 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static io.github.flaechsig.blocpress.core.OutputFormat.ODT;
 import static io.github.flaechsig.blocpress.core.OutputFormat.RTF;
@@ -35,11 +58,32 @@ import static io.github.flaechsig.blocpress.core.OutputFormat.RTF;
 /**
  * REST-Endpoint zur Dokumentgenerierung aus einem ODT-Template und JSON-Daten.
  *
- * <p>Stellt zwei Endpunkte bereit:</p>
+ * <p>Stellt folgende Endpunkte bereit:</p>
  * <ul>
  *   <li>{@code POST /api/render/template} — Stateless: Template direkt im Request (multipart oder JSON/Base64). Keine Authentifizierung erforderlich.</li>
  *   <li>{@code POST /api/render/{name}} — Template aus dem Production-Store. JWT erforderlich.</li>
+ *   <li>{@code POST /api/render/id/{id}}, {@code POST /api/render/{name}/versions/{version}} — eine fest gewählte
+ *       Template-Version (z.B. für reproduzierbare Dokumente); Id und Version stehen in den Headern
+ *       {@code X-Template-Id} und {@code X-Template-Version}, damit Clients Folgeaufrufe darauf festlegen können.
+ *       JWT erforderlich.</li>
+ *   <li>{@code POST /api/render/{name}/mail-merge} — Serienbrief: ein Dokument aus vielen Datensätzen. JWT erforderlich.</li>
+ *   <li>{@code POST /api/render/{name}/bundle} — ein Merge, mehrere Ausgabeformate als ZIP (z.B. PDF und ODT fürs Archiv). JWT erforderlich.</li>
+ *   <li>{@code POST /api/render/template/explain}, {@code POST /api/render/{name}/explain},
+ *       {@code POST /api/render/id/{id}/explain}, {@code POST /api/render/{name}/versions/{version}/explain} — rendern
+ *       wie oben, liefern aber statt des Dokuments die Kosten je Phase, Bedingung, Wiederholungsgruppe, Baustein und
+ *       Feld ({@link RenderExplanation}) samt {@code Server-Timing}-Header. Serienbriefe und Multipart-Uploads haben
+ *       keinen Explain-Endpunkt.</li>
  * </ul>
+ *
+ * <p>PDF-Ausgabe wählt den günstigsten Weg: Overlay auf das beim Import vorkonvertierte PDF
+ * (layout-stabile Templates), reines Java-Rendering ({@link FastPdfRenderer}) oder LibreOffice.
+ * HTML und Text für Web-Vorschauen entstehen direkt aus dem ODF-DOM ({@link HtmlExporter}, {@link TextExporter}).</p>
+ *
+ * <p>Jeder Render-Auftrag hat eine Frist ({@link RenderDeadlines}); nach deren Ablauf oder wenn der Client die
+ * Verbindung trennt, werden Merge und Konvertierung abgebrochen und mit 503 beantwortet. Merge und
+ * LibreOffice-Konvertierung laufen über die {@link AdmissionControl}; bei voller Warteschlange antwortet der
+ * Service mit 429 und {@code Retry-After}. Wartende Aufträge werden nach Prioritätsklasse gewichtet bedient:
+ * Vorschauen ({@code /template}) sind interaktiv, Serienbriefe Bulk-Aufträge.</p>
  */
 @ApplicationScoped
 @jakarta.ws.rs.Path("/api/render")
@@ -47,13 +91,57 @@ public class RenderResource {
     private final static Logger logger = LoggerFactory.getLogger(RenderResource.class);
     private final static ObjectMapper mapper = new ObjectMapper();
 
+    static final String TEMPLATE_ID_HEADER = "X-Template-Id";
+    static final String TEMPLATE_VERSION_HEADER = "X-Template-Version";
+
     @Inject
     TemplateCache templateCache;
 
+    @Inject
+    ConversionBatcher conversionBatcher;
+
+    @Inject
+    ChunkedPdfConverter chunkedPdfConverter;
+
+    @Inject
+    PdfProfiles pdfProfiles;
+
+    @Inject
+    RenderDeadlines renderDeadlines;
+
+    @Inject
+    AdmissionControl admissionControl;
+
+    @Inject
+    RenderMemory renderMemory;
+
+    @Inject
+    MergeWorkerPool mergeWorkers;
+
+    @Inject
+    RenderMetrics renderMetrics;
+
+    @Inject
+    TemplateRenderConfig templateConfig;
+
+    /**
+     * Renders PDF documents of all templates with the pure-Java {@link FastPdfRenderer} if they only use supported
+     * features. Off by default: the output uses the non-embedded PDF standard fonts instead of the template fonts;
+     * templates opt in with {@code blocpress.render.templates."<name>".fast-path}.
+     */
+    @ConfigProperty(name = "blocpress.render.fast-path.enabled", defaultValue = "false")
+    boolean fastPathEnabled = false;
+
+    /**
+     * Renders PDF documents of layout-stable templates by stamping the field values onto the PDF prepared at import.
+     */
+    @ConfigProperty(name = "blocpress.render.overlay.enabled", defaultValue = "true")
+    boolean overlayEnabled = true;
+
     @POST
     @jakarta.ws.rs.Path("/template")
     @Consumes(MediaType.MULTIPART_FORM_DATA)
-    @Produces({"application/pdf", "application/rtf", "application/vnd.oasis.opendocument.text"})
+    @Produces({"application/pdf", "application/rtf", "application/vnd.oasis.opendocument.text", "text/html", "text/plain"})
     @PermitAll
     public File renderDocumentMultipart(
             @HeaderParam("Accept") String accept,
@@ -64,6 +152,8 @@ public class RenderResource {
             case "application/vnd.oasis.opendocument.text" -> ODT;
             case "application/pdf" -> OutputFormat.PDF;
             case "application/rtf" -> RTF;
+            case "text/html" -> OutputFormat.HTML;
+            case "text/plain" -> OutputFormat.TEXT;
             default -> throw new WebApplicationException(
                     "Unsupported Accept header: " + accept, Response.Status.NOT_ACCEPTABLE);
         };
@@ -71,7 +161,10 @@ public class RenderResource {
             Path tempFile = Files.createTempFile("template", ".odt");
             Files.copy(templateInputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
             var json = mapper.readTree(data);
-            return mergeAndTransform(tempFile, json, format);
+            return mergeAndTransform(tempFile, json, format, resolvePdfProfile(null, null), renderDeadlines.start(null),
+                    admissionControl.ticket(null, RenderPriority.INTERACTIVE), null);
+        } catch (RenderCancelledException e) {
+            throw renderDeadlines.aborted(e);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -80,20 +173,42 @@ public class RenderResource {
     @POST
     @jakarta.ws.rs.Path("/template")
     @Consumes(MediaType.APPLICATION_JSON)
-    @Produces({"application/pdf", "application/rtf", "application/vnd.oasis.opendocument.text"})
+    @Produces({"application/pdf", "application/rtf", "application/vnd.oasis.opendocument.text", "text/html", "text/plain"})
     @PermitAll
     public File renderDocumentJson(RenderRequest renderRequest) {
+        return renderJson(renderRequest, null);
+    }
+
+    /**
+     * Renders like {@link #renderDocumentJson(RenderRequest)} and returns the cost breakdown instead of the document,
+     * e.g. for template authors in the workbench.
+     */
+    @POST
+    @jakarta.ws.rs.Path("/template/explain")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @PermitAll
+    public Response explainDocumentJson(RenderRequest renderRequest) {
+        return explain(profile -> renderJson(renderRequest, profile)).build();
+    }
+
+    private File renderJson(RenderRequest renderRequest, RenderProfile explain) {
         logger.info("Rendering document from base64-encoded template");
         OutputFormat format = switch (renderRequest.getOutputType()) {
             case PDF -> OutputFormat.PDF;
             case RTF -> RTF;
             case ODT -> ODT;
+            case HTML -> OutputFormat.HTML;
+            case TEXT -> OutputFormat.TEXT;
         };
         try {
             Path tempFile = Files.createTempFile("template", ".odt");
             Files.write(tempFile, renderRequest.getTemplate());
             var json = mapper.valueToTree(renderRequest.getData());
-            return mergeAndTransform(tempFile, json, format);
+            return mergeAndTransform(tempFile, json, format, resolvePdfProfile(renderRequest.getPdfProfile(), null),
+                    renderDeadlines.start(null), admissionControl.ticket(null, RenderPriority.INTERACTIVE), explain);
+        } catch (RenderCancelledException e) {
+            throw renderDeadlines.aborted(e);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -102,31 +217,165 @@ public class RenderResource {
     @POST
     @jakarta.ws.rs.Path("/{name}")
     @Consumes(MediaType.APPLICATION_JSON)
-    @Produces({"application/pdf", "application/rtf", "application/vnd.oasis.opendocument.text"})
+    @Produces({"application/pdf", "application/rtf", "application/vnd.oasis.opendocument.text", "text/html", "text/plain"})
     public File renderDocumentByName(
             @PathParam("name") String name,
             RenderByNameRequest renderByNameRequest) {
+        return renderByName(name, renderByNameRequest, null);
+    }
+
+    /**
+     * Renders like {@link #renderDocumentByName(String, RenderByNameRequest)} and returns the cost breakdown instead
+     * of the document.
+     */
+    @POST
+    @jakarta.ws.rs.Path("/{name}/explain")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response explainDocumentByName(
+            @PathParam("name") String name,
+            RenderByNameRequest renderByNameRequest) {
+        return explain(profile -> renderByName(name, renderByNameRequest, profile)).build();
+    }
+
+    /**
+     * Renders the template version with this id, regardless of which version of the template is active now.
+     */
+    @POST
+    @jakarta.ws.rs.Path("/id/{id}")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces({"application/pdf", "application/rtf", "application/vnd.oasis.opendocument.text", "text/html", "text/plain"})
+    public Response renderDocumentById(
+            @PathParam("id") UUID id,
+            RenderByNameRequest renderByNameRequest) {
+        TemplateCache.Entry template = resolvePinned(id.toString(), () -> byId(id));
+        return pinned(Response.ok(renderPinned(template, renderByNameRequest, null)), template);
+    }
+
+    /**
+     * Renders like {@link #renderDocumentById(UUID, RenderByNameRequest)} and returns the cost breakdown instead of
+     * the document.
+     */
+    @POST
+    @jakarta.ws.rs.Path("/id/{id}/explain")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response explainDocumentById(
+            @PathParam("id") UUID id,
+            RenderByNameRequest renderByNameRequest) {
+        TemplateCache.Entry template = resolvePinned(id.toString(), () -> byId(id));
+        return pinned(explain(profile -> renderPinned(template, renderByNameRequest, profile)), template);
+    }
+
+    /**
+     * Renders an activated version of the template by its version number, regardless of which version is active now.
+     */
+    @POST
+    @jakarta.ws.rs.Path("/{name}/versions/{version}")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces({"application/pdf", "application/rtf", "application/vnd.oasis.opendocument.text", "text/html", "text/plain"})
+    public Response renderDocumentByVersion(
+            @PathParam("name") String name,
+            @PathParam("version") int version,
+            RenderByNameRequest renderByNameRequest) {
+        TemplateCache.Entry template = resolvePinned(name, () -> byVersion(name, version));
+        return pinned(Response.ok(renderPinned(template, renderByNameRequest, null)), template);
+    }
+
+    /**
+     * Renders like {@link #renderDocumentByVersion(String, int, RenderByNameRequest)} and returns the cost breakdown
+     * instead of the document.
+     */
+    @POST
+    @jakarta.ws.rs.Path("/{name}/versions/{version}/explain")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response explainDocumentByVersion(
+            @PathParam("name") String name,
+            @PathParam("version") int version,
+            RenderByNameRequest renderByNameRequest) {
+        TemplateCache.Entry template = resolvePinned(name, () -> byVersion(name, version));
+        return pinned(explain(profile -> renderPinned(template, renderByNameRequest, profile)), template);
+    }
+
+    private TemplateCache.Entry byId(UUID id) {
+        // der Name taggt nur die Metrik, Inhalt und Version kommen aus einem Eintrag
+        String name = templateCache.getActivationById(id).name();
+        return renderMetrics.lookup(name, () -> templateCache.getTemplate(id));
+    }
+
+    private TemplateCache.Entry byVersion(String name, int version) {
+        return renderMetrics.lookup(name,
+                () -> templateCache.getTemplate(templateCache.getActivationByVersion(name, version)));
+    }
+
+    /**
+     * @param explain profile receiving the cost breakdown, {@code null} for a regular render
+     */
+    private File renderByName(String name, RenderByNameRequest renderByNameRequest, RenderProfile explain) {
         logger.info("Rendering document from template name: {}", name);
+        return renderStored(name, renderByNameRequest, explain, null);
+    }
+
+    /**
+     * @param requested template id or name of the request, for the error message
+     */
+    private static TemplateCache.Entry resolvePinned(String requested, Supplier<TemplateCache.Entry> resolve) {
         try {
-            OutputFormat format = switch (renderByNameRequest.getOutputType().toString().toLowerCase()) {
-                case "pdf" -> OutputFormat.PDF;
-                case "rtf" -> RTF;
-                case "odt" -> ODT;
-                default -> throw new IllegalArgumentException(
-                        "Invalid output type: " + renderByNameRequest.getOutputType());
-            };
-            var dataNode = mapper.valueToTree(renderByNameRequest.getData());
-            byte[] templateContent = templateCache.getTemplateContentByName(name);
-            Path tempFile = Files.createTempFile("template-" + name, ".odt");
-            Files.write(tempFile, templateContent);
-            return mergeAndTransform(tempFile, dataNode, format);
+            return resolve.get();
         } catch (TemplateNotFoundException e) {
-            logger.warn("Template not found or not approved: {}", name);
-            if (e.getMessage().contains("not approved")) {
-                throw new WebApplicationException(e.getMessage(), Response.Status.FORBIDDEN);
-            } else {
-                throw new WebApplicationException(e.getMessage(), Response.Status.NOT_FOUND);
+            throw templateNotFound(requested, e);
+        }
+    }
+
+    /**
+     * @param explain profile receiving the cost breakdown, {@code null} for a regular render
+     */
+    private File renderPinned(TemplateCache.Entry template, RenderByNameRequest renderByNameRequest,
+                              RenderProfile explain) {
+        logger.info("Rendering document from template {} v{} ({})", template.name(), template.version(), template.id());
+        return renderStored(template.name(), renderByNameRequest, explain, template);
+    }
+
+    /**
+     * Answers with id and version of the pinned template version in the headers.
+     */
+    private static Response pinned(Response.ResponseBuilder response, TemplateCache.Entry template) {
+        return response
+                .header(TEMPLATE_ID_HEADER, template.id())
+                .header(TEMPLATE_VERSION_HEADER, template.version())
+                .build();
+    }
+
+    /**
+     * @param explain profile receiving the cost breakdown, {@code null} for a regular render
+     * @param pinned  template version resolved by id or version number, {@code null} for the version active now
+     */
+    private File renderStored(String name, RenderByNameRequest renderByNameRequest, RenderProfile explain,
+                              TemplateCache.Entry pinned) {
+        Deadline deadline = renderDeadlines.start(name);
+        RenderTicket ticket = admissionControl.ticket(name, RenderPriority.STANDARD);
+        try {
+            OutputFormat format = toOutputFormat(renderByNameRequest.getOutputType());
+            PdfExportProfile pdfProfile = resolvePdfProfile(renderByNameRequest.getPdfProfile(), name);
+            var dataNode = mapper.valueToTree(renderByNameRequest.getData());
+            TemplateCache.Entry template = pinned != null ? pinned : fetchTemplate(name);
+            Path tempFile = writeTemplate(name, template.content());
+            RenderMetrics.Stages stages = explained(renderMetrics.stages(template, format), explain);
+            if (format == OutputFormat.PDF && (pdfProfile == null || pdfProfile.allowsJvmRendering())) {
+                Optional<byte[]> stamped = stages.time("overlay",
+                        () -> renderOverlay(name, tempFile, dataNode, template));
+                if (stamped.isPresent()) {
+                    return write(stamped.get(), format, stages);
+                }
             }
+            logger.info("Calling merge");
+            var merge = merge(ticket, deadline, tempFile, List.of(dataNode), false, stages);
+            return transform(ticket, merge, format, pdfProfile, deadline, stages);
+        } catch (TemplateNotFoundException e) {
+            throw templateNotFound(name, e);
+        } catch (RenderCancelledException e) {
+            throw renderDeadlines.aborted(e);
         } catch (IOException e) {
             logger.error("Failed to fetch or render template {}: {}", name, e.getMessage(), e);
             throw new WebApplicationException("Failed to render document: " + e.getMessage(),
@@ -134,12 +383,278 @@ public class RenderResource {
         }
     }
 
-    private File mergeAndTransform(Path templatePath, JsonNode json, OutputFormat format) throws IOException {
-        var odt = templatePath.toUri().toURL();
+    @POST
+    @jakarta.ws.rs.Path("/{name}/mail-merge")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces({"application/pdf", "application/rtf", "application/vnd.oasis.opendocument.text", "text/html", "text/plain"})
+    public File renderMailMerge(
+            @PathParam("name") String name,
+            MailMergeRequest mailMergeRequest) {
+        if (mailMergeRequest.getRecords() == null || mailMergeRequest.getRecords().isEmpty()) {
+            throw new WebApplicationException("Mail merge requires at least one data record",
+                    Response.Status.BAD_REQUEST);
+        }
+        logger.info("Mail merge of {} records with template name: {}", mailMergeRequest.getRecords().size(), name);
+        Deadline deadline = renderDeadlines.start(name);
+        RenderTicket ticket = admissionControl.ticket(name, RenderPriority.BULK);
+        try {
+            OutputFormat format = toOutputFormat(mailMergeRequest.getOutputType());
+            PdfExportProfile pdfProfile = resolvePdfProfile(mailMergeRequest.getPdfProfile(), name);
+            List<JsonNode> records = mailMergeRequest.getRecords().stream()
+                    .map(r -> (JsonNode) mapper.valueToTree(r))
+                    .toList();
+            TemplateCache.Entry template = fetchTemplate(name);
+            Path tempFile = writeTemplate(name, template.content());
+            RenderMetrics.Stages stages = renderMetrics.stages(template, format);
+            logger.info("Calling mail merge");
+            var merge = merge(ticket, deadline, tempFile, records, true, stages);
+            return transform(ticket, merge, format, pdfProfile, deadline, stages);
+        } catch (TemplateNotFoundException e) {
+            throw templateNotFound(name, e);
+        } catch (RenderCancelledException e) {
+            throw renderDeadlines.aborted(e);
+        } catch (IOException e) {
+            logger.error("Failed to fetch or render template {}: {}", name, e.getMessage(), e);
+            throw new WebApplicationException("Failed to render document: " + e.getMessage(),
+                    Response.Status.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @POST
+    @jakarta.ws.rs.Path("/{name}/bundle")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces("application/zip")
+    public File renderBundle(
+            @PathParam("name") String name,
+            BundleRequest bundleRequest) {
+        if (bundleRequest.getOutputTypes() == null || bundleRequest.getOutputTypes().isEmpty()) {
+            throw new WebApplicationException("Bundle requires at least one output type",
+                    Response.Status.BAD_REQUEST);
+        }
+        Set<OutputFormat> formats = new LinkedHashSet<>();
+        for (Object outputType : bundleRequest.getOutputTypes()) {
+            formats.add(toOutputFormat(outputType));
+        }
+        logger.info("Rendering {} with template name: {}", formats, name);
+        PdfExportProfile pdfProfile = resolvePdfProfile(bundleRequest.getPdfProfile(), name);
+        Deadline deadline = renderDeadlines.start(name);
+        RenderTicket ticket = admissionControl.ticket(name, RenderPriority.STANDARD);
+        try {
+            var dataNode = mapper.valueToTree(bundleRequest.getData());
+            TemplateCache.Entry template = fetchTemplate(name);
+            Path tempFile = writeTemplate(name, template.content());
+            RenderMetrics.Stages stages = renderMetrics.stages(template, null);
+            logger.info("Calling merge");
+            var merge = merge(ticket, deadline, tempFile, List.of(dataNode), false, stages);
+            var results = convertAll(ticket, merge, formats, pdfProfile, deadline, stages);
+            return stages.time("write", () -> writeBundle(name, results));
+        } catch (TemplateNotFoundException e) {
+            throw templateNotFound(name, e);
+        } catch (RenderCancelledException e) {
+            throw renderDeadlines.aborted(e);
+        } catch (IOException e) {
+            logger.error("Failed to fetch or render template {}: {}", name, e.getMessage(), e);
+            throw new WebApplicationException("Failed to render document: " + e.getMessage(),
+                    Response.Status.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private static OutputFormat toOutputFormat(Object outputType) {
+        return switch (outputType.toString().toLowerCase()) {
+            case "pdf" -> OutputFormat.PDF;
+            case "rtf" -> RTF;
+            case "odt" -> ODT;
+            case "html" -> OutputFormat.HTML;
+            case "text" -> OutputFormat.TEXT;
+            default -> throw new IllegalArgumentException(
+                    "Invalid output type: " + outputType);
+        };
+    }
+
+    /**
+     * Resolves the PDF export profile from the request, the template configuration and the default profile.
+     *
+     * @return the profile, {@code null} for the plain LibreOffice export
+     */
+    private PdfExportProfile resolvePdfProfile(String requested, String templateName) {
+        try {
+            return pdfProfiles.resolve(requested, templateName);
+        } catch (IllegalArgumentException e) {
+            throw new WebApplicationException(e.getMessage(), Response.Status.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Resolves the version of the template active now once; content, version and overlay are taken from this entry.
+     */
+    private TemplateCache.Entry fetchTemplate(String name) {
+        return renderMetrics.lookup(name, () -> templateCache.getTemplate(name));
+    }
+
+    private static Path writeTemplate(String name, byte[] templateContent) throws IOException {
+        Path tempFile = Files.createTempFile("template-" + name, ".odt");
+        Files.write(tempFile, templateContent);
+        return tempFile;
+    }
+
+    /**
+     * Stamps the data onto the overlay of the template if it has one that matches the template content.
+     *
+     * @param entry the template version being rendered
+     * @return the PDF document, empty if the regular rendering has to be used
+     */
+    private Optional<byte[]> renderOverlay(String name, Path template, JsonNode data, TemplateCache.Entry entry)
+            throws IOException {
+        if (!overlayEnabled) {
+            return Optional.empty();
+        }
+        Optional<OverlayTemplate> overlay = Optional.ofNullable(entry.overlay());
+        if (overlay.isEmpty() || !overlay.get().templateHash().equals(entry.contentHash())) {
+            return Optional.empty();
+        }
+        try {
+            logger.info("Stamping overlay");
+            return Optional.of(PdfOverlay.render(template.toUri().toURL(), overlay.get(), data));
+        } catch (UnsupportedFeatureException e) {
+            logger.debug("Overlay not applicable for {}: {}", name, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private static WebApplicationException templateNotFound(String name, TemplateNotFoundException e) {
+        logger.warn("Template not found or not approved: {}", name);
+        if (e.getMessage().contains("not approved")) {
+            return new WebApplicationException(e.getMessage(), Response.Status.FORBIDDEN);
+        }
+        return new WebApplicationException(e.getMessage(), Response.Status.NOT_FOUND);
+    }
+
+    private File mergeAndTransform(Path templatePath, JsonNode json, OutputFormat format, PdfExportProfile pdfProfile,
+                                   Deadline deadline, RenderTicket ticket, RenderProfile explain) throws IOException {
+        RenderMetrics.Stages stages = explained(renderMetrics.stages(null, null, format), explain);
         logger.info("Calling merge");
-        var merge = RenderEngine.mergeTemplate(odt, json);
+        var merge = merge(ticket, deadline, templatePath, List.of(json), false, stages);
+        return transform(ticket, merge, format, pdfProfile, deadline, stages);
+    }
+
+    private static RenderMetrics.Stages explained(RenderMetrics.Stages stages, RenderProfile explain) {
+        return explain != null ? stages.explain(explain) : stages;
+    }
+
+    /**
+     * Runs the render with a profile and answers with its cost breakdown; the document itself is discarded.
+     *
+     * <p>Explain is a sibling endpoint instead of a flag, so the document endpoints keep one media type per format.
+     * Mail merges are left out because an explained render always merges in the render JVM, bypassing the merge
+     * workers that isolate large jobs; the multipart upload selects its format by {@code Accept}, which an explain
+     * request needs for the JSON answer ({@code /template/explain} covers uploaded templates).</p>
+     */
+    private static Response.ResponseBuilder explain(Function<RenderProfile, File> render) {
+        RenderProfile profile = new RenderProfile();
+        long start = System.nanoTime();
+        File document = render.apply(profile);
+        long total = System.nanoTime() - start;
+        try {
+            return RenderExplanation.response(profile, total, document.length());
+        } finally {
+            if (!document.delete()) {
+                logger.debug("Could not delete {}", document);
+            }
+        }
+    }
+
+    /**
+     * Merges in the render JVM within the memory budget, or in a merge worker if the data is large. A render that
+     * collects a cost breakdown always merges in the render JVM.
+     *
+     * @param mailMerge merge all records into one document, otherwise only the first record is used
+     */
+    private byte[] merge(RenderTicket ticket, Deadline deadline, Path templatePath, List<JsonNode> records,
+                         boolean mailMerge, RenderMetrics.Stages stages) throws IOException {
+        var odt = templatePath.toUri().toURL();
+        long dataSize = RenderMetrics.dataSize(records);
+        stages.dataSize(dataSize);
+        return admissionControl.merge(ticket, deadline, () -> {
+            if (!stages.explains() && mergeWorkers.accepts(dataSize)) {
+                return stages.time("merge-worker", () -> mergeWorkers.merge(odt, records, mailMerge, deadline));
+            }
+            return stages.merge(() -> renderMemory.merge(budget -> mailMerge
+                    ? RenderEngine.mailMerge(odt, records, deadline, budget, stages)
+                    : RenderEngine.mergeTemplate(odt, records.getFirst(), deadline, budget, stages)));
+        });
+    }
+
+    private File transform(RenderTicket ticket, byte[] merge, OutputFormat format, PdfExportProfile pdfProfile,
+                           Deadline deadline, RenderMetrics.Stages stages) throws IOException {
         logger.info("Calling transform");
-        var result = LibreOfficeProcessor.refreshAndTransform(merge, format);
+        byte[] result = stages.time("conversion", () -> convert(ticket, merge, format, pdfProfile, deadline));
+        return write(result, format, stages);
+    }
+
+    private static File write(byte[] result, OutputFormat format, RenderMetrics.Stages stages) throws IOException {
+        stages.documentSize(result);
+        return stages.time("write", () -> writeOutput(result, format));
+    }
+
+    private byte[] convert(RenderTicket ticket, byte[] merge, OutputFormat format, PdfExportProfile pdfProfile,
+                           Deadline deadline) throws IOException {
+        deadline.check("conversion");
+        byte[] result;
+        // PDF/A, getaggte PDFs und eingebettete Schriften erfüllt nur LibreOffice
+        boolean jvmRendering = pdfProfile == null || pdfProfile.allowsJvmRendering();
+        Optional<byte[]> fastPath = format == OutputFormat.PDF && jvmRendering
+                && templateConfig.fastPath(ticket.template(), fastPathEnabled)
+                ? FastPdfRenderer.tryRender(merge)
+                : Optional.empty();
+        if (format == OutputFormat.HTML) {
+            result = HtmlExporter.toHtml(merge);
+        } else if (format == OutputFormat.TEXT) {
+            result = TextExporter.toText(merge);
+        } else if (fastPath.isPresent()) {
+            result = fastPath.get();
+        } else if (format == OutputFormat.PDF && ticket.template() != null && (pdfProfile == null || pdfProfile.pdfA() == 0)
+                && chunkedPdfConverter.appliesTo(ticket.template(), merge.length)) {
+            // stitched chunks are no valid PDF/A document; every chunk takes its own conversion slot
+            result = chunkedPdfConverter.convert(merge, pdfProfile, deadline,
+                    chunk -> admissionControl.convert(ticket, deadline, chunk));
+        } else {
+            result = admissionControl.convert(ticket, deadline, () -> conversionBatcher.convert(merge, format, pdfProfile, deadline));
+        }
+        return result;
+    }
+
+    /**
+     * Converts one merged document into several formats, one after the other: a concurrent conversion would load
+     * the document once per format into LibreOffice and only add load to the conversion slots of this request.
+     * LibreOffice offers no export into several formats with one document load.
+     */
+    private Map<OutputFormat, byte[]> convertAll(RenderTicket ticket, byte[] merge, Set<OutputFormat> formats,
+                                                 PdfExportProfile pdfProfile, Deadline deadline,
+                                                 RenderMetrics.Stages stages) throws IOException {
+        Map<OutputFormat, byte[]> results = new LinkedHashMap<>();
+        for (OutputFormat format : formats) {
+            RenderMetrics.Stages formatStages = stages.format(format);
+            byte[] result = formatStages.time("conversion", () -> convert(ticket, merge, format, pdfProfile, deadline));
+            formatStages.documentSize(result);
+            results.put(format, result);
+        }
+        return results;
+    }
+
+    private static File writeBundle(String name, Map<OutputFormat, byte[]> results) throws IOException {
+        logger.info("Build bundle");
+        Path output = Files.createTempFile("output", ".zip");
+        try (var zip = new ZipOutputStream(Files.newOutputStream(output))) {
+            for (Map.Entry<OutputFormat, byte[]> result : results.entrySet()) {
+                zip.putNextEntry(new ZipEntry(name + "." + result.getKey().getSuffix()));
+                zip.write(result.getValue());
+                zip.closeEntry();
+            }
+        }
+        return output.toFile();
+    }
+
+    private static File writeOutput(byte[] result, OutputFormat format) throws IOException {
         logger.info("Build output");
         Path output = Files.createTempFile("output", format.getSuffix());
         Files.write(output, result);
@@ -0,0 +1,40 @@
+package io.github.flaechsig.blocpress.render;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for a stage of a render request (merge, merge-worker, overlay, conversion, write), carrying the
+ * template name and version. The merge phases inside the stage are recorded by the engine as
+ * {@code blocpress.MergePhase} on the same thread.
+ */
+@Name("blocpress.RenderStage")
+@Label("Render Stage")
+@Category({"blocpress", "Render"})
+@Description("Stage of a render request")
+@StackTrace(false)
+final class RenderStageEvent extends Event {
+
+    @Label("Template")
+    private final String template;
+
+    @Label("Version")
+    private final String version;
+
+    @Label("Format")
+    private final String format;
+
+    @Label("Stage")
+    private final String stage;
+
+    RenderStageEvent(String template, String version, String format, String stage) {
+        this.template = template;
+        this.version = version;
+        this.format = format;
+        this.stage = stage;
+    }
+}
@@ -0,0 +1,11 @@
+package io.github.flaechsig.blocpress.render;
+
+/**
+ * Scheduling attributes of a render request.
+ *
+ * @param priority priority class
+ * @param template name of the stored template, {@code null} for templates sent with the request
+ * @param caller   authenticated caller (JWT subject), {@code null} for anonymous requests
+ */
+public record RenderTicket(RenderPriority priority, String template, String caller) {
+}
@@ -0,0 +1,93 @@
+package io.github.flaechsig.blocpress.render;
+
+import io.github.flaechsig.blocpress.core.ConversionResult;
+import io.github.flaechsig.blocpress.core.Deadline;
+import io.github.flaechsig.blocpress.core.OutputFormat;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deterministic replacement for the LibreOffice conversion, used by load tests to measure the REST path without
+ * soffice. Every conversion (one soffice invocation: a batch or a chunk) waits for the configured latency and
+ * returns a fixed document per format: an empty one-page PDF, a minimal RTF, the ODT unchanged.
+ *
+ * Enabled with {@code blocpress.render.converter.stub-latency}; never enable it in production.
+ */
+final class StubConverter {
+    static final String LATENCY_PROPERTY = "blocpress.render.converter.stub-latency";
+
+    private static final byte[] PDF = emptyPdf();
+    private static final byte[] RTF = "{\\rtf1\\ansi blocpress stub}".getBytes(StandardCharsets.US_ASCII);
+
+    private final Duration latency;
+
+    StubConverter(Duration latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * @see ConversionBatcher.BatchConverter
+     */
+    Map<String, ConversionResult> convertBatch(Map<String, byte[]> inputs, OutputFormat format, Deadline deadline)
+            throws IOException {
+        await(deadline);
+        Map<String, ConversionResult> results = new LinkedHashMap<>();
+        inputs.forEach((name, input) -> results.put(name, ConversionResult.success(convert(input, format))));
+        return results;
+    }
+
+    /**
+     * @see ChunkedPdfConverter.ChunkConverter
+     */
+    byte[] convertChunk(byte[] odt, Deadline deadline) throws IOException {
+        await(deadline);
+        return convert(odt, OutputFormat.PDF);
+    }
+
+    private static byte[] convert(byte[] input, OutputFormat format) {
+        return switch (format) {
+            case PDF -> PDF.clone();
+            case RTF -> RTF.clone();
+            default -> input;
+        };
+    }
+
+    /**
+     * Waits for the latency like for a soffice process: aborted when the deadline passes or the render is cancelled.
+     */
+    private void await(Deadline deadline) throws IOException {
+        if (latency.isZero() || latency.isNegative()) {
+            return;
+        }
+        CompletableFuture<Void> converted = CompletableFuture.runAsync(() -> {
+        }, CompletableFuture.delayedExecutor(latency.toNanos(), TimeUnit.NANOSECONDS));
+        try {
+            deadline.await(converted, "conversion");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Stub conversion interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Stub conversion failed", e.getCause());
+        }
+    }
+
+    private static byte[] emptyPdf() {
+        try (PDDocument document = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            document.addPage(new PDPage());
+            document.save(out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot create stub PDF", e);
+        }
+    }
+}
@@ -1,66 +1,651 @@
 package io.github.flaechsig.blocpress.render;
 
-import io.quarkus.cache.CacheResult;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.github.flaechsig.blocpress.core.pdf.OverlayTemplate;
+import io.quarkus.runtime.configuration.MemorySize;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.control.RequestContextController;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Cache for template content fetched from the production schema.
  *
  * With TI-2 (multi-schema), templates are imported from blocpress-workbench
  * into the production schema via TemplateImportResource. This cache provides
- * fast access to the local production database.
+ * fast access to the local production database:
  *
- * Uses Quarkus Cache with configurable TTL (10 minutes) to minimize database access.
+ * <ul>
+ *   <li>activation timelines — per template name the active and all scheduled versions with their
+ *       {@code valid_from} ({@link Timeline}). A name is resolved against the clock of this node on every lookup
+ *       without touching the database, so a scheduled version is served exactly from its activation time. {@code valid_from}
+ *       is a UTC time, it is compared with the UTC time of this node regardless of the JVM time zone. Shortly
+ *       before that ({@code blocpress.render.template-cache.preload-before-activation}) the upcoming version is
+ *       loaded in the background.</li>
+ *   <li>pins — template versions requested by id or by name and version number, e.g. by callers that need a
+ *       reproducible document. Rows of the production schema are not changed once activated, so pins are kept
+ *       without expiry, bounded by their number ({@code blocpress.render.template-cache.pinned.max-entries}).</li>
+ *   <li>heap — content, version and overlay per template id, bounded by their size in bytes
+ *       ({@code blocpress.render.template-cache.heap.max-size}); Caffeine evicts by usage frequency (W-TinyLFU),
+ *       so a few large, rarely used templates cannot displace the frequently used ones. Entries do not expire,
+ *       they are checked against the content hash of the timeline or pin instead, since an import may replace a
+ *       template with the same id.</li>
+ *   <li>disk — the raw content in a local directory, keyed by its SHA-256 (see {@link TemplateDiskStore}); it
+ *       survives restarts, so after a restart or heap eviction only the timeline is read from the database</li>
+ * </ul>
+ *
+ * Timelines are refreshed in the background {@code blocpress.render.template-cache.refresh-after-write}
+ * (1 minute) after they were loaded, on the next lookup, while the lookup is still served from the cached timeline;
+ * the refresh only reads ids, versions, activation times and hashes. Timelines not used for
+ * {@code blocpress.render.template-cache.expire-after-access} (1 hour) expire. Imports drop the timelines and pins of
+ * the template (by name and id) as soon as the import is committed; a refreshed timeline drops the pins of ids whose
+ * content changed on another node. Contents and hit rates are shown by
+ * {@link TemplateCacheResource}.
  */
 @ApplicationScoped
 public class TemplateCache {
     private static final Logger logger = LoggerFactory.getLogger(TemplateCache.class);
 
+    /** Estimated bytes per overlay field (name, position, font) in addition to the content. */
+    private static final int FIELD_WEIGHT = 128;
+
+    @Inject
+    RenderMetrics metrics;
+
+    @Inject
+    Instance<RequestContextController> requestContexts;
+
+    @ConfigProperty(name = "blocpress.render.template-cache.heap.max-size", defaultValue = "256M")
+    MemorySize heapMaxSize = new MemorySize(BigInteger.valueOf(256L * 1024 * 1024));
+
+    @ConfigProperty(name = "blocpress.render.template-cache.refresh-after-write", defaultValue = "1M")
+    Duration refreshAfterWrite = Duration.ofMinutes(1);
+
+    @ConfigProperty(name = "blocpress.render.template-cache.expire-after-access", defaultValue = "1H")
+    Duration expireAfterAccess = Duration.ofHours(1);
+
+    /**
+     * Time before its activation at which a scheduled version is loaded; 0 disables the preload.
+     */
+    @ConfigProperty(name = "blocpress.render.template-cache.preload-before-activation", defaultValue = "1M")
+    Duration preloadBeforeActivation = Duration.ofMinutes(1);
+
+    /**
+     * Maximum number of pinned template versions (by id or by name and version number).
+     */
+    @ConfigProperty(name = "blocpress.render.template-cache.pinned.max-entries", defaultValue = "10000")
+    long pinnedMaxEntries = 10_000;
+
+    @ConfigProperty(name = "blocpress.render.template-cache.disk.enabled", defaultValue = "true")
+    boolean diskEnabled = true;
+
+    /**
+     * Directory of the disk tier. Not set: {@code blocpress-template-cache} in the temporary directory.
+     */
+    @ConfigProperty(name = "blocpress.render.template-cache.disk.directory")
+    Optional<String> diskDirectory = Optional.empty();
+
+    @ConfigProperty(name = "blocpress.render.template-cache.disk.max-size", defaultValue = "2G")
+    MemorySize diskMaxSize = new MemorySize(BigInteger.valueOf(2L * 1024 * 1024 * 1024));
+
+    private final Set<UUID> preloading = ConcurrentHashMap.newKeySet();
+    private LoadingCache<String, Timeline> timelines;
+    private Cache<UUID, ProductionTemplate.Activation> pinnedIds;
+    private Cache<PinnedVersion, ProductionTemplate.Activation> pinnedVersions;
+    private Cache<UUID, Entry> heap;
+    private TemplateDiskStore disk;
+    private Clock clock = Clock.systemUTC();
+    /** Runs refreshes and preloads; set by the test constructor, otherwise virtual threads with request context. */
+    private Executor refreshExecutor;
+    private ExecutorService refreshThreads;
+
+    public TemplateCache() {
+    }
+
+    /**
+     * @param diskDirectory directory of the disk tier, {@code null} without disk tier
+     */
+    TemplateCache(RenderMetrics metrics, long heapMaxBytes, Path diskDirectory, long diskMaxBytes,
+                  Duration refreshAfterWrite, Executor refreshExecutor, Clock clock) {
+        this.metrics = metrics;
+        this.refreshAfterWrite = refreshAfterWrite;
+        this.refreshExecutor = refreshExecutor;
+        this.clock = clock;
+        this.heapMaxSize = new MemorySize(BigInteger.valueOf(heapMaxBytes));
+        this.diskEnabled = diskDirectory != null;
+        this.diskDirectory = Optional.ofNullable(diskDirectory).map(Path::toString);
+        this.diskMaxSize = new MemorySize(BigInteger.valueOf(diskMaxBytes));
+        init();
+    }
+
+    @PostConstruct
+    void init() {
+        if (refreshExecutor == null) {
+            refreshThreads = Executors.newVirtualThreadPerTaskExecutor();
+            refreshExecutor = task -> refreshThreads.execute(() -> inRequestContext(task));
+        }
+        timelines = Caffeine.newBuilder()
+                .refreshAfterWrite(refreshAfterWrite)
+                .expireAfterAccess(expireAfterAccess)
+                .executor(Runnable::run)
+                .build(new CacheLoader<>() {
+                    @Override
+                    public Timeline load(String templateName) {
+                        return loadTimeline(templateName);
+                    }
+
+                    @Override
+                    public CompletableFuture<Timeline> asyncReload(String templateName, Timeline old,
+                                                                   Executor executor) {
+                        return CompletableFuture.supplyAsync(() -> refresh(templateName, old), refreshExecutor);
+                    }
+                });
+        pinnedIds = Caffeine.newBuilder().maximumSize(pinnedMaxEntries).build();
+        pinnedVersions = Caffeine.newBuilder().maximumSize(pinnedMaxEntries).build();
+        heap = Caffeine.newBuilder()
+                .maximumWeight(heapMaxSize.asLongValue())
+                .weigher((UUID id, Entry entry) -> entry.weight())
+                // Verdrängung synchron, damit Größe und Statistik sofort stimmen
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+        if (diskEnabled) {
+            Path directory = Path.of(diskDirectory.orElse(
+                    Path.of(System.getProperty("java.io.tmpdir"), "blocpress-template-cache").toString()));
+            try {
+                disk = new TemplateDiskStore(directory, diskMaxSize.asLongValue());
+            } catch (IOException e) {
+                logger.warn("Template disk cache {} not available, using heap and database only: {}",
+                        directory, e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (refreshThreads != null) {
+            refreshThreads.shutdownNow();
+        }
+    }
+
     /**
      * Fetches template content by ID from the production schema.
-     * Results are cached for performance (10 minutes TTL).
+     * The id identifies one activated version for good, so it is resolved once and then served from the heap or disk.
      *
      * @param templateId Template UUID
      * @return Template binary content (ODT file)
-     * @throws TemplateNotFoundException if template does not exist in production
+     * @throws TemplateNotFoundException if the id does not exist in production or is scheduled later
      */
-    @CacheResult(cacheName = "templates")
     public byte[] getTemplateContent(UUID templateId) {
-        logger.info("Fetching template {} from production schema (cache miss)", templateId);
+        return getTemplate(templateId).content();
+    }
 
-        ProductionTemplate template = ProductionTemplate.findById(templateId);
-        if (template == null) {
-            throw new TemplateNotFoundException("Template not found in production: " + templateId);
-        }
+    /**
+     * Fetches the template version with this id (content, version and overlay), see {@link #getTemplateContent(UUID)}.
+     *
+     * @throws TemplateNotFoundException if the id does not exist in production or is scheduled later
+     */
+    Entry getTemplate(UUID templateId) {
+        return getTemplate(getActivationById(templateId));
+    }
 
-        logger.info("Successfully fetched template {} (size: {} bytes)", templateId, template.content.length);
-        return template.content;
+    /**
+     * Fetches the version of a template active now (content, version and overlay) with one lookup, so they cannot
+     * belong to different versions if the active version changes in between.
+     *
+     * @throws TemplateNotFoundException if template does not exist in production
+     */
+    Entry getTemplate(String templateName) {
+        return entry(templateName);
     }
 
     /**
      * Fetches template content by name from the production schema.
-     * Retrieves the latest version (highest version number for the given name).
-     * Results are cached for performance (10 minutes TTL).
+     * Retrieves the version active now (highest version of the latest valid_from that is not in the future).
      *
      * @param templateName Template name
-     * @return Template binary content (ODT file) of latest version
+     * @return Template binary content (ODT file) of the active version
      * @throws TemplateNotFoundException if template does not exist in production
      */
-    @CacheResult(cacheName = "templates")
     public byte[] getTemplateContentByName(String templateName) {
-        logger.info("Fetching template {} from production schema (cache miss)", templateName);
+        return entry(templateName).content();
+    }
+
+    /**
+     * Resolves an activated template version by id. The result is kept without expiry, the id identifies the same
+     * content for good.
+     *
+     * @param id Template id
+     * @return the activation
+     * @throws TemplateNotFoundException if the id does not exist in production or is scheduled later
+     */
+    public ProductionTemplate.Activation getActivationById(UUID id) {
+        ProductionTemplate.Activation activation = pinnedIds.get(id, this::findActivation);
+        if (activation == null) {
+            throw new TemplateNotFoundException("Template not found in production: " + id);
+        }
+        return activation;
+    }
+
+    /**
+     * Resolves an activated version of a template by its version number and keeps it without expiry.
+     *
+     * @param templateName Template name
+     * @param version      Template version
+     * @return the activation
+     * @throws TemplateNotFoundException if the version does not exist in production or is scheduled later
+     */
+    public ProductionTemplate.Activation getActivationByVersion(String templateName, int version) {
+        ProductionTemplate.Activation activation = pinnedVersions.get(new PinnedVersion(templateName, version),
+                key -> findActivation(key.name(), key.version()));
+        if (activation == null) {
+            throw new TemplateNotFoundException("Template not found in production: " + templateName + " v" + version);
+        }
+        return activation;
+    }
+
+    /**
+     * Fetches a resolved template version (content, version and overlay) from the heap, disk or database.
+     *
+     * @param activation result of {@link #getActivationById} or {@link #getActivationByVersion}
+     * @throws TemplateNotFoundException if the template was deleted in the meantime
+     */
+    Entry getTemplate(ProductionTemplate.Activation activation) {
+        return entry(activation);
+    }
+
+    /**
+     * Reloads the timeline of a template and loads its active version into both tiers.
+     *
+     * @return the loaded entry
+     * @throws TemplateNotFoundException if template does not exist in production
+     */
+    public EntryInfo preload(String templateName) {
+        timelines.invalidate(templateName);
+        return entry(templateName).info();
+    }
+
+    /**
+     * Drops the timelines, pins and heap entries of a template by name and id, e.g. after a new version was imported
+     * (the id may have been stored under another name before, the version number may now resolve to the new row).
+     * The disk tier stays valid since it is keyed by content.
+     */
+    public void invalidate(String templateName, UUID id) {
+        timelines.invalidate(templateName);
+        timelines.asMap().values().removeIf(timeline -> timeline.contains(id));
+        unpin(templateName, id);
+        heap.invalidate(id);
+    }
+
+    /**
+     * Drops the imported template once the import is committed, so a concurrent lookup cannot cache the previous
+     * version again.
+     */
+    void onImport(@Observes(during = TransactionPhase.AFTER_SUCCESS) TemplateImportResource.Imported imported) {
+        logger.info("Template {} imported, dropping it from the cache", imported.name());
+        invalidate(imported.name(), imported.id());
+    }
+
+    /**
+     * Drops a template (timeline and all versions) from both tiers.
+     *
+     * @return {@code true} if a version of the template was in the heap tier
+     */
+    public boolean evict(String templateName) {
+        timelines.invalidate(templateName);
+        unpin(templateName, null);
+        boolean evicted = false;
+        for (Entry entry : List.copyOf(heap.asMap().values())) {
+            if (entry.name().equals(templateName) && heap.asMap().remove(entry.id(), entry)) {
+                evicted = true;
+                if (disk != null) {
+                    disk.evict(entry.contentHash());
+                }
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Drops all templates from both tiers.
+     */
+    public void evictAll() {
+        logger.info("Evicting all templates from the heap and disk cache");
+        timelines.invalidateAll();
+        pinnedIds.invalidateAll();
+        pinnedVersions.invalidateAll();
+        heap.invalidateAll();
+        if (disk != null) {
+            disk.evictAll();
+        }
+    }
+
+    /**
+     * Drops all timelines and pins, e.g. after restoring a JVM checkpoint whose timelines may be outdated and whose
+     * pinned templates may have been deleted or re-imported. Heap entries are checked against the content hash of the
+     * reloaded timelines and pins, the disk tier is keyed by content; both stay valid.
+     */
+    public void invalidateAll() {
+        logger.info("Invalidating all template timelines and pins");
+        timelines.invalidateAll();
+        pinnedIds.invalidateAll();
+        pinnedVersions.invalidateAll();
+    }
+
+    /**
+     * @return statistics and contents of both tiers and the timelines
+     */
+    public Snapshot snapshot() {
+        heap.cleanUp();
+        CacheStats stats = heap.stats();
+        List<EntryInfo> templates = heap.asMap().values().stream()
+                .map(Entry::info)
+                .sorted(Comparator.comparingLong(EntryInfo::hits).reversed())
+                .toList();
+        long weight = heap.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L);
+        HeapStats heapStats = new HeapStats(templates.size(), weight, heapMaxSize.asLongValue(), stats.hitCount(),
+                stats.missCount(), stats.hitRate(), stats.evictionCount(), templates);
+        LocalDateTime now = now();
+        List<TimelineInfo> timelineInfos = timelines.asMap().values().stream()
+                .map(timeline -> timeline.info(now))
+                .sorted(Comparator.comparing(TimelineInfo::name))
+                .toList();
+        return new Snapshot(heapStats, disk != null ? disk.stats() : null, timelineInfos);
+    }
 
-        ProductionTemplate template = ProductionTemplate.findLatestActiveByName(templateName);
-        if (template == null) {
+    private Entry entry(String templateName) {
+        Timeline timeline = timelines.get(templateName);
+        LocalDateTime now = now();
+        ProductionTemplate.Activation active = timeline.activeAt(now);
+        if (active == null) {
+            // nur zukünftig gültige Versionen
             throw new TemplateNotFoundException("Template not found in production: " + templateName);
         }
+        preloadIfDue(timeline, now);
+        return entry(active);
+    }
+
+    /**
+     * @return the current time in UTC, the time zone of {@code valid_from}
+     */
+    private LocalDateTime now() {
+        return LocalDateTime.ofInstant(clock.instant(), ZoneOffset.UTC);
+    }
+
+    private Entry entry(ProductionTemplate.Activation activation) {
+        Entry entry = heap.get(activation.id(), id -> load(activation));
+        if (!entry.contentHash().equals(activation.contentHash())) {
+            // dieselbe Id wurde mit anderem Inhalt neu importiert
+            heap.asMap().remove(activation.id(), entry);
+            entry = heap.get(activation.id(), id -> load(activation));
+        }
+        entry.hits().increment();
+        return entry;
+    }
+
+    /**
+     * Loads the next scheduled version in the background if it activates within
+     * {@code preload-before-activation} and is not in the heap tier yet.
+     */
+    private void preloadIfDue(Timeline timeline, LocalDateTime now) {
+        if (preloadBeforeActivation.isZero()) {
+            return;
+        }
+        ProductionTemplate.Activation next = timeline.nextAfter(now);
+        if (next == null || next.validFrom().isAfter(now.plus(preloadBeforeActivation))
+                || heap.asMap().containsKey(next.id()) || !preloading.add(next.id())) {
+            return;
+        }
+        logger.info("Preloading template {} v{} activated at {}", timeline.name(), next.version(), next.validFrom());
+        refreshExecutor.execute(() -> {
+            try {
+                heap.get(next.id(), id -> load(next));
+            } catch (RuntimeException e) {
+                logger.warn("Could not preload template {} v{}: {}", timeline.name(), next.version(), e.getMessage());
+            } finally {
+                preloading.remove(next.id());
+            }
+        });
+    }
+
+    private Timeline loadTimeline(String templateName) {
+        List<ProductionTemplate.Activation> activations = findActivations(templateName);
+        if (activations.isEmpty()) {
+            throw new TemplateNotFoundException("Template not found in production: " + templateName);
+        }
+        return new Timeline(templateName, activations);
+    }
+
+    /**
+     * Reloads a timeline in the background, keeping it if nothing changed; drops it if the template was deleted.
+     */
+    private Timeline refresh(String templateName, Timeline old) {
+        List<ProductionTemplate.Activation> activations = findActivations(templateName);
+        if (activations.isEmpty()) {
+            logger.info("Template {} no longer exists, dropping it from the cache", templateName);
+            return null;
+        }
+        if (activations.equals(old.activations())) {
+            return old;
+        }
+        logger.info("Timeline of template {} changed", templateName);
+        for (ProductionTemplate.Activation activation : activations) {
+            ProductionTemplate.Activation pinned = pinnedIds.getIfPresent(activation.id());
+            if (pinned != null && !pinned.equals(activation)) {
+                // auf einem anderen Knoten mit derselben Id neu importiert
+                unpin(pinned.name(), pinned.id());
+            }
+        }
+        return new Timeline(templateName, activations);
+    }
+
+    /**
+     * Drops the pins of an id and of the version numbers of a name.
+     *
+     * @param id the id, {@code null} for all pins of the name
+     */
+    private void unpin(String templateName, UUID id) {
+        pinnedIds.asMap().values().removeIf(activation ->
+                activation.id().equals(id) || id == null && activation.name().equals(templateName));
+        pinnedVersions.asMap().keySet().removeIf(key -> key.name().equals(templateName));
+        pinnedVersions.asMap().values().removeIf(activation -> activation.id().equals(id));
+    }
 
-        logger.info("Successfully fetched template {} v{} (size: {} bytes)",
-            templateName, template.version, template.content.length);
-        return template.content;
+    private Entry load(ProductionTemplate.Activation activation) {
+        String templateName = activation.name();
+        byte[] content = disk != null ? disk.read(activation.contentHash()).orElse(null) : null;
+        if (content != null) {
+            logger.info("Fetched template {} v{} from the disk cache (size: {} bytes)",
+                    templateName, activation.version(), content.length);
+            metrics.templateLoadedFromDisk();
+        } else {
+            logger.info("Fetching template {} v{} from production schema (cache miss)",
+                    templateName, activation.version());
+            metrics.templateLoaded();
+            content = findContent(activation.id());
+            if (content == null) {
+                // nach dem Laden der Timeline gelöscht
+                throw new TemplateNotFoundException("Template not found in production: " + templateName);
+            }
+            if (disk != null) {
+                disk.write(activation.contentHash(), content);
+            }
+            logger.info("Successfully fetched template {} v{} (size: {} bytes)",
+                    templateName, activation.version(), content.length);
+        }
+        return new Entry(templateName, activation.id(), activation.version(), activation.contentHash(), content,
+                findOverlay(activation.id()), new LongAdder());
+    }
+
+    private void inRequestContext(Runnable task) {
+        // Datenbankzugriff außerhalb eines HTTP-Requests braucht einen aktiven Request-Kontext
+        RequestContextController requestContext = requestContexts.get();
+        requestContext.activate();
+        try {
+            task.run();
+        } finally {
+            requestContext.deactivate();
+        }
+    }
+
+    List<ProductionTemplate.Activation> findActivations(String templateName) {
+        return ProductionTemplate.findActivationsByName(templateName);
+    }
+
+    ProductionTemplate.Activation findActivation(UUID id) {
+        return ProductionTemplate.findActivationById(id);
+    }
+
+    ProductionTemplate.Activation findActivation(String templateName, int version) {
+        return ProductionTemplate.findActivationByVersion(templateName, version);
+    }
+
+    byte[] findContent(UUID id) {
+        return ProductionTemplate.findContent(id);
+    }
+
+    OverlayTemplate findOverlay(UUID id) {
+        return ProductionTemplate.findOverlay(id);
+    }
+
+    /**
+     * Activation timeline of a template name, immutable so lookups need no lock.
+     *
+     * @param activations ordered by valid_from and version, latest first
+     */
+    record Timeline(String name, List<ProductionTemplate.Activation> activations) {
+
+        /**
+         * @return the version active at the time, {@code null} if all versions are scheduled later
+         */
+        ProductionTemplate.Activation activeAt(LocalDateTime time) {
+            for (ProductionTemplate.Activation activation : activations) {
+                if (!activation.validFrom().isAfter(time)) {
+                    return activation;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return the version activated next after the time, {@code null} if none is scheduled
+         */
+        ProductionTemplate.Activation nextAfter(LocalDateTime time) {
+            ProductionTemplate.Activation next = null;
+            for (ProductionTemplate.Activation activation : activations) {
+                if (!activation.validFrom().isAfter(time)) {
+                    break;
+                }
+                // bei gleichem valid_from gewinnt die höchste (zuerst gelistete) Version
+                if (next == null || activation.validFrom().isBefore(next.validFrom())) {
+                    next = activation;
+                }
+            }
+            return next;
+        }
+
+        boolean contains(UUID id) {
+            return activations.stream().anyMatch(activation -> activation.id().equals(id));
+        }
+
+        TimelineInfo info(LocalDateTime now) {
+            ProductionTemplate.Activation active = activeAt(now);
+            ProductionTemplate.Activation next = nextAfter(now);
+            return new TimelineInfo(name, active != null ? active.version() : null,
+                    next != null ? next.version() : null, next != null ? next.validFrom().toString() : null);
+        }
+    }
+
+    /**
+     * Key of a template version pinned by name and version number.
+     */
+    record PinnedVersion(String name, int version) {
+    }
+
+    /**
+     * Heap entry of one template version.
+     *
+     * @param name    name the version was loaded under
+     * @param overlay the overlay, {@code null} if the template is not layout-stable
+     * @param hits    lookups since the entry was loaded
+     */
+    record Entry(String name, UUID id, int version, String contentHash, byte[] content, OverlayTemplate overlay,
+                 LongAdder hits) {
+
+        /**
+         * @return the estimated heap size in bytes: content, pre-converted PDF and fields of the overlay
+         */
+        int weight() {
+            long weight = content.length;
+            if (overlay != null) {
+                weight += overlay.basePdf().length + (long) overlay.fields().size() * FIELD_WEIGHT;
+            }
+            return (int) Math.min(weight, Integer.MAX_VALUE);
+        }
+
+        EntryInfo info() {
+            return new EntryInfo(name, version, contentHash, weight(), overlay != null, hits.sum());
+        }
+    }
+
+    /**
+     * @param bytes   estimated heap size
+     * @param overlay {@code true} if the entry holds an overlay
+     * @param hits    lookups since the entry was loaded
+     */
+    public record EntryInfo(String name, int version, String contentHash, long bytes, boolean overlay, long hits) {
+    }
+
+    /**
+     * @param hitRate   share of the lookups served from the heap
+     * @param evictions entries evicted because of their size
+     */
+    public record HeapStats(int entries, long bytes, long maxBytes, long hits, long misses, double hitRate,
+                            long evictions, List<EntryInfo> templates) {
+    }
+
+    /**
+     * @param activeVersion  version active now, {@code null} if all versions are scheduled later
+     * @param nextVersion    next scheduled version, {@code null} if none
+     * @param nextActivation activation time of the next version (ISO-8601), {@code null} if none
+     */
+    public record TimelineInfo(String name, Integer activeVersion, Integer nextVersion, String nextActivation) {
+    }
+
+    /**
+     * @param disk      statistics of the disk tier, {@code null} if it is disabled
+     * @param timelines cached activation timelines
+     */
+    public record Snapshot(HeapStats heap, TemplateDiskStore.Stats disk, List<TimelineInfo> timelines) {
     }
 }
@@ -0,0 +1,60 @@
+package io.github.flaechsig.blocpress.render;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Administration of the {@link TemplateCache} of this node. JWT required.
+ *
+ * <ul>
+ *   <li>{@code GET /api/render/admin/template-cache} — contents and hit rates of the heap and disk tier</li>
+ *   <li>{@code POST /api/render/admin/template-cache/{name}} — loads the active version of a template into both
+ *       tiers, e.g. before a mailing</li>
+ *   <li>{@code DELETE /api/render/admin/template-cache/{name}} — drops a template from both tiers</li>
+ *   <li>{@code DELETE /api/render/admin/template-cache} — drops all templates from both tiers</li>
+ * </ul>
+ */
+@ApplicationScoped
+@Path("api/render/admin/template-cache")
+@Produces(MediaType.APPLICATION_JSON)
+public class TemplateCacheResource {
+
+    @Inject
+    TemplateCache templateCache;
+
+    @GET
+    public TemplateCache.Snapshot contents() {
+        return templateCache.snapshot();
+    }
+
+    @POST
+    @Path("{name}")
+    public TemplateCache.EntryInfo preload(@PathParam("name") String name) {
+        try {
+            return templateCache.preload(name);
+        } catch (TemplateNotFoundException e) {
+            throw new WebApplicationException(e.getMessage(), Response.Status.NOT_FOUND);
+        }
+    }
+
+    @DELETE
+    @Path("{name}")
+    public Response evict(@PathParam("name") String name) {
+        return templateCache.evict(name) ? Response.noContent().build() : Response.status(Response.Status.NOT_FOUND).build();
+    }
+
+    @DELETE
+    public Response evictAll() {
+        templateCache.evictAll();
+        return Response.noContent().build();
+    }
+}
@@ -0,0 +1,211 @@
+package io.github.flaechsig.blocpress.render;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Local disk tier of the {@link TemplateCache}: raw template content stored under its SHA-256.
+ *
+ * Since a file is named by the hash of its content, it stays valid across restarts and never needs to be
+ * invalidated; a changed template simply has another hash. Files are read through a read-only memory mapping, so
+ * repeated reads come straight from the page cache, and written atomically (temporary file, then move). When the
+ * files exceed {@code maxBytes}, the least frequently read ones are deleted; the time of the last read (file
+ * modification time) breaks ties and orders the files not read since the start.
+ */
+final class TemplateDiskStore {
+    private static final Logger logger = LoggerFactory.getLogger(TemplateDiskStore.class);
+    private static final String SUFFIX = ".odt";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final Map<String, LongAdder> reads = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final AtomicLong bytes = new AtomicLong();
+
+    /**
+     * Opens the store, keeping the files of earlier runs.
+     */
+    TemplateDiskStore(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                if (file.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+                    // abgebrochener Schreibvorgang eines früheren Laufs
+                    Files.deleteIfExists(file);
+                } else if (file.getFileName().toString().endsWith(SUFFIX)) {
+                    bytes.addAndGet(Files.size(file));
+                }
+            }
+        }
+        logger.info("Template disk cache {}: {} bytes of {}", directory, bytes.get(), maxBytes);
+    }
+
+    /**
+     * @return the content stored under the hash, empty if there is none
+     */
+    Optional<byte[]> read(String contentHash) {
+        Path file = file(contentHash);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte[] content = new byte[mapped.remaining()];
+            mapped.get(content);
+            hits.increment();
+            used(contentHash, file);
+            return Optional.of(content);
+        } catch (NoSuchFileException e) {
+            misses.increment();
+            return Optional.empty();
+        } catch (IOException e) {
+            logger.warn("Could not read cached template {}: {}", file, e.getMessage());
+            misses.increment();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stores the content under its hash and evicts the least frequently read files if the store is full.
+     * Failures are only logged; the template is then read from the database again next time.
+     */
+    void write(String contentHash, byte[] content) {
+        Path file = file(contentHash);
+        if (Files.exists(file)) {
+            return;
+        }
+        try {
+            Path temp = Files.createTempFile(directory, contentHash, TEMP_SUFFIX);
+            Files.write(temp, content);
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            bytes.addAndGet(content.length);
+            // das Laden aus der Datenbank zählt als erste Verwendung
+            used(contentHash, file);
+        } catch (IOException e) {
+            logger.warn("Could not cache template {} on disk: {}", contentHash, e.getMessage());
+            return;
+        }
+        if (bytes.get() > maxBytes) {
+            evictLeastFrequent();
+        }
+    }
+
+    /**
+     * Deletes the file of the hash.
+     */
+    void evict(String contentHash) {
+        delete(file(contentHash));
+    }
+
+    /**
+     * Deletes all files.
+     */
+    void evictAll() {
+        entries().forEach(e -> evict(e.contentHash()));
+    }
+
+    Stats stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        List<Entry> entries = entries();
+        return new Stats(directory.toString(), entries.size(), bytes.get(), maxBytes, hitCount, missCount,
+                hitCount + missCount == 0 ? 0 : (double) hitCount / (hitCount + missCount), entries);
+    }
+
+    private synchronized void evictLeastFrequent() {
+        List<Entry> entries = new ArrayList<>(entries());
+        entries.sort(Comparator.comparingLong(Entry::reads).thenComparing(Entry::lastRead));
+        for (Entry entry : entries) {
+            if (bytes.get() <= maxBytes) {
+                return;
+            }
+            logger.debug("Evicting template {} from the disk cache ({} reads)", entry.contentHash(), entry.reads());
+            evict(entry.contentHash());
+        }
+    }
+
+    private List<Entry> entries() {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Entry> entries = new ArrayList<>();
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(SUFFIX)).toList()) {
+                String name = file.getFileName().toString();
+                String hash = name.substring(0, name.length() - SUFFIX.length());
+                LongAdder count = reads.get(hash);
+                try {
+                    entries.add(new Entry(hash, Files.size(file), count != null ? count.sum() : 0,
+                            Files.getLastModifiedTime(file).toInstant().toString()));
+                } catch (NoSuchFileException e) {
+                    // gerade verdrängt
+                }
+            }
+            return entries;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void used(String contentHash, Path file) {
+        reads.computeIfAbsent(contentHash, h -> new LongAdder()).increment();
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            logger.debug("Could not touch {}", file);
+        }
+    }
+
+    private void delete(Path file) {
+        try {
+            long size = Files.size(file);
+            if (Files.deleteIfExists(file)) {
+                bytes.addAndGet(-size);
+            }
+        } catch (NoSuchFileException e) {
+            // schon gelöscht
+        } catch (IOException e) {
+            logger.warn("Could not delete cached template {}: {}", file, e.getMessage());
+        }
+        String name = file.getFileName().toString();
+        reads.remove(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    private Path file(String contentHash) {
+        return directory.resolve(contentHash + SUFFIX);
+    }
+
+    /**
+     * @param contentHash SHA-256 of the content (hex)
+     * @param bytes       file size
+     * @param reads       reads since the start
+     * @param lastRead    time of the last read or write (ISO-8601)
+     */
+    public record Entry(String contentHash, long bytes, long reads, String lastRead) {
+    }
+
+    /**
+     * @param hitRate share of the reads that found a file
+     */
+    public record Stats(String directory, int files, long bytes, long maxBytes, long hits, long misses,
+                        double hitRate, List<Entry> entries) {
+    }
+}
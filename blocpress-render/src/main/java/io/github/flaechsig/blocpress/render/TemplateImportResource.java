@@ -1,16 +1,25 @@
 package io.github.flaechsig.blocpress.render;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.flaechsig.blocpress.core.pdf.OverlayTemplate;
+import io.github.flaechsig.blocpress.core.pdf.PdfOverlay;
 import jakarta.annotation.security.PermitAll;
 import jakarta.enterprise.context.ApplicationScoped;
-import jakarta.transaction.Transactional;
+import jakarta.inject.Inject;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.Base64;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -22,12 +31,26 @@ import java.util.UUID;
  *
  * No authentication required — this is an internal endpoint only accessible
  * within the deployment infrastructure.
+ *
+ * Layout-stable templates are converted to PDF once during import (overlay mode,
+ * see {@link PdfOverlay}); PDF requests then only stamp the field values. The conversion runs
+ * before the short write transaction of the {@link TemplateImporter}.
+ * The optional sample data is used for the warm-up renders at startup, see {@link TemplateWarmup}.
+ * After the commit the imported template is dropped from the heap tier of the {@link TemplateCache} of this node
+ * ({@link Imported} event).
  */
 @ApplicationScoped
 @Path("api/render/templates/import")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class TemplateImportResource {
+    private static final Logger logger = LoggerFactory.getLogger(TemplateImportResource.class);
+
+    @Inject
+    TemplateImporter importer;
+
+    @ConfigProperty(name = "blocpress.render.overlay.enabled", defaultValue = "true")
+    boolean overlayEnabled = true;
 
     /**
      * Import (or update) a template into the production schema.
@@ -38,23 +61,52 @@ public class TemplateImportResource {
      */
     @POST
     @PermitAll
-    @Transactional
     public Response importTemplate(ImportRequest request) {
-        // Delete existing template with same ID if present (upsert)
-        ProductionTemplate.delete("id", request.id());
-
-        // Create and persist new template
-        ProductionTemplate template = new ProductionTemplate();
-        template.id = request.id();
-        template.name = request.name();
-        template.version = request.version();
-        template.content = Base64.getDecoder().decode(request.contentBase64());
-        template.validFrom = request.validFrom();
-        template.persist();
+        byte[] content = Base64.getDecoder().decode(request.contentBase64());
+        // Konvertierung außerhalb der Transaktion, siehe TemplateImporter
+        OverlayTemplate overlay = overlayEnabled ? prepareOverlay(request.name(), content) : null;
+        importer.store(request, content, overlay);
 
         return Response.ok().build();
     }
 
+    /**
+     * Converts a layout-stable template once for the overlay mode.
+     *
+     * @return the overlay, {@code null} if the template is not layout-stable or the preparation fails
+     */
+    private static OverlayTemplate prepareOverlay(String name, byte[] content) {
+        java.nio.file.Path tempFile = null;
+        try {
+            tempFile = Files.createTempFile("template-" + name, ".odt");
+            Files.write(tempFile, content);
+            List<String> issues = PdfOverlay.layoutStabilityIssues(tempFile.toUri().toURL());
+            if (!issues.isEmpty()) {
+                logger.info("Template {} is not layout-stable, overlay mode disabled: {}", name, issues);
+                return null;
+            }
+            OverlayTemplate overlay = PdfOverlay.prepare(tempFile.toUri().toURL());
+            logger.info("Prepared overlay for template {} ({} fields)", name, overlay.fields().size());
+            return overlay;
+        } catch (Exception e) {
+            logger.warn("Could not prepare overlay for template {}: {}", name, e.getMessage());
+            return null;
+        } finally {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException e) {
+                    logger.debug("Could not delete {}", tempFile);
+                }
+            }
+        }
+    }
+
+    /**
+     * Fired when a template was imported; observers with {@code during = AFTER_SUCCESS} see it after the commit.
+     */
+    public record Imported(UUID id, String name) {}
+
     /**
      * Request body for importing a template into production.
      */
@@ -63,6 +115,7 @@ public class TemplateImportResource {
         String name,
         Integer version,
         String contentBase64,  // Base64-encoded ODT binary
-        java.time.LocalDateTime validFrom
+        java.time.LocalDateTime validFrom,
+        JsonNode sampleData    // optional data record for the warm-up renders
     ) {}
 }
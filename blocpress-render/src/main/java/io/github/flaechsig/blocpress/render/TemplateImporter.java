@@ -0,0 +1,48 @@
+package io.github.flaechsig.blocpress.render;
+
+import io.github.flaechsig.blocpress.core.pdf.OverlayTemplate;
+import io.github.flaechsig.blocpress.core.pdf.PdfOverlay;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+
+/**
+ * Writes an imported template into the production schema in one short transaction.
+ *
+ * The overlay is converted beforehand by {@link TemplateImportResource}, so no database connection
+ * and no row lock of the upsert is held while LibreOffice converts the template.
+ */
+@ApplicationScoped
+public class TemplateImporter {
+
+    @Inject
+    Event<TemplateImportResource.Imported> imported;
+
+    /**
+     * Replaces the template with the same ID, if present (upsert), and fires
+     * {@link TemplateImportResource.Imported} within the transaction.
+     *
+     * @param request import request
+     * @param content decoded template content
+     * @param overlay prepared overlay, {@code null} if the template has none
+     */
+    @Transactional
+    public void store(TemplateImportResource.ImportRequest request, byte[] content, OverlayTemplate overlay) {
+        // Delete existing template with same ID if present (upsert)
+        ProductionTemplate.delete("id", request.id());
+
+        // Create and persist new template
+        ProductionTemplate template = new ProductionTemplate();
+        template.id = request.id();
+        template.name = request.name();
+        template.version = request.version();
+        template.content = content;
+        template.contentHash = PdfOverlay.hash(content);
+        template.validFrom = request.validFrom();
+        template.overlay = overlay;
+        template.sampleData = request.sampleData();
+        template.persist();
+        imported.fire(new TemplateImportResource.Imported(request.id(), request.name()));
+    }
+}
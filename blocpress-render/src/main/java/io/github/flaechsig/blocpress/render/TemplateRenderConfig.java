@@ -0,0 +1,69 @@
+package io.github.flaechsig.blocpress.render;
+
+import io.quarkus.runtime.configuration.MemorySize;
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithParentName;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Render options per template name, e.g.
+ * <pre>
+ * blocpress.render.templates."jahresabrechnung".split-threshold=2M
+ * blocpress.render.templates."jahresabrechnung".pdf-profile=archive
+ * blocpress.render.templates."jahresabrechnung".timeout=5m
+ * blocpress.render.templates."jahresabrechnung".max-concurrent=2
+ * blocpress.render.templates."kurzbrief".fast-path=true
+ * </pre>
+ */
+@ConfigMapping(prefix = "blocpress.render.templates")
+public interface TemplateRenderConfig {
+
+    @WithParentName
+    Map<String, TemplateOptions> templates();
+
+    default Optional<TemplateOptions> forTemplate(String name) {
+        return Optional.ofNullable(name).map(n -> templates().get(n));
+    }
+
+    /**
+     * @param enabled value of {@code blocpress.render.fast-path.enabled}, used for templates without own setting
+     * @return {@code true} if PDFs of this template may be rendered by the pure-Java fast path
+     */
+    default boolean fastPath(String name, boolean enabled) {
+        return forTemplate(name).flatMap(TemplateOptions::fastPath).orElse(enabled);
+    }
+
+    interface TemplateOptions {
+
+        /**
+         * Merged documents of at least this size are converted to PDF in parallel chunks,
+         * see {@link ChunkedPdfConverter}. Not set: always converted as a whole.
+         */
+        Optional<MemorySize> splitThreshold();
+
+        /**
+         * PDF export profile for this template, see {@link PdfProfileConfig}. Requests may select another profile.
+         */
+        Optional<String> pdfProfile();
+
+        /**
+         * Deadline of renders of this template, see {@link RenderDeadlines}. Requests may set another one.
+         */
+        Optional<Duration> timeout();
+
+        /**
+         * Bulkhead: concurrent merges and conversions of this template per stage, see {@link AdmissionControl}.
+         * Not set: no limit besides the stage capacity.
+         */
+        Optional<Integer> maxConcurrent();
+
+        /**
+         * Renders PDFs of this template with the pure-Java {@link io.github.flaechsig.blocpress.core.pdf.FastPdfRenderer}
+         * if the document only uses supported features. Not set: {@code blocpress.render.fast-path.enabled}.
+         */
+        Optional<Boolean> fastPath();
+    }
+}
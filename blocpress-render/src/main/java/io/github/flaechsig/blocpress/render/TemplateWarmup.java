@@ -0,0 +1,246 @@
+package io.github.flaechsig.blocpress.render;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import io.github.flaechsig.blocpress.core.OutputFormat;
+import io.github.flaechsig.blocpress.core.RenderEngine;
+import io.github.flaechsig.blocpress.core.html.HtmlExporter;
+import io.github.flaechsig.blocpress.core.html.TextExporter;
+import io.github.flaechsig.blocpress.core.pdf.FastPdfRenderer;
+import io.github.flaechsig.blocpress.core.pdf.OverlayTemplate;
+import io.github.flaechsig.blocpress.core.pdf.PdfOverlay;
+import io.github.flaechsig.blocpress.core.pdf.UnsupportedFeatureException;
+import io.quarkus.runtime.Quarkus;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.control.ActivateRequestContext;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Preloads and warms up the active production templates at startup.
+ *
+ * The first renders of a template after a restart pay for the database lookup, the ODT parsing, the JEXL
+ * expressions and the not yet compiled render code; the first LibreOffice conversion additionally creates the
+ * soffice user profile. The warm-up loads the {@code blocpress.render.warmup.max-templates} most recently activated
+ * templates into the {@link TemplateCache} and renders each {@code blocpress.render.warmup.renders} times with the
+ * sample data stored at import (or an empty record) in the JVM: merge, then overlay stamp or fast-path PDF.
+ * One merged document is converted by LibreOffice. The renders run on a background thread;
+ * {@link WarmupReadinessCheck} reports the node as not ready until they are finished, so no traffic reaches a cold
+ * node. Failures only skip the template concerned. Afterwards the {@link JvmCheckpoint} may capture the warmed-up JVM.
+ *
+ * With {@code blocpress.render.warmup.training} (Quarkus profile {@code training}) the bundled training template
+ * is rendered instead of the production templates and the application exits; the Dockerfile uses this run to
+ * write the AppCDS archive.
+ */
+@ApplicationScoped
+public class TemplateWarmup {
+    private static final Logger logger = LoggerFactory.getLogger(TemplateWarmup.class);
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    @Inject
+    TemplateCache templateCache;
+
+    @Inject
+    ConversionBatcher conversionBatcher;
+
+    @Inject
+    JvmCheckpoint jvmCheckpoint;
+
+    @ConfigProperty(name = "blocpress.render.warmup.enabled", defaultValue = "true")
+    boolean enabled = true;
+
+    @ConfigProperty(name = "blocpress.render.warmup.max-templates", defaultValue = "20")
+    int maxTemplates = 20;
+
+    @ConfigProperty(name = "blocpress.render.warmup.renders", defaultValue = "3")
+    int renders = 3;
+
+    @ConfigProperty(name = "blocpress.render.warmup.convert", defaultValue = "true")
+    boolean convert = true;
+
+    @ConfigProperty(name = "blocpress.render.warmup.training", defaultValue = "false")
+    boolean training = false;
+
+    @Inject
+    TemplateRenderConfig templateConfig;
+
+    @ConfigProperty(name = "blocpress.render.fast-path.enabled", defaultValue = "false")
+    boolean fastPathEnabled = false;
+
+    @ConfigProperty(name = "blocpress.render.overlay.enabled", defaultValue = "true")
+    boolean overlayEnabled = true;
+
+    private volatile boolean completed;
+
+    public TemplateWarmup() {
+    }
+
+    TemplateWarmup(int renders) {
+        this.renders = renders;
+        this.convert = false;
+        this.templateConfig = Map::of;
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled) {
+            completed = true;
+            return;
+        }
+        Thread.ofVirtual().name("template-warmup").start(this::run);
+    }
+
+    /**
+     * @return whether the warm-up is finished (or disabled)
+     */
+    public boolean completed() {
+        return completed;
+    }
+
+    /**
+     * Warms up the active templates (or runs the training) and marks the warm-up as completed, also if it fails.
+     */
+    @ActivateRequestContext
+    void run() {
+        long start = System.nanoTime();
+        try {
+            if (training) {
+                train();
+            } else {
+                warmUpActiveTemplates();
+            }
+            logger.info("Warm-up finished in {} ms", (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException | IOException e) {
+            logger.warn("Template warm-up failed: {}", e.getMessage(), e);
+        } finally {
+            if (training) {
+                // Beim Beenden schreibt die JVM das AppCDS-Archiv (-XX:ArchiveClassesAtExit)
+                Quarkus.asyncExit();
+            } else {
+                jvmCheckpoint.warmedUp();
+            }
+            completed = true;
+        }
+    }
+
+    private void warmUpActiveTemplates() {
+        List<String> names = ProductionTemplate.findActiveNames(maxTemplates);
+        logger.info("Warming up {} templates", names.size());
+        byte[] converted = null;
+        for (String name : names) {
+            byte[] merge = warmUp(name);
+            if (convert && converted == null && merge != null) {
+                converted = convertOnce(merge);
+            }
+        }
+    }
+
+    /**
+     * Renders the bundled training template into every output format handled in the JVM.
+     */
+    void train() throws IOException {
+        byte[] merge = render("training", resource("training/kuendigung.odt"),
+                mapper.readTree(resource("training/kuendigung.json")), Optional.empty());
+        HtmlExporter.toHtml(merge);
+        TextExporter.toText(merge);
+        if (convert) {
+            convertOnce(merge);
+        }
+    }
+
+    private static byte[] resource(String name) throws IOException {
+        try (InputStream in = TemplateWarmup.class.getClassLoader().getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IOException("Training resource not found: " + name);
+            }
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * Fills the caches of the template and renders it with its sample data.
+     *
+     * @return the last merged document, {@code null} if the template could not be rendered
+     */
+    private byte[] warmUp(String name) {
+        try {
+            TemplateCache.Entry entry = templateCache.getTemplate(name);
+            Optional<OverlayTemplate> overlay = overlayEnabled
+                    ? Optional.ofNullable(entry.overlay()).filter(o -> o.templateHash().equals(entry.contentHash()))
+                    : Optional.empty();
+            JsonNode sampleData = ProductionTemplate.findSampleData(entry.id());
+            JsonNode data = sampleData != null ? sampleData : JsonNodeFactory.instance.objectNode();
+            return render(name, entry.content(), data, overlay);
+        } catch (RuntimeException | IOException e) {
+            logger.warn("Warm-up of template {} failed: {}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Renders the template {@code renders} times like a PDF request.
+     *
+     * @param overlay overlay matching the template content, stamped as long as it applies to the data
+     * @return the last merged document
+     */
+    byte[] render(String name, byte[] content, JsonNode data, Optional<OverlayTemplate> overlay) throws IOException {
+        Path tempFile = Files.createTempFile("warmup-" + name, ".odt");
+        try {
+            Files.write(tempFile, content);
+            URL odt = tempFile.toUri().toURL();
+            boolean stamp = overlay.isPresent();
+            byte[] merge = null;
+            for (int i = 0; i < renders; i++) {
+                merge = RenderEngine.mergeTemplate(odt, data);
+                if (stamp) {
+                    stamp = stampOverlay(name, odt, overlay.get(), data);
+                }
+                if (templateConfig.fastPath(name, fastPathEnabled)) {
+                    FastPdfRenderer.tryRender(merge);
+                }
+            }
+            return merge;
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * @return whether the overlay applies to the sample data
+     */
+    private static boolean stampOverlay(String name, URL odt, OverlayTemplate overlay, JsonNode data) {
+        try {
+            PdfOverlay.render(odt, overlay, data);
+            return true;
+        } catch (UnsupportedFeatureException e) {
+            logger.debug("Overlay not applicable for warm-up of {}: {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Converts one document with LibreOffice, so the first request does not pay for creating the soffice profile.
+     */
+    private byte[] convertOnce(byte[] merge) {
+        try {
+            return conversionBatcher.convert(merge, OutputFormat.PDF);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Warm-up conversion failed: {}", e.getMessage());
+            // kein zweiter Versuch mit dem nächsten Template
+            return new byte[0];
+        }
+    }
+}
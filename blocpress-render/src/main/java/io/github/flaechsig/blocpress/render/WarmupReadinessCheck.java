@@ -0,0 +1,25 @@
+package io.github.flaechsig.blocpress.render;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.Readiness;
+
+/**
+ * Reports the node as not ready until the templates are warmed up, see {@link TemplateWarmup}.
+ */
+@Readiness
+@ApplicationScoped
+public class WarmupReadinessCheck implements HealthCheck {
+
+    @Inject
+    TemplateWarmup templateWarmup;
+
+    @Override
+    public HealthCheckResponse call() {
+        return HealthCheckResponse.named("template-warmup")
+                .status(templateWarmup.completed())
+                .build();
+    }
+}
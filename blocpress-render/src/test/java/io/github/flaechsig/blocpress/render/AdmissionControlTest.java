@@ -0,0 +1,205 @@
+package io.github.flaechsig.blocpress.render;
+
+import io.github.flaechsig.blocpress.core.Deadline;
+import io.github.flaechsig.blocpress.core.RenderCancelledException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.quarkus.runtime.configuration.MemorySize;
+import jakarta.ws.rs.WebApplicationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlTest {
+
+    private static final RenderTicket STANDARD = new RenderTicket(RenderPriority.STANDARD, null, null);
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    private Future<String> blockedConversion(AdmissionControl admission, RenderTicket ticket) {
+        return executor.submit(() -> admission.convert(ticket, Deadline.none(), () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "done";
+        }));
+    }
+
+    private static void awaitWaiting(AdmissionControl.Stage stage, int count) throws InterruptedException {
+        for (int i = 0; i < 100 && stage.waiting() < count; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, stage.waiting());
+    }
+
+    @Test
+    void queuedWorkRunsWhenSlotIsFree() throws Exception {
+        AdmissionControl admission = new AdmissionControl(1, 1, 1, 1);
+        Future<String> running = blockedConversion(admission, STANDARD);
+        Thread.sleep(50);
+
+        Future<String> queued = executor.submit(() -> admission.convert(STANDARD, Deadline.none(), () -> "queued"));
+        awaitWaiting(admission.convertStage(), 1);
+        release.countDown();
+
+        assertEquals("done", running.get(5, TimeUnit.SECONDS));
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void fullQueueIsRejectedWithRetryAfter() throws Exception {
+        AdmissionControl admission = new AdmissionControl(1, 1, 1, 1);
+        blockedConversion(admission, STANDARD);
+        Thread.sleep(50);
+        executor.submit(() -> admission.convert(STANDARD, Deadline.none(), () -> "queued"));
+        awaitWaiting(admission.convertStage(), 1);
+
+        assertTrue(admission.converterSaturated());
+        var ex = assertThrows(WebApplicationException.class,
+                () -> admission.convert(STANDARD, Deadline.none(), () -> "rejected"));
+        assertEquals(429, ex.getResponse().getStatus());
+        assertTrue(Long.parseLong(ex.getResponse().getHeaderString("Retry-After")) >= 1);
+
+        assertEquals("merged", admission.merge(STANDARD, Deadline.none(), () -> "merged"), "stages are independent");
+    }
+
+    @Test
+    void queueWaitEndsAtDeadline() throws Exception {
+        AdmissionControl admission = new AdmissionControl(1, 1, 1, 1);
+        blockedConversion(admission, STANDARD);
+        Thread.sleep(50);
+
+        var ex = assertThrows(RenderCancelledException.class,
+                () -> admission.convert(STANDARD, Deadline.after(Duration.ofMillis(100)), () -> "late"));
+        assertTrue(ex.isTimeout());
+        assertEquals(0, admission.convertStage().waiting());
+        assertFalse(admission.converterSaturated());
+    }
+
+    @Test
+    void interactiveRendersOvertakeBulkWithoutStarvingIt() throws Exception {
+        AdmissionControl admission = new AdmissionControl(1, 32, 1, 32);
+        blockedConversion(admission, STANDARD);
+        Thread.sleep(50);
+
+        List<String> order = new CopyOnWriteArrayList<>();
+        List<Future<String>> queued = new ArrayList<>();
+        for (RenderPriority priority : List.of(RenderPriority.BULK, RenderPriority.INTERACTIVE)) {
+            for (int i = 0; i < 9; i++) {
+                RenderTicket ticket = new RenderTicket(priority, null, null);
+                queued.add(executor.submit(() -> admission.convert(ticket, Deadline.none(), () -> {
+                    order.add(ticket.priority().name());
+                    return "ok";
+                })));
+            }
+            awaitWaiting(admission.convertStage(), priority == RenderPriority.BULK ? 9 : 18);
+        }
+        release.countDown();
+        for (Future<String> future : queued) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+
+        // Gewicht 8:1 — von neun Slots erhält Bulk einen, obwohl die Bulk-Aufträge zuerst kamen
+        List<String> firstNine = order.subList(0, 9);
+        assertEquals(8, firstNine.stream().filter("INTERACTIVE"::equals).count(), order.toString());
+        assertEquals(1, firstNine.stream().filter("BULK"::equals).count(), order.toString());
+    }
+
+    @Test
+    void templateBulkheadLetsOtherTemplatesPass() throws Exception {
+        TemplateRenderConfig config = () -> Map.of("heavy", maxConcurrent(1));
+        AdmissionControl admission = new AdmissionControl(2, 8, 2, 8, config, Optional.empty());
+        RenderTicket heavy = new RenderTicket(RenderPriority.BULK, "heavy", "batch");
+        blockedConversion(admission, heavy);
+        Thread.sleep(50);
+
+        Future<String> secondHeavy = executor.submit(() -> admission.convert(heavy, Deadline.none(), () -> "heavy"));
+        awaitWaiting(admission.convertStage(), 1);
+        String light = admission.convert(new RenderTicket(RenderPriority.BULK, "light", "batch"), Deadline.none(), () -> "light");
+
+        assertEquals("light", light);
+        assertFalse(secondHeavy.isDone(), "second job of the capped template must wait");
+        release.countDown();
+        assertEquals("heavy", secondHeavy.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void rejectsWeightsBelowOne() {
+        for (int weight : new int[]{0, -1}) {
+            AdmissionControl admission = new AdmissionControl();
+            admission.registry = new SimpleMeterRegistry();
+            admission.bulkWeight = weight;
+
+            var ex = assertThrows(IllegalStateException.class, admission::init);
+            assertTrue(ex.getMessage().contains("blocpress.render.scheduling.weight.bulk"), ex.getMessage());
+        }
+    }
+
+    @Test
+    void headerCanOnlyLowerClaimedPriority() {
+        // Claim BULK: ein Header darf die Klasse nicht anheben
+        assertEquals(RenderPriority.BULK, AdmissionControl.priority("interactive", "bulk", RenderPriority.INTERACTIVE));
+        assertEquals(RenderPriority.BULK, AdmissionControl.priority("standard", "bulk", RenderPriority.STANDARD));
+        // Claim INTERACTIVE: ein Header darf absenken
+        assertEquals(RenderPriority.BULK, AdmissionControl.priority("bulk", "interactive", RenderPriority.STANDARD));
+        assertEquals(RenderPriority.INTERACTIVE, AdmissionControl.priority(null, "interactive", RenderPriority.STANDARD));
+        // ohne Claim begrenzt der Endpunkt
+        assertEquals(RenderPriority.STANDARD, AdmissionControl.priority("interactive", null, RenderPriority.STANDARD));
+        assertEquals(RenderPriority.BULK, AdmissionControl.priority("bulk", null, RenderPriority.STANDARD));
+        assertEquals(RenderPriority.STANDARD, AdmissionControl.priority(null, null, RenderPriority.STANDARD));
+
+        WebApplicationException e = assertThrows(WebApplicationException.class,
+                () -> AdmissionControl.priority("urgent", null, RenderPriority.STANDARD));
+        assertEquals(400, e.getResponse().getStatus());
+    }
+
+    private static TemplateRenderConfig.TemplateOptions maxConcurrent(int limit) {
+        return new TemplateRenderConfig.TemplateOptions() {
+            @Override
+            public Optional<MemorySize> splitThreshold() {
+                return Optional.empty();
+            }
+
+            @Override
+            public Optional<String> pdfProfile() {
+                return Optional.empty();
+            }
+
+            @Override
+            public Optional<Duration> timeout() {
+                return Optional.empty();
+            }
+
+            @Override
+            public Optional<Integer> maxConcurrent() {
+                return Optional.of(limit);
+            }
+
+            @Override
+            public Optional<Boolean> fastPath() {
+                return Optional.empty();
+            }
+        };
+    }
+}
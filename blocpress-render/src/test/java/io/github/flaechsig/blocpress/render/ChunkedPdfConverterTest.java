@@ -0,0 +1,212 @@
+package io.github.flaechsig.blocpress.render;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.flaechsig.blocpress.core.Deadline;
+import io.github.flaechsig.blocpress.core.PdfExportProfile;
+import io.github.flaechsig.blocpress.core.RenderEngine;
+import io.quarkus.runtime.configuration.MemorySize;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDDocumentOutline;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem;
+import org.junit.jupiter.api.Test;
+import org.odftoolkit.odfdom.doc.OdfTextDocument;
+import org.w3c.dom.Element;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.github.flaechsig.blocpress.render.TestDocumentUtil.extractPdfText;
+import static io.github.flaechsig.blocpress.render.TestDocumentUtil.readZipEntry;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkedPdfConverterTest {
+    private static final String TEXT_NS = "urn:oasis:names:tc:opendocument:xmlns:text:1.0";
+
+    private final List<byte[]> converted = new CopyOnWriteArrayList<>();
+    private final List<Path> profiles = new CopyOnWriteArrayList<>();
+
+    private final TemplateRenderConfig config = () -> Map.of(
+            "big", splitThreshold(Optional.of(new MemorySize(BigInteger.valueOf(1024)))),
+            "small", splitThreshold(Optional.empty()));
+
+    private static TemplateRenderConfig.TemplateOptions splitThreshold(Optional<MemorySize> threshold) {
+        return new TemplateRenderConfig.TemplateOptions() {
+            @Override
+            public Optional<MemorySize> splitThreshold() {
+                return threshold;
+            }
+
+            @Override
+            public Optional<String> pdfProfile() {
+                return Optional.empty();
+            }
+
+            @Override
+            public Optional<Duration> timeout() {
+                return Optional.empty();
+            }
+
+            @Override
+            public Optional<Integer> maxConcurrent() {
+                return Optional.empty();
+            }
+
+            @Override
+            public Optional<Boolean> fastPath() {
+                return Optional.empty();
+            }
+        };
+    }
+
+    private byte[] twoPages(byte[] odt, Path profile, PdfExportProfile pdfProfile, Deadline deadline) throws IOException {
+        converted.add(odt);
+        profiles.add(profile);
+        return pdf("Seite A", "Seite B");
+    }
+
+    @Test
+    void splittingIsEnabledPerTemplateAboveThreshold() {
+        var converter = new ChunkedPdfConverter(2, this::twoPages, config);
+
+        assertTrue(converter.appliesTo("big", 4096));
+        assertFalse(converter.appliesTo("big", 100));
+        assertFalse(converter.appliesTo("small", 1 << 20));
+        assertFalse(converter.appliesTo("unknown", 1 << 20));
+        assertFalse(converter.appliesTo(null, 1 << 20));
+    }
+
+    @Test
+    void chunksAreConvertedInParallelProfilesAndStitched() throws Exception {
+        var converter = new ChunkedPdfConverter(3, this::twoPages, config);
+
+        byte[] pdf = converter.convert(mailMerge(3));
+
+        assertEquals(3, converted.size(), "one conversion per record chunk, no page fields -> no second pass");
+        profiles.forEach(profile -> assertTrue(profile.getFileName().toString().startsWith("blocpress-chunk-"),
+                "every worker must use its own LibreOffice profile"));
+        try (PDDocument doc = PDDocument.load(pdf)) {
+            assertEquals(6, doc.getNumberOfPages());
+        }
+    }
+
+    @Test
+    void everyChunkTakesAConversionSlot() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        var converter = new ChunkedPdfConverter(3, (odt, profile, pdfProfile, deadline) -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+                return twoPages(odt, profile, pdfProfile, deadline);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            } finally {
+                running.decrementAndGet();
+            }
+        }, config);
+        var admission = new AdmissionControl(4, 4, 1, 4);
+        var ticket = new RenderTicket(RenderPriority.BULK, "big", null);
+
+        byte[] pdf = converter.convert(mailMerge(3), null, Deadline.none(),
+                chunk -> admission.convert(ticket, Deadline.none(), chunk));
+
+        assertEquals(3, converted.size());
+        assertEquals(1, maxRunning.get(), "the chunks must not exceed the capacity of the conversion stage");
+        assertEquals(0, admission.convertStage().running());
+        try (PDDocument doc = PDDocument.load(pdf)) {
+            assertEquals(6, doc.getNumberOfPages());
+        }
+    }
+
+    @Test
+    void pageCountFieldsTriggerSecondPass() throws Exception {
+        var converter = new ChunkedPdfConverter(3, this::twoPages, config);
+
+        byte[] pdf = converter.convert(withPageCountField(mailMerge(3)));
+
+        assertEquals(6, converted.size(), "page count requires a second conversion of every chunk");
+        boolean totalShown = false;
+        for (byte[] chunk : converted.subList(3, 6)) {
+            totalShown |= readZipEntry(chunk, "content.xml").contains("Seite 1 von 6");
+        }
+        assertTrue(totalShown, "second pass must show the total page count");
+        try (PDDocument doc = PDDocument.load(pdf)) {
+            assertEquals(6, doc.getNumberOfPages());
+        }
+    }
+
+    @Test
+    void stitchKeepsOrderAndBookmarks() throws Exception {
+        byte[] stitched = ChunkedPdfConverter.stitch(List.of(pdf("Eins"), pdf("Zwei"), pdf("Drei")));
+
+        String text = extractPdfText(stitched);
+        assertTrue(text.indexOf("Eins") < text.indexOf("Zwei") && text.indexOf("Zwei") < text.indexOf("Drei"));
+        try (PDDocument doc = PDDocument.load(stitched)) {
+            int bookmarks = 0;
+            for (PDOutlineItem ignored : doc.getDocumentCatalog().getDocumentOutline().children()) {
+                bookmarks++;
+            }
+            assertEquals(3, bookmarks);
+        }
+    }
+
+    private byte[] mailMerge(int records) throws Exception {
+        Path template = Files.createTempFile("kuendigung", ".odt");
+        try (var in = getClass().getResourceAsStream("/kuendigung.odt")) {
+            Files.write(template, in.readAllBytes());
+        }
+        JsonNode data = new ObjectMapper().readTree("{\"kunde\": {\"vorname\": \"Mini\"}}");
+        return RenderEngine.mailMerge(template.toUri().toURL(), Collections.nCopies(records, data));
+    }
+
+    private static byte[] withPageCountField(byte[] odt) throws Exception {
+        OdfTextDocument doc = OdfTextDocument.loadDocument(new ByteArrayInputStream(odt));
+        var dom = doc.getContentDom();
+        var paragraph = (Element) dom.getElementsByTagNameNS(TEXT_NS, "p").item(0);
+        paragraph.appendChild(dom.createTextNode("Seite 1 von "));
+        paragraph.appendChild(dom.createElementNS(TEXT_NS, "text:page-count"));
+        var out = new ByteArrayOutputStream();
+        doc.save(out);
+        return out.toByteArray();
+    }
+
+    private static byte[] pdf(String... pages) throws IOException {
+        try (PDDocument doc = new PDDocument()) {
+            PDDocumentOutline outline = new PDDocumentOutline();
+            doc.getDocumentCatalog().setDocumentOutline(outline);
+            for (String text : pages) {
+                PDPage page = new PDPage();
+                doc.addPage(page);
+                try (var content = new PDPageContentStream(doc, page)) {
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 12);
+                    content.newLineAtOffset(50, 700);
+                    content.showText(text);
+                    content.endText();
+                }
+                PDOutlineItem item = new PDOutlineItem();
+                item.setTitle(text);
+                item.setDestination(page);
+                outline.addLast(item);
+            }
+            var out = new ByteArrayOutputStream();
+            doc.save(out);
+            return out.toByteArray();
+        }
+    }
+}
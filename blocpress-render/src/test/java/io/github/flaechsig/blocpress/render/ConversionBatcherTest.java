@@ -0,0 +1,184 @@
+package io.github.flaechsig.blocpress.render;
+
+import io.github.flaechsig.blocpress.core.ConversionResult;
+import io.github.flaechsig.blocpress.core.Deadline;
+import io.github.flaechsig.blocpress.core.OutputFormat;
+import io.github.flaechsig.blocpress.core.PdfExportProfile;
+import io.github.flaechsig.blocpress.core.RenderCancelledException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConversionBatcherTest {
+
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+    private Map<String, ConversionResult> echo(Map<String, byte[]> inputs, OutputFormat format, PdfExportProfile pdfProfile,
+                                               Path userInstallation, Deadline deadline) {
+        batchSizes.add(inputs.size());
+        Map<String, ConversionResult> results = new LinkedHashMap<>();
+        inputs.forEach((name, bytes) -> {
+            if ("fail".equals(new String(bytes))) {
+                results.put(name, ConversionResult.failure("broken document"));
+            } else {
+                results.put(name, ConversionResult.success((format.getSuffix() + ":" + new String(bytes)).getBytes()));
+            }
+        });
+        return results;
+    }
+
+    @Test
+    void requestsWithinWindowAreConvertedTogether() throws Exception {
+        ConversionBatcher batcher = new ConversionBatcher(Duration.ofMillis(200), 16, this::echo);
+
+        List<CompletableFuture<byte[]>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(batcher.submit(("doc" + i).getBytes(), OutputFormat.PDF));
+        }
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("pdf:doc" + i, new String(futures.get(i).get()));
+        }
+        assertEquals(List.of(3), batchSizes);
+    }
+
+    @Test
+    void fullBatchIsDispatchedWithoutWaitingForWindow() throws Exception {
+        ConversionBatcher batcher = new ConversionBatcher(Duration.ofMinutes(5), 2, this::echo);
+
+        var first = batcher.submit("a".getBytes(), OutputFormat.PDF);
+        var second = batcher.submit("b".getBytes(), OutputFormat.PDF);
+
+        assertEquals("pdf:a", new String(first.get()));
+        assertEquals("pdf:b", new String(second.get()));
+        assertEquals(0, batcher.pendingCount());
+    }
+
+    @Test
+    void formatsAreBatchedSeparately() throws Exception {
+        ConversionBatcher batcher = new ConversionBatcher(Duration.ofMillis(100), 16, this::echo);
+
+        var pdf = batcher.submit("a".getBytes(), OutputFormat.PDF);
+        var rtf = batcher.submit("b".getBytes(), OutputFormat.RTF);
+
+        assertEquals("pdf:a", new String(pdf.get()));
+        assertEquals("rtf:b", new String(rtf.get()));
+        assertEquals(List.of(1, 1), batchSizes);
+    }
+
+    @Test
+    void pdfProfilesAreBatchedSeparately() throws Exception {
+        ConversionBatcher batcher = new ConversionBatcher(Duration.ofMillis(100), 16, this::echo);
+        var web = new PdfExportProfile(150, 75, false, 0, false, false);
+
+        var plain = batcher.submit("a".getBytes(), OutputFormat.PDF, null);
+        var reduced = batcher.submit("b".getBytes(), OutputFormat.PDF, web);
+        var reducedToo = batcher.submit("c".getBytes(), OutputFormat.PDF, new PdfExportProfile(150, 75, false, 0, false, false));
+
+        assertEquals("pdf:a", new String(plain.get()));
+        assertEquals("pdf:b", new String(reduced.get()));
+        assertEquals("pdf:c", new String(reducedToo.get()));
+        assertEquals(List.of(1, 2), batchSizes.stream().sorted().toList());
+    }
+
+    @Test
+    void concurrentBatchesUseSeparateProfiles() throws Exception {
+        Set<Path> profiles = ConcurrentHashMap.newKeySet();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(2);
+        ConversionBatcher batcher = new ConversionBatcher(Duration.ZERO, 16, 2, (inputs, format, pdfProfile, userInstallation, deadline) -> {
+            profiles.add(userInstallation);
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            started.countDown();
+            try {
+                started.await(5, TimeUnit.SECONDS);
+                return echo(inputs, format, pdfProfile, userInstallation, deadline);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+
+        List<CompletableFuture<byte[]>> futures = new ArrayList<>();
+        for (OutputFormat format : List.of(OutputFormat.PDF, OutputFormat.RTF, OutputFormat.ODT, OutputFormat.PDF)) {
+            futures.add(batcher.submit("a".getBytes(), format));
+        }
+        for (CompletableFuture<byte[]> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(2, profiles.size());
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    void failingDocumentDoesNotAffectOthers() throws Exception {
+        ConversionBatcher batcher = new ConversionBatcher(Duration.ofMillis(100), 16, this::echo);
+
+        var ok = batcher.submit("ok".getBytes(), OutputFormat.PDF);
+        var broken = batcher.submit("fail".getBytes(), OutputFormat.PDF);
+
+        assertEquals("pdf:ok", new String(ok.get()));
+        var ex = assertThrows(ExecutionException.class, broken::get);
+        assertInstanceOf(IOException.class, ex.getCause());
+        assertEquals(List.of(2), batchSizes);
+    }
+
+    @Test
+    void converterExceptionFailsWholeBatch() {
+        ConversionBatcher batcher = new ConversionBatcher(Duration.ZERO, 16, (inputs, format, pdfProfile, userInstallation, deadline) -> {
+            throw new IOException("soffice not found");
+        });
+
+        var ex = assertThrows(IOException.class, () -> batcher.convert("a".getBytes(), OutputFormat.PDF));
+        assertEquals("soffice not found", ex.getMessage());
+    }
+
+    @Test
+    void expiredRequestLeavesBatch() throws Exception {
+        ConversionBatcher batcher = new ConversionBatcher(Duration.ofMillis(300), 16, this::echo);
+
+        CompletableFuture<byte[]> waiting = batcher.submit("b".getBytes(), OutputFormat.PDF);
+        var ex = assertThrows(RenderCancelledException.class,
+                () -> batcher.convert("a".getBytes(), OutputFormat.PDF, null, Deadline.after(Duration.ofMillis(50))));
+
+        assertTrue(ex.isTimeout());
+        assertEquals("pdf:b", new String(waiting.get()));
+        assertEquals(List.of(1), batchSizes);
+    }
+
+    @Test
+    void abandonedBatchIsCancelled() {
+        CountDownLatch killed = new CountDownLatch(1);
+        ConversionBatcher batcher = new ConversionBatcher(Duration.ZERO, 16, (inputs, format, pdfProfile, userInstallation, deadline) -> {
+            while (!deadline.isCancelled()) {
+                LockSupport.parkNanos(10_000_000);
+            }
+            killed.countDown();
+            throw new RenderCancelledException("conversion", false);
+        });
+
+        assertThrows(RenderCancelledException.class,
+                () -> batcher.convert("a".getBytes(), OutputFormat.PDF, null, Deadline.after(Duration.ofMillis(100))));
+        assertDoesNotThrow(() -> assertTrue(killed.await(5, TimeUnit.SECONDS), "soffice of the batch must be killed"));
+    }
+}
@@ -0,0 +1,76 @@
+package io.github.flaechsig.blocpress.render;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.flaechsig.blocpress.core.Deadline;
+import io.github.flaechsig.blocpress.core.RenderCancelledException;
+import io.github.flaechsig.blocpress.core.html.TextExporter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MergeWorkerPoolTest {
+
+    private final URL template = MergeWorkerPoolTest.class.getResource("/kuendigung.odt");
+    private final JsonNode data;
+    private MergeWorkerPool pool;
+
+    MergeWorkerPoolTest() throws Exception {
+        data = new ObjectMapper().readTree("""
+                {"kunde": {"nachname": "Testnachname", "vorname": "Testvorname"}}""");
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void largeJobsAreMergedByRecycledWorkers() throws Exception {
+        pool = new MergeWorkerPool(50, 1, "256m", 2, Long.MAX_VALUE);
+        assertFalse(pool.accepts(RenderMetrics.dataSize(List.of(new ObjectMapper().readTree("{}")))),
+                "small data stays in the render JVM");
+        assertTrue(pool.accepts(RenderMetrics.dataSize(List.of(data))));
+
+        byte[] first = pool.merge(template, List.of(data), false, Deadline.none());
+        assertTrue(text(first).contains("Testnachname"));
+        assertEquals(1, pool.workers(), "worker is kept for the next job");
+
+        byte[] letters = pool.merge(template, List.of(data, data), true, Deadline.none());
+        assertTrue(text(letters).contains("Testvorname"));
+        assertEquals(0, pool.workers(), "worker is replaced after max-jobs");
+    }
+
+    @Test
+    void cancelledRenderStopsItsWorker() throws Exception {
+        pool = new MergeWorkerPool(0, 1, "256m", 10, Long.MAX_VALUE);
+        Deadline deadline = Deadline.after(Duration.ofMillis(1));
+        Thread.sleep(10);
+
+        assertThrows(RenderCancelledException.class, () -> pool.merge(template, List.of(data), false, deadline));
+        assertEquals(0, pool.workers());
+        assertNotNull(pool.merge(template, List.of(data), false, Deadline.none()));
+    }
+
+    @Test
+    void idleWorkersCanBeStopped() throws Exception {
+        pool = new MergeWorkerPool(0, 1, "256m", 10, Long.MAX_VALUE);
+        pool.merge(template, List.of(data), false, Deadline.none());
+        assertEquals(1, pool.workers());
+
+        pool.stopIdle();
+
+        assertEquals(0, pool.workers());
+        assertTrue(text(pool.merge(template, List.of(data), false, Deadline.none())).contains("Testnachname"));
+    }
+
+    private static String text(byte[] odt) throws Exception {
+        return new String(TextExporter.toText(odt), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,44 @@
+package io.github.flaechsig.blocpress.render;
+
+import io.github.flaechsig.blocpress.core.MemoryBudget;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.ws.rs.WebApplicationException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RenderMemoryTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RenderMemory memory = new RenderMemory(1000, 1500, registry);
+
+    @Test
+    void oversizedMergeIsRejectedWith413() {
+        var ex = assertThrows(WebApplicationException.class, () -> memory.merge(budget -> {
+            budget.reserve(1200);
+            return new byte[0];
+        }));
+
+        assertEquals(413, ex.getResponse().getStatus());
+        assertEquals(1, registry.counter(RenderMemory.REJECTED_METRIC, "limit", "render").count());
+        assertEquals(1500, memory.available());
+    }
+
+    @Test
+    void exhaustedSharedMemoryIsRejectedWith503() throws Exception {
+        byte[] result = memory.merge(running -> {
+            running.reserve(900);
+            var ex = assertThrows(WebApplicationException.class, () -> memory.merge(second -> {
+                second.reserve(900);
+                return new byte[0];
+            }));
+            assertEquals(503, ex.getResponse().getStatus());
+            assertNotNull(ex.getResponse().getHeaderString("Retry-After"));
+            return new byte[]{1};
+        });
+
+        assertArrayEquals(new byte[]{1}, result);
+        assertEquals(1500, memory.available(), "reservations are returned after the merge");
+        assertEquals(1, registry.summary(RenderMemory.ESTIMATED_METRIC).count());
+    }
+}
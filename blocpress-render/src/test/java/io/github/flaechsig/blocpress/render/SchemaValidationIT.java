@@ -1,5 +1,6 @@
 package io.github.flaechsig.blocpress.render;
 
+import io.github.flaechsig.blocpress.core.pdf.PdfOverlay;
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
@@ -39,6 +40,7 @@ class SchemaValidationIT {
         assertTrue(columns.contains("name"), "Missing column: name");
         assertTrue(columns.contains("version"), "Missing column: version");
         assertTrue(columns.contains("content"), "Missing column: content");
+        assertTrue(columns.contains("content_hash"), "Missing column: content_hash");
         assertTrue(columns.contains("valid_from"), "Missing column: valid_from");
     }
 
@@ -53,6 +55,7 @@ class SchemaValidationIT {
         t.name = "SchemaTest";
         t.version = 1;
         t.content = "test".getBytes();
+        t.contentHash = PdfOverlay.hash(t.content);
         t.persist();
 
         // This would fail if schema columns are missing
@@ -0,0 +1,101 @@
+package io.github.flaechsig.blocpress.render;
+
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusIntegrationTest;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Renders templates sent with the request against the packaged application without database (profile
+ * {@code stateless}). With {@code -Pnative} this runs against the native executable and covers the reflection and
+ * resource registrations of odfdom, Xerces, JEXL and Jackson; the formats rendered in the process (ODT, HTML, text)
+ * need no LibreOffice.
+ */
+@QuarkusIntegrationTest
+class StatelessRenderIT {
+
+    private static final String DATA = """
+            {
+              "datum": "2026-02-10",
+              "kunde": {
+                "nachname": "Testnachname",
+                "vorname": "Testvorname",
+                "adresse": { "strasse": "adessoplatz", "hausnummer": "1", "plz": "44269", "ort": "Dortmund" },
+                "versicherung": { "name": "Handyversicherung AG", "ort": "Düsseldorf", "plz": "12345",
+                                  "strasse": "Versicherungsstrasse 1" },
+                "vertrag": { "ende": "2026-07-01", "nummer": "HV123456789", "sparte": "Handyversicherung" }
+              }
+            }
+            """;
+
+    @TestHTTPResource("/api/render/template")
+    URI endpoint;
+
+    @Test
+    void rendersOdt() throws Exception {
+        HttpResponse<byte[]> response = render("application/vnd.oasis.opendocument.text");
+
+        assertEquals(200, response.statusCode(), () -> "Response: " + new String(response.body()));
+        // ODF-Paket (ZIP)
+        assertTrue(response.body().length > 4 && response.body()[0] == 'P' && response.body()[1] == 'K');
+    }
+
+    @Test
+    void rendersHtml() throws Exception {
+        HttpResponse<byte[]> response = render("text/html");
+
+        assertEquals(200, response.statusCode(), () -> "Response: " + new String(response.body()));
+        assertTrue(new String(response.body(), StandardCharsets.UTF_8).contains("Testnachname"));
+    }
+
+    @Test
+    void rendersText() throws Exception {
+        HttpResponse<byte[]> response = render("text/plain");
+
+        assertEquals(200, response.statusCode(), () -> "Response: " + new String(response.body()));
+        assertTrue(new String(response.body(), StandardCharsets.UTF_8).contains("HV123456789"));
+    }
+
+    @Test
+    void wrongAcceptHeader() throws Exception {
+        assertEquals(406, render("application/json").statusCode());
+    }
+
+    private HttpResponse<byte[]> render(String accept) throws IOException, InterruptedException {
+        byte[] template = getClass().getResourceAsStream("/kuendigung_generated.odt").readAllBytes();
+        String boundary = "StatelessRenderIT-" + System.nanoTime();
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        var out = new DataOutputStream(body);
+        out.writeBytes("--" + boundary + "\r\n");
+        out.writeBytes("Content-Disposition: form-data; name=\"template\"; filename=\"template.odt\"\r\n");
+        out.writeBytes("Content-Type: application/vnd.oasis.opendocument.text\r\n\r\n");
+        out.write(template);
+        out.writeBytes("\r\n--" + boundary + "\r\n");
+        out.writeBytes("Content-Disposition: form-data; name=\"data\"\r\n");
+        out.writeBytes("Content-Type: application/json; charset=UTF-8\r\n\r\n");
+        out.write(DATA.getBytes(StandardCharsets.UTF_8));
+        out.writeBytes("\r\n--" + boundary + "--\r\n");
+        out.flush();
+
+        var request = HttpRequest.newBuilder(endpoint)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .header("Accept", accept)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+        try (var client = HttpClient.newHttpClient()) {
+            return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package io.github.flaechsig.blocpress.render;
+
+import io.github.flaechsig.blocpress.core.Deadline;
+import io.github.flaechsig.blocpress.core.OutputFormat;
+import io.github.flaechsig.blocpress.core.RenderCancelledException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StubConverterTest {
+
+    @Test
+    void batchWaitsOnceAndReturnsFixedDocuments() throws Exception {
+        StubConverter stub = new StubConverter(Duration.ofMillis(50));
+        Map<String, byte[]> inputs = new LinkedHashMap<>();
+        inputs.put("a", "odt-a".getBytes());
+        inputs.put("b", "odt-b".getBytes());
+
+        long start = System.nanoTime();
+        var results = stub.convertBatch(inputs, OutputFormat.PDF, Deadline.none());
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(millis >= 50 && millis < 1000, "one latency per batch, was " + millis + " ms");
+        assertEquals(2, results.size());
+        assertTrue(new String(results.get("a").content(), 0, 5).startsWith("%PDF"));
+        assertArrayEquals(results.get("a").content(), results.get("b").content());
+        assertNull(results.get("a").error());
+    }
+
+    @Test
+    void odtIsReturnedUnchanged() throws Exception {
+        StubConverter stub = new StubConverter(Duration.ZERO);
+
+        var results = stub.convertBatch(Map.of("a", "odt-a".getBytes()), OutputFormat.ODT, Deadline.none());
+
+        assertEquals("odt-a", new String(results.get("a").content()));
+        assertTrue(new String(stub.convertChunk("odt".getBytes(), Deadline.none()), 0, 4).startsWith("%PDF"));
+    }
+
+    @Test
+    void latencyIsAbortedByDeadline() {
+        StubConverter stub = new StubConverter(Duration.ofMinutes(5));
+
+        assertThrows(RenderCancelledException.class,
+                () -> stub.convertChunk("odt".getBytes(), Deadline.after(Duration.ofMillis(50))));
+    }
+}
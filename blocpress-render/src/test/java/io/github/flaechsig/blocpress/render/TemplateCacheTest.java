@@ -0,0 +1,379 @@
+package io.github.flaechsig.blocpress.render;
+
+import io.github.flaechsig.blocpress.core.pdf.OverlayTemplate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TemplateCacheTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 1, 23, 50);
+
+    @TempDir
+    Path dir;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RenderMetrics metrics = new RenderMetrics(registry);
+    private final TestClock clock = new TestClock();
+    private final Map<String, List<ProductionTemplate.Activation>> timelines = new HashMap<>();
+    private final Map<UUID, byte[]> contents = new HashMap<>();
+    private final AtomicInteger timelineLoads = new AtomicInteger();
+    private final AtomicInteger contentLoads = new AtomicInteger();
+    private final AtomicInteger pinLoads = new AtomicInteger();
+
+    @Test
+    void servesRepeatedLookupsFromHeap() {
+        put("brief", 3, NOW.minusDays(1), new byte[100]);
+        TemplateCache cache = cache(1024);
+
+        cache.getTemplateContentByName("brief");
+        cache.getTemplateContentByName("brief");
+
+        assertEquals(1, timelineLoads.get());
+        assertEquals(1, contentLoads.get());
+        assertEquals(3, cache.getTemplate("brief").version());
+        TemplateCache.HeapStats heap = cache.snapshot().heap();
+        assertEquals(1, heap.entries());
+        assertEquals(100, heap.bytes());
+        assertEquals(3, heap.templates().get(0).hits());
+    }
+
+    @Test
+    void readsContentFromDiskAfterRestart() {
+        put("brief", 3, NOW.minusDays(1), new byte[100]);
+        cache(1024).getTemplateContentByName("brief");
+
+        TemplateCache restarted = cache(1024);
+        byte[] content = metrics.lookup("brief", () -> restarted.getTemplateContentByName("brief"));
+
+        assertEquals(100, content.length);
+        assertEquals(1, contentLoads.get());
+        assertEquals(1, registry.timer(RenderMetrics.LOOKUP_METRIC, "template", "brief", "result", "disk").count());
+    }
+
+    @Test
+    void boundsHeapBySize() {
+        put("klein", 1, NOW.minusDays(1), new byte[100]);
+        put("gross", 1, NOW.minusDays(1), new byte[1000]);
+        TemplateCache cache = cache(1024);
+
+        cache.getTemplateContentByName("klein");
+        cache.getTemplateContentByName("gross");
+
+        TemplateCache.HeapStats heap = cache.snapshot().heap();
+        assertTrue(heap.bytes() <= 1024, "heap holds " + heap.bytes() + " bytes");
+        assertEquals(1, heap.evictions());
+    }
+
+    @Test
+    void evictsFromBothTiers() {
+        put("brief", 3, NOW.minusDays(1), new byte[100]);
+        TemplateCache cache = cache(1024);
+        cache.getTemplateContentByName("brief");
+
+        assertTrue(cache.evict("brief"));
+        cache.getTemplateContentByName("brief");
+
+        assertEquals(2, contentLoads.get());
+        assertFalse(cache.evict("unbekannt"));
+    }
+
+    @Test
+    void switchesToScheduledVersionAtActivationTime() {
+        put("brief", 3, NOW.minusDays(1), new byte[100]);
+        put("brief", 4, NOW.plusMinutes(10), new byte[200]);
+        TemplateCache cache = cache(1024);
+        cache.preloadBeforeActivation = Duration.ZERO;
+
+        assertEquals(3, cache.getTemplate("brief").version());
+        clock.set(NOW.plusMinutes(10).minusNanos(1));
+        assertEquals(3, cache.getTemplate("brief").version());
+        clock.set(NOW.plusMinutes(10));
+        assertEquals(4, cache.getTemplate("brief").version());
+        assertEquals(200, cache.getTemplateContentByName("brief").length);
+
+        assertEquals(1, timelineLoads.get());
+        assertEquals(4, cache.snapshot().timelines().get(0).activeVersion());
+    }
+
+    @Test
+    void comparesActivationTimeInUtcRegardlessOfClockZone() {
+        put("brief", 3, NOW.minusDays(1), new byte[100]);
+        put("brief", 4, NOW.plusMinutes(10), new byte[200]);
+        // valid_from ist UTC; in Berlin ist die Aktivierung bereits 01:00 des Folgetags
+        Instant activation = NOW.plusMinutes(10).toInstant(ZoneOffset.UTC);
+        ZoneId berlin = ZoneId.of("Europe/Berlin");
+
+        assertEquals(3, cache(1024, Clock.fixed(activation.minusMillis(1), berlin)).getTemplate("brief").version());
+        assertEquals(4, cache(1024, Clock.fixed(activation, berlin)).getTemplate("brief").version());
+    }
+
+    @Test
+    void preloadsScheduledVersionBeforeActivation() {
+        put("brief", 3, NOW.minusDays(1), new byte[100]);
+        put("brief", 4, NOW.plusSeconds(30), new byte[200]);
+        TemplateCache cache = cache(1024);
+
+        cache.getTemplateContentByName("brief");
+
+        assertEquals(2, contentLoads.get());
+        assertEquals(2, cache.snapshot().heap().entries());
+        TemplateCache.TimelineInfo timeline = cache.snapshot().timelines().get(0);
+        assertEquals(3, timeline.activeVersion());
+        assertEquals(4, timeline.nextVersion());
+        clock.set(NOW.plusMinutes(1));
+        assertEquals(200, cache.getTemplateContentByName("brief").length);
+        assertEquals(2, contentLoads.get());
+    }
+
+    @Test
+    void refreshKeepsUnchangedTimelineWithoutLoadingContent() {
+        put("brief", 3, NOW.minusDays(1), new byte[100]);
+        TemplateCache cache = cache(1024, Duration.ofNanos(1), Runnable::run);
+        cache.getTemplateContentByName("brief");
+
+        cache.getTemplateContentByName("brief");
+        cache.getTemplateContentByName("brief");
+
+        assertEquals(3, timelineLoads.get());
+        assertEquals(1, contentLoads.get());
+        assertEquals(3, cache.snapshot().heap().templates().get(0).hits());
+    }
+
+    @Test
+    void refreshServesCachedTimelineWhileLoadingReimportedContent() {
+        ProductionTemplate.Activation imported = put("brief", 3, NOW.minusDays(1), new byte[100]);
+        List<Runnable> refreshes = new ArrayList<>();
+        TemplateCache cache = cache(1024, Duration.ofNanos(1), refreshes::add);
+        cache.getTemplateContentByName("brief");
+
+        // dieselbe Id mit neuem Inhalt (Upsert auf einem anderen Knoten)
+        timelines.get("brief").remove(imported);
+        put("brief", 3, NOW.minusDays(1), new byte[200]);
+
+        assertEquals(100, cache.getTemplateContentByName("brief").length);
+        assertEquals(1, refreshes.size());
+        refreshes.get(0).run();
+        assertEquals(200, cache.getTemplateContentByName("brief").length);
+        assertEquals(2, contentLoads.get());
+    }
+
+    @Test
+    void refreshDropsDeletedTemplate() {
+        put("brief", 3, NOW.minusDays(1), new byte[100]);
+        TemplateCache cache = cache(1024, Duration.ofNanos(1), Runnable::run);
+        cache.getTemplateContentByName("brief");
+
+        timelines.remove("brief");
+
+        assertEquals(100, cache.getTemplateContentByName("brief").length);
+        assertThrows(TemplateNotFoundException.class, () -> cache.getTemplateContentByName("brief"));
+    }
+
+    @Test
+    void dropsImportedTemplateByNameAndId() {
+        ProductionTemplate.Activation brief = put("brief", 3, NOW.minusDays(1), new byte[100]);
+        put("vertrag", 1, NOW.minusDays(1), new byte[100]);
+        TemplateCache cache = cache(1024);
+        cache.getTemplateContentByName("brief");
+        cache.getTemplateContentByName("vertrag");
+
+        // die Id von "brief" wird unter neuem Namen importiert
+        cache.onImport(new TemplateImportResource.Imported(brief.id(), "brief-neu"));
+        cache.onImport(new TemplateImportResource.Imported(UUID.randomUUID(), "vertrag"));
+
+        assertTrue(cache.snapshot().timelines().isEmpty());
+        assertEquals(1, cache.snapshot().heap().entries());
+    }
+
+    @Test
+    void keepsPinnedVersionAfterNewActivation() {
+        ProductionTemplate.Activation v3 = put("brief", 3, NOW.minusDays(1), new byte[100]);
+        put("brief", 4, NOW.plusMinutes(10), new byte[200]);
+        TemplateCache cache = cache(1024);
+
+        assertEquals(100, cache.getTemplate(cache.getActivationById(v3.id())).content().length);
+        clock.set(NOW.plusHours(2));
+        assertEquals(4, cache.getTemplate("brief").version());
+        TemplateCache.Entry pinned = cache.getTemplate(cache.getActivationByVersion("brief", 3));
+
+        assertEquals(v3.id(), pinned.id());
+        assertEquals(100, pinned.content().length);
+        assertEquals(2, pinLoads.get());
+        assertEquals(2, contentLoads.get());
+    }
+
+    @Test
+    void servesContentById() {
+        ProductionTemplate.Activation v3 = put("brief", 3, NOW.minusDays(1), new byte[100]);
+        put("brief", 4, NOW.minusHours(1), new byte[200]);
+        TemplateCache cache = cache(1024);
+
+        assertEquals(100, cache.getTemplateContent(v3.id()).length);
+        assertEquals(100, cache.getTemplateContent(v3.id()).length);
+        assertEquals(200, cache.getTemplateContentByName("brief").length);
+        assertEquals(1, pinLoads.get());
+        assertThrows(TemplateNotFoundException.class, () -> cache.getTemplateContent(UUID.randomUUID()));
+    }
+
+    @Test
+    void resolvesPinnedVersionOnlyOnce() {
+        ProductionTemplate.Activation brief = put("brief", 3, NOW.minusDays(1), new byte[100]);
+        TemplateCache cache = cache(1024);
+
+        cache.getTemplate(cache.getActivationById(brief.id()));
+        clock.set(NOW.plusDays(30));
+        cache.getTemplate(cache.getActivationById(brief.id()));
+
+        assertEquals(1, pinLoads.get());
+        assertEquals(1, contentLoads.get());
+        assertEquals(0, timelineLoads.get());
+    }
+
+    @Test
+    void dropsPinsOnImport() {
+        ProductionTemplate.Activation v1 = put("brief", 1, NOW.minusDays(2), new byte[100]);
+        TemplateCache cache = cache(1024);
+        cache.getActivationById(v1.id());
+        cache.getActivationByVersion("brief", 1);
+
+        // Version 1 neu aktiviert, die Versionsnummer zeigt jetzt auf die neue Zeile
+        ProductionTemplate.Activation reactivated = put("brief", 1, NOW.minusDays(1), new byte[200]);
+        cache.onImport(new TemplateImportResource.Imported(reactivated.id(), "brief"));
+
+        assertEquals(reactivated.id(), cache.getActivationByVersion("brief", 1).id());
+        assertEquals(v1.id(), cache.getActivationById(v1.id()).id());
+        assertEquals(3, pinLoads.get());
+    }
+
+    @Test
+    void rejectsPinnedVersionNotActivated() {
+        ProductionTemplate.Activation scheduled = put("brief", 1, NOW.plusDays(1), new byte[100]);
+        TemplateCache cache = cache(1024);
+
+        assertThrows(TemplateNotFoundException.class, () -> cache.getActivationById(scheduled.id()));
+        assertThrows(TemplateNotFoundException.class, () -> cache.getActivationByVersion("brief", 2));
+    }
+
+    @Test
+    void rejectsTemplateOnlyScheduled() {
+        put("brief", 1, NOW.plusDays(1), new byte[100]);
+        TemplateCache cache = cache(1024);
+
+        assertThrows(TemplateNotFoundException.class, () -> cache.getTemplateContentByName("brief"));
+    }
+
+    @Test
+    void rejectsUnknownTemplate() {
+        TemplateCache cache = cache(1024);
+
+        assertThrows(TemplateNotFoundException.class, () -> cache.getTemplateContentByName("unbekannt"));
+    }
+
+    private ProductionTemplate.Activation put(String name, int version, LocalDateTime validFrom, byte[] content) {
+        UUID id = UUID.nameUUIDFromBytes((name + version + validFrom).getBytes());
+        ProductionTemplate.Activation activation = new ProductionTemplate.Activation(id, name, version, validFrom,
+                Arrays.hashCode(content) + "-" + content.length);
+        contents.put(id, content);
+        List<ProductionTemplate.Activation> timeline = timelines.computeIfAbsent(name, n -> new ArrayList<>());
+        timeline.add(activation);
+        timeline.sort(Comparator.comparing(ProductionTemplate.Activation::validFrom)
+                .thenComparing(ProductionTemplate.Activation::version).reversed());
+        return activation;
+    }
+
+    private TemplateCache cache(long heapMaxBytes) {
+        return cache(heapMaxBytes, Duration.ofMinutes(1), Runnable::run);
+    }
+
+    private TemplateCache cache(long heapMaxBytes, Duration refreshAfterWrite, Executor refreshExecutor) {
+        return cache(heapMaxBytes, refreshAfterWrite, refreshExecutor, clock);
+    }
+
+    private TemplateCache cache(long heapMaxBytes, Clock clock) {
+        return cache(heapMaxBytes, Duration.ofMinutes(1), Runnable::run, clock);
+    }
+
+    private TemplateCache cache(long heapMaxBytes, Duration refreshAfterWrite, Executor refreshExecutor, Clock clock) {
+        return new TemplateCache(metrics, heapMaxBytes, dir, 1 << 20, refreshAfterWrite, refreshExecutor, clock) {
+            @Override
+            List<ProductionTemplate.Activation> findActivations(String templateName) {
+                timelineLoads.incrementAndGet();
+                return List.copyOf(timelines.getOrDefault(templateName, List.of()));
+            }
+
+            @Override
+            ProductionTemplate.Activation findActivation(UUID id) {
+                pinLoads.incrementAndGet();
+                return activated().filter(activation -> activation.id().equals(id)).findFirst().orElse(null);
+            }
+
+            @Override
+            ProductionTemplate.Activation findActivation(String templateName, int version) {
+                pinLoads.incrementAndGet();
+                return activated()
+                        .filter(activation -> activation.name().equals(templateName) && activation.version() == version)
+                        .findFirst().orElse(null);
+            }
+
+            private Stream<ProductionTemplate.Activation> activated() {
+                LocalDateTime now = LocalDateTime.ofInstant(clock.instant(), ZoneOffset.UTC);
+                return timelines.values().stream().flatMap(List::stream)
+                        .filter(activation -> !activation.validFrom().isAfter(now));
+            }
+
+            @Override
+            byte[] findContent(UUID id) {
+                contentLoads.incrementAndGet();
+                return contents.get(id);
+            }
+
+            @Override
+            OverlayTemplate findOverlay(UUID id) {
+                return null;
+            }
+        };
+    }
+
+    private static final class TestClock extends Clock {
+        private Instant now = NOW.toInstant(ZoneOffset.UTC);
+
+        void set(LocalDateTime time) {
+            now = time.toInstant(ZoneOffset.UTC);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package io.github.flaechsig.blocpress.render;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TemplateDiskStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsWrittenContent() throws Exception {
+        TemplateDiskStore store = new TemplateDiskStore(dir, 1024);
+
+        store.write("abc", "content".getBytes());
+
+        assertArrayEquals("content".getBytes(), store.read("abc").orElseThrow());
+        assertTrue(store.read("other").isEmpty());
+        TemplateDiskStore.Stats stats = store.stats();
+        assertEquals(1, stats.files());
+        assertEquals(7, stats.bytes());
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+    }
+
+    @Test
+    void keepsContentAcrossRestarts() throws Exception {
+        new TemplateDiskStore(dir, 1024).write("abc", "content".getBytes());
+        Files.writeString(dir.resolve("def123.tmp"), "partial");
+
+        TemplateDiskStore store = new TemplateDiskStore(dir, 1024);
+
+        assertArrayEquals("content".getBytes(), store.read("abc").orElseThrow());
+        assertEquals(7, store.stats().bytes());
+        assertFalse(Files.exists(dir.resolve("def123.tmp")));
+    }
+
+    @Test
+    void evictsLeastFrequentlyReadContent() throws Exception {
+        TemplateDiskStore store = new TemplateDiskStore(dir, 25);
+        store.write("frequent", new byte[10]);
+        store.read("frequent");
+        store.read("frequent");
+        store.write("rare", new byte[10]);
+        Files.setLastModifiedTime(dir.resolve("rare.odt"), FileTime.from(Instant.now().minusSeconds(60)));
+
+        store.write("new", new byte[10]);
+
+        assertTrue(store.read("frequent").isPresent());
+        assertTrue(store.read("new").isPresent());
+        assertTrue(store.read("rare").isEmpty());
+        assertEquals(20, store.stats().bytes());
+    }
+
+    @Test
+    void evictsAll() throws Exception {
+        TemplateDiskStore store = new TemplateDiskStore(dir, 1024);
+        store.write("a", new byte[10]);
+        store.write("b", new byte[10]);
+
+        store.evictAll();
+
+        assertEquals(0, store.stats().files());
+        assertEquals(0, store.stats().bytes());
+    }
+}
@@ -1,11 +1,26 @@
 package io.github.flaechsig.blocpress.render;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.flaechsig.blocpress.render.model.BundleRequest;
+import io.github.flaechsig.blocpress.render.model.RenderByNameRequest;
 import io.github.flaechsig.blocpress.render.model.RenderRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.ws.rs.core.Response;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
 
 import static io.github.flaechsig.blocpress.render.TestDocumentUtil.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -39,7 +54,21 @@ class TemplateResourceTest {
             }
             """;
 
+    private final ObjectMapper mapper = new ObjectMapper();
     private final RenderResource resource = new RenderResource();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        resource.conversionBatcher = new ConversionBatcher();
+        resource.pdfProfiles = new PdfProfiles(Map.of(), null, Map::of);
+        resource.renderDeadlines = new RenderDeadlines(Duration.ofMinutes(1), Map::of, new SimpleMeterRegistry());
+        resource.admissionControl = new AdmissionControl(4, 16, 4, 16);
+        resource.renderMemory = new RenderMemory(256L << 20, 1L << 30, new SimpleMeterRegistry());
+        resource.mergeWorkers = new MergeWorkerPool();
+        resource.renderMetrics = new RenderMetrics(registry);
+        resource.templateConfig = Map::of;
+    }
 
     @Test
     void mergeTemplateOdt() throws Exception {
@@ -113,6 +142,117 @@ class TemplateResourceTest {
                 "RTF text mismatch.\n--- Expected ---\n" + expectedText + "\n--- Actual ---\n" + actualText);
     }
 
+    @Test
+    void mergeTemplateText() throws Exception {
+        InputStream template = getClass().getResourceAsStream("/kuendigung.odt");
+        assertNotNull(template, "Template /kuendigung.odt not found on classpath");
+
+        File result = resource.renderDocumentMultipart("text/plain", template, VALID_JSON);
+
+        String text = normalizeText(Files.readString(result.toPath()));
+        assertTrue(text.contains("Handyversicherung Vertragsnummer HV123456789"), text);
+        assertTrue(text.contains("Testvorname Testnachname"), text);
+    }
+
+    @Test
+    void mergeTemplateHtml() throws Exception {
+        InputStream template = getClass().getResourceAsStream("/kuendigung.odt");
+        assertNotNull(template, "Template /kuendigung.odt not found on classpath");
+
+        File result = resource.renderDocumentMultipart("text/html", template, VALID_JSON);
+
+        String html = Files.readString(result.toPath());
+        assertTrue(html.startsWith("<!DOCTYPE html>"), html);
+        assertTrue(html.contains("Testnachname"), html);
+    }
+
+    /**
+     * @return a cache serving the template from the class path as version 1 of every name
+     */
+    private TemplateCache storedTemplate(String resourceName) throws IOException {
+        byte[] content = getClass().getResourceAsStream(resourceName).readAllBytes();
+        return new TemplateCache() {
+            @Override
+            Entry getTemplate(String templateName) {
+                return new Entry(templateName, UUID.randomUUID(), 1, "hash", content, null, new LongAdder());
+            }
+        };
+    }
+
+    @Test
+    void renderBundleReturnsOneEntryPerFormat() throws Exception {
+        resource.templateCache = storedTemplate("/kuendigung.odt");
+        Object data = mapper.readValue(VALID_JSON, Object.class);
+
+        BundleRequest request = new BundleRequest()
+                .data(data)
+                .outputTypes(new LinkedHashSet<>(List.of(
+                        BundleRequest.OutputTypesEnum.HTML, BundleRequest.OutputTypesEnum.TEXT)));
+
+        File result = resource.renderBundle("kuendigung", request);
+
+        byte[] zip = Files.readAllBytes(result.toPath());
+        assertTrue(readZipEntry(zip, "kuendigung.html").contains("Testnachname"));
+        assertTrue(readZipEntry(zip, "kuendigung.txt").contains("Testnachname"));
+        assertEquals(1, registry.timer(RenderMetrics.STAGE_METRIC,
+                "stage", "loops", "template", "kuendigung", "version", "1", "format", "bundle").count());
+        assertEquals(1, registry.timer(RenderMetrics.STAGE_METRIC,
+                "stage", "conversion", "template", "kuendigung", "version", "1", "format", "html").count());
+        assertEquals(1, registry.timer(RenderMetrics.LOOKUP_METRIC, "template", "kuendigung", "result", "hit").count());
+    }
+
+    @Test
+    void explainReturnsCostBreakdownAndServerTiming() throws Exception {
+        resource.templateCache = storedTemplate("/kuendigung.odt");
+        Object data = mapper.readValue(VALID_JSON, Object.class);
+        RenderByNameRequest request = new RenderByNameRequest()
+                .data(data)
+                .outputType(RenderByNameRequest.OutputTypeEnum.TEXT);
+
+        Response response = resource.explainDocumentByName("kuendigung", request);
+
+        assertEquals(200, response.getStatus());
+        JsonNode json = (JsonNode) response.getEntity();
+        assertTrue(json.at("/documentBytes").asLong() > 0);
+        assertTrue(json.at("/phases").has("fields") && json.at("/phases").has("conversion"), json.toString());
+        assertTrue(json.at("/fields").size() > 0, json.toString());
+        assertTrue(json.at("/fields/0/field").asText().contains("."), "fields are named by their data path");
+        String serverTiming = response.getHeaderString(RenderExplanation.SERVER_TIMING_HEADER);
+        assertTrue(serverTiming.matches("load;dur=\\d+\\.\\d{2}, .*, total;dur=\\d+\\.\\d{2}"), serverTiming);
+        assertEquals(1, registry.timer(RenderMetrics.STAGE_METRIC,
+                "stage", "fields", "template", "kuendigung", "version", "1", "format", "text").count(),
+                "explained renders are recorded like regular ones");
+    }
+
+    @Test
+    void explainByVersionAnswersWithPinnedVersion() throws Exception {
+        byte[] templateBytes = getClass().getResourceAsStream("/kuendigung.odt").readAllBytes();
+        UUID id = UUID.randomUUID();
+        resource.templateCache = new TemplateCache() {
+            @Override
+            public ProductionTemplate.Activation getActivationByVersion(String templateName, int version) {
+                return new ProductionTemplate.Activation(id, templateName, version, LocalDateTime.MIN, "hash");
+            }
+
+            @Override
+            Entry getTemplate(ProductionTemplate.Activation activation) {
+                return new Entry(activation.name(), activation.id(), activation.version(), "hash", templateBytes, null,
+                        new LongAdder());
+            }
+        };
+        RenderByNameRequest request = new RenderByNameRequest()
+                .data(mapper.readValue(VALID_JSON, Object.class))
+                .outputType(RenderByNameRequest.OutputTypeEnum.TEXT);
+
+        Response response = resource.explainDocumentByVersion("kuendigung", 2, request);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(id.toString(), response.getHeaderString(RenderResource.TEMPLATE_ID_HEADER));
+        assertEquals("2", response.getHeaderString(RenderResource.TEMPLATE_VERSION_HEADER));
+        assertTrue(((JsonNode) response.getEntity()).at("/phases").has("fields"));
+        assertNotNull(response.getHeaderString(RenderExplanation.SERVER_TIMING_HEADER));
+    }
+
     @Test
     void invalidAcceptHeaderThrows() {
         InputStream template = getClass().getResourceAsStream("/kuendigung_generated.odt");
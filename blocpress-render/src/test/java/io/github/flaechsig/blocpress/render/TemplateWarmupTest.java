@@ -0,0 +1,45 @@
+package io.github.flaechsig.blocpress.render;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TemplateWarmupTest {
+
+    @Test
+    void rendersTemplateWithSampleData() throws Exception {
+        byte[] template = getClass().getResourceAsStream("/kuendigung.odt").readAllBytes();
+        JsonNode data = new ObjectMapper().readTree("""
+                {"kunde": {"vorname": "Mini", "nachname": "Müller"}, "vertrag": {"sparte": "Handyvertrag"}}
+                """);
+
+        byte[] merge = new TemplateWarmup(2).render("kuendigung", template, data, Optional.empty());
+
+        assertNotNull(merge);
+        assertTrue(merge.length > 0);
+    }
+
+    @Test
+    void rendersTemplateWithoutSampleData() throws Exception {
+        byte[] template = getClass().getResourceAsStream("/kuendigung.odt").readAllBytes();
+
+        byte[] merge = new TemplateWarmup(1).render("kuendigung", template,
+                new ObjectMapper().createObjectNode(), Optional.empty());
+
+        assertNotNull(merge);
+    }
+
+    @Test
+    void trainsWithBundledTemplate() throws Exception {
+        assertDoesNotThrow(() -> new TemplateWarmup(1).train());
+    }
+
+    @Test
+    void notCompletedBeforeStart() {
+        assertFalse(new TemplateWarmup(1).completed());
+    }
+}
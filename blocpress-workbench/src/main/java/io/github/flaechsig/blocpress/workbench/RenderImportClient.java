@@ -1,5 +1,6 @@
 package io.github.flaechsig.blocpress.workbench;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
@@ -42,13 +43,14 @@ public interface RenderImportClient {
 
     /**
      * Request body for importing a template into production.
-     * All fields are required.
+     * All fields except sampleData are required.
      */
     record ImportRequest(
         UUID id,
         String name,
         Integer version,
         String contentBase64,    // Base64-encoded ODT binary
-        LocalDateTime validFrom  // Timestamp when template becomes active (may be null until APPROVED)
+        LocalDateTime validFrom, // Timestamp when template becomes active (may be null until APPROVED)
+        JsonNode sampleData      // Data record for render's warm-up at startup (optional)
     ) {}
 }
@@ -36,6 +36,7 @@ import java.net.http.HttpResponse;
 import java.nio.file.Files;
 import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.Base64;
 import java.util.List;
 import java.util.Map;
@@ -95,7 +96,9 @@ public class TemplateResource {
                     "version", template.version,
                     "isValid", validationResult.isValid(),
                     "errors", validationResult.errors(),
-                    "warnings", validationResult.warnings()
+                    "warnings", validationResult.warnings(),
+                    "fastPathCompatible", validationResult.fastPathCompatible(),
+                    "layoutStable", validationResult.layoutStable()
                 ))
                 .build();
     }
@@ -335,7 +338,7 @@ public class TemplateResource {
 
         // Set validFrom when transitioning to APPROVED
         if (request.newStatus() == TemplateStatus.APPROVED && template.validFrom == null) {
-            template.validFrom = LocalDateTime.now();
+            template.validFrom = LocalDateTime.now(ZoneOffset.UTC);
         }
 
         template.persist();
@@ -352,6 +355,10 @@ public class TemplateResource {
                 if (template.validFrom != null) {
                     deployJson.put("validFrom", template.validFrom.toString());
                 }
+                // Erster Testdatensatz dient render als Beispieldaten für den Warm-up beim Start
+                testDataSetService.listByTemplate(template.id).stream()
+                    .findFirst()
+                    .ifPresent(tds -> deployJson.set("sampleData", tds.testData));
 
                 String deployBody = objectMapper.writeValueAsString(deployJson);
 
@@ -475,7 +482,9 @@ public class TemplateResource {
             "status", template.status,
             "isValid", validationResult.isValid(),
             "errors", validationResult.errors(),
-            "warnings", validationResult.warnings()
+            "warnings", validationResult.warnings(),
+            "fastPathCompatible", validationResult.fastPathCompatible(),
+            "layoutStable", validationResult.layoutStable()
         )).build();
     }
 
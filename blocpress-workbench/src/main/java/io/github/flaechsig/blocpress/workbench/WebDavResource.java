@@ -15,6 +15,7 @@ import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Response;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
 
 /**
@@ -90,7 +91,7 @@ public class WebDavResource {
             template.type = type;
             template.status = TemplateStatus.DRAFT;
             template.version = 1;
-            template.validFrom = java.time.LocalDateTime.now();
+            template.validFrom = LocalDateTime.now(ZoneOffset.UTC);
             template.createdAt = java.time.LocalDateTime.now();
             template.content = content;
             template.persist();
@@ -23,6 +23,7 @@ import org.hibernate.type.SqlTypes;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -38,8 +39,11 @@ public class Template extends PanacheEntityBase {
     @Column(nullable = false)
     public String name;
 
+    /**
+     * Activation time in UTC, compared with the UTC time by blocpress-render.
+     */
     @Column(name = "valid_from", nullable = false)
-    public LocalDateTime validFrom = LocalDateTime.now();
+    public LocalDateTime validFrom = LocalDateTime.now(ZoneOffset.UTC);
 
     @Column(nullable = false)
     public Integer version = 1;
@@ -89,6 +93,6 @@ public class Template extends PanacheEntityBase {
      * Finds the latest active version of a template by name as of now.
      */
     public static Template findLatestActiveByName(String name) {
-        return findLatestActiveByName(name, LocalDateTime.now());
+        return findLatestActiveByName(name, LocalDateTime.now(ZoneOffset.UTC));
     }
 }
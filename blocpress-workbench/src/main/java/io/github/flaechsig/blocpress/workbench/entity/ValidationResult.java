@@ -33,12 +33,23 @@ import java.util.List;
  *     }
  *   }
  * }
+ *
+ * 'fastPathCompatible' tells whether the template only uses ODF features the pure-Java
+ * PDF renderer supports; otherwise PDF output is produced by LibreOffice.
+ * 'layoutStable' tells whether the layout is independent of the data, so the render
+ * service can pre-convert the template once and stamp field values (overlay mode).
  */
 public record ValidationResult(
     boolean isValid,
     JsonNode schema,  // JSON-Schema (https://json-schema.org/)
     List<ValidationMessage> errors,
-    List<ValidationMessage> warnings
+    List<ValidationMessage> warnings,
+    boolean fastPathCompatible,
+    boolean layoutStable
 ) {
+    public ValidationResult(boolean isValid, JsonNode schema, List<ValidationMessage> errors, List<ValidationMessage> warnings) {
+        this(isValid, schema, errors, warnings, false, false);
+    }
+
     public record ValidationMessage(String code, String message) {}
 }
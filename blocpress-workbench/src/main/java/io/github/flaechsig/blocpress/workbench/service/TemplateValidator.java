@@ -4,6 +4,8 @@ import io.github.flaechsig.blocpress.core.TemplateDocument;
 import io.github.flaechsig.blocpress.core.TemplateElement;
 import io.github.flaechsig.blocpress.core.odt.JexlConditionEvaluator;
 import io.github.flaechsig.blocpress.core.odt.OdtTemplateElement;
+import io.github.flaechsig.blocpress.core.pdf.FastPdfRenderer;
+import io.github.flaechsig.blocpress.core.pdf.PdfOverlay;
 import io.github.flaechsig.blocpress.workbench.entity.ValidationResult;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -31,7 +33,8 @@ import java.util.regex.Pattern;
  * 2. Identify repetition groups (arrays)
  * 3. Generate JSON-Schema from fields + arrays
  * 4. Validate field names and JEXL conditions
- * 5. Return ValidationResult with schema
+ * 5. Classify the template for the fast-path PDF renderer and the overlay mode
+ * 6. Return ValidationResult with schema
  */
 @ApplicationScoped
 public class TemplateValidator {
@@ -52,6 +55,8 @@ public class TemplateValidator {
         List<String> arrayPaths = new ArrayList<>();
         Map<String, String> fieldValues = new HashMap<>();  // fieldName -> text content value
         JsonNode schema = null;
+        boolean fastPathCompatible = false;
+        boolean layoutStable = false;
 
         Path tempFile = null;
         try {
@@ -163,6 +168,17 @@ public class TemplateValidator {
                 }
             }
 
+            // Step 6: Classify for fast-path PDF rendering (unsupported features fall back to LibreOffice)
+            List<String> unsupportedFeatures = FastPdfRenderer.unsupportedFeatures(templateContent);
+            fastPathCompatible = unsupportedFeatures.isEmpty();
+            if (!fastPathCompatible) {
+                warnings.add(new ValidationResult.ValidationMessage(
+                    "FAST_PATH_UNSUPPORTED",
+                    "PDF output requires LibreOffice: " + String.join(", ", unsupportedFeatures)
+                ));
+            }
+            layoutStable = PdfOverlay.layoutStabilityIssues(templateUrl).isEmpty();
+
         } catch (Exception e) {
             errors.add(new ValidationResult.ValidationMessage(
                 "INVALID_ODT_STRUCTURE",
@@ -193,7 +209,9 @@ public class TemplateValidator {
             isValid,
             schema,
             errors,
-            warnings
+            warnings,
+            fastPathCompatible,
+            layoutStable
         );
     }
 
@@ -12,9 +12,24 @@ CREATE TABLE IF NOT EXISTS template (
     valid_from TIMESTAMP NOT NULL,
     version INTEGER NOT NULL DEFAULT 1,
     content BYTEA NOT NULL,
+    content_hash VARCHAR(64) NOT NULL,
+    overlay JSONB,
+    sample_data JSONB,
     UNIQUE(name, valid_from, version)
 );
 
+-- Overlay mode (pre-converted PDF + field positions), added after the initial schema
+ALTER TABLE template ADD COLUMN IF NOT EXISTS overlay JSONB;
+
+-- Sample data for the warm-up renders at startup, added after the initial schema
+ALTER TABLE template ADD COLUMN IF NOT EXISTS sample_data JSONB;
+
+-- SHA-256 of the content (hex), set at import so the cache refresh does not hash the content,
+-- added after the initial schema
+ALTER TABLE template ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64);
+UPDATE template SET content_hash = encode(sha256(content), 'hex') WHERE content_hash IS NULL;
+ALTER TABLE template ALTER COLUMN content_hash SET NOT NULL;
+
 -- Performance indices
 CREATE INDEX IF NOT EXISTS idx_template_name ON template(name);
 CREATE INDEX IF NOT EXISTS idx_template_valid_from ON template(valid_from DESC);